@@ -18,9 +18,11 @@ package org.hawkular.accounts.backend.boundary;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import javax.annotation.security.PermitAll;
+import javax.ejb.EJBException;
 import javax.ejb.Stateless;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
@@ -33,13 +35,17 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
 
 import org.hawkular.accounts.api.CurrentUser;
 import org.hawkular.accounts.api.NamedOperation;
 import org.hawkular.accounts.api.OrganizationJoinRequestService;
 import org.hawkular.accounts.api.OrganizationService;
+import org.hawkular.accounts.api.Page;
 import org.hawkular.accounts.api.PermissionChecker;
 import org.hawkular.accounts.api.PersonaService;
 import org.hawkular.accounts.api.ResourceService;
@@ -50,6 +56,7 @@ import org.hawkular.accounts.api.model.Persona;
 import org.hawkular.accounts.api.model.Resource;
 import org.hawkular.accounts.api.model.Visibility;
 import org.hawkular.accounts.backend.control.MsgLogger;
+import org.hawkular.accounts.backend.control.Pagination;
 import org.hawkular.accounts.backend.entity.rest.ErrorResponse;
 import org.hawkular.accounts.backend.entity.rest.OrganizationRequest;
 import org.hawkular.accounts.backend.entity.rest.OrganizationTransferRequest;
@@ -121,9 +128,12 @@ public class OrganizationEndpoint {
         List<Organization> organizations = organizationService.getOrganizationsForPersona(persona);
         logger.numberOfOrganizationsForPersona(persona.getId(), organizations.size());
 
+        List<String> organizationIds = organizations.stream().map(Organization::getId).collect(Collectors.toList());
+        Map<String, Boolean> allowed = permissionChecker.isAllowedTo(operationRead, organizationIds, persona);
+
         List<Organization> filteredOrganizations = organizations
                 .stream()
-                .filter(o -> permissionChecker.isAllowedTo(operationRead, o.getId(), persona))
+                .filter(o -> allowed.get(o.getId()))
                 .collect(Collectors.toList());
         logger.filteredOrganizationsWithReadPermission(persona.getId(), organizations.size());
 
@@ -132,14 +142,43 @@ public class OrganizationEndpoint {
 
     /**
      * Retrieves all organizations to which this {@link org.hawkular.accounts.api.model.HawkularUser} can apply to join.
+     * If either the {@code limit} or the {@code cursor} is specified, only one page is returned, with a {@code Link}
+     * header pointing to the next page, if there's one.
      *
+     * @param limit   the maximum number of organizations to return, optional
+     * @param cursor  the cursor for the page, as returned on the {@code Link} header of the previous page, optional
+     * @param uriInfo the information about the current request
      * @return a {@link javax.ws.rs.core.Response} whose entity is a {@link java.util.List} of
      * {@link org.hawkular.accounts.api.model.Organization}
      */
     @GET
     @Path("/join")
-    public Response getOrganizationsToJoin() {
+    public Response getOrganizationsToJoin(@QueryParam(Pagination.LIMIT) Integer limit,
+                                           @QueryParam(Pagination.CURSOR) String cursor,
+                                           @Context UriInfo uriInfo) {
         Persona persona = personaInstance.get();
+        if (Pagination.isPaged(limit, cursor)) {
+            String error = Pagination.getError(limit, cursor);
+            if (null != error) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse(error)).build();
+            }
+
+            int pageLimit = Pagination.getLimit(limit);
+            Page<Organization> page;
+            try {
+                page = organizationService.getFilteredOrganizationsToJoin(persona, pageLimit,
+                        Pagination.getCursor(cursor));
+            } catch (EJBException e) {
+                if (!Pagination.isInvalidParameter(e)) {
+                    throw e;
+                }
+                String message = e.getCausedByException().getMessage();
+                return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse(message)).build();
+            }
+            logger.filteredOrganizationsToJoin(persona.getId(), page.getItems().size());
+            return Pagination.ok(page, pageLimit, uriInfo);
+        }
+
         // we'll subtract these from the list of possible organizations to join
         List<Organization> organizationsToJoin = organizationService.getFilteredOrganizationsToJoin(persona);
         logger.filteredOrganizationsToJoin(persona.getId(), organizationsToJoin.size());
@@ -19,6 +19,7 @@ package org.hawkular.accounts.backend.boundary;
 import java.util.List;
 
 import javax.annotation.security.PermitAll;
+import javax.ejb.EJBException;
 import javax.ejb.Stateless;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
@@ -30,12 +31,15 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
 
 import org.hawkular.accounts.api.NamedOperation;
 import org.hawkular.accounts.api.OrganizationMembershipService;
 import org.hawkular.accounts.api.OrganizationService;
+import org.hawkular.accounts.api.Page;
 import org.hawkular.accounts.api.PermissionChecker;
 import org.hawkular.accounts.api.RoleService;
 import org.hawkular.accounts.api.model.Operation;
@@ -44,6 +48,7 @@ import org.hawkular.accounts.api.model.OrganizationMembership;
 import org.hawkular.accounts.api.model.Persona;
 import org.hawkular.accounts.api.model.Role;
 import org.hawkular.accounts.backend.control.MsgLogger;
+import org.hawkular.accounts.backend.control.Pagination;
 import org.hawkular.accounts.backend.entity.rest.ErrorResponse;
 import org.hawkular.accounts.backend.entity.rest.OrganizationMembershipUpdateRequest;
 
@@ -116,7 +121,10 @@ public class OrganizationMembershipEndpoint {
     }
 
     @GET
-    public Response getOrganizationMembershipsForOrganization(@QueryParam("organizationId") String organizationId) {
+    public Response getOrganizationMembershipsForOrganization(@QueryParam("organizationId") String organizationId,
+                                                              @QueryParam(Pagination.LIMIT) Integer limit,
+                                                              @QueryParam(Pagination.CURSOR) String cursor,
+                                                              @Context UriInfo uriInfo) {
         if (null == organizationId || organizationId.isEmpty()) {
             logger.missingOrganization();
             String message = "The given organization is invalid (null).";
@@ -140,6 +148,28 @@ public class OrganizationMembershipEndpoint {
             return Response.status(Response.Status.NOT_FOUND).entity(new ErrorResponse(message)).build();
         }
 
+        if (Pagination.isPaged(limit, cursor)) {
+            String error = Pagination.getError(limit, cursor);
+            if (null != error) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse(error)).build();
+            }
+
+            int pageLimit = Pagination.getLimit(limit);
+            Page<OrganizationMembership> page;
+            try {
+                page = membershipService.getMembershipsForOrganization(organization, pageLimit,
+                        Pagination.getCursor(cursor));
+            } catch (EJBException e) {
+                if (!Pagination.isInvalidParameter(e)) {
+                    throw e;
+                }
+                String message = e.getCausedByException().getMessage();
+                return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse(message)).build();
+            }
+            logger.numberOfMembershipsForOrganization(organizationId, page.getItems().size());
+            return Pagination.ok(page, pageLimit, uriInfo);
+        }
+
         List<OrganizationMembership> memberships = membershipService.getMembershipsForOrganization(organization);
         logger.numberOfMembershipsForOrganization(organizationId, memberships.size());
         return Response.ok().entity(memberships).build();
@@ -16,12 +16,23 @@
  */
 package org.hawkular.accounts.backend.boundary;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
@@ -36,6 +47,7 @@ import org.hawkular.accounts.api.model.Persona;
 import org.hawkular.accounts.api.model.Resource;
 import org.hawkular.accounts.backend.control.MsgLogger;
 import org.hawkular.accounts.backend.entity.rest.ErrorResponse;
+import org.hawkular.accounts.backend.entity.rest.PermissionRequest;
 import org.hawkular.accounts.backend.entity.rest.PermissionResponse;
 
 /**
@@ -47,6 +59,11 @@ import org.hawkular.accounts.backend.entity.rest.PermissionResponse;
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
 public class PermissionEndpoint {
+    /**
+     * The maximum number of entries accepted on a single batch permission check.
+     */
+    static final int MAX_BATCH_SIZE = 1000;
+
     MsgLogger logger = MsgLogger.LOGGER;
 
     @Inject
@@ -98,4 +115,73 @@ public class PermissionEndpoint {
         return Response.ok(response).build();
     }
 
+    /**
+     * Checks a batch of (operation, resource) pairs for the current persona in one request. Each distinct operation is
+     * resolved only once and the resources for each operation are checked in bulk. Operations or resources that do
+     * not exist are reported as not permitted, instead of failing the whole batch.
+     *
+     * @param requests the pairs to check
+     * @return a {@link javax.ws.rs.core.Response} whose entity is a {@link java.util.List} of
+     * {@link PermissionResponse}, in the same order as the requests
+     */
+    @POST
+    @Path("/batch")
+    public Response isAllowedTo(List<PermissionRequest> requests) {
+        if (null == requests || requests.isEmpty()) {
+            String message = "The batch of permissions to check is invalid (null or empty).";
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse(message)).build();
+        }
+
+        if (requests.size() > MAX_BATCH_SIZE) {
+            String message = "The batch of permissions to check is too big (max: " + MAX_BATCH_SIZE + ").";
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse(message)).build();
+        }
+
+        // group the resources per operation, so that each operation is resolved and checked only once
+        Map<String, Set<String>> resourcesPerOperation = new LinkedHashMap<>();
+        for (PermissionRequest request : requests) {
+            if (null == request || null == request.getResourceId()) {
+                logger.missingResource();
+                String message = "The given resource ID is invalid (null).";
+                return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse(message)).build();
+            }
+
+            if (null == request.getOperation() || request.getOperation().isEmpty()) {
+                logger.missingOperation();
+                String message = "The given operation name is invalid (null or empty).";
+                return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse(message)).build();
+            }
+
+            resourcesPerOperation
+                    .computeIfAbsent(request.getOperation(), o -> new LinkedHashSet<>())
+                    .add(request.getResourceId());
+        }
+
+        Persona persona = personaInstance.get();
+        logger.batchPermissionCheck(persona.getId(), requests.size(), resourcesPerOperation.size());
+
+        Map<String, CompletableFuture<Map<String, Boolean>>> decisionsPerOperation = new HashMap<>();
+        resourcesPerOperation.forEach((operationName, resourceIds) -> {
+            Operation operation = operationService.getByName(operationName);
+            if (null == operation) {
+                logger.operationNotFound(operationName);
+                decisionsPerOperation.put(operationName, CompletableFuture.completedFuture(Collections.emptyMap()));
+                return;
+            }
+            decisionsPerOperation.put(operationName,
+                    permissionChecker.isAllowedToAsync(operation, resourceIds, persona).toCompletableFuture());
+        });
+
+        List<PermissionResponse> responses = new ArrayList<>(requests.size());
+        for (PermissionRequest request : requests) {
+            Map<String, Boolean> decisions = decisionsPerOperation.get(request.getOperation()).join();
+            boolean isAllowedTo = decisions.getOrDefault(request.getResourceId(), false);
+            logger.permissionResponsePrepared(request.getOperation(), request.getResourceId(), persona.getId(),
+                    isAllowedTo);
+            responses.add(new PermissionResponse(isAllowedTo));
+        }
+
+        return Response.ok(responses).build();
+    }
+
 }
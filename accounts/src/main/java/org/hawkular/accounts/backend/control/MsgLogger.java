@@ -315,4 +315,8 @@ public interface MsgLogger {
     @Message(id = 110070, value = "An invitation event was created without event.")
     void invitationEventWithoutInvitation();
 
+    @LogMessage(level = Logger.Level.TRACE)
+    @Message(id = 110071, value = "Batch permission check for persona [%s] with [%d] entries, [%d] operations.")
+    void batchPermissionCheck(String personaId, int numEntries, int numOperations);
+
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.backend.control;
+
+import java.net.URI;
+
+import javax.ejb.EJBException;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.hawkular.accounts.api.Page;
+
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.exceptions.PagingStateException;
+
+/**
+ * Helper for the endpoints that are able to return their results in pages. The page itself is returned as the
+ * entity of the response, while the location of the next page, if any, is returned as a {@code Link} header with the
+ * relation {@code next}, following RFC 5988.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+public final class Pagination {
+    public static final String LIMIT = "limit";
+    public static final String CURSOR = "cursor";
+
+    private Pagination() {
+    }
+
+    /**
+     * Determines whether the request asked for a page, instead of the full list.
+     *
+     * @param limit     the value of the {@code limit} query parameter, possibly null
+     * @param cursor    the value of the {@code cursor} query parameter, possibly null
+     * @return true if any of the parameters has been specified
+     */
+    public static boolean isPaged(Integer limit, String cursor) {
+        return null != limit || (null != cursor && !cursor.isEmpty());
+    }
+
+    /**
+     * Checks the paging parameters before they reach the services: the exceptions thrown by the EJBs are wrapped by
+     * the container and would reach the client as server errors.
+     *
+     * @param limit     the value of the {@code limit} query parameter, possibly null
+     * @param cursor    the value of the {@code cursor} query parameter, possibly null
+     * @return a message describing the invalid parameter, or null if both are valid
+     */
+    public static String getError(Integer limit, String cursor) {
+        int pageLimit = getLimit(limit);
+        if (pageLimit < 1 || pageLimit > Page.MAX_LIMIT) {
+            return "The page limit should be between 1 and " + Page.MAX_LIMIT + ".";
+        }
+
+        String pageCursor = getCursor(cursor);
+        if (null != pageCursor) {
+            try {
+                PagingState.fromString(pageCursor);
+            } catch (PagingStateException e) {
+                return "The given cursor is invalid.";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines whether the given exception has been thrown by a service because of invalid paging parameters, like
+     * a well-formed cursor that belongs to another query.
+     *
+     * @param e    the exception thrown by the EJB container
+     * @return true if the cause is an {@link IllegalArgumentException}
+     */
+    public static boolean isInvalidParameter(EJBException e) {
+        return e.getCausedByException() instanceof IllegalArgumentException;
+    }
+
+    /**
+     * @param limit the value of the {@code limit} query parameter, possibly null
+     * @return the given limit, or {@link Page#DEFAULT_LIMIT} if none has been specified
+     */
+    public static int getLimit(Integer limit) {
+        return null == limit ? Page.DEFAULT_LIMIT : limit;
+    }
+
+    /**
+     * @param cursor the value of the {@code cursor} query parameter, possibly null or empty
+     * @return the given cursor, or null if none has been specified
+     */
+    public static String getCursor(String cursor) {
+        return null == cursor || cursor.isEmpty() ? null : cursor;
+    }
+
+    /**
+     * Builds a successful response for the given page, adding a {@code Link} header pointing to the next page, if
+     * there's one.
+     *
+     * @param page      the page to return
+     * @param limit     the limit that has been used to retrieve the page
+     * @param uriInfo   the information about the current request, used to build the link to the next page
+     * @return the response with the items from the page as entity
+     */
+    public static Response ok(Page<?> page, int limit, UriInfo uriInfo) {
+        Response.ResponseBuilder builder = Response.ok().entity(page.getItems());
+        if (page.hasNext()) {
+            URI next = uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam(CURSOR, page.getNextCursor())
+                    .replaceQueryParam(LIMIT, limit)
+                    .build();
+            builder.links(Link.fromUri(next).rel("next").build());
+        }
+        return builder.build();
+    }
+}
@@ -18,6 +18,7 @@ package org.hawkular.accounts.api;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 import org.hawkular.accounts.api.model.Organization;
 import org.hawkular.accounts.api.model.OrganizationMembership;
@@ -52,6 +53,14 @@ public interface OrganizationMembershipService {
      */
     List<OrganizationMembership> getMembershipsForPersona(Persona persona);
 
+    /**
+     * Asynchronous version of {@link #getMembershipsForPersona(Persona)}.
+     *
+     * @param persona    the persona
+     * @return a stage that completes with the memberships of this persona across all organizations
+     */
+    CompletionStage<List<OrganizationMembership>> getMembershipsForPersonaAsync(Persona persona);
+
     /**
      * Retrieves the memberships for a given Organization.
      *
@@ -60,6 +69,17 @@ public interface OrganizationMembershipService {
      */
     List<OrganizationMembership> getMembershipsForOrganization(Organization organization);
 
+    /**
+     * Paged version of {@link #getMembershipsForOrganization(Organization)}.
+     *
+     * @param organization the organization
+     * @param limit        the maximum number of memberships on the page
+     * @param cursor       the cursor from the previous page, or null for the first page
+     * @return a page with the memberships of the organization
+     * @throws IllegalArgumentException if the limit is out of range or if the cursor is invalid
+     */
+    Page<OrganizationMembership> getMembershipsForOrganization(Organization organization, int limit, String cursor);
+
     /**
      * Retrieves the memberships for a given Organization.
      *
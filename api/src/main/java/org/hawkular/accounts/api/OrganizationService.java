@@ -16,8 +16,10 @@
  */
 package org.hawkular.accounts.api;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 import org.hawkular.accounts.api.model.Organization;
 import org.hawkular.accounts.api.model.OrganizationMembership;
@@ -49,6 +51,19 @@ public interface OrganizationService {
      */
     List<Organization> getFilteredOrganizationsToJoin(Persona persona);
 
+    /**
+     * Paged version of {@link #getFilteredOrganizationsToJoin(Persona)}. As the filtering happens after the page is
+     * retrieved, a page might contain less organizations than the given limit, even if it's not the last page.
+     *
+     * @param persona    the persona that wants to join organizations
+     * @param limit      the maximum number of organizations on the page
+     * @param cursor     the cursor from the previous page, or null for the first page
+     * @return a page of non-private organizations, except for organizations the persona already belongs or already
+     * applied.
+     * @throws IllegalArgumentException if the limit is out of range or if the cursor is invalid
+     */
+    Page<Organization> getFilteredOrganizationsToJoin(Persona persona, int limit, String cursor);
+
     /**
      * Retrieves *all* organizations that are possible to get a join request. In other words: returns all non-private
      * organizations.
@@ -58,6 +73,16 @@ public interface OrganizationService {
      */
     List<Organization> getOrganizationsToJoin();
 
+    /**
+     * Paged version of {@link #getOrganizationsToJoin()}.
+     *
+     * @param limit     the maximum number of organizations on the page
+     * @param cursor    the cursor from the previous page, or null for the first page
+     * @return a page of non-private organizations
+     * @throws IllegalArgumentException if the limit is out of range or if the cursor is invalid
+     */
+    Page<Organization> getOrganizationsToJoin(int limit, String cursor);
+
     /**
      * Retrieves the Organizations to which a given Persona directly is member/owner of.
      * <br/>
@@ -124,6 +149,35 @@ public interface OrganizationService {
      */
     Organization getById(UUID id);
 
+    /**
+     * Retrieves the {@link Organization}s with the given IDs, using as few round trips to the data store as possible.
+     *
+     * @param ids    the organizations' IDs
+     * @return the existing {@link Organization}s, in the same order as the given IDs
+     * @throws IllegalArgumentException if the given collection is null
+     */
+    List<Organization> getByIds(Collection<UUID> ids);
+
+    /**
+     * Asynchronous version of {@link #getByIds(Collection)}, which doesn't block the caller while the organizations
+     * are retrieved.
+     *
+     * @param ids    the organizations' IDs
+     * @return a stage that completes with the existing {@link Organization}s, in the same order as the given IDs
+     * @throws IllegalArgumentException if the given collection is null
+     */
+    CompletionStage<List<Organization>> getByIdsAsync(Collection<UUID> ids);
+
+    /**
+     * Asynchronous version of {@link #getById(UUID)}, which doesn't block the caller while the organization is
+     * retrieved.
+     *
+     * @param id             the organization's ID
+     * @return a stage that completes with the existing {@link Organization}, or with null if it doesn't exist
+     * @throws IllegalArgumentException if the given ID is null
+     */
+    CompletionStage<Organization> getByIdAsync(UUID id);
+
     /**
      * Retrieves an {@link Organization} based on its name.
      *
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents one page of a list of records. The cursor for the next page is opaque to the consumers, and should be
+ * given back to the same service method to retrieve the next page.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+public class Page<T> {
+    /**
+     * The number of records on a page when the consumer doesn't specify one.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * The maximum number of records that a consumer can request per page.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return the records for this page
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the cursor for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return whether there are more pages after this one
+     */
+    public boolean hasNext() {
+        return null != nextCursor;
+    }
+}
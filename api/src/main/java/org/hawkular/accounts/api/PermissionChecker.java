@@ -16,6 +16,10 @@
  */
 package org.hawkular.accounts.api;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
 import org.hawkular.accounts.api.model.Operation;
 import org.hawkular.accounts.api.model.Persona;
 import org.hawkular.accounts.api.model.Resource;
@@ -44,6 +48,18 @@ public interface PermissionChecker {
      */
     boolean isAllowedTo(Operation operation, Resource resource, Persona persona);
 
+    /**
+     * Asynchronous version of {@link #isAllowedTo(Operation, Resource, Persona)}, which doesn't block the caller
+     * while the permission is checked.
+     * @param operation    the operation that is to be performed. Example: "create-metric".
+     * @param resource     the resource onto which the operation is to be performed. Example: "cpu-usage".
+     * @param persona      the persona that is about to perform the operation. Example: "jdoe".
+     * @return a stage that completes with true if the given persona is allowed to perform the operation on the
+     * resource.
+     * @throws IllegalArgumentException if any of the parameters is null
+     */
+    CompletionStage<Boolean> isAllowedToAsync(Operation operation, Resource resource, Persona persona);
+
     /**
      * Checks whether the given {@link Persona} has access to perform {@link Operation} on the given {@link Resource}.
      * Resource here is referenced by its ID.
@@ -57,6 +73,45 @@ public interface PermissionChecker {
      */
     boolean isAllowedTo(Operation operation, String resourceId, Persona persona);
 
+    /**
+     * Asynchronous version of {@link #isAllowedTo(Operation, String, Persona)}.
+     * @param operation    the operation that is to be performed. Example: "create-metric".
+     * @param resourceId   the ID for the resource onto which the operation is to be performed. Example: "cpu-usage".
+     * @param persona      the persona that is about to perform the operation. Example: "jdoe".
+     * @return a stage that completes with true if the given persona is allowed to perform the operation on the
+     * resource.
+     * @see #isAllowedToAsync(Operation, Resource, Persona)
+     * @throws IllegalArgumentException if any of the parameters is null or if the resourceId doesn't references an
+     * existing resource.
+     */
+    CompletionStage<Boolean> isAllowedToAsync(Operation operation, String resourceId, Persona persona);
+
+    /**
+     * Checks whether the given {@link Persona} has access to perform {@link Operation} on each of the given resources.
+     * This is cheaper than calling {@link #isAllowedTo(Operation, String, Persona)} for each resource, as the
+     * resources are read in bulk and the permitted roles and memberships are determined only once for the batch.
+     * @param operation      the operation that is to be performed. Example: "create-metric".
+     * @param resourceIds    the IDs for the resources onto which the operation is to be performed.
+     * @param persona        the persona that is about to perform the operation. Example: "jdoe".
+     * @return a map from each resource ID to the outcome of the check, in the same order as the given IDs. IDs that
+     * do not reference an existing resource are mapped to false.
+     * @throws IllegalArgumentException if any of the parameters is null
+     */
+    Map<String, Boolean> isAllowedTo(Operation operation, Collection<String> resourceIds, Persona persona);
+
+    /**
+     * Asynchronous version of {@link #isAllowedTo(Operation, Collection, Persona)}.
+     * @param operation      the operation that is to be performed. Example: "create-metric".
+     * @param resourceIds    the IDs for the resources onto which the operation is to be performed.
+     * @param persona        the persona that is about to perform the operation. Example: "jdoe".
+     * @return a stage that completes with a map from each resource ID to the outcome of the check
+     * @see #isAllowedTo(Operation, Collection, Persona)
+     * @throws IllegalArgumentException if any of the parameters is null
+     */
+    CompletionStage<Map<String, Boolean>> isAllowedToAsync(Operation operation,
+                                                           Collection<String> resourceIds,
+                                                           Persona persona);
+
     /**
      * Checks whether the current {@link Persona} has access to perform {@link Operation} on the given {@link Resource}.
      * @param operation    the operation that is to be performed. Example: "create-metric".
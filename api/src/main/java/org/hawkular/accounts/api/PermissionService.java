@@ -18,6 +18,7 @@ package org.hawkular.accounts.api;
 
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 import org.hawkular.accounts.api.model.Operation;
 import org.hawkular.accounts.api.model.Permission;
@@ -44,6 +45,14 @@ public interface PermissionService {
      */
     Set<Role> getPermittedRoles(Operation operation);
 
+    /**
+     * Asynchronous version of {@link #getPermittedRoles(Operation)}.
+     *
+     * @param operation    the operation
+     * @return a stage that completes with the roles that have permission to perform the given operation
+     */
+    CompletionStage<Set<Role>> getPermittedRolesAsync(Operation operation);
+
     /**
      * Provides a list of Permissions that exists for the given operation
      * @param operation    the operation
@@ -18,6 +18,7 @@ package org.hawkular.accounts.api;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 import org.hawkular.accounts.api.model.Persona;
 import org.hawkular.accounts.api.model.PersonaResourceRole;
@@ -58,6 +59,14 @@ public interface PersonaResourceRoleService {
      */
     List<PersonaResourceRole> getByPersonaAndResource(Persona persona, Resource resource);
 
+    /**
+     * Asynchronous version of {@link #getByPersonaAndResource(Persona, Resource)}.
+     * @param persona     the persona
+     * @param resource    the resource
+     * @return a stage that completes with all roles for the combination of persona and resource
+     */
+    CompletionStage<List<PersonaResourceRole>> getByPersonaAndResourceAsync(Persona persona, Resource resource);
+
     /**
      * Creates a new relation based on the given parameters.
      * @param persona     the persona
@@ -67,6 +76,15 @@ public interface PersonaResourceRoleService {
      */
     PersonaResourceRole create(Persona persona, Resource resource, Role role);
 
+    /**
+     * Asynchronous version of {@link #create(Persona, Resource, Role)}.
+     * @param persona     the persona
+     * @param resource    the resource
+     * @param role        the role of the persona on the role
+     * @return a stage that completes with the newly created relation, once it's stored
+     */
+    CompletionStage<PersonaResourceRole> createAsync(Persona persona, Resource resource, Role role);
+
     /**
      * Removes the relation with the given ID from the storage.
      * @param id    the ID of the relation
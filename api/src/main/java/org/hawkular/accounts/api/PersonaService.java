@@ -16,8 +16,12 @@
  */
 package org.hawkular.accounts.api;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 import org.hawkular.accounts.api.model.HawkularUser;
 import org.hawkular.accounts.api.model.Persona;
@@ -54,6 +58,22 @@ public interface PersonaService {
      */
     Persona getById(UUID id);
 
+    /**
+     * Retrieves the {@link Persona}s with the given IDs, using as few round trips to the data store as possible.
+     * @param ids    the personas' IDs
+     * @return the existing personas, in the same order as the given IDs
+     * @throws IllegalArgumentException if the given collection is null
+     */
+    List<Persona> getByIds(Collection<UUID> ids);
+
+    /**
+     * Asynchronous version of {@link #getById(UUID)}, which doesn't block the caller while the persona is retrieved.
+     * @param id    the persona's ID
+     * @return a stage that completes with the persona, or with null if there are no persona under this ID.
+     * @throws IllegalArgumentException if the ID is null
+     */
+    CompletionStage<Persona> getByIdAsync(UUID id);
+
     /**
      * Retrieves the effective role of a Persona on a given Resource. If the Persona has no direct roles on the given
      * resource, then the organizations to which this persona is checked. A combined list of roles is returned.
@@ -73,6 +93,28 @@ public interface PersonaService {
      */
     Set<Role> getEffectiveRolesForResource(Persona persona, Resource resource);
 
+    /**
+     * Asynchronous version of {@link #getEffectiveRolesForResource(Persona, Resource)}. The roles that a persona
+     * gets via each of its organizations are determined concurrently.
+     *
+     * @param persona     the persona
+     * @param resource    the resource
+     * @return a stage that completes with the effective roles that the persona has on the resource
+     */
+    CompletionStage<Set<Role>> getEffectiveRolesForResourceAsync(Persona persona, Resource resource);
+
+    /**
+     * Determines the effective roles that a persona has on each of the given resources, following the same rules as
+     * {@link #getEffectiveRolesForResource(Persona, Resource)}. The memberships of the persona (and of its
+     * organizations) are read only once for the whole batch, and the resources are processed concurrently.
+     *
+     * @param persona      the persona
+     * @param resources    the resources
+     * @return a stage that completes with a map from each resource's ID to the effective roles on it
+     */
+    CompletionStage<Map<UUID, Set<Role>>> getEffectiveRolesForResourcesAsync(Persona persona,
+                                                                            Collection<Resource> resources);
+
     /**
      * Retrieves the current {@link Persona} for this request.
      * @return the current persona.
@@ -16,8 +16,11 @@
  */
 package org.hawkular.accounts.api;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 import org.hawkular.accounts.api.model.Persona;
 import org.hawkular.accounts.api.model.PersonaResourceRole;
@@ -52,6 +55,16 @@ public interface ResourceService {
     @Deprecated
     Resource get(String id);
 
+    /**
+     * Retrieves the resources for the given IDs, reading them all at once. The IDs are handled like on
+     * {@link #get(String)}: IDs that don't look like an UUID are converted into a name-based UUID.
+     *
+     * @param ids the resources' IDs
+     * @return a map from each given ID to its existing {@link Resource}. IDs without a resource are not included.
+     * @throws IllegalArgumentException if the given collection is null
+     */
+    Map<String, Resource> get(Collection<String> ids);
+
     /**
      * Retrieves a {@link Resource} based on its ID.
      *
@@ -61,6 +74,54 @@ public interface ResourceService {
      */
     Resource getById(UUID id);
 
+    /**
+     * Retrieves the {@link Resource}s with the given IDs, using as few round trips to the data store as possible.
+     *
+     * @param ids the resources' IDs
+     * @return the existing {@link Resource}s, in the same order as the given IDs
+     * @throws IllegalArgumentException if the given collection is null
+     */
+    List<Resource> getByIds(Collection<UUID> ids);
+
+    /**
+     * Asynchronous version of {@link #getByIds(Collection)}, which doesn't block the caller while the resources are
+     * retrieved.
+     *
+     * @param ids the resources' IDs
+     * @return a stage that completes with the existing {@link Resource}s, in the same order as the given IDs
+     * @throws IllegalArgumentException if the given collection is null
+     */
+    CompletionStage<List<Resource>> getByIdsAsync(Collection<UUID> ids);
+
+    /**
+     * Asynchronous version of {@link #getById(UUID)}, which doesn't block the caller while the resource is retrieved.
+     *
+     * @param id the resource's ID
+     * @return a stage that completes with the existing {@link Resource}, or with null if it doesn't exist
+     * @throws IllegalArgumentException if the given ID is null
+     */
+    CompletionStage<Resource> getByIdAsync(UUID id);
+
+    /**
+     * Retrieves the {@link Resource} that determines the ownership of the given resource: the resource itself, if it
+     * has an owner, or its nearest ancestor that has one. The ancestors of each resource are indexed when the
+     * resource is created, so, this takes the same number of queries no matter how deep the resource is.
+     *
+     * @param resource the resource
+     * @return the owning {@link Resource}
+     * @throws IllegalArgumentException if the given resource is null
+     */
+    Resource getOwningResource(Resource resource);
+
+    /**
+     * Asynchronous version of {@link #getOwningResource(Resource)}.
+     *
+     * @param resource the resource
+     * @return a stage that completes with the owning {@link Resource}
+     * @throws IllegalArgumentException if the given resource is null
+     */
+    CompletionStage<Resource> getOwningResourceAsync(Resource resource);
+
     /**
      * Creates a {@link Resource} based on its ID, owned by the specified {@link Persona}
      *
@@ -108,6 +169,16 @@ public interface ResourceService {
      */
     List<Resource> getByPersona(Persona persona);
 
+    /**
+     * Paged version of {@link #getByPersona(Persona)}.
+     * @param persona   the persona that owns the resources
+     * @param limit     the maximum number of resources on the page
+     * @param cursor    the cursor from the previous page, or null for the first page
+     * @return  a page with the resources owned by the persona
+     * @throws IllegalArgumentException if the limit is out of range or if the cursor is invalid
+     */
+    Page<Resource> getByPersona(Persona persona, int limit, String cursor);
+
     /**
      * Transfers the resource to the given persona. Note that the previous owner might still have individual
      * permissions on the resource, so, consider also calling {@link #revokeAllForPersona(Resource, Persona)} if it's
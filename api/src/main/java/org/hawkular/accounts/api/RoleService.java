@@ -16,8 +16,11 @@
  */
 package org.hawkular.accounts.api;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 import javax.enterprise.inject.spi.InjectionPoint;
 
@@ -51,6 +54,21 @@ public interface RoleService {
      */
     Role getById(UUID id);
 
+    /**
+     * Retrieves the persistent Roles based on their IDs, using as few round trips to the data store as possible.
+     * @param ids    the role IDs
+     * @return the existing roles, in the same order as the given IDs
+     */
+    List<Role> getByIds(Collection<UUID> ids);
+
+    /**
+     * Asynchronous version of {@link #getByIds(Collection)}, which doesn't block the caller while the roles are
+     * retrieved.
+     * @param ids    the role IDs
+     * @return a stage that completes with the existing roles, in the same order as the given IDs
+     */
+    CompletionStage<List<Role>> getByIdsAsync(Collection<UUID> ids);
+
     /**
      * Retrieves the persistent Role based on its fixed name. For instance, requesting the role with name "SuperUser"
      * would return the Role object representing the role with this name. Valid values:
@@ -16,7 +16,10 @@
  */
 package org.hawkular.accounts.api;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 import org.hawkular.accounts.api.model.HawkularUser;
 
@@ -60,6 +63,22 @@ public interface UserService {
      */
     HawkularUser getById(UUID id);
 
+    /**
+     * Retrieves the {@link HawkularUser}s with the given IDs, using as few round trips to the data store as possible.
+     *
+     * @param ids the users' IDs
+     * @return the existing users, in the same order as the given IDs
+     */
+    List<HawkularUser> getByIds(Collection<UUID> ids);
+
+    /**
+     * Asynchronous version of {@link #getById(UUID)}, which doesn't block the caller while the user is retrieved.
+     *
+     * @param id the user ID
+     * @return a stage that completes with the existing user, or with null if the user is not found.
+     */
+    CompletionStage<HawkularUser> getByIdAsync(UUID id);
+
     /**
      * Retrieves an {@link HawkularUser} based on its ID. If no user is found, a new one is created and returned.
      *
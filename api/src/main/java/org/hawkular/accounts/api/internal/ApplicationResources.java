@@ -16,10 +16,18 @@
  */
 package org.hawkular.accounts.api.internal;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.spi.InjectionPoint;
@@ -30,7 +38,11 @@ import org.hawkular.accounts.api.internal.impl.MsgLogger;
 import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
-import com.datastax.driver.core.exceptions.InvalidQueryException;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
  * Provides CDI producers for resources required by the API.
@@ -39,34 +51,91 @@ import com.datastax.driver.core.exceptions.InvalidQueryException;
  */
 @ApplicationScoped
 public class ApplicationResources {
-    private Map<BoundStatements, PreparedStatement> statements = new HashMap<>(BoundStatements.values().length);
+    private static final int WARNING_INTERVAL = 10;
+
+    // outside of a container, there's no managed scheduler to run the retries on
+    private static ScheduledExecutorService fallbackScheduler;
+
+    /**
+     * The prepared statements, published as a whole once the preparation is complete and updated whenever a statement
+     * that failed before is prepared on a retry.
+     */
+    private final StatementRegistry registry = new StatementRegistry();
+    private volatile boolean built = false;
+    private final Map<BoundStatements, Long> preparationTimes = new ConcurrentHashMap<>();
     private MsgLogger logger = MsgLogger.LOGGER;
 
+    /**
+     * The delay before the first retry of a statement that failed to prepare, in milliseconds. Doubles at each
+     * attempt, up to {@link #maxRetryDelay}, and stays at that from then on.
+     */
+    long retryDelay = TimeUnit.SECONDS.toMillis(1);
+
+    /**
+     * The longest delay between two attempts to prepare a statement, in milliseconds.
+     */
+    long maxRetryDelay = TimeUnit.MINUTES.toMillis(1);
+
     @Inject
     Session session;
 
+    @Resource
+    ManagedScheduledExecutorService scheduler;
+
     /**
-     * Prepares the statements from BoundStatements and put them into a cache, for later consumption.
-     * If a query fails to prepare for some reason, it's skipped from the cache. This effectively means that any code
-     * using the failed statement will also fail, but everything else should work.
+     * Prepares the statements from BoundStatements and put them into a cache, for later consumption. All statements
+     * are prepared in parallel and the cache is published only when all of them are done.
+     * If a query fails to prepare for some reason, it's left out of the cache and prepared again in background, with
+     * an increasing delay between the attempts, until it succeeds. Until then, any code using the failed statement will
+     * also fail, but everything else should work. Each of the first failures is logged, and after that, a warning is
+     * logged every few attempts.
      */
     @PostConstruct
-    public void buildStatements() {
+    public synchronized void buildStatements() {
+        if (built) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<BoundStatements, ListenableFuture<PreparedStatement>> futures = new EnumMap<>(BoundStatements.class);
         for (BoundStatements statement : BoundStatements.values()) {
             if (statement.equals(BoundStatements.DEFAULT)) {
                 continue; // this one, we don't want to add to the cache
             }
+            futures.put(statement, prepare(statement));
+        }
 
+        Map<BoundStatements, PreparedStatement> prepared = new EnumMap<>(BoundStatements.class);
+        futures.forEach((statement, future) -> {
             try {
-                statements.put(statement, session.prepare(statement.getValue()));
-            } catch (InvalidQueryException e) {
-                logger.couldNotPrepareQuery(statement.getValue(), e);
+                prepared.put(statement, configure(statement, Uninterruptibles.getUninterruptibly(future)));
+            } catch (ExecutionException e) {
+                logger.couldNotPrepareQuery(statement.getValue(), e.getCause());
+                scheduleRetry(statement, 1);
             }
+        });
+
+        registry.publish(prepared);
+        built = true;
+        logger.statementsPrepared(prepared.size(), futures.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * CDI producer for the statement registry, which is what the services should use to bind their statements.
+     * @return the registry with the prepared statements
+     */
+    @Produces
+    public StatementRegistry getStatementRegistry() {
+        if (!built) {
+            buildStatements();
         }
+        return registry;
     }
 
     /**
-     * CDI producer for @NamedStatement annotations. Meant to be consumed only by the CDI implementation.
+     * CDI producer for @NamedStatement annotations. Kept for compatibility, as the {@link StatementRegistry} is cheaper
+     * to use. Meant to be consumed only by the CDI implementation.
      * @param injectionPoint    the injection point of where the annotation is
      * @return  the BoundStatement that matches the annotation's value.
      */
@@ -82,17 +151,23 @@ public class ApplicationResources {
      *
      * @param statement    the statement's entry on the enum
      * @return the BoundStatement for the entry
+     * @throws IllegalStateException if the statement could not be prepared (yet)
      */
     public BoundStatement getBoundStatement(BoundStatements statement) {
-        if (statements.size() == 0) {
-            buildStatements();
-        }
         // TODO: think more about the implications of this... for instance:
         // - What if a non-stateless bean injects this? We'll end up having two threads (at different times,
         // possibly) with the same bound statement, so, possibly with dirty objects.
         // - Our stateless beans should get a new instance for each request, but make sure that's the case
         // - How could we make sure, absolutely sure, that injection points *always* get a clean statement?
-        return statements.get(statement).bind();
+        return getStatementRegistry().bind(statement);
+    }
+
+    /**
+     * @return the time it took to prepare each statement, in microseconds. Statements that failed to prepare report
+     * the time of their last attempt.
+     */
+    public Map<BoundStatements, Long> getPreparationTimes() {
+        return Collections.unmodifiableMap(preparationTimes);
     }
 
     /**
@@ -102,4 +177,63 @@ public class ApplicationResources {
     public void setSession(Session session) {
         this.session = session;
     }
+
+    private ListenableFuture<PreparedStatement> prepare(BoundStatements statement) {
+        long start = System.nanoTime();
+        ListenableFuture<PreparedStatement> future = session.prepareAsync(statement.getValue());
+        future.addListener(() -> {
+            long elapsed = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            preparationTimes.put(statement, elapsed);
+            logger.statementPrepareTime(statement.name(), elapsed);
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * Applies the consistency levels and the idempotence of the statement to the prepared statement, so that they are
+     * inherited by all statements bound from it.
+     */
+    private static PreparedStatement configure(BoundStatements statement, PreparedStatement prepared) {
+        return statement.getExecution().applyTo(prepared);
+    }
+
+    private void scheduleRetry(BoundStatements statement, int attempt) {
+        long delay = Math.min(retryDelay << Math.min(attempt - 1, 30), maxRetryDelay);
+        getScheduler().schedule(() -> Futures.addCallback(prepare(statement), new FutureCallback<PreparedStatement>() {
+            @Override
+            public void onSuccess(PreparedStatement prepared) {
+                registry.publish(Collections.singletonMap(statement, configure(statement, prepared)));
+                logger.preparedQueryOnRetry(statement.getValue(), attempt + 1);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                // a statement that doesn't prepare might keep failing for a long time, so, we don't log every failure
+                int failures = attempt + 1;
+                if (failures < WARNING_INTERVAL) {
+                    logger.couldNotPrepareQuery(statement.getValue(), t);
+                } else if (failures % WARNING_INTERVAL == 0) {
+                    logger.stillCouldNotPrepareQuery(statement.getValue(), failures, t);
+                }
+                scheduleRetry(statement, failures);
+            }
+        }), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        if (null != scheduler) {
+            return scheduler;
+        }
+
+        synchronized (ApplicationResources.class) {
+            if (null == fallbackScheduler) {
+                fallbackScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "hawkular-accounts-statement-preparation");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return fallbackScheduler;
+        }
+    }
 }
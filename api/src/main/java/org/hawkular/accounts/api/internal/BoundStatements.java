@@ -17,7 +17,9 @@
 package org.hawkular.accounts.api.internal;
 
 /**
- * Lists all the possible statements we have for this application.
+ * Lists all the possible statements we have for this application, along with how they are executed. Unless stated
+ * otherwise, selects are executed as {@link StatementExecution#READ} and everything else as
+ * {@link StatementExecution#WRITE}.
  *
  * @author Juraci Paixão Kröhling
  */
@@ -31,8 +33,12 @@ public enum BoundStatements {
             "SELECT * FROM hawkular_accounts.roles WHERE id = :id"
     ),
 
-    ROLES_GET_BY_NAME(
-            "SELECT * FROM hawkular_accounts.roles WHERE name = :name"
+    ROLES_GET_BY_IDS(
+            "SELECT * FROM hawkular_accounts.roles WHERE id IN :ids"
+    ),
+
+    ROLES_GET_BY_NAME(StatementExecution.LOOKUP,
+            "SELECT * FROM hawkular_accounts.roles_by_name WHERE name = :name"
     ),
 
     ROLES_CREATE(
@@ -42,6 +48,13 @@ public enum BoundStatements {
             "  (:id, :name, :description, :createdAt, :updatedAt)"
     ),
 
+    ROLES_CREATE_BY_NAME(
+            "INSERT INTO hawkular_accounts.roles_by_name " +
+            "  (name, id, description, createdAt, updatedAt) " +
+            "VALUES " +
+            "  (:name, :id, :description, :createdAt, :updatedAt)"
+    ),
+
     // Invitation statements
     INVITATION_GET_BY_TOKEN(
             "SELECT * FROM hawkular_accounts.invitations WHERE id = :id"
@@ -86,6 +99,10 @@ public enum BoundStatements {
             "SELECT * FROM hawkular_accounts.users WHERE id = :id"
     ),
 
+    USER_GET_BY_IDS(
+            "SELECT * FROM hawkular_accounts.users WHERE id IN :ids"
+    ),
+
     USER_CREATE(
             "INSERT INTO hawkular_accounts.users " +
             "  (id, createdAt, updatedAt, name, email) " +
@@ -110,6 +127,10 @@ public enum BoundStatements {
             "DELETE FROM hawkular_accounts.permissions WHERE id = :id"
     ),
 
+    PERMISSION_DELETE_BY_OPERATION(
+            "DELETE FROM hawkular_accounts.permissions_by_operation WHERE operation = :operation AND id = :id"
+    ),
+
     PERMISSION_CREATE(
             "INSERT INTO hawkular_accounts.permissions " +
             "(id, operation, role, createdAt, updatedAt) " +
@@ -117,12 +138,20 @@ public enum BoundStatements {
             "(:id, :operation, :role, :createdAt, :updatedAt)"
     ),
 
+    PERMISSION_CREATE_BY_OPERATION(
+            "INSERT INTO hawkular_accounts.permissions_by_operation " +
+            "(operation, id, role, createdAt, updatedAt) " +
+            "VALUES " +
+            "(:operation, :id, :role, :createdAt, :updatedAt)"
+    ),
+
     PERMISSIONS_GET_BY_OPERATION(
-            "SELECT * FROM hawkular_accounts.permissions WHERE operation = :operation"
+            "SELECT * FROM hawkular_accounts.permissions_by_operation WHERE operation = :operation"
     ),
 
     // Operation statements
-    OPERATION_GET_BY_NAME("SELECT * FROM hawkular_accounts.operations WHERE name = :name"),
+    OPERATION_GET_BY_NAME(StatementExecution.LOOKUP,
+            "SELECT * FROM hawkular_accounts.operations_by_name WHERE name = :name"),
     OPERATION_GET_BY_ID("SELECT * FROM hawkular_accounts.operations WHERE id = :id"),
 
     OPERATION_CREATE(
@@ -132,9 +161,20 @@ public enum BoundStatements {
             "  (:id, :name, :createdAt, :updatedAt)"
     ),
 
+    OPERATION_CREATE_BY_NAME(
+            "INSERT INTO hawkular_accounts.operations_by_name " +
+            "  (name, id, createdAt, updatedAt) " +
+            "VALUES " +
+            "  (:name, :id, :createdAt, :updatedAt)"
+    ),
+
     // Resources statements
     RESOURCE_GET_BY_ID("SELECT * FROM hawkular_accounts.resources WHERE id = :id"),
-    RESOURCE_GET_BY_PERSONA("SELECT * FROM hawkular_accounts.resources WHERE persona = :persona"),
+    RESOURCE_GET_BY_IDS("SELECT * FROM hawkular_accounts.resources WHERE id IN :ids"),
+    RESOURCE_GET_BY_PERSONA("SELECT * FROM hawkular_accounts.resources_by_persona WHERE persona = :persona"),
+    RESOURCE_REMOVE_BY_PERSONA(
+            "DELETE FROM hawkular_accounts.resources_by_persona WHERE persona = :persona AND id = :id"
+    ),
     RESOURCE_TRANSFER(
             "UPDATE hawkular_accounts.resources SET persona = :persona, updatedAt = :updatedAt WHERE id = :id"
     ),
@@ -144,31 +184,71 @@ public enum BoundStatements {
             "VALUES " +
             " (:id, :persona, :parent, :createdAt, :updatedAt)"
     ),
+    RESOURCE_CREATE_BY_PERSONA(
+            "INSERT INTO hawkular_accounts.resources_by_persona " +
+            " (persona, id, parent, createdAt, updatedAt) " +
+            "VALUES " +
+            " (:persona, :id, :parent, :createdAt, :updatedAt)"
+    ),
+    RESOURCE_ANCESTORS_GET(
+            "SELECT ancestors FROM hawkular_accounts.resource_ancestors WHERE resource = :resource"
+    ),
+    RESOURCE_ANCESTORS_CREATE(
+            "INSERT INTO hawkular_accounts.resource_ancestors (resource, ancestors) VALUES (:resource, :ancestors)"
+    ),
 
     // PersonaResourceRole statements
     PRR_GET_BY_ID("SELECT * FROM hawkular_accounts.persona_resource_roles WHERE id = :id"),
-    PRR_GET_BY_RESOURCE("SELECT * FROM hawkular_accounts.persona_resource_roles WHERE resource = :resource"),
-    PRR_GET_BY_PERSONA("SELECT * FROM hawkular_accounts.persona_resource_roles WHERE persona = :persona"),
+    PRR_GET_BY_RESOURCE("SELECT * FROM hawkular_accounts.prr_by_resource WHERE resource = :resource"),
+    PRR_GET_BY_PERSONA("SELECT * FROM hawkular_accounts.prr_by_persona_resource WHERE persona = :persona"),
+    PRR_GET_BY_PERSONA_AND_RESOURCE(
+            "SELECT * FROM hawkular_accounts.prr_by_persona_resource WHERE persona = :persona AND resource = :resource"
+    ),
     PRR_REMOVE("DELETE FROM hawkular_accounts.persona_resource_roles WHERE id = :id"),
+    PRR_REMOVE_BY_PERSONA_RESOURCE(
+            "DELETE FROM hawkular_accounts.prr_by_persona_resource " +
+            "WHERE persona = :persona AND resource = :resource AND id = :id"
+    ),
+    PRR_REMOVE_BY_RESOURCE(
+            "DELETE FROM hawkular_accounts.prr_by_resource " +
+            "WHERE resource = :resource AND persona = :persona AND id = :id"
+    ),
     PRR_CREATE(
             "INSERT INTO hawkular_accounts.persona_resource_roles " +
             " (id, persona, resource, role, createdAt, updatedAt) " +
             "VALUES " +
             " (:id, :persona, :resource, :role, :createdAt, :updatedAt)"
     ),
+    PRR_CREATE_BY_PERSONA_RESOURCE(
+            "INSERT INTO hawkular_accounts.prr_by_persona_resource " +
+            " (persona, resource, id, role, createdAt, updatedAt) " +
+            "VALUES " +
+            " (:persona, :resource, :id, :role, :createdAt, :updatedAt)"
+    ),
+    PRR_CREATE_BY_RESOURCE(
+            "INSERT INTO hawkular_accounts.prr_by_resource " +
+            " (resource, persona, id, role, createdAt, updatedAt) " +
+            "VALUES " +
+            " (:resource, :persona, :id, :role, :createdAt, :updatedAt)"
+    ),
 
     // Organization statements
     ORGANIZATION_GET_BY_ID("SELECT * FROM hawkular_accounts.organizations WHERE id = :id"),
-    ORGANIZATION_GET_BY_NAME("SELECT * FROM hawkular_accounts.organizations WHERE name = :name"),
+    ORGANIZATION_GET_BY_IDS("SELECT * FROM hawkular_accounts.organizations WHERE id IN :ids"),
+    ORGANIZATION_GET_BY_NAME("SELECT id FROM hawkular_accounts.organizations_by_name WHERE name = :name"),
     ORGANIZATION_GET_APPLY("SELECT * FROM hawkular_accounts.organizations WHERE visibility = 'APPLY'"),
     ORGANIZATION_GET_BY_OWNER("SELECT * FROM hawkular_accounts.organizations WHERE owner = :owner"),
     ORGANIZATION_REMOVE("DELETE FROM hawkular_accounts.organizations WHERE id = :id"),
+    ORGANIZATION_REMOVE_BY_NAME("DELETE FROM hawkular_accounts.organizations_by_name WHERE name = :name AND id = :id"),
     ORGANIZATION_CREATE(
             "INSERT INTO hawkular_accounts.organizations" +
             " (id, owner, name, description, visibility, createdAt, updatedAt) " +
             "VALUES " +
             " (:id, :owner, :name, :description, :visibility, :createdAt, :updatedAt)"
     ),
+    ORGANIZATION_CREATE_BY_NAME(
+            "INSERT INTO hawkular_accounts.organizations_by_name (name, id) VALUES (:name, :id)"
+    ),
     ORGANIZATION_TRANSFER(
             "UPDATE hawkular_accounts.organizations SET owner = :owner, updatedAt = :updatedAt WHERE id = :id"
     ),
@@ -176,20 +256,48 @@ public enum BoundStatements {
     // Organization memberships
     MEMBERSHIP_GET_BY_ID("SELECT * FROM hawkular_accounts.organization_memberships WHERE id = :id"),
     MEMBERSHIP_GET_BY_ORGANIZATION(
-            "SELECT * FROM hawkular_accounts.organization_memberships WHERE organization = :organization"),
+            "SELECT * FROM hawkular_accounts.memberships_by_organization WHERE organization = :organization"),
     MEMBERSHIP_GET_BY_PERSONA(
-            "SELECT * FROM hawkular_accounts.organization_memberships WHERE member = :member"
+            "SELECT * FROM hawkular_accounts.memberships_by_member WHERE member = :member"
     ),
     MEMBERSHIP_REMOVE("DELETE FROM hawkular_accounts.organization_memberships WHERE id = :id"),
+    MEMBERSHIP_REMOVE_BY_ORGANIZATION(
+            "DELETE FROM hawkular_accounts.memberships_by_organization " +
+            "WHERE organization = :organization AND member = :member AND id = :id"
+    ),
+    MEMBERSHIP_REMOVE_BY_MEMBER(
+            "DELETE FROM hawkular_accounts.memberships_by_member " +
+            "WHERE member = :member AND organization = :organization AND id = :id"
+    ),
     MEMBERSHIP_CREATE(
             "INSERT INTO hawkular_accounts.organization_memberships " +
             " (id, organization, member, role, createdAt, updatedAt) " +
             " VALUES " +
             " (:id, :organization, :member, :role, :createdAt, :updatedAt)"
     ),
+    MEMBERSHIP_CREATE_BY_ORGANIZATION(
+            "INSERT INTO hawkular_accounts.memberships_by_organization " +
+            " (organization, member, id, role, createdAt, updatedAt) " +
+            " VALUES " +
+            " (:organization, :member, :id, :role, :createdAt, :updatedAt)"
+    ),
+    MEMBERSHIP_CREATE_BY_MEMBER(
+            "INSERT INTO hawkular_accounts.memberships_by_member " +
+            " (member, organization, id, role, createdAt, updatedAt) " +
+            " VALUES " +
+            " (:member, :organization, :id, :role, :createdAt, :updatedAt)"
+    ),
     MEMBERSHIP_CHANGE_ROLE(
             "UPDATE hawkular_accounts.organization_memberships SET role = :role, updatedAt = :updatedAt WHERE id = :id"
     ),
+    MEMBERSHIP_CHANGE_ROLE_BY_ORGANIZATION(
+            "UPDATE hawkular_accounts.memberships_by_organization SET role = :role, updatedAt = :updatedAt " +
+            "WHERE organization = :organization AND member = :member AND id = :id"
+    ),
+    MEMBERSHIP_CHANGE_ROLE_BY_MEMBER(
+            "UPDATE hawkular_accounts.memberships_by_member SET role = :role, updatedAt = :updatedAt " +
+            "WHERE member = :member AND organization = :organization AND id = :id"
+    ),
 
     // User settings
     SETTINGS_GET_BY_ID("SELECT * FROM hawkular_accounts.user_settings WHERE id = :id"),
@@ -218,15 +326,57 @@ public enum BoundStatements {
             "WHERE organization = :organization"),
     JOIN_REQUEST_LIST_BY_PERSONA("SELECT * FROM hawkular_accounts.join_requests " +
             "WHERE persona = :persona"),
+
+    // Effective roles projection
+    EFFECTIVE_ROLES_GET("SELECT roles, writetime(roles) AS written_at FROM hawkular_accounts.effective_roles " +
+            "WHERE persona = :persona AND resource = :resource"),
+    EFFECTIVE_ROLES_GET_BY_RESOURCES("SELECT resource, roles, writetime(roles) AS written_at " +
+            "FROM hawkular_accounts.effective_roles WHERE persona = :persona AND resource IN :resources"),
+    EFFECTIVE_ROLES_GET_ALL(StatementExecution.SCAN, "SELECT persona, resource FROM hawkular_accounts.effective_roles"),
+    EFFECTIVE_ROLES_CREATE("INSERT INTO hawkular_accounts.effective_roles " +
+            "(persona, resource, roles)" +
+            " VALUES " +
+            "(:persona, :resource, :roles) USING TTL :ttl"),
+    EFFECTIVE_ROLES_CREATE_BY_RESOURCE("INSERT INTO hawkular_accounts.effective_roles_by_resource " +
+            "(resource, persona)" +
+            " VALUES " +
+            "(:resource, :persona) USING TTL :ttl"),
+    EFFECTIVE_ROLES_REMOVE("DELETE FROM hawkular_accounts.effective_roles " +
+            "WHERE persona = :persona AND resource = :resource"),
+    EFFECTIVE_ROLES_REMOVE_BY_PERSONA("DELETE FROM hawkular_accounts.effective_roles WHERE persona = :persona"),
+    EFFECTIVE_ROLES_GET_PERSONAS_BY_RESOURCE("SELECT persona FROM hawkular_accounts.effective_roles_by_resource " +
+            "WHERE resource = :resource"),
+    EFFECTIVE_ROLES_REMOVE_BY_RESOURCE("DELETE FROM hawkular_accounts.effective_roles_by_resource " +
+            "WHERE resource = :resource"),
+    EFFECTIVE_ROLES_INVALIDATIONS_GET("SELECT resource, invalidated_at " +
+            "FROM hawkular_accounts.effective_roles_invalidations WHERE resource IN :resources"),
+    EFFECTIVE_ROLES_INVALIDATION_CREATE("INSERT INTO hawkular_accounts.effective_roles_invalidations " +
+            "(resource, invalidated_at)" +
+            " VALUES " +
+            "(:resource, :invalidated_at) USING TTL :ttl"),
     ;
 
-    private String value;
+    private final String value;
+    private final StatementExecution execution;
 
     BoundStatements(String value) {
+        this(null == value || !isRead(value) ? StatementExecution.WRITE : StatementExecution.READ, value);
+    }
+
+    BoundStatements(StatementExecution execution, String value) {
+        this.execution = execution;
         this.value = value;
     }
 
+    private static boolean isRead(String value) {
+        return value.trim().regionMatches(true, 0, "SELECT", 0, "SELECT".length());
+    }
+
     public String getValue() {
         return value;
     }
+
+    public StatementExecution getExecution() {
+        return execution;
+    }
 }
@@ -107,6 +107,9 @@ public class CassandraSessionInitializer {
             } catch (Exception e) {
                 logger.failedToInitializeSchema(e);
             }
+
+            // the data from before the lookup tables existed has to be copied to them
+            new LookupTablesMigration(session).migrate();
             return session;
         } catch (InterruptedException | ExecutionException e) {
             throw new IllegalStateException("Could not get the initialized session.");
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.RequestScoped;
+
+import org.hawkular.accounts.api.internal.impl.MsgLogger;
+import org.hawkular.accounts.api.model.BaseEntity;
+
+/**
+ * First-level cache for the entities read during a single request. Each entity is identified by its type and ID, and
+ * is read from the data store at most once per request. Records that are known not to exist are also remembered, so
+ * that probing for a non-existing record doesn't hit the data store twice.
+ * <p>
+ * The services are responsible for keeping this map coherent, by registering the records they write and evicting
+ * the records they remove.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@RequestScoped
+public class IdentityMap {
+    MsgLogger logger = MsgLogger.LOGGER;
+
+    private final Map<Class<?>, Map<UUID, Optional<BaseEntity>>> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Retrieves the entity with the given type and ID, calling the loader only if this is the first time the entity
+     * is requested on this map.
+     *
+     * @param type      the type of the entity
+     * @param id        the ID of the entity
+     * @param loader    the function that reads the entity from the data store. Might return null.
+     * @param <T>       the type of the entity
+     * @return the entity, or null if it doesn't exist
+     */
+    public <T extends BaseEntity> T get(Class<T> type, UUID id, Function<UUID, T> loader) {
+        Map<UUID, Optional<BaseEntity>> entriesForType = getEntriesForType(type);
+        Optional<BaseEntity> cached = entriesForType.get(id);
+        if (null != cached) {
+            hits.increment();
+            return type.cast(cached.orElse(null));
+        }
+
+        misses.increment();
+        // we don't use computeIfAbsent here, as the loader might end up calling this map again
+        T entity = loader.apply(id);
+        entriesForType.put(id, Optional.ofNullable(entity));
+        return entity;
+    }
+
+    /**
+     * Asynchronous version of {@link #get(Class, UUID, Function)}. The entity loaded by the loader is stored once the
+     * loader completes, so, concurrent requests for the same entity might call the loader more than once.
+     *
+     * @param type      the type of the entity
+     * @param id        the ID of the entity
+     * @param loader    the function that reads the entity from the data store. Might complete with null.
+     * @param <T>       the type of the entity
+     * @return a stage that completes with the entity, or with null if it doesn't exist
+     */
+    public <T extends BaseEntity> CompletionStage<T> getAsync(Class<T> type,
+                                                             UUID id,
+                                                             Function<UUID, CompletionStage<T>> loader) {
+        Map<UUID, Optional<BaseEntity>> entriesForType = getEntriesForType(type);
+        Optional<BaseEntity> cached = entriesForType.get(id);
+        if (null != cached) {
+            hits.increment();
+            return CompletableFuture.completedFuture(type.cast(cached.orElse(null)));
+        }
+
+        misses.increment();
+        return loader.apply(id).thenApply(entity -> {
+            entriesForType.put(id, Optional.ofNullable(entity));
+            return entity;
+        });
+    }
+
+    /**
+     * Retrieves the entities with the given type and IDs. The IDs that are not yet known by this map are given to the
+     * loader all at once, so that they can be read from the data store in as few round trips as possible.
+     *
+     * @param type      the type of the entities
+     * @param ids       the IDs of the entities
+     * @param loader    the function that reads the given entities from the data store. IDs without a matching
+     *                  record should be absent from the resulting map.
+     * @param <T>       the type of the entities
+     * @return a map with the existing entities, with the same iteration order as the given IDs
+     */
+    public <T extends BaseEntity> Map<UUID, T> getAll(Class<T> type,
+                                                      Collection<UUID> ids,
+                                                      Function<List<UUID>, Map<UUID, T>> loader) {
+        Map<UUID, Optional<BaseEntity>> entriesForType = getEntriesForType(type);
+        List<UUID> unknown = ids.stream().filter(id -> !entriesForType.containsKey(id)).collect(Collectors.toList());
+        hits.add(ids.size() - unknown.size());
+        misses.add(unknown.size());
+
+        if (!unknown.isEmpty()) {
+            Map<UUID, T> loaded = loader.apply(unknown);
+            unknown.forEach(id -> entriesForType.put(id, Optional.ofNullable(loaded.get(id))));
+        }
+
+        Map<UUID, T> result = new LinkedHashMap<>(ids.size());
+        ids.forEach(id -> entriesForType.get(id).ifPresent(entity -> result.put(id, type.cast(entity))));
+        return result;
+    }
+
+    /**
+     * Asynchronous version of {@link #getAll(Class, Collection, Function)}. The entities loaded by the loader are
+     * stored once the loader completes.
+     *
+     * @param type      the type of the entities
+     * @param ids       the IDs of the entities
+     * @param loader    the function that reads the given entities from the data store. IDs without a matching
+     *                  record should be absent from the resulting map.
+     * @param <T>       the type of the entities
+     * @return a stage that completes with a map with the existing entities, with the same iteration order as the
+     * given IDs
+     */
+    public <T extends BaseEntity> CompletionStage<Map<UUID, T>> getAllAsync(
+            Class<T> type,
+            Collection<UUID> ids,
+            Function<List<UUID>, CompletionStage<Map<UUID, T>>> loader) {
+        Map<UUID, Optional<BaseEntity>> entriesForType = getEntriesForType(type);
+        List<UUID> unknown = ids.stream().filter(id -> !entriesForType.containsKey(id)).collect(Collectors.toList());
+        hits.add(ids.size() - unknown.size());
+        misses.add(unknown.size());
+
+        CompletionStage<Void> loading = CompletableFuture.completedFuture(null);
+        if (!unknown.isEmpty()) {
+            loading = loader.apply(unknown).thenAccept(loaded ->
+                    unknown.forEach(id -> entriesForType.put(id, Optional.ofNullable(loaded.get(id)))));
+        }
+
+        return loading.thenApply(v -> {
+            Map<UUID, T> result = new LinkedHashMap<>(ids.size());
+            ids.forEach(id -> {
+                Optional<BaseEntity> entity = entriesForType.get(id);
+                if (null != entity && entity.isPresent()) {
+                    result.put(id, type.cast(entity.get()));
+                }
+            });
+            return result;
+        });
+    }
+
+    /**
+     * Registers an entity that was read from the data store by some other means than its ID, like a query by name.
+     * If this map already knows an instance for this entity, the known instance is returned, so that each
+     * entity is represented by only one instance during the request.
+     *
+     * @param type      the type of the entity
+     * @param entity    the entity that has just been read
+     * @param <T>       the type of the entity
+     * @return the instance that should be used by the caller
+     */
+    public <T extends BaseEntity> T register(Class<T> type, T entity) {
+        Map<UUID, Optional<BaseEntity>> entriesForType = getEntriesForType(type);
+        Optional<BaseEntity> known = entriesForType.get(entity.getIdAsUUID());
+        if (null != known && known.isPresent()) {
+            return type.cast(known.get());
+        }
+        entriesForType.put(entity.getIdAsUUID(), Optional.of(entity));
+        return entity;
+    }
+
+    /**
+     * Stores the given entity, replacing any instance that this map might know about. To be called when the entity
+     * is written to the data store.
+     *
+     * @param type      the type of the entity
+     * @param entity    the entity that has been written
+     */
+    public void put(Class<? extends BaseEntity> type, BaseEntity entity) {
+        getEntriesForType(type).put(entity.getIdAsUUID(), Optional.of(entity));
+    }
+
+    /**
+     * Forgets about the entity with the given type and ID. To be called when the entity is removed from the data
+     * store.
+     *
+     * @param type    the type of the entity
+     * @param id      the ID of the entity
+     */
+    public void evict(Class<? extends BaseEntity> type, UUID id) {
+        getEntriesForType(type).remove(id);
+    }
+
+    /**
+     * Returns the actual instance of this map, instead of the CDI proxy. The proxy is bound to the request context
+     * of the current thread, so, callbacks running on other threads (like the ones for asynchronous Cassandra
+     * queries) should use the instance returned by this method instead.
+     *
+     * @return the actual instance for the current request
+     */
+    public IdentityMap getInstance() {
+        return this;
+    }
+
+    /**
+     * @return the number of requests that were served by this map
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of requests that had to be served by the data store
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @PreDestroy
+    void reportStatistics() {
+        long hits = getHits();
+        long misses = getMisses();
+        if (hits + misses > 0) {
+            logger.identityMapStatistics(hits, misses);
+        }
+    }
+
+    private Map<UUID, Optional<BaseEntity>> getEntriesForType(Class<?> type) {
+        return entries.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hawkular.accounts.api.internal.impl.MsgLogger;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+
+/**
+ * Fills the lookup tables (like {@code prr_by_persona_resource}) with the data that was written to the main tables
+ * before the lookup tables existed. New data is written to both places by the services, so, this is needed only once
+ * per installation. Once it's done, a marker is recorded on the {@code schema_migrations} table.
+ * <p>
+ * The copies are written with the write time of the records they are copied from, so that a change done by the
+ * services while the migration runs is not overwritten with older data. The secondary indexes that the lookup tables
+ * replace are kept until all the installations have been migrated.
+ * <p>
+ * A rolling upgrade is not supported: nodes running a version without the lookup tables keep writing only to the
+ * main tables, and whatever they write after the marker has been recorded never reaches the lookup tables. If the
+ * nodes have been upgraded one at a time anyway, the migration can be run again once all of them are on the new
+ * version, by setting the system property {@code hawkular-accounts.lookup-tables.migrate-again} to {@code true} on
+ * one of them and restarting it. As the copies keep their write times, running it again is safe, but records removed
+ * by the old nodes are not removed from the lookup tables.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+class LookupTablesMigration {
+    static final String NAME = "lookup-tables";
+    private static final String MIGRATE_AGAIN = "hawkular-accounts.lookup-tables.migrate-again";
+    private static final int FETCH_SIZE = 500;
+
+    private final MsgLogger logger = MsgLogger.LOGGER;
+    private final Session session;
+
+    LookupTablesMigration(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Copies the records from the main tables into the lookup tables, unless this has been done already.
+     *
+     * @throws IllegalStateException if the records couldn't be copied
+     */
+    void migrate() {
+        try {
+            Statement marker = new SimpleStatement(
+                    "SELECT name FROM hawkular_accounts.schema_migrations WHERE name = ?", NAME);
+            if (null != session.execute(marker).one() && !Boolean.getBoolean(MIGRATE_AGAIN)) {
+                return;
+            }
+
+            logger.applyingSchemaMigration(NAME);
+            long records = 0;
+            records += copy("persona_resource_roles",
+                    BoundStatements.PRR_CREATE_BY_PERSONA_RESOURCE,
+                    BoundStatements.PRR_CREATE_BY_RESOURCE);
+            records += copy("organization_memberships",
+                    BoundStatements.MEMBERSHIP_CREATE_BY_ORGANIZATION,
+                    BoundStatements.MEMBERSHIP_CREATE_BY_MEMBER);
+            records += copy("organizations", BoundStatements.ORGANIZATION_CREATE_BY_NAME);
+            records += copy("roles", BoundStatements.ROLES_CREATE_BY_NAME);
+            records += copy("operations", BoundStatements.OPERATION_CREATE_BY_NAME);
+            records += copy("permissions", BoundStatements.PERMISSION_CREATE_BY_OPERATION);
+            records += copy("resources", BoundStatements.RESOURCE_CREATE_BY_PERSONA);
+
+            session.execute(new SimpleStatement(
+                    "INSERT INTO hawkular_accounts.schema_migrations (name, appliedAt) VALUES (?, ?)",
+                    NAME,
+                    new Date()));
+            logger.schemaMigrationApplied(NAME, records);
+        } catch (Exception e) {
+            // the reads depend on the lookup tables, so, we can't go on without them. As the lookup inserts are
+            // idempotent, it's safe to just start over on the next boot.
+            logger.failedToApplySchemaMigration(NAME, e);
+            throw new IllegalStateException("Could not apply the schema migration [" + NAME + "].", e);
+        }
+    }
+
+    /**
+     * Reads all the records from the given table, and executes each of the lookup statements for each record. The
+     * lookup statements' variables are bound to the columns with the same name from the record, and the statements
+     * are executed with the latest write time among the record's regular columns. Records without a value for the
+     * partition key of a lookup table, like resources without an owner, are not copied to that table.
+     */
+    private long copy(String table, BoundStatements... lookupStatements) {
+        List<PreparedStatement> preparedStatements = Arrays.stream(lookupStatements)
+                .map(s -> session.prepare(s.getValue()))
+                .collect(Collectors.toList());
+
+        Set<String> columns = new LinkedHashSet<>();
+        preparedStatements.forEach(p -> p.getVariables().forEach(v -> columns.add(v.getName())));
+
+        KeyspaceMetadata keyspace = session.getCluster().getMetadata().getKeyspace("hawkular_accounts");
+        List<Set<String>> partitionKeys = preparedStatements.stream()
+                .map(p -> keyspace.getTable(p.getVariables().getTable(0)).getPartitionKey().stream()
+                        .map(ColumnMetadata::getName)
+                        .collect(Collectors.toSet()))
+                .collect(Collectors.toList());
+
+        Set<String> primaryKey = keyspace.getTable(table)
+                .getPrimaryKey().stream()
+                .map(ColumnMetadata::getName)
+                .collect(Collectors.toSet());
+        List<String> writeTimes = columns.stream()
+                .filter(c -> !primaryKey.contains(c))
+                .map(c -> "writetime(" + c + ")")
+                .collect(Collectors.toList());
+
+        String selection = Stream.concat(columns.stream(), writeTimes.stream()).collect(Collectors.joining(", "));
+        Statement select = new SimpleStatement("SELECT " + selection + " FROM hawkular_accounts." + table)
+                .setFetchSize(FETCH_SIZE);
+        long records = 0;
+        for (Row row : session.execute(select)) {
+            long timestamp = Long.MIN_VALUE;
+            for (int i = columns.size(); i < columns.size() + writeTimes.size(); i++) {
+                if (!row.isNull(i)) {
+                    timestamp = Math.max(timestamp, row.getLong(i));
+                }
+            }
+
+            for (int i = 0; i < preparedStatements.size(); i++) {
+                PreparedStatement preparedStatement = preparedStatements.get(i);
+                if (partitionKeys.get(i).stream().anyMatch(row::isNull)) {
+                    continue;
+                }
+
+                BoundStatement statement = preparedStatement.bind();
+                for (ColumnDefinitions.Definition variable : preparedStatement.getVariables()) {
+                    statement.setBytesUnsafe(variable.getName(), row.getBytesUnsafe(variable.getName()));
+                }
+                if (Long.MIN_VALUE != timestamp) {
+                    statement.setDefaultTimestamp(timestamp);
+                }
+                session.execute(statement);
+            }
+            records++;
+        }
+        return records;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.hawkular.accounts.api.internal.impl.MsgLogger;
+import org.hawkular.accounts.common.ExpiringMap;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+
+/**
+ * Application-wide cache for the decisions of the permission checker, keyed by operation, resource and persona.
+ * <p>
+ * Concurrent requests for the same decision share a single computation. The entries expire after a fixed time and
+ * the cache is bounded: once it's full, the expired entries are removed and, if that's not enough, the oldest ones.
+ * Whenever a service changes data that is relevant for the decisions, it fires a
+ * {@link PermissionInputsChangedEvent}, which removes the affected entries right away. As the events are local to
+ * this instance, changes made by other instances are only seen once the entries expire. As the members of an
+ * organization inherit its roles, a change to a persona also removes the decisions of its direct and indirect
+ * members.
+ * <p>
+ * The size and the time to live can be changed with the system properties
+ * {@code hawkular-accounts.permission-cache.max-size} and {@code hawkular-accounts.permission-cache.ttl}, the latter
+ * in milliseconds. A TTL of zero disables the cache.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@ApplicationScoped
+public class PermissionDecisionCache {
+    private static final String MAX_SIZE = "hawkular-accounts.permission-cache.max-size";
+    private static final String TTL = "hawkular-accounts.permission-cache.ttl";
+
+    MsgLogger logger = MsgLogger.LOGGER;
+
+    @Inject
+    Session session;
+
+    @Inject
+    StatementRegistry statements;
+
+    private final ExpiringMap<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final long ttlNanos;
+
+    public PermissionDecisionCache() {
+        this(Integer.parseInt(System.getProperty(MAX_SIZE, "10000")),
+                Long.parseLong(System.getProperty(TTL, "60000")), TimeUnit.MILLISECONDS);
+    }
+
+    public PermissionDecisionCache(int maxSize, long ttl, TimeUnit unit) {
+        this.entries = new ExpiringMap<>(maxSize, entry -> entry.expiresAt);
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Retrieves the decision for the given operation, resource and persona, computing it with the given loader if
+     * it's not cached yet or if it has expired. If there's a computation in progress for the same key, its result is
+     * shared instead. Failed computations are not cached.
+     *
+     * @param operationId    the ID of the operation
+     * @param resourceId     the ID of the resource
+     * @param personaId      the ID of the persona
+     * @param loader         computes the decision
+     * @return a stage that completes with the decision
+     */
+    public CompletionStage<Boolean> get(UUID operationId, UUID resourceId, UUID personaId,
+                                        Supplier<CompletionStage<Boolean>> loader) {
+        if (ttlNanos <= 0) {
+            return loader.get();
+        }
+
+        Key key = new Key(operationId, resourceId, personaId);
+        long now = System.nanoTime();
+        Entry created = new Entry(new CompletableFuture<>(), now + ttlNanos);
+        Entry entry = entries.getOrPut(key, created, now);
+        if (entry != created) {
+            hits.increment();
+            return entry.decision;
+        }
+
+        misses.increment();
+
+        CompletionStage<Boolean> computation;
+        try {
+            computation = loader.get();
+        } catch (RuntimeException e) {
+            entries.remove(key, created);
+            throw e;
+        }
+
+        computation.whenComplete((allowed, t) -> {
+            if (null != t) {
+                entries.remove(key, created);
+                created.decision.completeExceptionally(t);
+            } else {
+                created.decision.complete(allowed);
+            }
+        });
+        return created.decision;
+    }
+
+    /**
+     * Removes the decisions that depend on the data that has changed, as described by the event.
+     * @param event    the event describing the change
+     */
+    public void invalidate(@Observes PermissionInputsChangedEvent event) {
+        if (null != event.getOperationId()) {
+            removeIf(k -> event.getOperationId().equals(k.operationId));
+        }
+        if (null != event.getResourceId()) {
+            removeIf(k -> event.getResourceId().equals(k.resourceId));
+        }
+        if (null != event.getPersonaId()) {
+            if (null == session) {
+                // without a session, we can't tell who the members are, so, all personas might be affected
+                clear();
+            } else {
+                Set<UUID> affected = new HashSet<>();
+                collectMembers(event.getPersonaId(), affected);
+                removeIf(k -> affected.contains(k.personaId));
+            }
+        }
+    }
+
+    /**
+     * Non-CDI consumers can use this to set the session used to find the members of an organization.
+     * @param session    the session to use when looking up the memberships
+     */
+    public void setSession(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Non-CDI consumers can use this to set the registry with the statements used to find the members of an
+     * organization.
+     * @param statements    the registry to bind the statements from
+     */
+    public void setStatements(StatementRegistry statements) {
+        this.statements = statements;
+    }
+
+    /**
+     * Removes all the cached decisions.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return entries.getEvictions();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void reportStatistics() {
+        logger.permissionCacheStatistics(getHits(), getMisses(), getEvictions());
+    }
+
+    private void collectMembers(UUID personaId, Set<UUID> collected) {
+        if (!collected.add(personaId)) {
+            return;
+        }
+
+        // the members of an organization inherit its roles, so, their decisions are also affected
+        BoundStatement members = statements.bind(BoundStatements.MEMBERSHIP_GET_BY_ORGANIZATION)
+                .setUUID("organization", personaId);
+        for (Row row : session.execute(members)) {
+            collectMembers(row.getUUID("member"), collected);
+        }
+    }
+
+    private void removeIf(Predicate<Key> predicate) {
+        entries.removeIf((key, entry) -> predicate.test(key));
+    }
+
+    private static final class Key {
+        private final UUID operationId;
+        private final UUID resourceId;
+        private final UUID personaId;
+
+        private Key(UUID operationId, UUID resourceId, UUID personaId) {
+            this.operationId = operationId;
+            this.resourceId = resourceId;
+            this.personaId = personaId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return operationId.equals(key.operationId)
+                    && resourceId.equals(key.resourceId)
+                    && personaId.equals(key.personaId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operationId, resourceId, personaId);
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Boolean> decision;
+        private final long expiresAt;
+
+        private Entry(CompletableFuture<Boolean> decision, long expiresAt) {
+            this.decision = decision;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
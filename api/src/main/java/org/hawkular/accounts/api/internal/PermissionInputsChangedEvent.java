@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import java.util.UUID;
+
+/**
+ * Fired by the services whenever they change data that is used to decide whether a persona is allowed to perform an
+ * operation on a resource. Only one of the IDs is set, and it determines which cached decisions are affected.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+public class PermissionInputsChangedEvent {
+    private final UUID operationId;
+    private final UUID resourceId;
+    private final UUID personaId;
+
+    private PermissionInputsChangedEvent(UUID operationId, UUID resourceId, UUID personaId) {
+        this.operationId = operationId;
+        this.resourceId = resourceId;
+        this.personaId = personaId;
+    }
+
+    /**
+     * The roles that are permitted to perform the operation have changed.
+     * @param operationId    the ID of the operation
+     * @return the event
+     */
+    public static PermissionInputsChangedEvent forOperation(UUID operationId) {
+        return new PermissionInputsChangedEvent(operationId, null, null);
+    }
+
+    /**
+     * The roles that personas have on the resource, or the owner of the resource, have changed.
+     * @param resourceId    the ID of the resource
+     * @return the event
+     */
+    public static PermissionInputsChangedEvent forResource(UUID resourceId) {
+        return new PermissionInputsChangedEvent(null, resourceId, null);
+    }
+
+    /**
+     * The roles that the persona inherits from other personas, like from the organizations it belongs to, have
+     * changed.
+     * @param personaId    the ID of the persona
+     * @return the event
+     */
+    public static PermissionInputsChangedEvent forPersona(UUID personaId) {
+        return new PermissionInputsChangedEvent(null, null, personaId);
+    }
+
+    public UUID getOperationId() {
+        return operationId;
+    }
+
+    public UUID getResourceId() {
+        return resourceId;
+    }
+
+    public UUID getPersonaId() {
+        return personaId;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.hawkular.accounts.common.ExpiringMap;
+
+/**
+ * Application-wide cache of the resource that determines the ownership of each resource: the resource itself, if it
+ * has an owner, or its nearest ancestor with an owner. Along with the owning resource, each entry keeps the chain of
+ * resources between them, so that a transfer of any resource on the chain removes the entry.
+ * <p>
+ * The size and the time to live can be changed with the system properties
+ * {@code hawkular-accounts.owner-cache.max-size} and {@code hawkular-accounts.owner-cache.ttl}, the latter in
+ * milliseconds. As the removals are local to this instance, transfers made by other instances are only seen once the
+ * entries expire. A TTL of zero disables the cache.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@ApplicationScoped
+public class ResourceOwnerCache {
+    private static final String MAX_SIZE = "hawkular-accounts.owner-cache.max-size";
+    private static final String TTL = "hawkular-accounts.owner-cache.ttl";
+
+    private final ExpiringMap<UUID, Entry> entries;
+    private final long ttlNanos;
+
+    public ResourceOwnerCache() {
+        this(Integer.parseInt(System.getProperty(MAX_SIZE, "10000")),
+                Long.parseLong(System.getProperty(TTL, "60000")), TimeUnit.MILLISECONDS);
+    }
+
+    public ResourceOwnerCache(int maxSize, long ttl, TimeUnit unit) {
+        this.entries = new ExpiringMap<>(maxSize, entry -> entry.expiresAt);
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Retrieves the ID of the resource that determines the ownership of the given resource.
+     * @param resourceId    the ID of the resource
+     * @return the ID of the owning resource, or null if it's not cached or if the entry has expired
+     */
+    public UUID get(UUID resourceId) {
+        Entry entry = entries.get(resourceId, System.nanoTime());
+        return null == entry ? null : entry.chain.get(entry.chain.size() - 1);
+    }
+
+    /**
+     * Stores the owning resource for the first resource on the chain.
+     * @param chain    the IDs of the resources from the resource itself up to the owning resource, inclusive
+     */
+    public void put(List<UUID> chain) {
+        if (ttlNanos <= 0 || chain.isEmpty()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        entries.put(chain.get(0), new Entry(new ArrayList<>(chain), now + ttlNanos), now);
+    }
+
+    /**
+     * Removes the entries that might be affected by a change of the owner of the given resource: the ones for which
+     * the resource is on the chain up to the owning resource.
+     * @param resourceId    the ID of the resource whose owner has changed
+     */
+    public void invalidate(UUID resourceId) {
+        entries.removeIf((key, entry) -> entry.chain.contains(resourceId));
+    }
+
+    /**
+     * Removes all the cached entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final List<UUID> chain;
+        private final long expiresAt;
+
+        private Entry(List<UUID> chain, long expiresAt) {
+            this.chain = chain;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
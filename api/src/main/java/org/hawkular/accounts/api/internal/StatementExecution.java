@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+
+/**
+ * How a statement from {@link BoundStatements} is executed: consistency levels, idempotence, fetch size and read
+ * timeout. The consistency levels and the idempotence are set on the prepared statement, so that every statement
+ * bound from it inherits them, while the fetch size and the read timeout are set on each bound statement.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+public final class StatementExecution {
+    /**
+     * Reads by key, at the cluster's default consistency level. Idempotent, so, they can be executed speculatively.
+     */
+    public static final StatementExecution READ = new StatementExecution(null, null, true, 0, 0);
+
+    /**
+     * Reads on data that rarely changes, like roles and operations by name. These are served by a single replica of
+     * the local data center and time out early, so that the driver moves on to the next host.
+     */
+    public static final StatementExecution LOOKUP = new StatementExecution(ConsistencyLevel.LOCAL_ONE, null, true, 0,
+            (int) TimeUnit.SECONDS.toMillis(2));
+
+    /**
+     * Reads over a whole table, fetched in small pages and with a longer timeout for each page.
+     */
+    public static final StatementExecution SCAN = new StatementExecution(null, null, true, 500,
+            (int) TimeUnit.MINUTES.toMillis(1));
+
+    /**
+     * Inserts, updates and deletes, acknowledged by a quorum of the replicas in the local data center. These are not
+     * idempotent, as a retried write might overwrite a newer one.
+     */
+    public static final StatementExecution WRITE = new StatementExecution(ConsistencyLevel.LOCAL_QUORUM, null, false,
+            0, 0);
+
+    private final ConsistencyLevel consistencyLevel;
+    private final ConsistencyLevel serialConsistencyLevel;
+    private final boolean idempotent;
+    private final int fetchSize;
+    private final int readTimeoutMillis;
+
+    /**
+     * @param consistencyLevel          the consistency level, or null for the cluster's default
+     * @param serialConsistencyLevel    the serial consistency level for conditional updates, or null for the
+     *                                  cluster's default
+     * @param idempotent                whether the statement can be safely executed more than once
+     * @param fetchSize                 the number of rows per page, or 0 for the cluster's default
+     * @param readTimeoutMillis         the read timeout, or 0 for the cluster's default
+     */
+    public StatementExecution(ConsistencyLevel consistencyLevel, ConsistencyLevel serialConsistencyLevel,
+                              boolean idempotent, int fetchSize, int readTimeoutMillis) {
+        this.consistencyLevel = consistencyLevel;
+        this.serialConsistencyLevel = serialConsistencyLevel;
+        this.idempotent = idempotent;
+        this.fetchSize = fetchSize;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public ConsistencyLevel getConsistencyLevel() {
+        return consistencyLevel;
+    }
+
+    public ConsistencyLevel getSerialConsistencyLevel() {
+        return serialConsistencyLevel;
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    PreparedStatement applyTo(PreparedStatement statement) {
+        if (null != consistencyLevel) {
+            statement.setConsistencyLevel(consistencyLevel);
+        }
+        if (null != serialConsistencyLevel) {
+            statement.setSerialConsistencyLevel(serialConsistencyLevel);
+        }
+        statement.setIdempotent(idempotent);
+        return statement;
+    }
+
+    BoundStatement applyTo(BoundStatement statement) {
+        if (fetchSize > 0) {
+            statement.setFetchSize(fetchSize);
+        }
+        if (readTimeoutMillis > 0) {
+            statement.setReadTimeoutMillis(readTimeoutMillis);
+        }
+        return statement;
+    }
+}
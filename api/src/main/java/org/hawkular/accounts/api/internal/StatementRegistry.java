@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import java.util.Map;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+
+/**
+ * Registry of the prepared statements, indexed by the ordinal of their {@link BoundStatements} entry. Reading from it
+ * is a plain array access, so that the services can bind their statements without going through the CDI resolver.
+ * The statements are prepared and published by {@link ApplicationResources}, which also produces this registry.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+public final class StatementRegistry {
+    // replaced as a whole whenever a statement is published, so, readers never need a lock
+    private volatile PreparedStatement[] statements = new PreparedStatement[BoundStatements.values().length];
+
+    StatementRegistry() {
+    }
+
+    /**
+     * Binds a new statement for the given entry, with the fetch size and read timeout from its
+     * {@link StatementExecution}.
+     *
+     * @param statement    the statement's entry on the enum
+     * @return a new BoundStatement for the entry
+     * @throws IllegalStateException if the statement could not be prepared (yet)
+     */
+    public BoundStatement bind(BoundStatements statement) {
+        PreparedStatement prepared = statements[statement.ordinal()];
+        if (null == prepared) {
+            throw new IllegalStateException("The statement " + statement + " has not been prepared.");
+        }
+        return statement.getExecution().applyTo(prepared.bind());
+    }
+
+    synchronized void publish(Map<BoundStatements, PreparedStatement> prepared) {
+        PreparedStatement[] copy = statements.clone();
+        prepared.forEach((statement, preparedStatement) -> copy[statement.ordinal()] = preparedStatement);
+        statements = copy;
+    }
+}
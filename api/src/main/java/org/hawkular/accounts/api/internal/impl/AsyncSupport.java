@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Helper methods to bridge the Cassandra driver's futures into {@link CompletionStage}s, and back into blocking
+ * calls for the synchronous API.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+final class AsyncSupport {
+    private AsyncSupport() {
+    }
+
+    /**
+     * Converts the driver's future into a {@link CompletionStage}. The stage is completed on the given executor, so
+     * that the dependent stages never run on the driver's I/O threads.
+     *
+     * @param future      the driver's future
+     * @param executor    the executor to complete the stage on
+     * @param <T>         the type of the future's result
+     * @return a stage that completes when the future completes
+     */
+    static <T> CompletionStage<T> toStage(ListenableFuture<T> future, Executor executor) {
+        CompletableFuture<T> stage = new CompletableFuture<>();
+        future.addListener(() -> {
+            try {
+                stage.complete(future.get());
+            } catch (ExecutionException e) {
+                stage.completeExceptionally(e.getCause());
+            } catch (Throwable t) {
+                stage.completeExceptionally(t);
+            }
+        }, executor);
+        return stage;
+    }
+
+    /**
+     * Retrieves all the rows from the given result set, fetching the next pages asynchronously when needed.
+     *
+     * @param resultSet    the result set, with the first page already fetched
+     * @param executor     the executor to complete the stage on
+     * @return a stage that completes with all the rows for the query
+     */
+    static CompletionStage<List<Row>> allRows(ResultSet resultSet, Executor executor) {
+        return allRows(resultSet, new ArrayList<>(resultSet.getAvailableWithoutFetching()), executor);
+    }
+
+    private static CompletionStage<List<Row>> allRows(ResultSet resultSet, List<Row> rows, Executor executor) {
+        int available = resultSet.getAvailableWithoutFetching();
+        for (int i = 0; i < available; i++) {
+            rows.add(resultSet.one());
+        }
+
+        if (resultSet.isFullyFetched()) {
+            return CompletableFuture.completedFuture(rows);
+        }
+
+        return toStage(resultSet.fetchMoreResults(), executor)
+                .thenCompose(nextPage -> allRows(nextPage, rows, executor));
+    }
+
+    /**
+     * Typed version of {@link CompletableFuture#allOf(CompletableFuture[])}, for a collection of futures.
+     *
+     * @param futures    the futures to wait for
+     * @return a future that completes when all the given futures complete
+     */
+    static CompletableFuture<Void> allOf(Collection<? extends CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+    }
+
+    /**
+     * Waits for the given stage to complete, for callers of the synchronous API. Failures are propagated as they
+     * happened on the stage, instead of being wrapped into a {@link CompletionException}.
+     *
+     * @param stage    the stage to wait for
+     * @param <T>      the type of the result
+     * @return the result of the stage
+     */
+    static <T> T join(CompletionStage<T> stage) {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
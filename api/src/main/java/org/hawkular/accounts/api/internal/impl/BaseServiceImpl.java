@@ -16,19 +16,47 @@
  */
 package org.hawkular.accounts.api.internal.impl;
 
-import java.time.ZonedDateTime;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.context.ContextNotActiveException;
 import javax.inject.Inject;
 
+import org.hawkular.accounts.api.Page;
+import org.hawkular.accounts.api.internal.BoundStatements;
+import org.hawkular.accounts.api.internal.IdentityMap;
+import org.hawkular.accounts.api.internal.StatementRegistry;
 import org.hawkular.accounts.api.model.BaseEntity;
 import org.hawkular.accounts.common.ZonedDateTimeAdapter;
 
+import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.PagingStateException;
 
 /**
  * Provides helper methods for services that interact with Cassandra as data store.
@@ -37,12 +65,48 @@ import com.datastax.driver.core.Session;
  */
 @SuppressWarnings("CdiManagedBeanInconsistencyInspection")
 public abstract class BaseServiceImpl<T extends BaseEntity> {
+    /**
+     * Determines how the references from a record to other entities are resolved. With {@link #LAZY}, the mapped
+     * record holds only the ID of the referenced entity, which is then loaded on the first access. With
+     * {@link #EAGER}, the references are resolved before the record is returned to the caller.
+     */
+    enum ReferenceLoading {
+        LAZY, EAGER
+    }
+
     @Inject
     ZonedDateTimeAdapter zonedDateTimeAdapter;
 
     @Inject
     Session session;
 
+    /**
+     * The prepared statements, from which the services bind the ones they execute.
+     */
+    @Inject
+    StatementRegistry statements;
+
+    /**
+     * The first-level cache for the current request. Might be null, when the service is used outside of a container.
+     */
+    @Inject
+    IdentityMap identityMap;
+
+    /**
+     * The maximum number of IDs we send on a single "IN" query. Bigger lists are split into several queries, which are
+     * executed in parallel.
+     */
+    static final int MULTI_GET_BATCH_SIZE = 100;
+
+    /**
+     * The executor to complete the asynchronous operations on. Might be null, when the service is used outside of a
+     * container.
+     */
+    @Resource
+    ManagedExecutorService executor;
+
+    private Class<T> entityType;
+
     /**
      * Returns a record based on its ID.
      * @param uuid         the record's UUID
@@ -50,10 +114,237 @@ public abstract class BaseServiceImpl<T extends BaseEntity> {
      * @return the record
      */
     public T getById(UUID uuid, BoundStatement statement) {
+        return getById(uuid, statement, ReferenceLoading.LAZY);
+    }
+
+    /**
+     * Returns a record based on its ID, resolving its references according to the given mode.
+     * @param uuid         the record's UUID
+     * @param statement    the statement to use when retrieving the record.
+     * @param loading      how the references from the record should be loaded
+     * @return the record
+     */
+    T getById(UUID uuid, BoundStatement statement, ReferenceLoading loading) {
         if (null == uuid) {
             throw new IllegalArgumentException("The given ID is invalid (null).");
         }
-        return getSingleRecord(statement.setUUID("id", uuid));
+
+        IdentityMap map = getIdentityMap();
+        if (null == map) {
+            return getSingleRecord(statement.setUUID("id", uuid), loading);
+        }
+
+        T record = map.get(getEntityType(), uuid, id -> getSingleRecord(statement.setUUID("id", id)));
+        if (null != record && ReferenceLoading.EAGER.equals(loading)) {
+            loadReferences(record);
+        }
+        return record;
+    }
+
+    /**
+     * Returns the records for the given IDs, reading all the records that are not yet known for this request with as
+     * few queries as possible.
+     *
+     * @param ids                  the IDs of the records to retrieve. Null IDs are ignored.
+     * @param statementSupplier    provides new statements with an "ids" parameter, for an "IN" query
+     * @return the existing records, in the same order as the given IDs. Duplicate IDs and IDs without a
+     * corresponding record are skipped.
+     */
+    List<T> getByIds(Collection<UUID> ids, Supplier<BoundStatement> statementSupplier) {
+        if (null == ids) {
+            throw new IllegalArgumentException("The given list of IDs is invalid (null).");
+        }
+
+        Collection<UUID> distinctIds = ids
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        if (distinctIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<UUID, T> records;
+        IdentityMap map = getIdentityMap();
+        if (null == map) {
+            records = loadByIds(new ArrayList<>(distinctIds), statementSupplier);
+        } else {
+            records = map.getAll(getEntityType(), distinctIds, i -> loadByIds(i, statementSupplier));
+        }
+
+        return distinctIds
+                .stream()
+                .map(records::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Asynchronous version of {@link #getByIds(Collection, Supplier)}. The references from the records are loaded
+     * lazily.
+     *
+     * @param ids                  the IDs of the records to retrieve. Null IDs are ignored.
+     * @param statementSupplier    provides new statements with an "ids" parameter, for an "IN" query
+     * @return a stage that completes with the existing records, in the same order as the given IDs
+     */
+    CompletionStage<List<T>> getByIdsAsync(Collection<UUID> ids, Supplier<BoundStatement> statementSupplier) {
+        if (null == ids) {
+            throw new IllegalArgumentException("The given list of IDs is invalid (null).");
+        }
+
+        Collection<UUID> distinctIds = ids
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        if (distinctIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        CompletionStage<Map<UUID, T>> records;
+        IdentityMap map = getIdentityMap();
+        if (null == map) {
+            records = loadByIdsAsync(new ArrayList<>(distinctIds), statementSupplier, null);
+        } else {
+            records = map.getAllAsync(getEntityType(), distinctIds, i -> loadByIdsAsync(i, statementSupplier, map));
+        }
+
+        return records.thenApply(byId -> distinctIds
+                .stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Asynchronous version of {@link #loadByIds(List, Supplier)}.
+     *
+     * @param ids                  the IDs of the records to retrieve
+     * @param statementSupplier    provides new statements with an "ids" parameter, for an "IN" query
+     * @param map                  the identity map of the request, retrieved before going asynchronous. Might be
+     *                             null.
+     * @return a stage that completes with a map with the existing records, indexed by their IDs
+     */
+    private CompletionStage<Map<UUID, T>> loadByIdsAsync(List<UUID> ids,
+                                                         Supplier<BoundStatement> statementSupplier,
+                                                         IdentityMap map) {
+        List<CompletableFuture<List<Row>>> batches = new ArrayList<>(ids.size() / MULTI_GET_BATCH_SIZE + 1);
+        for (int i = 0; i < ids.size(); i += MULTI_GET_BATCH_SIZE) {
+            List<UUID> batch = ids.subList(i, Math.min(i + MULTI_GET_BATCH_SIZE, ids.size()));
+            batches.add(executeAsync(statementSupplier.get().setList("ids", new ArrayList<>(batch)))
+                    .thenCompose(resultSet -> AsyncSupport.allRows(resultSet, getExecutor()))
+                    .toCompletableFuture());
+        }
+
+        return AsyncSupport.allOf(batches).thenApply(v -> {
+            Map<UUID, T> records = new HashMap<>(ids.size());
+            batches.forEach(batch -> batch.join().forEach(row -> {
+                T record = register(map, getFromRow(row));
+                records.put(record.getIdAsUUID(), record);
+            }));
+            return records;
+        });
+    }
+
+    /**
+     * Reads the given records from the data store, splitting the IDs into batches of {@link #MULTI_GET_BATCH_SIZE}.
+     * The batches are executed in parallel.
+     *
+     * @param ids                  the IDs of the records to retrieve
+     * @param statementSupplier    provides new statements with an "ids" parameter, for an "IN" query
+     * @return a map with the existing records, indexed by their IDs
+     */
+    private Map<UUID, T> loadByIds(List<UUID> ids, Supplier<BoundStatement> statementSupplier) {
+        List<ResultSetFuture> futures = new ArrayList<>(ids.size() / MULTI_GET_BATCH_SIZE + 1);
+        for (int i = 0; i < ids.size(); i += MULTI_GET_BATCH_SIZE) {
+            List<UUID> batch = ids.subList(i, Math.min(i + MULTI_GET_BATCH_SIZE, ids.size()));
+            futures.add(session.executeAsync(statementSupplier.get().setList("ids", batch)));
+        }
+
+        Map<UUID, T> records = new HashMap<>(ids.size());
+        futures.forEach(future ->
+                getFromRows(future.getUninterruptibly().all())
+                        .forEach(record -> records.put(record.getIdAsUUID(), record))
+        );
+        return records;
+    }
+
+    /**
+     * Asynchronous version of {@link #getById(UUID, BoundStatement)}. The references from the record are loaded
+     * lazily.
+     * @param uuid         the record's UUID
+     * @param statement    the statement to use when retrieving the record.
+     * @return a stage that completes with the record, or with null if there's no record with this ID
+     */
+    CompletionStage<T> getByIdAsync(UUID uuid, BoundStatement statement) {
+        if (null == uuid) {
+            throw new IllegalArgumentException("The given ID is invalid (null).");
+        }
+
+        IdentityMap map = getIdentityMap();
+        if (null == map) {
+            return getSingleRecordAsync(statement.setUUID("id", uuid));
+        }
+        return map.getAsync(getEntityType(), uuid, id -> getSingleRecordAsync(statement.setUUID("id", id)));
+    }
+
+    /**
+     * Asynchronous version of {@link #getSingleRecord(BoundStatement)}.
+     * @param statement    the statement ready to be executed
+     * @return a stage that completes with the record resulting from the statement, or with null if there's none
+     */
+    CompletionStage<T> getSingleRecordAsync(BoundStatement statement) {
+        // the identity map has to be retrieved here, as the stage might complete on a thread without request context
+        IdentityMap map = getIdentityMap();
+        return executeAsync(statement).thenApply(resultSet -> {
+            Row row = resultSet.one();
+            if (null == row) {
+                return null;
+            }
+            return register(map, getFromRow(row));
+        });
+    }
+
+    /**
+     * Asynchronous version of {@link #getList(BoundStatement)}. The references from the records are loaded lazily.
+     * @param statement    the statement ready to be executed
+     * @return a stage that completes with the list of T according to the results of the query
+     */
+    CompletionStage<List<T>> getListAsync(BoundStatement statement) {
+        IdentityMap map = getIdentityMap();
+        return executeAsync(statement)
+                .thenCompose(resultSet -> AsyncSupport.allRows(resultSet, getExecutor()))
+                .thenApply(rows -> rows
+                        .stream()
+                        .map(row -> register(map, getFromRow(row)))
+                        .collect(Collectors.toList())
+                );
+    }
+
+    /**
+     * Asynchronously stores a new record. The basic parameters are bound to the statement by this method. If lookup
+     * statements are given, they are executed together with the main statement as a logged batch, so that the lookup
+     * tables are never left out of sync with the main table.
+     * @param record              the record to be stored
+     * @param statement           the insert statement, with the other fields already bound
+     * @param lookupStatements    the insert statements for the lookup tables, with the other fields already bound
+     * @return a stage that completes with the stored record
+     */
+    CompletionStage<T> createAsync(T record, BoundStatement statement, BoundStatement... lookupStatements) {
+        bindBasicParameters(record, statement);
+        for (BoundStatement lookupStatement : lookupStatements) {
+            bindBasicParameters(record, lookupStatement);
+        }
+        return executeAsync(logged(statement, lookupStatements)).thenApply(resultSet -> record);
+    }
+
+    /**
+     * Executes the given statement without blocking the caller.
+     * @param statement    the statement ready to be executed
+     * @return a stage that completes with the result set, on the executor from {@link #getExecutor()}
+     */
+    CompletionStage<ResultSet> executeAsync(Statement statement) {
+        return AsyncSupport.toStage(session.executeAsync(statement), getExecutor());
     }
 
     /**
@@ -62,11 +353,26 @@ public abstract class BaseServiceImpl<T extends BaseEntity> {
      * @return an T instance that represents the record resulting from the statement
      */
     T getSingleRecord(BoundStatement statement) {
+        return getSingleRecord(statement, ReferenceLoading.LAZY);
+    }
+
+    /**
+     * Runs a prepared statement that is supposed to retrieve only one record, resolving the record's references
+     * according to the given mode.
+     * @param statement    the statement ready to be executed
+     * @param loading      how the references from the record should be loaded
+     * @return an T instance that represents the record resulting from the statement
+     */
+    T getSingleRecord(BoundStatement statement, ReferenceLoading loading) {
         Row row = session.execute(statement).one();
         if (null == row) {
             return null;
         }
-        return getFromRow(row);
+        T record = register(getFromRow(row));
+        if (ReferenceLoading.EAGER.equals(loading)) {
+            loadReferences(record);
+        }
+        return record;
     }
 
     /**
@@ -75,7 +381,90 @@ public abstract class BaseServiceImpl<T extends BaseEntity> {
      * @return a List of T according to the results of the query
      */
     List<T> getList(BoundStatement statement) {
-        return getFromRows(session.execute(statement).all());
+        return getList(statement, ReferenceLoading.LAZY);
+    }
+
+    /**
+     * Runs a prepared statement that is supposed to retrieve one or more records, resolving the records' references
+     * according to the given mode.
+     * @param statement    the statement ready to be executed
+     * @param loading      how the references from the records should be loaded
+     * @return a List of T according to the results of the query
+     */
+    List<T> getList(BoundStatement statement, ReferenceLoading loading) {
+        return getFromRows(session.execute(statement).all(), loading);
+    }
+
+    /**
+     * Runs a prepared statement and returns only one page of the results. The continuation token for the next page is
+     * built from the driver's paging state, which is bound to this specific statement.
+     * @param statement    the statement ready to be executed
+     * @param limit        the maximum number of records for the page
+     * @param cursor       the cursor returned with the previous page, or null for the first page
+     * @return the page with at most "limit" records
+     * @throws IllegalArgumentException if the limit is out of range or if the cursor is invalid
+     */
+    Page<T> getPage(BoundStatement statement, int limit, String cursor) {
+        return getPage(statement, limit, cursor, ReferenceLoading.LAZY);
+    }
+
+    /**
+     * Runs a prepared statement and returns only one page of the results, resolving the records' references
+     * according to the given mode.
+     * @param statement    the statement ready to be executed
+     * @param limit        the maximum number of records for the page
+     * @param cursor       the cursor returned with the previous page, or null for the first page
+     * @param loading      how the references from the records should be loaded
+     * @return the page with at most "limit" records
+     * @throws IllegalArgumentException if the limit is out of range or if the cursor is invalid
+     */
+    Page<T> getPage(BoundStatement statement, int limit, String cursor, ReferenceLoading loading) {
+        if (limit < 1 || limit > Page.MAX_LIMIT) {
+            throw new IllegalArgumentException("The page limit should be between 1 and " + Page.MAX_LIMIT + ".");
+        }
+
+        statement.setFetchSize(limit);
+        if (null != cursor && !cursor.isEmpty()) {
+            try {
+                statement.setPagingState(PagingState.fromString(cursor));
+            } catch (PagingStateException e) {
+                throw new IllegalArgumentException("The given cursor is invalid.", e);
+            }
+        } else {
+            // the statement might have been used before for another page
+            statement.setPagingState(null);
+        }
+
+        ResultSet resultSet = session.execute(statement);
+
+        // we consume only what has been fetched already, otherwise the driver would fetch the next page for us
+        int available = resultSet.getAvailableWithoutFetching();
+        List<Row> rows = new ArrayList<>(available);
+        for (int i = 0; i < available; i++) {
+            rows.add(resultSet.one());
+        }
+
+        PagingState pagingState = resultSet.getExecutionInfo().getPagingState();
+        String nextCursor = null == pagingState ? null : pagingState.toString();
+        return new Page<>(getFromRows(rows, loading), nextCursor);
+    }
+
+    /**
+     * Runs a prepared statement and returns the results as a lazy stream. Rows are fetched from the data store in
+     * pages of the given size as the stream is consumed, and are mapped as they arrive, so that the whole result is
+     * never held in memory by this method.
+     * @param statement    the statement ready to be executed
+     * @param fetchSize    the number of rows to fetch on each round trip
+     * @return a sequential stream of T
+     */
+    Stream<T> getStream(BoundStatement statement, int fetchSize) {
+        statement.setFetchSize(fetchSize);
+        statement.setPagingState(null);
+        ResultSet resultSet = session.execute(statement);
+        return StreamSupport
+                .stream(resultSet.spliterator(), false)
+                .map(this::getFromRow)
+                .map(this::register);
     }
 
     /**
@@ -84,39 +473,130 @@ public abstract class BaseServiceImpl<T extends BaseEntity> {
      * @return a List of T
      */
     List<T> getFromRows(List<Row> rows) {
-        return rows
+        return getFromRows(rows, ReferenceLoading.LAZY);
+    }
+
+    /**
+     * Converts a List of Row into a List of T, resolving the references according to the given mode.
+     * @param rows       the List of Row to be converted
+     * @param loading    how the references from the records should be loaded
+     * @return a List of T
+     */
+    List<T> getFromRows(List<Row> rows, ReferenceLoading loading) {
+        List<T> records = rows
                 .stream()
                 .map(this::getFromRow)
+                .map(this::register)
                 .collect(Collectors.toList());
+        if (ReferenceLoading.EAGER.equals(loading)) {
+            loadReferences(records);
+        }
+        return records;
     }
 
     /**
-     * Updates T, binds the basic parameters to the Statement and executes it, returning the updated T.
-     * @param record       the record to be updated
-     * @param statement    the statement with the other fields already bound.
+     * Updates T, binds the basic parameters to the Statement and executes it, returning the updated T. The lookup
+     * statements, if any, get the same basic parameters, when they have them as variables, and are executed along
+     * with the main statement as a logged batch.
+     * @param record              the record to be updated
+     * @param statement           the statement with the other fields already bound.
+     * @param lookupStatements    the update statements for the lookup tables, with the other fields already bound
      * @return the updated record
      */
-    T update(T record, BoundStatement statement) {
+    T update(T record, BoundStatement statement, BoundStatement... lookupStatements) {
         record.setUpdatedAt();
-        statement.setTimestamp("updatedAt", zonedDateTimeAdapter.convertToDatabaseColumn(record.getUpdatedAt()));
+        Date updatedAt = new Date(record.getUpdatedAtMillis());
+        statement.setTimestamp("updatedAt", updatedAt);
         statement.setUUID("id", record.getIdAsUUID());
-        session.execute(statement);
+        for (BoundStatement lookupStatement : lookupStatements) {
+            // deletes from the lookup tables have no updatedAt
+            if (lookupStatement.preparedStatement().getVariables().contains("updatedAt")) {
+                lookupStatement.setTimestamp("updatedAt", updatedAt);
+            }
+            lookupStatement.setUUID("id", record.getIdAsUUID());
+        }
+        session.execute(logged(statement, lookupStatements));
+        IdentityMap map = getIdentityMap();
+        if (null != map) {
+            map.put(getEntityType(), record);
+        }
         return record;
     }
 
+    /**
+     * Removes the record with the given ID, by binding the ID to the given statement and executing it. The lookup
+     * statements, if any, are executed along with the main statement as a logged batch.
+     * @param id                  the ID of the record to remove
+     * @param statement           the removal statement, with an "id" parameter
+     * @param lookupStatements    the removal statements for the lookup tables, with the other keys already bound
+     */
+    void removeById(UUID id, BoundStatement statement, BoundStatement... lookupStatements) {
+        statement.setUUID("id", id);
+        for (BoundStatement lookupStatement : lookupStatements) {
+            lookupStatement.setUUID("id", id);
+        }
+        session.execute(logged(statement, lookupStatements));
+        IdentityMap map = getIdentityMap();
+        if (null != map) {
+            map.evict(getEntityType(), id);
+        }
+    }
+
+    /**
+     * Groups the statement for the main table and the statements for its lookup tables into a logged batch. Cassandra
+     * guarantees that all statements from a logged batch are eventually applied, which is what keeps the
+     * denormalized tables consistent with the main one.
+     * @param statement           the statement for the main table
+     * @param lookupStatements    the statements for the lookup tables
+     * @return the statement itself if there are no lookup statements, or a logged batch with all of them otherwise
+     */
+    Statement logged(Statement statement, Statement... lookupStatements) {
+        if (lookupStatements.length == 0) {
+            return statement;
+        }
+
+        // the batch is executed at its own consistency level, not at the one of the statements in it
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.LOGGED);
+        batch.setConsistencyLevel(statement.getConsistencyLevel());
+        batch.add(statement);
+        for (Statement lookupStatement : lookupStatements) {
+            batch.add(lookupStatement);
+        }
+        return batch;
+    }
+
+    /**
+     * @return the protocol version negotiated by the session, for decoding the values of the rows
+     */
+    ProtocolVersion getProtocolVersion() {
+        return session.getCluster().getConfiguration().getProtocolOptions().getProtocolVersion();
+    }
+
     /**
      * Maps the base fields from the Row into the T.Builder.
      * @param row        the row
+     * @param columns    the positions of the columns on the row, as resolved by the service's {@link RowMapping}
      * @param builder    T's builder
      */
-    void mapBaseFields(Row row, T.Builder builder) {
-        UUID id = row.getUUID("id");
-        ZonedDateTime createdAt = zonedDateTimeAdapter.convertToEntityAttribute(row.getTimestamp("createdAt"));
-        ZonedDateTime updatedAt = zonedDateTimeAdapter.convertToEntityAttribute(row.getTimestamp("updatedAt"));
-        builder
-                .createdAt(createdAt)
-                .updatedAt(updatedAt)
-                .id(id);
+    void mapBaseFields(Row row, RowMapping.Columns columns, T.Builder builder) {
+        builder.id(columns.getUUID(row, RowMapping.ID));
+
+        // the timestamps stay as epoch millis, a null column leaves the entity's default in place
+        if (!columns.isNull(row, RowMapping.CREATED_AT)) {
+            builder.createdAt(columns.getEpochMilli(row, RowMapping.CREATED_AT));
+        }
+        if (!columns.isNull(row, RowMapping.UPDATED_AT)) {
+            builder.updatedAt(columns.getEpochMilli(row, RowMapping.UPDATED_AT));
+        }
+    }
+
+    /**
+     * Binds a new statement from the registry.
+     * @param statement    the statement's entry on the enum
+     * @return a new BoundStatement for the entry
+     */
+    BoundStatement bind(BoundStatements statement) {
+        return statements.bind(statement);
     }
 
     /**
@@ -126,12 +606,108 @@ public abstract class BaseServiceImpl<T extends BaseEntity> {
      */
     void bindBasicParameters(T t, BoundStatement statement) {
         statement.setUUID("id", t.getIdAsUUID());
-        statement.setTimestamp("createdAt", zonedDateTimeAdapter.convertToDatabaseColumn(t.getCreatedAt()));
-        statement.setTimestamp("updatedAt", zonedDateTimeAdapter.convertToDatabaseColumn(t.getUpdatedAt()));
+        statement.setTimestamp("createdAt", new Date(t.getCreatedAtMillis()));
+        statement.setTimestamp("updatedAt", new Date(t.getUpdatedAtMillis()));
+        IdentityMap map = getIdentityMap();
+        if (null != map) {
+            map.put(getEntityType(), t);
+        }
+    }
+
+    /**
+     * Registers the given record into the identity map for the current request, if any.
+     * @param record    the record that has just been read
+     * @return the instance that represents the record for the current request
+     */
+    T register(T record) {
+        return register(getIdentityMap(), record);
+    }
+
+    private T register(IdentityMap map, T record) {
+        if (null == map) {
+            return record;
+        }
+        return map.register(getEntityType(), record);
+    }
+
+    /**
+     * Returns the identity map for the current request. When there's no request context on the current thread, or
+     * when we are running outside of a container, there's no identity map and null is returned.
+     * @return the identity map for the current request, or null
+     */
+    IdentityMap getIdentityMap() {
+        if (null == identityMap) {
+            return null;
+        }
+
+        try {
+            return identityMap.getInstance();
+        } catch (ContextNotActiveException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the executor on which the asynchronous operations are completed
+     */
+    Executor getExecutor() {
+        if (null == executor) {
+            // outside of a container
+            return ForkJoinPool.commonPool();
+        }
+        return executor;
+    }
+
+    /**
+     * @return the type of the records handled by this service, as declared on the service's class
+     */
+    @SuppressWarnings("unchecked")
+    Class<T> getEntityType() {
+        if (null == entityType) {
+            Class<?> serviceClass = getClass();
+            while (!BaseServiceImpl.class.equals(serviceClass.getSuperclass())) {
+                // we might be on a proxy subclass, so, go up until we find the actual service
+                serviceClass = serviceClass.getSuperclass();
+            }
+            ParameterizedType type = (ParameterizedType) serviceClass.getGenericSuperclass();
+            entityType = (Class<T>) type.getActualTypeArguments()[0];
+        }
+        return entityType;
+    }
+
+    /**
+     * Resolves the lazy references held by the given record. Services mapping records with references to other
+     * entities should override this, touching each of the references.
+     * @param record    the record to have its references resolved
+     */
+    void loadReferences(T record) {
+    }
+
+    /**
+     * Resolves the lazy references held by the given records. When there's an identity map, the referenced entities
+     * are first read in batches by {@link #prefetchReferences(List)}, so that the references of each record are then
+     * resolved from the identity map, without further round trips.
+     * @param records    the records to have their references resolved
+     */
+    void loadReferences(List<T> records) {
+        if (null != getIdentityMap()) {
+            // without an identity map, the prefetched entities would just be read again by each reference
+            prefetchReferences(records);
+        }
+        records.forEach(this::loadReferences);
+    }
+
+    /**
+     * Reads the entities referenced by the given records in batches, registering them on the identity map. Services
+     * mapping records with references to other entities should override this, calling the batch retrieval of each
+     * referenced service.
+     * @param records    the records whose references are about to be resolved
+     */
+    void prefetchReferences(List<T> records) {
     }
 
     /**
-     * Converts a given Row into an instance of T
+     * Converts a given Row into an instance of T. References to other entities should be mapped lazily, by their IDs.
      * @param row    the row to be converted
      * @return an instance of T
      */
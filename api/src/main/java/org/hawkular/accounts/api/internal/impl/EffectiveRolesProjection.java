@@ -0,0 +1,317 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.hawkular.accounts.api.internal.BoundStatements;
+import org.hawkular.accounts.api.internal.PermissionInputsChangedEvent;
+import org.hawkular.accounts.api.internal.StatementRegistry;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+
+/**
+ * Materialized view of the effective roles that each persona has on each resource, stored as role masks from the
+ * {@link RoleLattice} on the {@code effective_roles} table. With it, the cost of determining the effective roles of
+ * a persona on a resource doesn't depend on how many organizations the persona belongs to.
+ * <p>
+ * Entries are written on the first time the roles are determined for a persona and resource, and are removed as soon
+ * as a {@link PermissionInputsChangedEvent} says that the data they were based on has changed: for a resource, the
+ * entries of all personas on it (found via {@code effective_roles_by_resource}), and for a persona, all its entries
+ * and the ones of its members, recursively. The entries are then determined again on the next read.
+ * <p>
+ * An entry is written with the time at which its computation started, so that a removal that happened while it was
+ * being computed still wins. As the entries of a resource are found via an index that such a late write might not
+ * have reached yet, invalidating a resource also records the time of the invalidation on
+ * {@code effective_roles_invalidations}, and entries written before that are ignored on reads.
+ * <p>
+ * This means that every read costs two reads on the data store, issued in parallel: the entry itself, from the
+ * persona's partition, and the invalidation marker, from the resource's partition. For the bulk reads, the markers
+ * are read with an {@code IN} over the partitions of all the requested resources. The marker can't live on the
+ * persona's partition, as the late writes it protects against are exactly the ones the invalidation can't find.
+ * <p>
+ * Entries also expire after the time set by the system property {@code hawkular-accounts.effective-roles.ttl}, in
+ * seconds, and are periodically verified by the {@link EffectiveRolesRebuildJob}. A TTL of zero disables the
+ * projection.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@ApplicationScoped
+public class EffectiveRolesProjection {
+    private static final String TTL = "hawkular-accounts.effective-roles.ttl";
+    private static final int MAX_TTL = 630720000; // 20 years, the maximum accepted by Cassandra
+
+    MsgLogger logger = MsgLogger.LOGGER;
+
+    @Inject
+    Session session;
+
+    @Inject
+    StatementRegistry statements;
+
+    @Resource
+    ManagedExecutorService executor;
+
+    private final int ttl;
+
+    public EffectiveRolesProjection() {
+        this(Integer.parseInt(System.getProperty(TTL, "86400")));
+    }
+
+    public EffectiveRolesProjection(int ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * @return whether the projection is used at all
+     */
+    public boolean isEnabled() {
+        return ttl > 0;
+    }
+
+    /**
+     * The write time to be used for an entry whose computation starts now. Should be retrieved before reading the
+     * data the entry is based on.
+     *
+     * @return the current time, in microseconds
+     */
+    public long now() {
+        return System.currentTimeMillis() * 1000;
+    }
+
+    /**
+     * Retrieves the role mask of the persona on the resource.
+     *
+     * @param personaId     the ID of the persona
+     * @param resourceId    the ID of the resource
+     * @return a stage that completes with the role mask, or with null if there's no entry for the pair
+     */
+    public CompletionStage<Long> getAsync(UUID personaId, UUID resourceId) {
+        if (!isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        BoundStatement statement = statements.bind(BoundStatements.EFFECTIVE_ROLES_GET)
+                .setUUID("persona", personaId)
+                .setUUID("resource", resourceId);
+        CompletionStage<Row> entry = AsyncSupport.toStage(session.executeAsync(statement), getExecutor())
+                .thenApply(ResultSet::one);
+        return entry.thenCombine(getInvalidationsAsync(Collections.singleton(resourceId)), (row, invalidations) -> {
+            if (null == row || !isCurrent(row, invalidations.get(resourceId))) {
+                return null;
+            }
+            return row.getLong("roles");
+        });
+    }
+
+    /**
+     * Retrieves the role masks of the persona on each of the resources, with a single read for the entries and one for
+     * the invalidation markers.
+     *
+     * @param personaId      the ID of the persona
+     * @param resourceIds    the IDs of the resources
+     * @return a stage that completes with the role masks per resource ID. Resources without an entry are not part of
+     * the map.
+     */
+    public CompletionStage<Map<UUID, Long>> getAsync(UUID personaId, Collection<UUID> resourceIds) {
+        if (!isEnabled() || resourceIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+
+        BoundStatement statement = statements.bind(BoundStatements.EFFECTIVE_ROLES_GET_BY_RESOURCES)
+                .setUUID("persona", personaId)
+                .setList("resources", new ArrayList<>(resourceIds));
+        CompletionStage<List<Row>> entries = AsyncSupport.toStage(session.executeAsync(statement), getExecutor())
+                .thenCompose(resultSet -> AsyncSupport.allRows(resultSet, getExecutor()));
+        return entries.thenCombine(getInvalidationsAsync(resourceIds), (rows, invalidations) -> {
+            Map<UUID, Long> masks = new HashMap<>(rows.size());
+            rows.forEach(row -> {
+                UUID resourceId = row.getUUID("resource");
+                if (isCurrent(row, invalidations.get(resourceId))) {
+                    masks.put(resourceId, row.getLong("roles"));
+                }
+            });
+            return masks;
+        });
+    }
+
+    /**
+     * Stores the role mask of the persona on the resource, without waiting for the write to complete. Failures are
+     * only logged, as the entry is determined again on the next read.
+     *
+     * @param personaId     the ID of the persona
+     * @param resourceId    the ID of the resource
+     * @param roles         the role mask
+     * @param timestamp     the time at which the computation of the mask started, as returned by {@link #now()}
+     */
+    public void put(UUID personaId, UUID resourceId, long roles, long timestamp) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.LOGGED);
+        batch.setConsistencyLevel(BoundStatements.EFFECTIVE_ROLES_CREATE.getExecution().getConsistencyLevel());
+        batch.add(statements.bind(BoundStatements.EFFECTIVE_ROLES_CREATE)
+                .setUUID("persona", personaId)
+                .setUUID("resource", resourceId)
+                .setLong("roles", roles)
+                .setInt("ttl", ttl));
+        batch.add(statements.bind(BoundStatements.EFFECTIVE_ROLES_CREATE_BY_RESOURCE)
+                .setUUID("resource", resourceId)
+                .setUUID("persona", personaId)
+                .setInt("ttl", ttl));
+        batch.setDefaultTimestamp(timestamp);
+
+        AsyncSupport.toStage(session.executeAsync(batch), getExecutor()).whenComplete((resultSet, t) -> {
+            if (null != t) {
+                logger.failedToStoreEffectiveRoles(personaId.toString(), resourceId.toString(), t);
+            }
+        });
+    }
+
+    /**
+     * Removes the entry for the persona on the resource.
+     *
+     * @param personaId     the ID of the persona
+     * @param resourceId    the ID of the resource
+     */
+    public void remove(UUID personaId, UUID resourceId) {
+        execute(statements.bind(BoundStatements.EFFECTIVE_ROLES_REMOVE)
+                .setUUID("persona", personaId)
+                .setUUID("resource", resourceId));
+    }
+
+    /**
+     * Removes the entries that are affected by the change described on the event. Waits for the removals to complete,
+     * so that the change is visible to the next read.
+     *
+     * @param event    the event describing the change
+     */
+    public void invalidate(@Observes PermissionInputsChangedEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (null != event.getResourceId()) {
+            invalidateResource(event.getResourceId());
+        }
+
+        if (null != event.getPersonaId()) {
+            invalidatePersona(event.getPersonaId(), new HashSet<>());
+        }
+    }
+
+    /**
+     * Iterates over all the entries of the projection. Meant for the background verification of the entries.
+     *
+     * @param consumer    receives the persona ID and the resource ID of each entry
+     */
+    public void forEach(BiConsumer<UUID, UUID> consumer) {
+        Statement statement = statements.bind(BoundStatements.EFFECTIVE_ROLES_GET_ALL);
+        for (Row row : session.execute(statement)) {
+            consumer.accept(row.getUUID("persona"), row.getUUID("resource"));
+        }
+    }
+
+    private void invalidateResource(UUID resourceId) {
+        // recorded first, so that it also covers the entries that are not on the index yet. It outlives the entries
+        // written up to the time of the invalidation, which expire after the TTL.
+        long invalidatedAt = now();
+        BoundStatement invalidation = statements.bind(BoundStatements.EFFECTIVE_ROLES_INVALIDATION_CREATE)
+                .setUUID("resource", resourceId)
+                .setLong("invalidated_at", invalidatedAt)
+                .setInt("ttl", (int) Math.min(2L * ttl, MAX_TTL));
+        invalidation.setDefaultTimestamp(invalidatedAt);
+        session.execute(invalidation);
+
+        BoundStatement select = statements.bind(BoundStatements.EFFECTIVE_ROLES_GET_PERSONAS_BY_RESOURCE)
+                .setUUID("resource", resourceId);
+        List<UUID> personaIds = new ArrayList<>();
+        session.execute(select).forEach(row -> personaIds.add(row.getUUID("persona")));
+
+        personaIds.forEach(personaId -> remove(personaId, resourceId));
+        execute(statements.bind(BoundStatements.EFFECTIVE_ROLES_REMOVE_BY_RESOURCE).setUUID("resource", resourceId));
+    }
+
+    private void invalidatePersona(UUID personaId, Set<UUID> visited) {
+        if (!visited.add(personaId)) {
+            return;
+        }
+
+        execute(statements.bind(BoundStatements.EFFECTIVE_ROLES_REMOVE_BY_PERSONA).setUUID("persona", personaId));
+
+        // the members of an organization inherit its roles, so, their entries are also affected
+        BoundStatement members = statements.bind(BoundStatements.MEMBERSHIP_GET_BY_ORGANIZATION)
+                .setUUID("organization", personaId);
+        for (Row row : session.execute(members)) {
+            invalidatePersona(row.getUUID("member"), visited);
+        }
+    }
+
+    private CompletionStage<Map<UUID, Long>> getInvalidationsAsync(Collection<UUID> resourceIds) {
+        BoundStatement statement = statements.bind(BoundStatements.EFFECTIVE_ROLES_INVALIDATIONS_GET)
+                .setList("resources", new ArrayList<>(resourceIds));
+        return AsyncSupport.toStage(session.executeAsync(statement), getExecutor())
+                .thenCompose(resultSet -> AsyncSupport.allRows(resultSet, getExecutor()))
+                .thenApply(rows -> {
+                    Map<UUID, Long> invalidations = new HashMap<>(rows.size());
+                    rows.forEach(row -> invalidations.put(row.getUUID("resource"), row.getLong("invalidated_at")));
+                    return invalidations;
+                });
+    }
+
+    private boolean isCurrent(Row row, Long invalidatedAt) {
+        return null == invalidatedAt || row.getLong("written_at") > invalidatedAt;
+    }
+
+    private void execute(BoundStatement statement) {
+        statement.setDefaultTimestamp(now());
+        session.execute(statement);
+    }
+
+    private Executor getExecutor() {
+        if (null == executor) {
+            // outside of a container
+            return ForkJoinPool.commonPool();
+        }
+        return executor;
+    }
+}
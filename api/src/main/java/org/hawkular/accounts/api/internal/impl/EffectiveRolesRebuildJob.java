@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.security.PermitAll;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.inject.Inject;
+
+import org.hawkular.accounts.api.PersonaService;
+import org.hawkular.accounts.api.ResourceService;
+import org.hawkular.accounts.api.model.Persona;
+import org.hawkular.accounts.api.model.Resource;
+
+/**
+ * Periodically verifies all the entries of the {@link EffectiveRolesProjection}, repairing the ones that got out of
+ * sync with the data they are based on, like when a change happened without the corresponding event. Each entry is
+ * removed and determined again from the source tables, and entries for personas or resources that don't exist
+ * anymore are just removed.
+ * <p>
+ * The interval between the runs can be changed with the system property
+ * {@code hawkular-accounts.effective-roles.rebuild-interval}, in minutes. An interval of zero disables the job.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@Startup
+@Singleton
+@PermitAll
+public class EffectiveRolesRebuildJob {
+    private static final String INTERVAL = "hawkular-accounts.effective-roles.rebuild-interval";
+
+    MsgLogger logger = MsgLogger.LOGGER;
+
+    // fully qualified, as Resource here is our model class
+    @javax.annotation.Resource
+    TimerService timerService;
+
+    @Inject
+    EffectiveRolesProjection projection;
+
+    @Inject
+    PersonaService personaService;
+
+    @Inject
+    ResourceService resourceService;
+
+    @PostConstruct
+    public void schedule() {
+        long interval = TimeUnit.MINUTES.toMillis(Long.parseLong(System.getProperty(INTERVAL, "60")));
+        if (interval > 0 && projection.isEnabled()) {
+            timerService.createIntervalTimer(interval, interval, new TimerConfig(null, false));
+        }
+    }
+
+    /**
+     * Verifies all the entries of the projection. Failures are logged, and the job is tried again on the next run.
+     */
+    @Timeout
+    public void rebuild() {
+        logger.rebuildingEffectiveRoles();
+        AtomicLong checked = new AtomicLong();
+        AtomicLong removed = new AtomicLong();
+        try {
+            projection.forEach((personaId, resourceId) -> {
+                checked.incrementAndGet();
+                projection.remove(personaId, resourceId);
+
+                Persona persona = personaService.getById(personaId);
+                Resource resource = resourceService.getById(resourceId);
+                if (null == persona || null == resource) {
+                    removed.incrementAndGet();
+                    return;
+                }
+
+                // stores the entry again, based on the current data
+                personaService.getEffectiveRolesForResource(persona, resource);
+            });
+            logger.effectiveRolesRebuilt(checked.get(), removed.get());
+        } catch (Exception e) {
+            logger.failedToRebuildEffectiveRoles(e);
+        }
+    }
+}
@@ -23,7 +23,6 @@ import java.util.stream.Collectors;
 
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
-import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
 import org.hawkular.accounts.api.InvitationService;
@@ -32,13 +31,13 @@ import org.hawkular.accounts.api.OrganizationService;
 import org.hawkular.accounts.api.RoleService;
 import org.hawkular.accounts.api.UserService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
 import org.hawkular.accounts.api.model.HawkularUser;
 import org.hawkular.accounts.api.model.Invitation;
 import org.hawkular.accounts.api.model.Organization;
 import org.hawkular.accounts.api.model.Role;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -49,6 +48,15 @@ import com.datastax.driver.core.Row;
 public class InvitationServiceImpl extends BaseServiceImpl<Invitation> implements InvitationService {
     MsgLogger logger = MsgLogger.LOGGER;
 
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int EMAIL = MAPPING.column("email", DataType.text());
+    private static final int INVITED_BY = MAPPING.column("invitedBy", DataType.uuid());
+    private static final int ACCEPTED_BY = MAPPING.column("acceptedBy", DataType.uuid());
+    private static final int ORGANIZATION = MAPPING.column("organization", DataType.uuid());
+    private static final int ROLE = MAPPING.column("role", DataType.uuid());
+    private static final int ACCEPTED_AT = MAPPING.column("acceptedAt", DataType.timestamp());
+    private static final int DISPATCHED_AT = MAPPING.column("dispatchedAt", DataType.timestamp());
+
     @Inject
     RoleService roleService;
 
@@ -61,27 +69,9 @@ public class InvitationServiceImpl extends BaseServiceImpl<Invitation> implement
     @Inject
     OrganizationMembershipService membershipService;
 
-    @Inject @NamedStatement(BoundStatements.INVITATION_GET_BY_TOKEN)
-    Instance<BoundStatement> stmtGetByTokenInstance;
-
-    @Inject @NamedStatement(BoundStatements.INVITATIONS_GET_BY_ORGANIZATION)
-    Instance<BoundStatement> stmtGetByOrganizationInstance;
-
-    @Inject @NamedStatement(BoundStatements.INVITATIONS_CREATE)
-    Instance<BoundStatement> stmtCreateInstance;
-
-    @Inject @NamedStatement(BoundStatements.INVITATIONS_ACCEPT)
-    Instance<BoundStatement> stmtAcceptInstance;
-
-    @Inject @NamedStatement(BoundStatements.INVITATIONS_DISPATCH)
-    Instance<BoundStatement> stmtDispatchedInstance;
-
-    @Inject @NamedStatement(BoundStatements.INVITATIONS_DELETE)
-    Instance<BoundStatement> stmtDeleteInstance;
-
     @Override
     public Invitation getById(UUID token) {
-        return getById(token, stmtGetByTokenInstance.get());
+        return getById(token, bind(BoundStatements.INVITATION_GET_BY_TOKEN));
     }
 
     @Override
@@ -107,15 +97,14 @@ public class InvitationServiceImpl extends BaseServiceImpl<Invitation> implement
         if (null == organization) {
             throw new IllegalArgumentException("The given Organization is invalid (null).");
         }
-        return getList(stmtGetByOrganizationInstance
-                .get()
+        return getList(bind(BoundStatements.INVITATIONS_GET_BY_ORGANIZATION)
                 .setUUID("organization", organization.getIdAsUUID())
         );
     }
 
     @Override
     public Invitation create(String email, HawkularUser invitedBy, Organization organization, Role role) {
-        BoundStatement stmtCreateStatement = stmtCreateInstance.get();
+        BoundStatement stmtCreateStatement = bind(BoundStatements.INVITATIONS_CREATE);
         Invitation invitation = new Invitation(email, invitedBy, organization, role);
         bindBasicParameters(invitation, stmtCreateStatement);
         stmtCreateStatement.setString("email", invitation.getEmail());
@@ -129,7 +118,7 @@ public class InvitationServiceImpl extends BaseServiceImpl<Invitation> implement
 
     @Override
     public Invitation accept(Invitation invitation, HawkularUser user) {
-        BoundStatement stmtAccept = stmtAcceptInstance.get();
+        BoundStatement stmtAccept = bind(BoundStatements.INVITATIONS_ACCEPT);
         membershipService.create(
                 invitation.getOrganization(),
                 user,
@@ -150,17 +139,16 @@ public class InvitationServiceImpl extends BaseServiceImpl<Invitation> implement
 
     @Override
     public void remove(Invitation invitation) {
-        BoundStatement stmtDelete = stmtDeleteInstance.get();
+        BoundStatement stmtDelete = bind(BoundStatements.INVITATIONS_DELETE);
         if (null != invitation) {
-            stmtDelete.setUUID("id", invitation.getIdAsUUID());
-            session.execute(stmtDelete);
+            removeById(invitation.getIdAsUUID(), stmtDelete);
             logger.invitationRemoved(invitation.getId());
         }
     }
 
     @Override
     public void markAsDispatched(Invitation invitation) {
-        BoundStatement stmtDispatched = stmtDispatchedInstance.get();
+        BoundStatement stmtDispatched = bind(BoundStatements.INVITATIONS_DISPATCH);
         invitation.setDispatched();
         stmtDispatched.setUUID("id", invitation.getIdAsUUID());
         stmtDispatched.setTimestamp("dispatchedAt",
@@ -172,28 +160,22 @@ public class InvitationServiceImpl extends BaseServiceImpl<Invitation> implement
 
     @Override
     Invitation getFromRow(Row row) {
-        Role role = roleService.getById(row.getUUID("role"));
-        Organization organization = organizationService.getById(row.getUUID("organization"));
-        HawkularUser invitedBy = userService.getById(row.getUUID("invitedBy"));
-        String email = row.getString("email");
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
+        Role role = roleService.getById(columns.getUUID(row, ROLE));
+        Organization organization = organizationService.getById(columns.getUUID(row, ORGANIZATION));
+        HawkularUser invitedBy = userService.getById(columns.getUUID(row, INVITED_BY));
+        String email = columns.getString(row, EMAIL);
 
         HawkularUser acceptedBy = null;
-        if (!row.isNull("acceptedBy")) {
-            acceptedBy = userService.getById(row.getUUID("acceptedBy"));
+        if (!columns.isNull(row, ACCEPTED_BY)) {
+            acceptedBy = userService.getById(columns.getUUID(row, ACCEPTED_BY));
         }
 
-        ZonedDateTime acceptedAt = null;
-        if (!row.isNull("acceptedAt")) {
-            acceptedAt = zonedDateTimeAdapter.convertToEntityAttribute(row.getTimestamp("acceptedAt"));
-        }
-
-        ZonedDateTime dispatchedAt = null;
-        if (!row.isNull("dispatchedAt")) {
-            dispatchedAt = zonedDateTimeAdapter.convertToEntityAttribute(row.getTimestamp("dispatchedAt"));
-        }
+        ZonedDateTime acceptedAt = columns.getZonedDateTime(row, ACCEPTED_AT);
+        ZonedDateTime dispatchedAt = columns.getZonedDateTime(row, DISPATCHED_AT);
 
         Invitation.Builder builder = new Invitation.Builder();
-        mapBaseFields(row, builder);
+        mapBaseFields(row, columns, builder);
 
         return builder
                 .role(role)
@@ -303,4 +303,57 @@ public interface MsgLogger extends BasicLogger {
     @Message(id = 100064, value = "Cassandra session acquired.")
     void cassandraSessionAcquired();
 
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 100065, value = "Identity map for this request had [%d] hits and [%d] misses.")
+    void identityMapStatistics(long hits, long misses);
+
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 100066, value = "Applying schema migration [%s].")
+    void applyingSchemaMigration(String name);
+
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 100067, value = "Schema migration [%s] applied. Records copied: [%d].")
+    void schemaMigrationApplied(String name, long records);
+
+    @LogMessage(level = Logger.Level.ERROR)
+    @Message(id = 100068, value = "Failed to apply schema migration [%s]. It will be attempted again on the next boot.")
+    void failedToApplySchemaMigration(String name, @Cause Throwable t);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 100069, value = "Permission decision cache had [%d] hits, [%d] misses and [%d] evictions.")
+    void permissionCacheStatistics(long hits, long misses, long evictions);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 100070, value = "Failed to store the effective roles of persona [%s] on resource [%s].")
+    void failedToStoreEffectiveRoles(String personaId, String resourceId, @Cause Throwable t);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 100071, value = "Rebuilding the effective roles projection.")
+    void rebuildingEffectiveRoles();
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 100072, value = "Effective roles projection rebuilt. Entries checked: [%d], removed: [%d].")
+    void effectiveRolesRebuilt(long checked, long removed);
+
+    @LogMessage(level = Logger.Level.ERROR)
+    @Message(id = 100073, value = "Failed to rebuild the effective roles projection. It will be attempted again on " +
+            "the next run.")
+    void failedToRebuildEffectiveRoles(@Cause Throwable t);
+
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 100074, value = "Prepared [%d] of [%d] statements in [%d] ms.")
+    void statementsPrepared(int prepared, int total, long elapsed);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 100075, value = "Statement [%s] took [%d] us to prepare.")
+    void statementPrepareTime(String statement, long elapsed);
+
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 100076, value = "Query [%s] prepared on attempt [%d].")
+    void preparedQueryOnRetry(String query, int attempt);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 100077, value = "Still could not prepare query [%s] after [%d] attempts. Will keep retrying.")
+    void stillCouldNotPrepareQuery(String query, int attempts, @Cause Throwable t);
+
 }
@@ -17,12 +17,13 @@
 package org.hawkular.accounts.api.internal.impl;
 
 import java.security.InvalidParameterException;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
-import javax.enterprise.inject.Instance;
+import javax.enterprise.event.Event;
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.spi.InjectionPoint;
 import javax.inject.Inject;
@@ -32,12 +33,13 @@ import org.hawkular.accounts.api.OperationService;
 import org.hawkular.accounts.api.PermissionService;
 import org.hawkular.accounts.api.RoleService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
+import org.hawkular.accounts.api.internal.PermissionInputsChangedEvent;
 import org.hawkular.accounts.api.model.Operation;
 import org.hawkular.accounts.api.model.Permission;
 import org.hawkular.accounts.api.model.Role;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -51,31 +53,28 @@ import com.datastax.driver.core.Row;
 public class OperationServiceImpl extends BaseServiceImpl<Operation> implements OperationService {
     MsgLogger logger = MsgLogger.LOGGER;
 
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int NAME = MAPPING.column("name", DataType.text());
+
     @Inject
     PermissionService permissionService;
 
     @Inject
     RoleService roleService;
 
-    @Inject @NamedStatement(BoundStatements.OPERATION_GET_BY_NAME)
-    Instance<BoundStatement> stmtGetByNameInstance;
-
-    @Inject @NamedStatement(BoundStatements.OPERATION_GET_BY_ID)
-    Instance<BoundStatement> stmtGetByIdInstance;
-
-    @Inject @NamedStatement(BoundStatements.OPERATION_CREATE)
-    Instance<BoundStatement> stmtCreateInstance;
+    @Inject
+    Event<PermissionInputsChangedEvent> permissionInputsChanged;
 
     @Override
     public Operation getByName(String name) {
-        BoundStatement stmtGetByName = this.stmtGetByNameInstance.get();
+        BoundStatement stmtGetByName = bind(BoundStatements.OPERATION_GET_BY_NAME);
         stmtGetByName.setString("name", name);
         return getSingleRecord(stmtGetByName);
     }
 
     @Override
     public Operation getById(UUID id) {
-        return getById(id, stmtGetByIdInstance.get());
+        return getById(id, bind(BoundStatements.OPERATION_GET_BY_ID));
     }
 
     @Override
@@ -102,9 +101,10 @@ public class OperationServiceImpl extends BaseServiceImpl<Operation> implements
 
     @Override
     Operation getFromRow(Row row) {
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
         Operation.Builder builder = new Operation.Builder();
-        mapBaseFields(row, builder);
-        return builder.name(row.getString("name")).build();
+        mapBaseFields(row, columns, builder);
+        return builder.name(columns.getString(row, NAME)).build();
     }
 
     /**
@@ -115,7 +115,7 @@ public class OperationServiceImpl extends BaseServiceImpl<Operation> implements
      * @throws InvalidParameterException if an operation with the given name already exists.
      */
     Operation create(String name) {
-        BoundStatement stmtCreate = stmtCreateInstance.get();
+        BoundStatement stmtCreate = bind(BoundStatements.OPERATION_CREATE);
         if (null != getByName(name)) {
             logger.duplicateOperation(name);
             // we already have a role with this name...
@@ -123,10 +123,13 @@ public class OperationServiceImpl extends BaseServiceImpl<Operation> implements
         }
 
         Operation operation = new Operation(name);
-        bindBasicParameters(operation, stmtCreate);
-        stmtCreate.setString("name", name);
+        BoundStatement stmtCreateByName = bind(BoundStatements.OPERATION_CREATE_BY_NAME);
+        for (BoundStatement statement : Arrays.asList(stmtCreate, stmtCreateByName)) {
+            bindBasicParameters(operation, statement);
+            statement.setString("name", name);
+        }
 
-        session.execute(stmtCreate);
+        session.execute(logged(stmtCreate, stmtCreateByName));
         logger.operationCreated(name);
         return operation;
     }
@@ -223,6 +226,7 @@ public class OperationServiceImpl extends BaseServiceImpl<Operation> implements
                 Set<Permission> permissions = permissionService.getPermissionsForOperation(operation);
                 permissions.forEach(permissionService::remove);
                 roles.forEach(role -> permissionService.create(operation, role));
+                permissionInputsChanged.fire(PermissionInputsChangedEvent.forOperation(operation.getIdAsUUID()));
             }
         }
     }
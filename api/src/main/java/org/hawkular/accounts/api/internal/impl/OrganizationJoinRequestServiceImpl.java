@@ -22,7 +22,6 @@ import java.util.stream.Collectors;
 
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
-import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
 import org.hawkular.accounts.api.NamedRole;
@@ -32,7 +31,6 @@ import org.hawkular.accounts.api.OrganizationService;
 import org.hawkular.accounts.api.PersonaService;
 import org.hawkular.accounts.api.ResourceService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
 import org.hawkular.accounts.api.model.JoinRequestStatus;
 import org.hawkular.accounts.api.model.Organization;
 import org.hawkular.accounts.api.model.OrganizationJoinRequest;
@@ -42,6 +40,7 @@ import org.hawkular.accounts.api.model.Role;
 import org.hawkular.accounts.api.model.Visibility;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -55,6 +54,11 @@ public class OrganizationJoinRequestServiceImpl
 
     MsgLogger logger = MsgLogger.LOGGER;
 
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int ORGANIZATION = MAPPING.column("organization", DataType.uuid());
+    private static final int PERSONA = MAPPING.column("persona", DataType.uuid());
+    private static final int STATUS = MAPPING.column("status", DataType.text());
+
     @Inject
     ResourceService resourceService;
 
@@ -67,31 +71,13 @@ public class OrganizationJoinRequestServiceImpl
     @Inject
     OrganizationMembershipService membershipService;
 
-    @Inject @NamedStatement(BoundStatements.JOIN_REQUEST_GET_BY_ID)
-    Instance<BoundStatement> stmtGetById;
-
-    @Inject @NamedStatement(BoundStatements.JOIN_REQUEST_CREATE)
-    Instance<BoundStatement> stmtCreate;
-
-    @Inject @NamedStatement(BoundStatements.JOIN_REQUEST_REMOVE)
-    Instance<BoundStatement> stmtRemove;
-
-    @Inject @NamedStatement(BoundStatements.JOIN_REQUEST_UPDATE_STATUS)
-    Instance<BoundStatement> stmtUpdateStatus;
-
-    @Inject @NamedStatement(BoundStatements.JOIN_REQUEST_LIST_BY_ORGANIZATION)
-    Instance<BoundStatement> stmtListByOrganization;
-
-    @Inject @NamedStatement(BoundStatements.JOIN_REQUEST_LIST_BY_PERSONA)
-    Instance<BoundStatement> stmtListByPersona;
-
     @Inject
     @NamedRole("SuperUser")
     Role superUser;
 
     @Override
     public OrganizationJoinRequest getById(UUID uuid) {
-        return getById(uuid, stmtGetById.get());
+        return getById(uuid, bind(BoundStatements.JOIN_REQUEST_GET_BY_ID));
     }
 
     @Override
@@ -107,7 +93,7 @@ public class OrganizationJoinRequestServiceImpl
             throw new IllegalArgumentException("This organization is private, users cannot apply to join.");
         }
 
-        BoundStatement createStatement = stmtCreate.get();
+        BoundStatement createStatement = bind(BoundStatements.JOIN_REQUEST_CREATE);
         OrganizationJoinRequest joinRequest = new OrganizationJoinRequest(
                 organization,
                 persona,
@@ -153,7 +139,8 @@ public class OrganizationJoinRequestServiceImpl
         );
 
         logger.joinRequestAccepted(request.getId());
-        return update(request, stmtUpdateStatus.get().setString("status", request.getStatus().name()));
+        return update(request, bind(BoundStatements.JOIN_REQUEST_UPDATE_STATUS)
+                .setString("status", request.getStatus().name()));
     }
 
     @Override
@@ -164,13 +151,14 @@ public class OrganizationJoinRequestServiceImpl
 
         request.setStatus(JoinRequestStatus.REJECTED);
         logger.joinRequestRejected(request.getId());
-        return update(request, stmtUpdateStatus.get().setString("status", request.getStatus().name()));
+        return update(request, bind(BoundStatements.JOIN_REQUEST_UPDATE_STATUS)
+                .setString("status", request.getStatus().name()));
     }
 
     @Override
     public void remove(OrganizationJoinRequest request) {
         logger.joinRequestRemoved(request.getId());
-        session.execute(stmtRemove.get().setUUID("id", request.getIdAsUUID()));
+        removeById(request.getIdAsUUID(), bind(BoundStatements.JOIN_REQUEST_REMOVE));
     }
 
     @Override
@@ -184,8 +172,7 @@ public class OrganizationJoinRequestServiceImpl
     @Override
     public List<OrganizationJoinRequest> getAllRequestsForOrganization(Organization organization) {
         return getList(
-                stmtListByOrganization
-                        .get()
+                bind(BoundStatements.JOIN_REQUEST_LIST_BY_ORGANIZATION)
                         .setUUID("organization", organization.getIdAsUUID())
         );
     }
@@ -193,21 +180,21 @@ public class OrganizationJoinRequestServiceImpl
     @Override
     public List<OrganizationJoinRequest> getAllRequestsForPersona(Persona persona) {
         return getList(
-                stmtListByPersona
-                        .get()
+                bind(BoundStatements.JOIN_REQUEST_LIST_BY_PERSONA)
                         .setUUID("persona", persona.getIdAsUUID())
         );
     }
 
     @Override
     OrganizationJoinRequest getFromRow(Row row) {
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
         OrganizationJoinRequest.Builder builder = new OrganizationJoinRequest.Builder();
-        mapBaseFields(row, builder);
+        mapBaseFields(row, columns, builder);
 
         return builder
-                .organization(organizationService.getById(row.getUUID("organization")))
-                .persona(personaService.getById(row.getUUID("persona")))
-                .status(JoinRequestStatus.valueOf(row.getString("status")))
+                .organization(organizationService.getById(columns.getUUID(row, ORGANIZATION)))
+                .persona(personaService.getById(columns.getUUID(row, PERSONA)))
+                .status(JoinRequestStatus.valueOf(columns.getString(row, STATUS)))
                 .build();
     }
 }
@@ -16,23 +16,25 @@
  */
 package org.hawkular.accounts.api.internal.impl;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
-import javax.enterprise.inject.Instance;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import org.hawkular.accounts.api.OrganizationMembershipService;
 import org.hawkular.accounts.api.OrganizationService;
+import org.hawkular.accounts.api.Page;
 import org.hawkular.accounts.api.PersonaService;
 import org.hawkular.accounts.api.ResourceService;
 import org.hawkular.accounts.api.RoleService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
-import org.hawkular.accounts.api.model.Member;
+import org.hawkular.accounts.api.internal.PermissionInputsChangedEvent;
 import org.hawkular.accounts.api.model.Organization;
 import org.hawkular.accounts.api.model.OrganizationMembership;
 import org.hawkular.accounts.api.model.Persona;
@@ -40,6 +42,7 @@ import org.hawkular.accounts.api.model.Resource;
 import org.hawkular.accounts.api.model.Role;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -52,6 +55,11 @@ public class OrganizationMembershipServiceImpl
         implements OrganizationMembershipService {
     MsgLogger logger = MsgLogger.LOGGER;
 
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int ORGANIZATION = MAPPING.column("organization", DataType.uuid());
+    private static final int MEMBER = MAPPING.column("member", DataType.uuid());
+    private static final int ROLE = MAPPING.column("role", DataType.uuid());
+
     @Inject
     ResourceService resourceService;
 
@@ -64,34 +72,23 @@ public class OrganizationMembershipServiceImpl
     @Inject
     RoleService roleService;
 
-    @Inject @NamedStatement(BoundStatements.MEMBERSHIP_GET_BY_ID)
-    Instance<BoundStatement> stmtGetByIdInstance;
-
-    @Inject @NamedStatement(BoundStatements.MEMBERSHIP_GET_BY_ORGANIZATION)
-    Instance<BoundStatement> stmtGetByOrganizationInstance;
-
-    @Inject @NamedStatement(BoundStatements.MEMBERSHIP_GET_BY_PERSONA)
-    Instance<BoundStatement> stmtGetByPersonaInstance;
-
-    @Inject @NamedStatement(BoundStatements.MEMBERSHIP_REMOVE)
-    Instance<BoundStatement> stmtRemoveInstance;
-
-    @Inject @NamedStatement(BoundStatements.MEMBERSHIP_CREATE)
-    Instance<BoundStatement> stmtCreateInstance;
-
-    @Inject @NamedStatement(BoundStatements.MEMBERSHIP_CHANGE_ROLE)
-    Instance<BoundStatement> stmtChangeRoleInstance;
+    @Inject
+    Event<PermissionInputsChangedEvent> permissionInputsChanged;
 
     @Override
     public OrganizationMembership create(Organization organization, Persona persona, Role role) {
-        BoundStatement stmtCreate = stmtCreateInstance.get();
         OrganizationMembership membership = new OrganizationMembership(organization, persona, role);
 
-        bindBasicParameters(membership, stmtCreate);
-        stmtCreate.setUUID("member", membership.getMember().getIdAsUUID());
-        stmtCreate.setUUID("organization", membership.getOrganization().getIdAsUUID());
-        stmtCreate.setUUID("role", membership.getRole().getIdAsUUID());
-        session.execute(stmtCreate);
+        BoundStatement stmtCreate = bindKeys(bind(BoundStatements.MEMBERSHIP_CREATE), membership);
+        BoundStatement stmtCreateByOrganization =
+                bindKeys(bind(BoundStatements.MEMBERSHIP_CREATE_BY_ORGANIZATION), membership);
+        BoundStatement stmtCreateByMember = bindKeys(bind(BoundStatements.MEMBERSHIP_CREATE_BY_MEMBER), membership);
+        for (BoundStatement statement : Arrays.asList(stmtCreate, stmtCreateByOrganization, stmtCreateByMember)) {
+            bindBasicParameters(membership, statement);
+            statement.setUUID("role", membership.getRole().getIdAsUUID());
+        }
+        session.execute(logged(stmtCreate, stmtCreateByOrganization, stmtCreateByMember));
+        permissionInputsChanged.fire(PermissionInputsChangedEvent.forPersona(membership.getMemberId()));
 
         // for permission checking
         Resource resource = resourceService.getById(organization.getIdAsUUID());
@@ -102,12 +99,28 @@ public class OrganizationMembershipServiceImpl
 
     @Override
     public List<OrganizationMembership> getMembershipsForPersona(Persona persona) {
-        return getList(stmtGetByPersonaInstance.get().setUUID("member", persona.getIdAsUUID()));
+        return getList(bind(BoundStatements.MEMBERSHIP_GET_BY_PERSONA).setUUID("member", persona.getIdAsUUID()));
+    }
+
+    @Override
+    public CompletionStage<List<OrganizationMembership>> getMembershipsForPersonaAsync(Persona persona) {
+        return getListAsync(bind(BoundStatements.MEMBERSHIP_GET_BY_PERSONA).setUUID("member", persona.getIdAsUUID()));
     }
 
     @Override
     public List<OrganizationMembership> getMembershipsForOrganization(Organization organization) {
-        return getList(stmtGetByOrganizationInstance.get().setUUID("organization", organization.getIdAsUUID()));
+        // the members of an organization are usually listed with all their details, so, resolve them right away
+        return getList(bind(BoundStatements.MEMBERSHIP_GET_BY_ORGANIZATION)
+                .setUUID("organization", organization.getIdAsUUID()),
+                ReferenceLoading.EAGER);
+    }
+
+    @Override
+    public Page<OrganizationMembership> getMembershipsForOrganization(Organization organization, int limit,
+                                                                     String cursor) {
+        return getPage(bind(BoundStatements.MEMBERSHIP_GET_BY_ORGANIZATION)
+                .setUUID("organization", organization.getIdAsUUID()),
+                limit, cursor, ReferenceLoading.EAGER);
     }
 
     @Override
@@ -115,7 +128,7 @@ public class OrganizationMembershipServiceImpl
                                                                                        Organization organization) {
         return getMembershipsForPersona(persona)
                 .stream()
-                .filter(m -> m.getOrganization().equals(organization))
+                .filter(m -> organization.getIdAsUUID().equals(m.getOrganizationId()))
                 .collect(Collectors.toList());
     }
 
@@ -130,20 +143,27 @@ public class OrganizationMembershipServiceImpl
             throw new IllegalArgumentException("The given membership ID is invalid (null).");
         }
 
-        return getById(id, stmtGetByIdInstance.get());
+        return getById(id, bind(BoundStatements.MEMBERSHIP_GET_BY_ID));
     }
 
     @Override
     public OrganizationMembership changeRole(OrganizationMembership membership, Role role) {
-        BoundStatement stmtChangeRole = stmtChangeRoleInstance.get();
         membership.setRole(role);
-        stmtChangeRole.setUUID("role", membership.getRole().getIdAsUUID());
-        update(membership, stmtChangeRole);
+        BoundStatement stmtChangeRole = bind(BoundStatements.MEMBERSHIP_CHANGE_ROLE)
+                .setUUID("role", membership.getRole().getIdAsUUID());
+        BoundStatement stmtChangeRoleByOrganization =
+                bindKeys(bind(BoundStatements.MEMBERSHIP_CHANGE_ROLE_BY_ORGANIZATION), membership)
+                        .setUUID("role", membership.getRole().getIdAsUUID());
+        BoundStatement stmtChangeRoleByMember =
+                bindKeys(bind(BoundStatements.MEMBERSHIP_CHANGE_ROLE_BY_MEMBER), membership)
+                        .setUUID("role", membership.getRole().getIdAsUUID());
+        update(membership, stmtChangeRole, stmtChangeRoleByOrganization, stmtChangeRoleByMember);
+        permissionInputsChanged.fire(PermissionInputsChangedEvent.forPersona(membership.getMemberId()));
 
         // the code above was for "organization" data. the code below is for RBAC.
         // for now, we allow only one role for each organization, so, revoke all current roles and add the given role
-        Persona persona = personaService.getById(membership.getMember().getIdAsUUID());
-        Resource resource = resourceService.getById(membership.getOrganization().getIdAsUUID());
+        Persona persona = personaService.getById(membership.getMemberId());
+        Resource resource = resourceService.getById(membership.getOrganizationId());
         resourceService.revokeAllForPersona(resource, persona);
         resourceService.addRoleToPersona(resource, persona, role);
         logger.organizationMembershipRoleChanged(membership.getId(), role.getName());
@@ -152,21 +172,64 @@ public class OrganizationMembershipServiceImpl
 
     @Override
     public void remove(OrganizationMembership organizationMembership) {
-        remove(organizationMembership.getIdAsUUID());
+        removeById(organizationMembership.getIdAsUUID(),
+                bind(BoundStatements.MEMBERSHIP_REMOVE),
+                bindKeys(bind(BoundStatements.MEMBERSHIP_REMOVE_BY_ORGANIZATION), organizationMembership),
+                bindKeys(bind(BoundStatements.MEMBERSHIP_REMOVE_BY_MEMBER), organizationMembership));
+        permissionInputsChanged.fire(PermissionInputsChangedEvent.forPersona(organizationMembership.getMemberId()));
     }
 
     @Override
     public void remove(UUID id) {
-        session.execute(stmtRemoveInstance.get().setUUID("id", id));
+        // we need the organization and the member, to clean up the lookup tables
+        OrganizationMembership membership = getById(id);
+        if (null == membership) {
+            return;
+        }
+        remove(membership);
+    }
+
+    /**
+     * Binds the keys shared by the main table and the lookup tables: the organization and the member.
+     */
+    private BoundStatement bindKeys(BoundStatement statement, OrganizationMembership membership) {
+        return statement
+                .setUUID("organization", membership.getOrganizationId())
+                .setUUID("member", membership.getMemberId());
     }
 
     @Override
     OrganizationMembership getFromRow(Row row) {
-        Organization organization = organizationService.getById(row.getUUID("organization"));
-        Member member = personaService.getById(row.getUUID("member"));
-        Role role = roleService.getById(row.getUUID("role"));
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
         OrganizationMembership.Builder builder = new OrganizationMembership.Builder();
-        mapBaseFields(row, builder);
-        return builder.organization(organization).member(member).role(role).build();
+        mapBaseFields(row, columns, builder);
+        return builder
+                .organization(columns.getUUID(row, ORGANIZATION), organizationService::getById)
+                .member(columns.getUUID(row, MEMBER), personaService::getById)
+                .role(columns.getUUID(row, ROLE), roleService::getById)
+                .build();
+    }
+
+    @Override
+    void prefetchReferences(List<OrganizationMembership> memberships) {
+        organizationService.getByIds(memberships
+                .stream()
+                .map(OrganizationMembership::getOrganizationId)
+                .collect(Collectors.toList()));
+        personaService.getByIds(memberships
+                .stream()
+                .map(OrganizationMembership::getMemberId)
+                .collect(Collectors.toList()));
+        roleService.getByIds(memberships
+                .stream()
+                .map(OrganizationMembership::getRoleId)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    void loadReferences(OrganizationMembership membership) {
+        membership.getOrganization();
+        membership.getMember();
+        membership.getRole();
     }
 }
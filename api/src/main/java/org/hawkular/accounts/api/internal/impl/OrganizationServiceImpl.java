@@ -16,13 +16,15 @@
  */
 package org.hawkular.accounts.api.internal.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
-import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
 import org.hawkular.accounts.api.InvitationService;
@@ -30,10 +32,10 @@ import org.hawkular.accounts.api.NamedRole;
 import org.hawkular.accounts.api.OrganizationJoinRequestService;
 import org.hawkular.accounts.api.OrganizationMembershipService;
 import org.hawkular.accounts.api.OrganizationService;
+import org.hawkular.accounts.api.Page;
 import org.hawkular.accounts.api.PersonaService;
 import org.hawkular.accounts.api.ResourceService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
 import org.hawkular.accounts.api.model.JoinRequestStatus;
 import org.hawkular.accounts.api.model.Organization;
 import org.hawkular.accounts.api.model.OrganizationJoinRequest;
@@ -44,6 +46,7 @@ import org.hawkular.accounts.api.model.Role;
 import org.hawkular.accounts.api.model.Visibility;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -54,6 +57,12 @@ import com.datastax.driver.core.Row;
 public class OrganizationServiceImpl extends BaseServiceImpl<Organization> implements OrganizationService {
     MsgLogger logger = MsgLogger.LOGGER;
 
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int OWNER = MAPPING.column("owner", DataType.uuid());
+    private static final int NAME = MAPPING.column("name", DataType.text());
+    private static final int DESCRIPTION = MAPPING.column("description", DataType.text());
+    private static final int VISIBILITY = MAPPING.column("visibility", DataType.text());
+
     @Inject
     OrganizationMembershipService membershipService;
 
@@ -73,45 +82,48 @@ public class OrganizationServiceImpl extends BaseServiceImpl<Organization> imple
     @NamedRole("SuperUser")
     Role superUser;
 
-    @Inject @NamedStatement(BoundStatements.ORGANIZATION_GET_BY_ID)
-    Instance<BoundStatement> stmtGetByIdInstance;
-
-    @Inject @NamedStatement(BoundStatements.ORGANIZATION_GET_APPLY)
-    Instance<BoundStatement> stmtGetApplyInstance;
-
-    @Inject @NamedStatement(BoundStatements.ORGANIZATION_GET_BY_NAME)
-    Instance<BoundStatement> stmtGetByNameInstance;
-
-    @Inject @NamedStatement(BoundStatements.ORGANIZATION_GET_BY_OWNER)
-    Instance<BoundStatement> stmtGetByOwnerInstance;
+    @Override
+    public Organization getById(UUID id) {
+        if (null == id) {
+            throw new IllegalArgumentException("The given organization ID is invalid (null).");
+        }
 
-    @Inject @NamedStatement(BoundStatements.ORGANIZATION_CREATE)
-    Instance<BoundStatement> stmtCreateInstance;
+        return getById(id, bind(BoundStatements.ORGANIZATION_GET_BY_ID));
+    }
 
-    @Inject @NamedStatement(BoundStatements.ORGANIZATION_REMOVE)
-    Instance<BoundStatement> stmtRemoveInstance;
+    @Override
+    public List<Organization> getByIds(Collection<UUID> ids) {
+        return getByIds(ids, () -> bind(BoundStatements.ORGANIZATION_GET_BY_IDS));
+    }
 
-    @Inject @NamedStatement(BoundStatements.ORGANIZATION_TRANSFER)
-    Instance<BoundStatement> stmtTransferInstance;
+    @Override
+    public CompletionStage<List<Organization>> getByIdsAsync(Collection<UUID> ids) {
+        return getByIdsAsync(ids, () -> bind(BoundStatements.ORGANIZATION_GET_BY_IDS));
+    }
 
     @Override
-    public Organization getById(UUID id) {
+    public CompletionStage<Organization> getByIdAsync(UUID id) {
         if (null == id) {
             throw new IllegalArgumentException("The given organization ID is invalid (null).");
         }
 
-        return getById(id, stmtGetByIdInstance.get());
+        return getByIdAsync(id, bind(BoundStatements.ORGANIZATION_GET_BY_ID));
     }
 
     @Override
     public Organization getByName(String name) {
-        BoundStatement stmtGetByName = stmtGetByNameInstance.get();
+        BoundStatement stmtGetByName = bind(BoundStatements.ORGANIZATION_GET_BY_NAME);
         if (null == name) {
             throw new IllegalArgumentException("The given organization name is invalid (null).");
         }
 
+        // the lookup table has only the ID, the actual record comes from the main table (or from the identity map)
         stmtGetByName.setString("name", name);
-        return getSingleRecord(stmtGetByName);
+        Row row = session.execute(stmtGetByName).one();
+        if (null == row) {
+            return null;
+        }
+        return getById(row.getUUID("id"));
     }
 
     @Override
@@ -121,10 +133,19 @@ public class OrganizationServiceImpl extends BaseServiceImpl<Organization> imple
 
     @Override
     public List<Organization> getFilteredOrganizationsToJoin(Persona persona) {
+        return filterOrganizationsToJoin(persona, getOrganizationsToJoin());
+    }
+
+    @Override
+    public Page<Organization> getFilteredOrganizationsToJoin(Persona persona, int limit, String cursor) {
+        Page<Organization> page = getOrganizationsToJoin(limit, cursor);
+        List<Organization> filtered = filterOrganizationsToJoin(persona, new ArrayList<>(page.getItems()));
+        return new Page<>(filtered, page.getNextCursor());
+    }
+
+    private List<Organization> filterOrganizationsToJoin(Persona persona, List<Organization> organizationsToJoin) {
         List<Organization> organizationsJoined = getOrganizationsForPersona(persona);
         logger.organizationsPersonaJoined(persona.getId(), organizationsJoined.size());
-
-        List<Organization> organizationsToJoin = getOrganizationsToJoin();
         logger.organizationsPersonaToJoin(persona.getId(), organizationsToJoin.size());
 
         List<OrganizationJoinRequest> joinRequestsForPersona = joinRequestService.getAllRequestsForPersona(persona);
@@ -146,8 +167,13 @@ public class OrganizationServiceImpl extends BaseServiceImpl<Organization> imple
 
     @Override
     public List<Organization> getOrganizationsToJoin() {
-        // TODO: this is dangerous!! we need pagination here, but for now, this is sufficient
-        return getFromRows(session.execute(stmtGetApplyInstance.get()).all());
+        // the rows are fetched page by page, so that we don't hold the whole result set in memory twice
+        return getStream(bind(BoundStatements.ORGANIZATION_GET_APPLY), Page.DEFAULT_LIMIT).collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<Organization> getOrganizationsToJoin(int limit, String cursor) {
+        return getPage(bind(BoundStatements.ORGANIZATION_GET_APPLY), limit, cursor);
     }
 
     @Override
@@ -157,11 +183,11 @@ public class OrganizationServiceImpl extends BaseServiceImpl<Organization> imple
 
     @Override
     public List<Organization> getOrganizationsFromMemberships(List<OrganizationMembership> memberships) {
-        return memberships
+        // the organizations are read all at once, instead of one by one
+        return getByIds(memberships
                 .stream()
-                .map(OrganizationMembership::getOrganization)
-                .distinct()
-                .collect(Collectors.toList());
+                .map(OrganizationMembership::getOrganizationId)
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -171,7 +197,7 @@ public class OrganizationServiceImpl extends BaseServiceImpl<Organization> imple
 
     @Override
     public Organization createOrganization(String name, String description, Visibility visibility, Persona owner) {
-        BoundStatement stmtCreate = stmtCreateInstance.get();
+        BoundStatement stmtCreate = bind(BoundStatements.ORGANIZATION_CREATE);
         if (null != getByName(name)) {
             throw new IllegalArgumentException("There's already an organization with this name.");
         }
@@ -191,7 +217,10 @@ public class OrganizationServiceImpl extends BaseServiceImpl<Organization> imple
         stmtCreate.setString("description", organization.getDescription());
         stmtCreate.setUUID("owner", organization.getOwner().getIdAsUUID());
         stmtCreate.setString("visibility", organization.getVisibility().name());
-        session.execute(stmtCreate);
+        BoundStatement stmtCreateByName = bind(BoundStatements.ORGANIZATION_CREATE_BY_NAME)
+                .setString("name", organization.getName())
+                .setUUID("id", organization.getIdAsUUID());
+        session.execute(logged(stmtCreate, stmtCreateByName));
 
         // the owner us the super user
         membershipService.create(organization, owner, superUser);
@@ -226,14 +255,16 @@ public class OrganizationServiceImpl extends BaseServiceImpl<Organization> imple
         membershipService.getMembershipsForOrganization(organization).stream().forEach(membershipService::remove);
         resourceService.revokeAllForPersona(resource, organization.getOwner());
         resourceService.delete(organization.getId());
-        session.execute(stmtRemoveInstance.get().setUUID("id", organization.getIdAsUUID()));
+        removeById(organization.getIdAsUUID(),
+                bind(BoundStatements.ORGANIZATION_REMOVE),
+                bind(BoundStatements.ORGANIZATION_REMOVE_BY_NAME).setString("name", organization.getName()));
         logger.finishedRemovalOfOrganization(organization.getId());
     }
 
     @Override
     public void transfer(Organization organization, Persona newOwner) {
         logger.startingTransferOfOrganization(organization.getId(), organization.getOwner().getId(), newOwner.getId());
-        BoundStatement stmtTransfer = stmtTransferInstance.get();
+        BoundStatement stmtTransfer = bind(BoundStatements.ORGANIZATION_TRANSFER);
         // first, we remove all the current memberships of the new owner, as it will now be super user
         membershipService.getPersonaMembershipsForOrganization(newOwner, organization)
                 .stream()
@@ -249,24 +280,34 @@ public class OrganizationServiceImpl extends BaseServiceImpl<Organization> imple
         // and finally, we change the owner on the organization
         organization.setOwner(newOwner);
         stmtTransfer.setUUID("owner", organization.getOwner().getIdAsUUID());
-        session.execute(stmtTransfer);
+        update(organization, stmtTransfer);
         logger.finishedTransferOfOrganization(organization.getId(), organization.getOwner().getId(), newOwner.getId());
     }
 
     @Override
     public List<Organization> getSubOrganizations(Organization organization) {
-        return getList(stmtGetByOwnerInstance.get().setUUID("owner", organization.getIdAsUUID()));
+        return getList(bind(BoundStatements.ORGANIZATION_GET_BY_OWNER).setUUID("owner", organization.getIdAsUUID()));
+    }
+
+    @Override
+    void loadReferences(Organization organization) {
+        organization.getOwner();
     }
 
     @Override
     Organization getFromRow(Row row) {
-        Persona owner = personaService.getById(row.getUUID("owner"));
-        String name = row.getString("name");
-        String description = row.getString("description");
-        String visibility = row.getString("visibility");
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
+        String name = columns.getString(row, NAME);
+        String description = columns.getString(row, DESCRIPTION);
+        String visibility = columns.getString(row, VISIBILITY);
 
         Organization.Builder builder = new Organization.Builder();
-        mapBaseFields(row, builder);
-        return builder.owner(owner).name(name).description(description).visibility(visibility).build();
+        mapBaseFields(row, columns, builder);
+        return builder
+                .owner(columns.getUUID(row, OWNER), personaService::getById)
+                .name(name)
+                .description(description)
+                .visibility(visibility)
+                .build();
     }
 }
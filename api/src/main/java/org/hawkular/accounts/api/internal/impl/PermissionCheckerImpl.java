@@ -16,7 +16,14 @@
  */
 package org.hawkular.accounts.api.internal.impl;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
@@ -27,6 +34,7 @@ import org.hawkular.accounts.api.PermissionChecker;
 import org.hawkular.accounts.api.PermissionService;
 import org.hawkular.accounts.api.PersonaService;
 import org.hawkular.accounts.api.ResourceService;
+import org.hawkular.accounts.api.internal.PermissionDecisionCache;
 import org.hawkular.accounts.api.model.Operation;
 import org.hawkular.accounts.api.model.Persona;
 import org.hawkular.accounts.api.model.Resource;
@@ -55,8 +63,16 @@ public class PermissionCheckerImpl implements PermissionChecker {
     @Inject
     Instance<Persona> personaInstance;
 
+    @Inject
+    PermissionDecisionCache decisionCache;
+
     @Override
     public boolean isAllowedTo(Operation operation, Resource resource, Persona persona) {
+        return AsyncSupport.join(isAllowedToAsync(operation, resource, persona));
+    }
+
+    @Override
+    public CompletionStage<Boolean> isAllowedToAsync(Operation operation, Resource resource, Persona persona) {
         if (null == resource) {
             throw new IllegalArgumentException("Resource to be checked is invalid (null).");
         }
@@ -71,29 +87,39 @@ public class PermissionCheckerImpl implements PermissionChecker {
 
         logger.checkPermission(persona.getId(), operation.getName(), resource.getId());
 
-        if (null == resource.getPersona()) {
+        if (null == resource.getPersonaId()) {
             // if we have an empty persona it means that we should have a parent and that we should assume whatever
-            // the parent sets for ownership
-            logger.checkingParentsPermission(resource.getId(), resource.getParent().getId());
-            return isAllowedTo(operation, resource.getParent(), persona);
+            // the nearest ancestor with an owner sets for ownership
+            logger.checkingParentsPermission(resource.getId(), resource.getParentId().toString());
+            return resourceService.getOwningResourceAsync(resource)
+                    .thenCompose(owning -> isAllowedToAsync(operation, owning, persona));
         }
 
-        if (persona.equals(resource.getPersona())) {
+        if (persona.getIdAsUUID().equals(resource.getPersonaId())) {
             // owner is always allowed
             logger.permissionGrantedToOwner(operation.getName(), resource.getId(), persona.getId());
-            return true;
+            return CompletableFuture.completedFuture(true);
         }
 
+        return decisionCache.get(operation.getIdAsUUID(), resource.getIdAsUUID(), persona.getIdAsUUID(),
+                () -> computeIsAllowedTo(operation, resource, persona));
+    }
+
+    private CompletionStage<Boolean> computeIsAllowedTo(Operation operation, Resource resource, Persona persona) {
+        // both sides of the check are independent from each other, so, we determine them at the same time
         // TODO: should we *always* add SuperUser to the permitted roles?
-        Set<Role> permittedRoles = permissionService.getPermittedRoles(operation);
-        logger.operationPermittedToRoles(operation.getName(), permittedRoles.size());
+        CompletionStage<Set<Role>> permittedRolesStage = permissionService.getPermittedRolesAsync(operation);
+        CompletionStage<Set<Role>> personaRolesStage = personaService.getEffectiveRolesForResourceAsync(persona,
+                resource);
 
-        Set<Role> personaRoles = personaService.getEffectiveRolesForResource(persona, resource);
-        logger.personaHasRoles(persona.getId(), permittedRoles.size());
+        return permittedRolesStage.thenCombine(personaRolesStage, (permittedRoles, personaRoles) -> {
+            logger.operationPermittedToRoles(operation.getName(), permittedRoles.size());
+            logger.personaHasRoles(persona.getId(), permittedRoles.size());
 
-        boolean allowed = personaRoles.stream().anyMatch(permittedRoles::contains);
-        logger.checkPermissionResult(persona.getId(), operation.getName(), resource.getId(), allowed);
-        return allowed;
+            boolean allowed = personaRoles.stream().anyMatch(permittedRoles::contains);
+            logger.checkPermissionResult(persona.getId(), operation.getName(), resource.getId(), allowed);
+            return allowed;
+        });
     }
 
     @Override
@@ -102,6 +128,124 @@ public class PermissionCheckerImpl implements PermissionChecker {
         return isAllowedTo(operation, resource, persona);
     }
 
+    @Override
+    public CompletionStage<Boolean> isAllowedToAsync(Operation operation, String resourceId, Persona persona) {
+        Resource resource = resourceService.get(resourceId);
+        return isAllowedToAsync(operation, resource, persona);
+    }
+
+    @Override
+    public Map<String, Boolean> isAllowedTo(Operation operation, Collection<String> resourceIds, Persona persona) {
+        return AsyncSupport.join(isAllowedToAsync(operation, resourceIds, persona));
+    }
+
+    @Override
+    public CompletionStage<Map<String, Boolean>> isAllowedToAsync(Operation operation,
+                                                                  Collection<String> resourceIds,
+                                                                  Persona persona) {
+        if (null == resourceIds) {
+            throw new IllegalArgumentException("Resources to be checked are invalid (null).");
+        }
+
+        if (null == operation) {
+            throw new IllegalArgumentException("Operation to be checked is invalid (null).");
+        }
+
+        if (null == persona) {
+            throw new IllegalArgumentException("Persona that performs the operation is invalid (null).");
+        }
+
+        Map<String, Resource> resources = resourceService.get(resourceIds);
+
+        // the ownership is determined by the owning resource, which is resolved for all resources at the same time
+        Map<UUID, CompletableFuture<Resource>> owningResources = new HashMap<>(resources.size());
+        resources.values().forEach(resource -> owningResources.computeIfAbsent(resource.getIdAsUUID(), id ->
+                resourceService.getOwningResourceAsync(resource).toCompletableFuture()));
+
+        return AsyncSupport.allOf(owningResources.values())
+                .thenCompose(v -> {
+                    Map<String, Resource> owning = new HashMap<>(resources.size());
+                    resources.forEach((resourceId, resource) ->
+                            owning.put(resourceId, owningResources.get(resource.getIdAsUUID()).join()));
+                    return isAllowedToAsync(operation, resourceIds, owning, persona);
+                });
+    }
+
+    private CompletionStage<Map<String, Boolean>> isAllowedToAsync(Operation operation,
+                                                                   Collection<String> resourceIds,
+                                                                   Map<String, Resource> owningResources,
+                                                                   Persona persona) {
+        // decisions that are not cached yet are collected here, so that we can compute all of them at once
+        Map<Resource, CompletableFuture<Boolean>> pending = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Boolean>> decisions = new LinkedHashMap<>(resourceIds.size());
+        for (String resourceId : resourceIds) {
+            Resource owning = owningResources.get(resourceId);
+            if (null == owning) {
+                decisions.put(resourceId, CompletableFuture.completedFuture(false));
+                continue;
+            }
+
+            logger.checkPermission(persona.getId(), operation.getName(), resourceId);
+            if (persona.getIdAsUUID().equals(owning.getPersonaId())) {
+                logger.permissionGrantedToOwner(operation.getName(), owning.getId(), persona.getId());
+                decisions.put(resourceId, CompletableFuture.completedFuture(true));
+                continue;
+            }
+
+            CompletionStage<Boolean> decision = decisionCache.get(
+                    operation.getIdAsUUID(),
+                    owning.getIdAsUUID(),
+                    persona.getIdAsUUID(),
+                    () -> pending.computeIfAbsent(owning, r -> new CompletableFuture<>())
+            );
+            decisions.put(resourceId, decision.toCompletableFuture());
+        }
+
+        if (!pending.isEmpty()) {
+            computeIsAllowedTo(operation, pending, persona);
+        }
+
+        return AsyncSupport.allOf(decisions.values())
+                .thenApply(v -> {
+                    Map<String, Boolean> result = new LinkedHashMap<>(decisions.size());
+                    decisions.forEach((resourceId, decision) -> result.put(resourceId, decision.join()));
+                    return result;
+                });
+    }
+
+    /**
+     * Completes each of the pending decisions, reading the permitted roles for the operation only once and the
+     * persona's roles for all the resources in one go.
+     */
+    private void computeIsAllowedTo(Operation operation,
+                                    Map<Resource, CompletableFuture<Boolean>> pending,
+                                    Persona persona) {
+        CompletionStage<Set<Role>> permittedRolesStage;
+        CompletionStage<Map<UUID, Set<Role>>> personaRolesStage;
+        try {
+            permittedRolesStage = permissionService.getPermittedRolesAsync(operation);
+            personaRolesStage = personaService.getEffectiveRolesForResourcesAsync(persona, pending.keySet());
+        } catch (RuntimeException e) {
+            // the pending decisions are already shared via the cache, so, they have to fail instead of the caller
+            pending.values().forEach(decision -> decision.completeExceptionally(e));
+            return;
+        }
+
+        permittedRolesStage.thenCombine(personaRolesStage, (permittedRoles, personaRolesPerResource) -> {
+            logger.operationPermittedToRoles(operation.getName(), permittedRoles.size());
+            pending.forEach((resource, decision) -> {
+                Set<Role> personaRoles = personaRolesPerResource.get(resource.getIdAsUUID());
+                boolean allowed = personaRoles.stream().anyMatch(permittedRoles::contains);
+                logger.checkPermissionResult(persona.getId(), operation.getName(), resource.getId(), allowed);
+                decision.complete(allowed);
+            });
+            return null;
+        }).exceptionally(t -> {
+            pending.values().forEach(decision -> decision.completeExceptionally(t));
+            return null;
+        });
+    }
+
     @Override
     public boolean isAllowedTo(Operation operation, Resource resource) {
         return isAllowedTo(operation, resource, personaInstance.get());
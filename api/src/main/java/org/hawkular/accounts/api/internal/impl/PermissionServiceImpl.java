@@ -16,25 +16,27 @@
  */
 package org.hawkular.accounts.api.internal.impl;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
-import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
 import org.hawkular.accounts.api.OperationService;
 import org.hawkular.accounts.api.PermissionService;
 import org.hawkular.accounts.api.RoleService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
 import org.hawkular.accounts.api.model.Operation;
 import org.hawkular.accounts.api.model.Permission;
 import org.hawkular.accounts.api.model.Role;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -45,61 +47,71 @@ import com.datastax.driver.core.Row;
 public class PermissionServiceImpl extends BaseServiceImpl<Permission> implements PermissionService {
     MsgLogger logger = MsgLogger.LOGGER;
 
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int OPERATION = MAPPING.column("operation", DataType.uuid());
+    private static final int ROLE = MAPPING.column("role", DataType.uuid());
+
     @Inject
     OperationService operationService;
 
     @Inject
     RoleService roleService;
 
-    @Inject @NamedStatement(BoundStatements.PERMISSION_GET_BY_ID)
-    Instance<BoundStatement> stmtGetByIdInstance;
-
-    @Inject @NamedStatement(BoundStatements.PERMISSION_DELETE)
-    Instance<BoundStatement> stmtDeleteInstance;
-
-    @Inject @NamedStatement(BoundStatements.PERMISSIONS_GET_BY_OPERATION)
-    Instance<BoundStatement> stmtGetByOperationInstance;
-
-    @Inject @NamedStatement(BoundStatements.PERMISSION_CREATE)
-    Instance<BoundStatement> stmtCreateInstance;
-
     @Override
     public Set<Role> getPermittedRoles(Operation operation) {
-        return getPermissionsForOperation(operation)
+        // the roles are read all at once, instead of one by one
+        return new HashSet<>(roleService.getByIds(getPermissionsForOperation(operation)
                 .stream()
-                .map(Permission::getRole)
-                .collect(Collectors.toSet());
+                .map(Permission::getRoleId)
+                .collect(Collectors.toList())));
+    }
+
+    @Override
+    public CompletionStage<Set<Role>> getPermittedRolesAsync(Operation operation) {
+        return getListAsync(bind(BoundStatements.PERMISSIONS_GET_BY_OPERATION)
+                .setUUID("operation", operation.getIdAsUUID()))
+                .thenCompose(permissions -> roleService.getByIdsAsync(permissions
+                        .stream()
+                        .map(Permission::getRoleId)
+                        .collect(Collectors.toList())))
+                .thenApply(HashSet::new);
     }
 
     @Override
     public Set<Permission> getPermissionsForOperation(Operation operation) {
-        return getList(stmtGetByOperationInstance.get().setUUID("operation", operation.getIdAsUUID()))
+        return getList(bind(BoundStatements.PERMISSIONS_GET_BY_OPERATION).setUUID("operation", operation.getIdAsUUID()))
                 .stream()
                 .collect(Collectors.toSet());
     }
 
     @Override
     public Permission getById(UUID id) {
-        return getById(id, stmtGetByIdInstance.get());
+        return getById(id, bind(BoundStatements.PERMISSION_GET_BY_ID));
     }
 
     @Override
     public Permission create(Operation operation, Role role) {
-        BoundStatement stmtCreate = stmtCreateInstance.get();
+        BoundStatement stmtCreate = bind(BoundStatements.PERMISSION_CREATE);
+        BoundStatement stmtCreateByOperation = bind(BoundStatements.PERMISSION_CREATE_BY_OPERATION);
         Permission permission = new Permission(operation, role);
 
-        bindBasicParameters(permission, stmtCreate);
-        stmtCreate.setUUID("operation", permission.getOperation().getIdAsUUID());
-        stmtCreate.setUUID("role", permission.getRole().getIdAsUUID());
+        for (BoundStatement statement : Arrays.asList(stmtCreate, stmtCreateByOperation)) {
+            bindBasicParameters(permission, statement);
+            statement.setUUID("operation", permission.getOperation().getIdAsUUID());
+            statement.setUUID("role", permission.getRole().getIdAsUUID());
+        }
 
-        session.execute(stmtCreate);
+        session.execute(logged(stmtCreate, stmtCreateByOperation));
         logger.permissionCreated(permission.getId(), operation.getName(), role.getName());
         return permission;
     }
 
     @Override
     public void remove(Permission permission) {
-        session.execute(stmtDeleteInstance.get().setUUID("id", permission.getIdAsUUID()));
+        removeById(permission.getIdAsUUID(),
+                bind(BoundStatements.PERMISSION_DELETE),
+                bind(BoundStatements.PERMISSION_DELETE_BY_OPERATION)
+                        .setUUID("operation", permission.getOperation().getIdAsUUID()));
         logger.permissionRemoved(
                 permission.getId(),
                 permission.getOperation().getName(),
@@ -109,11 +121,18 @@ public class PermissionServiceImpl extends BaseServiceImpl<Permission> implement
 
     @Override
     Permission getFromRow(Row row) {
-        Operation operation = operationService.getById(row.getUUID("operation"));
-        Role role = roleService.getById(row.getUUID("role"));
-
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
         Permission.Builder builder = new Permission.Builder();
-        super.mapBaseFields(row, builder);
-        return builder.operation(operation).role(role).build();
+        super.mapBaseFields(row, columns, builder);
+        return builder
+                .operation(columns.getUUID(row, OPERATION), operationService::getById)
+                .role(columns.getUUID(row, ROLE), roleService::getById)
+                .build();
+    }
+
+    @Override
+    void loadReferences(Permission permission) {
+        permission.getOperation();
+        permission.getRole();
     }
 }
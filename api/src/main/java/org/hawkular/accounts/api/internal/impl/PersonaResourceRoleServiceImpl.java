@@ -18,11 +18,12 @@ package org.hawkular.accounts.api.internal.impl;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
-import javax.enterprise.inject.Instance;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import org.hawkular.accounts.api.PersonaResourceRoleService;
@@ -30,13 +31,14 @@ import org.hawkular.accounts.api.PersonaService;
 import org.hawkular.accounts.api.ResourceService;
 import org.hawkular.accounts.api.RoleService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
+import org.hawkular.accounts.api.internal.PermissionInputsChangedEvent;
 import org.hawkular.accounts.api.model.Persona;
 import org.hawkular.accounts.api.model.PersonaResourceRole;
 import org.hawkular.accounts.api.model.Resource;
 import org.hawkular.accounts.api.model.Role;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -49,6 +51,11 @@ public class PersonaResourceRoleServiceImpl
         implements PersonaResourceRoleService {
     MsgLogger logger = MsgLogger.LOGGER;
 
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int PERSONA = MAPPING.column("persona", DataType.uuid());
+    private static final int RESOURCE = MAPPING.column("resource", DataType.uuid());
+    private static final int ROLE = MAPPING.column("role", DataType.uuid());
+
     @Inject
     PersonaService personaService;
 
@@ -58,59 +65,87 @@ public class PersonaResourceRoleServiceImpl
     @Inject
     RoleService roleService;
 
-    @Inject @NamedStatement(BoundStatements.PRR_GET_BY_ID)
-    Instance<BoundStatement> stmtGetByIdInstance;
-
-    @Inject @NamedStatement(BoundStatements.PRR_GET_BY_PERSONA)
-    Instance<BoundStatement> stmtGetByPersonaInstance;
-
-    @Inject @NamedStatement(BoundStatements.PRR_GET_BY_RESOURCE)
-    Instance<BoundStatement> stmtGetByResourceInstance;
-
-    @Inject @NamedStatement(BoundStatements.PRR_CREATE)
-    Instance<BoundStatement> stmtCreateInstance;
-
-    @Inject @NamedStatement(BoundStatements.PRR_REMOVE)
-    Instance<BoundStatement> stmtRemoveInstance;
+    @Inject
+    Event<PermissionInputsChangedEvent> permissionInputsChanged;
 
     @Override
     PersonaResourceRole getFromRow(Row row) {
-        Persona persona = personaService.getById(row.getUUID("persona"));
-        Resource resource = resourceService.getById(row.getUUID("resource"));
-        Role role = roleService.getById(row.getUUID("role"));
-
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
         PersonaResourceRole.Builder builder = new PersonaResourceRole.Builder();
-        mapBaseFields(row, builder);
-        return builder.persona(persona).resource(resource).role(role).build();
+        mapBaseFields(row, columns, builder);
+        return builder
+                .persona(columns.getUUID(row, PERSONA), personaService::getById)
+                .resource(columns.getUUID(row, RESOURCE), resourceService::getById)
+                .role(columns.getUUID(row, ROLE), roleService::getById)
+                .build();
+    }
+
+    @Override
+    void prefetchReferences(List<PersonaResourceRole> personaResourceRoles) {
+        personaService.getByIds(personaResourceRoles
+                .stream()
+                .map(PersonaResourceRole::getPersonaId)
+                .collect(Collectors.toList()));
+        resourceService.getByIds(personaResourceRoles
+                .stream()
+                .map(PersonaResourceRole::getResourceId)
+                .collect(Collectors.toList()));
+        roleService.getByIds(personaResourceRoles
+                .stream()
+                .map(PersonaResourceRole::getRoleId)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    void loadReferences(PersonaResourceRole personaResourceRole) {
+        personaResourceRole.getPersona();
+        personaResourceRole.getResource();
+        personaResourceRole.getRole();
     }
 
     @Override
     public PersonaResourceRole getById(UUID id) {
-        return getById(id, stmtGetByIdInstance.get());
+        return getById(id, bind(BoundStatements.PRR_GET_BY_ID));
     }
 
     @Override
     public PersonaResourceRole create(Persona persona, Resource resource, Role role) {
-        BoundStatement stmtCreate = stmtCreateInstance.get();
+        return AsyncSupport.join(createAsync(persona, resource, role));
+    }
+
+    @Override
+    public CompletionStage<PersonaResourceRole> createAsync(Persona persona, Resource resource, Role role) {
         PersonaResourceRole prr = new PersonaResourceRole(persona, role, resource);
-        bindBasicParameters(prr, stmtCreate);
-        stmtCreate.setUUID("persona", persona.getIdAsUUID());
-        stmtCreate.setUUID("resource", resource.getIdAsUUID());
-        stmtCreate.setUUID("role", role.getIdAsUUID());
-        session.execute(stmtCreate);
-        logger.personaResourceRoleCreated(persona.getId(), resource.getId(), role.getName());
-        return prr;
+        BoundStatement stmtCreate = bindKeys(bind(BoundStatements.PRR_CREATE), prr).setUUID("role", role.getIdAsUUID());
+        BoundStatement stmtCreateByPersonaResource = bindKeys(bind(BoundStatements.PRR_CREATE_BY_PERSONA_RESOURCE), prr)
+                .setUUID("role", role.getIdAsUUID());
+        BoundStatement stmtCreateByResource = bindKeys(bind(BoundStatements.PRR_CREATE_BY_RESOURCE), prr)
+                .setUUID("role", role.getIdAsUUID());
+        return createAsync(prr, stmtCreate, stmtCreateByPersonaResource, stmtCreateByResource).thenApply(created -> {
+            permissionInputsChanged.fire(PermissionInputsChangedEvent.forResource(created.getResourceId()));
+            logger.personaResourceRoleCreated(persona.getId(), resource.getId(), role.getName());
+            return created;
+        });
     }
 
     @Override
     public void remove(UUID id) {
-        logger.personaResourceRoleRemoved(id.toString());
-        session.execute(stmtRemoveInstance.get().setUUID("id", id));
+        PersonaResourceRole personaResourceRole = getById(id);
+        if (null == personaResourceRole) {
+            // nothing to remove
+            return;
+        }
+        remove(personaResourceRole);
     }
 
     @Override
     public void remove(PersonaResourceRole personaResourceRole) {
-        remove(personaResourceRole.getIdAsUUID());
+        logger.personaResourceRoleRemoved(personaResourceRole.getId());
+        removeById(personaResourceRole.getIdAsUUID(),
+                bind(BoundStatements.PRR_REMOVE),
+                bindKeys(bind(BoundStatements.PRR_REMOVE_BY_PERSONA_RESOURCE), personaResourceRole),
+                bindKeys(bind(BoundStatements.PRR_REMOVE_BY_RESOURCE), personaResourceRole));
+        permissionInputsChanged.fire(PermissionInputsChangedEvent.forResource(personaResourceRole.getResourceId()));
         logger.personaResourceRoleRemoved(
                 personaResourceRole.getPersona().getId(),
                 personaResourceRole.getResource().getId(),
@@ -118,21 +153,43 @@ public class PersonaResourceRoleServiceImpl
         );
     }
 
+    /**
+     * Binds the keys shared by the main table and the lookup tables: the persona and the resource.
+     */
+    private BoundStatement bindKeys(BoundStatement statement, PersonaResourceRole personaResourceRole) {
+        return statement
+                .setUUID("persona", personaResourceRole.getPersonaId())
+                .setUUID("resource", personaResourceRole.getResourceId());
+    }
+
     @Override
     public List<PersonaResourceRole> getByPersona(Persona persona) {
-        return getList(stmtGetByPersonaInstance.get().setUUID("persona", persona.getIdAsUUID()));
+        return getList(bind(BoundStatements.PRR_GET_BY_PERSONA).setUUID("persona", persona.getIdAsUUID()));
     }
 
     @Override
     public List<PersonaResourceRole> getByPersonaAndResource(Persona persona, Resource resource) {
-        return getByPersona(persona)
-                .stream()
-                .filter(prr -> prr.getResource().equals(resource))
-                .collect(Collectors.toList());
+        return getList(getByPersonaAndResourceStatement(persona, resource));
+    }
+
+    @Override
+    public CompletionStage<List<PersonaResourceRole>> getByPersonaAndResourceAsync(Persona persona,
+                                                                                   Resource resource) {
+        return getListAsync(getByPersonaAndResourceStatement(persona, resource));
+    }
+
+    private BoundStatement getByPersonaAndResourceStatement(Persona persona, Resource resource) {
+        // both the partition key and the first clustering column are restricted, so, this reads only the roles
+        // for this specific resource
+        return bind(BoundStatements.PRR_GET_BY_PERSONA_AND_RESOURCE)
+                .setUUID("persona", persona.getIdAsUUID())
+                .setUUID("resource", resource.getIdAsUUID());
     }
 
     @Override
     public List<PersonaResourceRole> getByResource(Resource resource) {
-        return getList(stmtGetByResourceInstance.get().setUUID("resource", resource.getIdAsUUID()));
+        // the callers usually need the personas and roles for all the entries, so, we read them in batches right away
+        return getList(bind(BoundStatements.PRR_GET_BY_RESOURCE).setUUID("resource", resource.getIdAsUUID()),
+                ReferenceLoading.EAGER);
     }
 }
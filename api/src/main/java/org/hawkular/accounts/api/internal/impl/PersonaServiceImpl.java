@@ -17,10 +17,18 @@
 package org.hawkular.accounts.api.internal.impl;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.annotation.security.PermitAll;
@@ -74,6 +82,12 @@ public class PersonaServiceImpl implements PersonaService {
     @Inject
     PersonaResourceRoleService personaResourceRoleService;
 
+    @Inject
+    RoleLattice roleLattice;
+
+    @Inject
+    EffectiveRolesProjection effectiveRoles;
+
     @Inject
     private HttpServletRequest httpRequest;
 
@@ -86,21 +100,52 @@ public class PersonaServiceImpl implements PersonaService {
             throw new IllegalArgumentException("The provided Persona ID is invalid (null).");
         }
 
+        return AsyncSupport.join(getByIdAsync(UUID.fromString(id)));
+    }
+
+    @Override
+    public CompletionStage<Persona> getByIdAsync(UUID id) {
+        if (null == id) {
+            throw new IllegalArgumentException("The provided Persona ID is invalid (null).");
+        }
+
         // for now, we will be doing two queries: one for user, one for organization, which are the two known
-        // persona types
-        Persona persona;
+        // persona types. both are executed at the same time, as only one of them is expected to return a record
+        CompletionStage<HawkularUser> user = userService.getByIdAsync(id);
+        CompletionStage<Organization> organization = organizationService.getByIdAsync(id);
+        return user.thenCombine(organization, (u, o) -> null != u ? u : o);
+    }
 
-        UUID uuid = UUID.fromString(id);
-        persona = userService.getById(uuid);
-        if (null == persona) {
-            persona = organizationService.getById(uuid);
+    @Override
+    public List<Persona> getByIds(Collection<UUID> ids) {
+        if (null == ids) {
+            throw new IllegalArgumentException("The provided list of Persona IDs is invalid (null).");
+        }
+
+        // same as for a single persona: first the users, then the organizations for the IDs that are not users
+        Map<UUID, Persona> personas = new HashMap<>(ids.size());
+        userService.getByIds(ids).forEach(user -> personas.put(user.getIdAsUUID(), user));
+
+        List<UUID> remaining = ids.stream().filter(id -> !personas.containsKey(id)).collect(Collectors.toList());
+        if (!remaining.isEmpty()) {
+            organizationService.getByIds(remaining).forEach(org -> personas.put(org.getIdAsUUID(), org));
         }
 
-        return persona;
+        return ids
+                .stream()
+                .distinct()
+                .map(personas::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     @Override
     public Set<Role> getEffectiveRolesForResource(Persona persona, Resource resource) {
+        return AsyncSupport.join(getEffectiveRolesForResourceAsync(persona, resource));
+    }
+
+    @Override
+    public CompletionStage<Set<Role>> getEffectiveRolesForResourceAsync(Persona persona, Resource resource) {
         if (null == persona) {
             throw new IllegalArgumentException("Missing persona (null).");
         }
@@ -109,6 +154,81 @@ public class PersonaServiceImpl implements PersonaService {
             throw new IllegalArgumentException("Missing resource (null).");
         }
 
+        // the projection has the roles already, unless something changed since they were last determined
+        long timestamp = effectiveRoles.now();
+        return effectiveRoles.getAsync(persona.getIdAsUUID(), resource.getIdAsUUID()).thenCompose(projected -> {
+            if (null != projected) {
+                return CompletableFuture.completedFuture(roleLattice.get().toRoles(projected));
+            }
+            return getEffectiveRolesForResourceAsync(
+                    persona,
+                    resource,
+                    membershipService::getMembershipsForPersonaAsync
+            ).thenApply(roles -> project(persona, resource, roles, timestamp));
+        });
+    }
+
+    @Override
+    public CompletionStage<Map<UUID, Set<Role>>> getEffectiveRolesForResourcesAsync(Persona persona,
+                                                                                   Collection<Resource> resources) {
+        if (null == persona) {
+            throw new IllegalArgumentException("Missing persona (null).");
+        }
+
+        if (null == resources) {
+            throw new IllegalArgumentException("Missing resources (null).");
+        }
+
+        // the memberships don't depend on the resource, so, we read them once per persona for the whole batch
+        Map<UUID, CompletionStage<List<OrganizationMembership>>> memberships = new ConcurrentHashMap<>();
+        Function<Persona, CompletionStage<List<OrganizationMembership>>> membershipsLookup = p ->
+                memberships.computeIfAbsent(p.getIdAsUUID(), id -> membershipService.getMembershipsForPersonaAsync(p));
+
+        // the projection entries for all resources are on the persona's partition, so, a single read is enough for
+        // them, plus one for the invalidation markers of the resources
+        long timestamp = effectiveRoles.now();
+        Map<UUID, Resource> resourcesById = new LinkedHashMap<>(resources.size());
+        resources.forEach(resource -> resourcesById.putIfAbsent(resource.getIdAsUUID(), resource));
+
+        return effectiveRoles.getAsync(persona.getIdAsUUID(), resourcesById.keySet()).thenCompose(projected -> {
+            RoleLattice.Snapshot lattice = roleLattice.get();
+            Map<UUID, CompletableFuture<Set<Role>>> rolesPerResource = new LinkedHashMap<>(resourcesById.size());
+            resourcesById.forEach((id, resource) -> {
+                Long mask = projected.get(id);
+                if (null != mask) {
+                    rolesPerResource.put(id, CompletableFuture.completedFuture(lattice.toRoles(mask)));
+                    return;
+                }
+                rolesPerResource.put(id, getEffectiveRolesForResourceAsync(persona, resource, membershipsLookup)
+                        .thenApply(roles -> project(persona, resource, roles, timestamp))
+                        .toCompletableFuture());
+            });
+
+            return AsyncSupport.allOf(rolesPerResource.values())
+                    .thenApply(v -> {
+                        Map<UUID, Set<Role>> result = new LinkedHashMap<>(rolesPerResource.size());
+                        rolesPerResource.forEach((id, roles) -> result.put(id, roles.join()));
+                        return result;
+                    });
+        });
+    }
+
+    /**
+     * Stores the roles that were just determined for the persona on the resource into the projection.
+     */
+    private Set<Role> project(Persona persona, Resource resource, Set<Role> roles, long timestamp) {
+        effectiveRoles.put(persona.getIdAsUUID(), resource.getIdAsUUID(), roleLattice.get().maskOf(roles), timestamp);
+        return roles;
+    }
+
+    /**
+     * Determines the effective roles of a persona on a resource, reading the memberships of the personas involved via
+     * the given lookup function.
+     */
+    private CompletionStage<Set<Role>> getEffectiveRolesForResourceAsync(
+            Persona persona,
+            Resource resource,
+            Function<Persona, CompletionStage<List<OrganizationMembership>>> membershipsLookup) {
         logger.determiningEffectiveRolesForPersonaOnResource(persona.getId(), resource.getId());
         // rules:
         // if the persona has explicit roles for this resource, that's what is effective.
@@ -119,67 +239,118 @@ public class PersonaServiceImpl implements PersonaService {
         // "Department 2" is "Auditor", "Administrator" and "Monitor" of "node1"
         // Therefore, jdoe is only "Auditor" of "node1".
 
-        List<PersonaResourceRole> results = personaResourceRoleService.getByPersonaAndResource(persona, resource);
-        logger.numOfDirectRolesOnResource(persona.getId(), resource.getId(), results.size());
-        if (results.size() == 0) {
-            logger.noDirectRolesOnResource(persona.getId(), resource.getId());
-            // this means: this persona has no direct roles on the resource, let's check the organizations it belongs to
-            List<Organization> organizations = organizationService.getOrganizationsForPersona(persona);
-
-            Set<Role> roles = new HashSet<>();
-            for (Organization organization : organizations) {
-                logger.checkingIndirectRolesViaOrganization(persona.getId(), resource.getId(), organization.getId());
-                List<OrganizationMembership> memberships =
-                        membershipService.getPersonaMembershipsForOrganization(persona, organization);
-                // here, we basically filter what are the minimum set of roles a persona has on a resource
-                // example:
-                // persona "jdoe" is "Auditor" "acme"
-                // "acme" is "Monitor" and "Auditor" on "node1"
-                // therefore, "jdoe" is only "Auditor" on "node1"
-
-                Set<Role> organizationRolesForResource = getEffectiveRolesForResource(organization, resource);
-                Set<Role> effectiveRoles = memberships
-                        .stream()
-                        // get what are the persona's roles (direct or implicit) on the organization
-                        .map(membership -> {
-                                    Set<Role> implicitRoles = roleService.getImplicitUserRoles(membership.getRole());
-                                    implicitRoles.add(membership.getRole());
-                                    return implicitRoles;
-                                }
-                        )
-                        // flattens the stream, so that we have a stream of roles (instead of stream of Set<Role>)
-                        .flatMap(Collection::stream)
-                                // accept only roles that the organization has on the resource
-                        .filter(organizationRolesForResource::contains)
-                        // the result is: roles that the persona has on the organization, restricted to only the
-                                // roles that the organization has on the resource
-                        .collect(Collectors.toSet());
-
-                logger.numOfEffectiveRolesViaOrganization(
-                        persona.getId(),
-                        resource.getId(),
-                        organization.getId(),
-                        effectiveRoles.size()
-                );
-                roles.addAll(effectiveRoles);
+        return personaResourceRoleService.getByPersonaAndResourceAsync(persona, resource).thenCompose(results -> {
+            logger.numOfDirectRolesOnResource(persona.getId(), resource.getId(), results.size());
+            if (results.size() == 0) {
+                logger.noDirectRolesOnResource(persona.getId(), resource.getId());
+                // this means: this persona has no direct roles on the resource, let's check the organizations it
+                // belongs to
+                return getIndirectRolesForResourceAsync(persona, resource, membershipsLookup);
             }
-            logger.totalEffectiveRolesOnResource(persona.getId(), resource.getId(), roles.size());
-            return roles;
-        }
+            return CompletableFuture.completedFuture(getDirectRolesForResource(persona, resource, results));
+        });
+    }
 
-        Set<Role> roles = new HashSet<>(results.size());
+    /**
+     * Determines the roles that a persona has on a resource via the organizations it belongs to. Each organization is
+     * checked concurrently.
+     */
+    private CompletionStage<Set<Role>> getIndirectRolesForResourceAsync(
+            Persona persona,
+            Resource resource,
+            Function<Persona, CompletionStage<List<OrganizationMembership>>> membershipsLookup) {
+        return membershipsLookup.apply(persona).thenCompose(memberships -> {
+            Map<UUID, List<OrganizationMembership>> membershipsByOrganization = memberships
+                    .stream()
+                    .collect(Collectors.groupingBy(OrganizationMembership::getOrganizationId));
+            return organizationService.getByIdsAsync(membershipsByOrganization.keySet())
+                    .thenCompose(organizations -> getRolesViaOrganizationsAsync(
+                            persona,
+                            resource,
+                            organizations,
+                            membershipsByOrganization,
+                            membershipsLookup
+                    ));
+        });
+    }
 
-        // first, we add all direct roles
-        roles.addAll(results.stream().map(PersonaResourceRole::getRole).collect(Collectors.toSet()));
+    /**
+     * Determines the roles that a persona has on a resource via each of the given organizations, concurrently.
+     */
+    private CompletionStage<Set<Role>> getRolesViaOrganizationsAsync(
+            Persona persona,
+            Resource resource,
+            List<Organization> organizations,
+            Map<UUID, List<OrganizationMembership>> membershipsByOrganization,
+            Function<Persona, CompletionStage<List<OrganizationMembership>>> membershipsLookup) {
+        List<CompletableFuture<Set<Role>>> rolesPerOrganization = organizations
+                .stream()
+                .map(organization -> {
+                    logger.checkingIndirectRolesViaOrganization(
+                            persona.getId(),
+                            resource.getId(),
+                            organization.getId()
+                    );
+                    return getEffectiveRolesForResourceAsync(organization, resource, membershipsLookup)
+                            .thenApply(organizationRolesForResource -> getEffectiveRolesViaOrganization(
+                                    persona,
+                                    resource,
+                                    organization,
+                                    membershipsByOrganization.get(organization.getIdAsUUID()),
+                                    organizationRolesForResource
+                            ))
+                            .toCompletableFuture();
+                })
+                .collect(Collectors.toList());
+
+        return AsyncSupport.allOf(rolesPerOrganization)
+                .thenApply(v -> {
+                    Set<Role> roles = new HashSet<>();
+                    rolesPerOrganization.forEach(organizationRoles -> roles.addAll(organizationRoles.join()));
+                    logger.totalEffectiveRolesOnResource(persona.getId(), resource.getId(), roles.size());
+                    return roles;
+                });
+    }
 
-        // then, we add the implicit roles
-        roles.addAll(
-                results
-                        .stream()
-                        .map(r -> roleService.getImplicitUserRoles(r.getRole()))
-                        .flatMap(Collection::stream)
-                        .collect(Collectors.toSet())
+    private Set<Role> getEffectiveRolesViaOrganization(Persona persona,
+                                                       Resource resource,
+                                                       Organization organization,
+                                                       List<OrganizationMembership> memberships,
+                                                       Set<Role> organizationRolesForResource) {
+        // here, we basically filter what are the minimum set of roles a persona has on a resource
+        // example:
+        // persona "jdoe" is "Auditor" "acme"
+        // "acme" is "Monitor" and "Auditor" on "node1"
+        // therefore, "jdoe" is only "Auditor" on "node1"
+        RoleLattice.Snapshot lattice = roleLattice.get();
+        long personaRoles = 0;
+        for (OrganizationMembership membership : memberships) {
+            // the persona's roles (direct or implicit) on the organization
+            personaRoles |= lattice.withImpliedRoles(membership.getRoleId());
+        }
+
+        // restricted to only the roles that the organization has on the resource
+        Set<Role> effectiveRoles = lattice.toRoles(personaRoles & lattice.maskOf(organizationRolesForResource));
+
+        logger.numOfEffectiveRolesViaOrganization(
+                persona.getId(),
+                resource.getId(),
+                organization.getId(),
+                effectiveRoles.size()
         );
+        return effectiveRoles;
+    }
+
+    private Set<Role> getDirectRolesForResource(Persona persona,
+                                                Resource resource,
+                                                List<PersonaResourceRole> results) {
+        // the direct roles and their implicit roles, without reading the roles themselves
+        RoleLattice.Snapshot lattice = roleLattice.get();
+        long mask = 0;
+        for (PersonaResourceRole result : results) {
+            mask |= lattice.withImpliedRoles(result.getRoleId());
+        }
+        Set<Role> roles = lattice.toRoles(mask);
 
         logger.totalEffectiveRolesOnResourceWithImplicitRoles(persona.getId(), resource.getId(), roles.size());
         return roles;
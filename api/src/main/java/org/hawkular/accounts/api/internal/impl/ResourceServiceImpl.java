@@ -16,28 +16,38 @@
  */
 package org.hawkular.accounts.api.internal.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
-import javax.enterprise.inject.Instance;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import org.hawkular.accounts.api.NamedRole;
+import org.hawkular.accounts.api.Page;
 import org.hawkular.accounts.api.PersonaResourceRoleService;
 import org.hawkular.accounts.api.PersonaService;
 import org.hawkular.accounts.api.ResourceService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
+import org.hawkular.accounts.api.internal.PermissionInputsChangedEvent;
+import org.hawkular.accounts.api.internal.ResourceOwnerCache;
 import org.hawkular.accounts.api.model.Persona;
 import org.hawkular.accounts.api.model.PersonaResourceRole;
 import org.hawkular.accounts.api.model.Resource;
 import org.hawkular.accounts.api.model.Role;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -54,6 +64,10 @@ public class ResourceServiceImpl extends BaseServiceImpl<Resource> implements Re
     private static final Pattern UUID_PATTERN =
             Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}");
 
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int PERSONA = MAPPING.column("persona", DataType.uuid());
+    private static final int PARENT = MAPPING.column("parent", DataType.uuid());
+
     @Inject
     @NamedRole("SuperUser")
     Role superUser;
@@ -64,34 +78,169 @@ public class ResourceServiceImpl extends BaseServiceImpl<Resource> implements Re
     @Inject
     PersonaService personaService;
 
-    @Inject @NamedStatement(BoundStatements.RESOURCE_GET_BY_ID)
-    Instance<BoundStatement> stmtGetByIdInstance;
+    @Inject
+    Event<PermissionInputsChangedEvent> permissionInputsChanged;
 
-    @Inject @NamedStatement(BoundStatements.RESOURCE_GET_BY_PERSONA)
-    Instance<BoundStatement> stmtGetByPersonaInstance;
+    @Inject
+    ResourceOwnerCache ownerCache;
 
-    @Inject @NamedStatement(BoundStatements.RESOURCE_CREATE)
-    Instance<BoundStatement> stmtCreateInstance;
+    @Override
+    public Resource getById(UUID id) {
+        return getById(id, bind(BoundStatements.RESOURCE_GET_BY_ID));
+    }
 
-    @Inject @NamedStatement(BoundStatements.RESOURCE_TRANSFER)
-    Instance<BoundStatement> stmtTransferInstance;
+    @Override
+    public List<Resource> getByIds(Collection<UUID> ids) {
+        return getByIds(ids, () -> bind(BoundStatements.RESOURCE_GET_BY_IDS));
+    }
 
     @Override
-    public Resource getById(UUID id) {
-        return getById(id, stmtGetByIdInstance.get());
+    public CompletionStage<List<Resource>> getByIdsAsync(Collection<UUID> ids) {
+        return getByIdsAsync(ids, () -> bind(BoundStatements.RESOURCE_GET_BY_IDS));
+    }
+
+    @Override
+    public CompletionStage<Resource> getByIdAsync(UUID id) {
+        return getByIdAsync(id, bind(BoundStatements.RESOURCE_GET_BY_ID));
+    }
+
+    @Override
+    public Resource getOwningResource(Resource resource) {
+        return AsyncSupport.join(getOwningResourceAsync(resource));
+    }
+
+    @Override
+    public CompletionStage<Resource> getOwningResourceAsync(Resource resource) {
+        if (null == resource) {
+            throw new IllegalArgumentException("The given resource is invalid (null).");
+        }
+
+        if (null != resource.getPersonaId()) {
+            return CompletableFuture.completedFuture(resource);
+        }
+
+        UUID owningResourceId = ownerCache.get(resource.getIdAsUUID());
+        if (null != owningResourceId) {
+            return getByIdAsync(owningResourceId);
+        }
+
+        // all the ancestors are read at once, and the nearest one with an owner is the owning resource
+        return getAncestorIdsAsync(resource).thenCompose(ancestorIds -> getByIdsAsync(ancestorIds).thenApply(found -> {
+            Map<UUID, Resource> ancestors = new HashMap<>(found.size());
+            found.forEach(ancestor -> ancestors.put(ancestor.getIdAsUUID(), ancestor));
+
+            List<UUID> chain = new ArrayList<>(ancestorIds.size() + 1);
+            chain.add(resource.getIdAsUUID());
+            for (UUID ancestorId : ancestorIds) {
+                chain.add(ancestorId);
+                Resource ancestor = ancestors.get(ancestorId);
+                if (null != ancestor && null != ancestor.getPersonaId()) {
+                    ownerCache.put(chain);
+                    return ancestor;
+                }
+            }
+            throw new IllegalStateException("None of the ancestors of the resource [" + resource.getId()
+                    + "] has an owner.");
+        }));
+    }
+
+    /**
+     * Synchronous version of {@link #getAncestorIdsAsync(Resource)}, for the synchronous operations, which already
+     * block the caller's thread.
+     */
+    private List<UUID> getAncestorIds(Resource resource) {
+        if (null == resource || null == resource.getParentId()) {
+            return new ArrayList<>();
+        }
+
+        Row row = session.execute(bind(BoundStatements.RESOURCE_ANCESTORS_GET)
+                .setUUID("resource", resource.getIdAsUUID())).one();
+        if (null != row) {
+            return row.getList("ancestors", UUID.class);
+        }
+
+        List<UUID> ancestorIds = new ArrayList<>();
+        ancestorIds.add(resource.getParentId());
+        ancestorIds.addAll(getAncestorIds(getById(resource.getParentId())));
+        session.execute(bind(BoundStatements.RESOURCE_ANCESTORS_CREATE)
+                .setUUID("resource", resource.getIdAsUUID())
+                .setList("ancestors", ancestorIds));
+        return ancestorIds;
+    }
+
+    /**
+     * Retrieves the IDs of the ancestors of the given resource, from the parent up to the root. Resources created
+     * before the ancestors were indexed are indexed now, as their parents never change. A parent that doesn't exist
+     * anymore ends the chain.
+     */
+    private CompletionStage<List<UUID>> getAncestorIdsAsync(Resource resource) {
+        if (null == resource || null == resource.getParentId()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        BoundStatement stmtGetAncestors = bind(BoundStatements.RESOURCE_ANCESTORS_GET)
+                .setUUID("resource", resource.getIdAsUUID());
+        return executeAsync(stmtGetAncestors).thenCompose(resultSet -> {
+            Row row = resultSet.one();
+            if (null != row) {
+                return CompletableFuture.completedFuture(row.getList("ancestors", UUID.class));
+            }
+            return indexAncestorIdsAsync(resource);
+        });
+    }
+
+    /**
+     * Determines the IDs of the ancestors of a resource that is known not to have its ancestors indexed, by walking
+     * up the parents, and indexes them.
+     */
+    private CompletionStage<List<UUID>> indexAncestorIdsAsync(Resource resource) {
+        return getByIdAsync(resource.getParentId())
+                .thenCompose(this::getAncestorIdsAsync)
+                .thenCompose(parentAncestorIds -> {
+                    List<UUID> ancestorIds = new ArrayList<>(parentAncestorIds.size() + 1);
+                    ancestorIds.add(resource.getParentId());
+                    ancestorIds.addAll(parentAncestorIds);
+                    BoundStatement stmtCreateAncestors = bind(BoundStatements.RESOURCE_ANCESTORS_CREATE)
+                            .setUUID("resource", resource.getIdAsUUID())
+                            .setList("ancestors", ancestorIds);
+                    return executeAsync(stmtCreateAncestors).thenApply(resultSet -> ancestorIds);
+                });
     }
 
     @Override
     public Resource get(String id) {
-        UUID uuid;
+        return getById(toUUID(id));
+    }
+
+    @Override
+    public Map<String, Resource> get(Collection<String> ids) {
+        if (null == ids) {
+            throw new IllegalArgumentException("The given resource IDs are invalid (null).");
+        }
+
+        Map<String, UUID> uuids = new LinkedHashMap<>(ids.size());
+        ids.forEach(id -> uuids.put(id, toUUID(id)));
+
+        Map<UUID, Resource> resources = new HashMap<>(uuids.size());
+        getByIds(uuids.values()).forEach(resource -> resources.put(resource.getIdAsUUID(), resource));
+
+        Map<String, Resource> result = new LinkedHashMap<>(uuids.size());
+        uuids.forEach((id, uuid) -> {
+            Resource resource = resources.get(uuid);
+            if (null != resource) {
+                result.put(id, resource);
+            }
+        });
+        return result;
+    }
+
+    private UUID toUUID(String id) {
         if (!UUID_PATTERN.matcher(id).matches()) {
-            uuid = UUID.nameUUIDFromBytes(id.getBytes());
+            UUID uuid = UUID.nameUUIDFromBytes(id.getBytes());
             logger.resourceIdIsntUUID(id, uuid.toString());
-        } else {
-            uuid = UUID.fromString(id);
+            return uuid;
         }
-
-        return getById(uuid);
+        return UUID.fromString(id);
     }
 
     @Override
@@ -112,17 +261,19 @@ public class ResourceServiceImpl extends BaseServiceImpl<Resource> implements Re
 
     @Override
     public Resource create(String id, Resource parent, Persona persona) {
-        BoundStatement stmtCreate = stmtCreateInstance.get();
+        BoundStatement stmtCreate = bind(BoundStatements.RESOURCE_CREATE);
         if (null == parent && null == persona) {
             throw new IllegalArgumentException("Either parent or persona should be provided when creating a resource");
         }
 
         Resource resource = new Resource(id, persona, parent);
         bindBasicParameters(resource, stmtCreate);
+        List<BoundStatement> lookupStatements = new ArrayList<>(2);
 
         if (null != persona) {
             logger.resourceBeingCreatedWithPersona(resource.getId(), persona.getId());
             stmtCreate.setUUID("persona", resource.getPersona().getIdAsUUID());
+            lookupStatements.add(bindByPersona(resource));
         } else {
             stmtCreate.setToNull("persona");
         }
@@ -130,11 +281,18 @@ public class ResourceServiceImpl extends BaseServiceImpl<Resource> implements Re
         if (null != parent) {
             logger.resourceBeingCreatedWithParent(resource.getId(), resource.getParent().getId());
             stmtCreate.setUUID("parent", resource.getParent().getIdAsUUID());
+
+            // the ancestors of the new resource are its parent and the parent's ancestors
+            List<UUID> ancestorIds = new ArrayList<>();
+            ancestorIds.add(parent.getIdAsUUID());
+            ancestorIds.addAll(getAncestorIds(parent));
+            lookupStatements.add(bind(BoundStatements.RESOURCE_ANCESTORS_CREATE)
+                    .setUUID("resource", resource.getIdAsUUID())
+                    .setList("ancestors", ancestorIds));
         } else {
             stmtCreate.setToNull("parent");
         }
-
-        session.execute(stmtCreate);
+        session.execute(logged(stmtCreate, lookupStatements.toArray(new BoundStatement[lookupStatements.size()])));
 
         if (persona != null) {
             personaResourceRoleService.create(persona, resource, superUser);
@@ -165,7 +323,17 @@ public class ResourceServiceImpl extends BaseServiceImpl<Resource> implements Re
             throw new IllegalArgumentException("The given persona is invalid (null).");
         }
 
-        return getList(stmtGetByPersonaInstance.get().setUUID("persona", persona.getIdAsUUID()));
+        return getList(bind(BoundStatements.RESOURCE_GET_BY_PERSONA).setUUID("persona", persona.getIdAsUUID()));
+    }
+
+    @Override
+    public Page<Resource> getByPersona(Persona persona, int limit, String cursor) {
+        if (null == persona) {
+            throw new IllegalArgumentException("The given persona is invalid (null).");
+        }
+
+        return getPage(bind(BoundStatements.RESOURCE_GET_BY_PERSONA)
+                .setUUID("persona", persona.getIdAsUUID()), limit, cursor);
     }
 
     @Override
@@ -175,8 +343,21 @@ public class ResourceServiceImpl extends BaseServiceImpl<Resource> implements Re
         } else {
             logger.resourceTransferringNoOwner(resource.getId(), persona.getId());
         }
+        UUID previousPersonaId = resource.getPersonaId();
         resource.setPersona(persona);
-        update(resource, stmtTransferInstance.get().setUUID("persona", persona.getIdAsUUID()));
+
+        // the resource moves to the partition of the new owner on the lookup table
+        List<BoundStatement> lookupStatements = new ArrayList<>(2);
+        lookupStatements.add(bindByPersona(resource));
+        if (null != previousPersonaId && !previousPersonaId.equals(persona.getIdAsUUID())) {
+            lookupStatements.add(bind(BoundStatements.RESOURCE_REMOVE_BY_PERSONA)
+                    .setUUID("persona", previousPersonaId));
+        }
+        update(resource,
+                bind(BoundStatements.RESOURCE_TRANSFER).setUUID("persona", persona.getIdAsUUID()),
+                lookupStatements.toArray(new BoundStatement[lookupStatements.size()]));
+        ownerCache.invalidate(resource.getIdAsUUID());
+        permissionInputsChanged.fire(PermissionInputsChangedEvent.forResource(resource.getIdAsUUID()));
         revokeAllForPersona(resource, persona);
         addRoleToPersona(resource, persona, superUser);
     }
@@ -194,7 +375,7 @@ public class ResourceServiceImpl extends BaseServiceImpl<Resource> implements Re
         // do we have this combination already?
         List<PersonaResourceRole> existingList = personaResourceRoleService.getByPersonaAndResource(persona, resource)
                 .stream()
-                .filter(prr -> prr.getRole().equals(role))
+                .filter(prr -> role.getIdAsUUID().equals(prr.getRoleId()))
                 .collect(Collectors.toList());
 
         if (existingList.size() > 0) {
@@ -212,20 +393,35 @@ public class ResourceServiceImpl extends BaseServiceImpl<Resource> implements Re
     }
 
     @Override
-    Resource getFromRow(Row row) {
-        Resource parent = null;
-        Persona persona = null;
-
-        if (!row.isNull("parent")) {
-            parent = getById(row.getUUID("parent"));
-        }
+    void loadReferences(Resource resource) {
+        resource.getParent();
+        resource.getPersona();
+    }
 
-        if (!row.isNull("persona")) {
-            persona = personaService.getById(row.getUUID("persona"));
+    /**
+     * Binds the insert into the lookup table by persona for the given resource, which should have an owner.
+     * @param resource    the resource to bind
+     * @return the bound statement
+     */
+    private BoundStatement bindByPersona(Resource resource) {
+        BoundStatement statement = bind(BoundStatements.RESOURCE_CREATE_BY_PERSONA);
+        bindBasicParameters(resource, statement);
+        statement.setUUID("persona", resource.getPersonaId());
+        if (null != resource.getParentId()) {
+            statement.setUUID("parent", resource.getParentId());
+        } else {
+            statement.setToNull("parent");
         }
+        return statement;
+    }
 
-        Resource.Builder builder = new Resource.Builder().parent(parent).persona(persona);
-        mapBaseFields(row, builder);
+    @Override
+    Resource getFromRow(Row row) {
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
+        Resource.Builder builder = new Resource.Builder()
+                .parent(columns.getUUID(row, PARENT), this::getById)
+                .persona(columns.getUUID(row, PERSONA), personaService::getById);
+        mapBaseFields(row, columns, builder);
         return builder.build();
     }
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.hawkular.accounts.api.RoleService;
+import org.hawkular.accounts.api.model.Role;
+
+/**
+ * In-memory representation of the hierarchy of the built-in roles. Each role is assigned a bit, and for each role we
+ * keep a precomputed mask of the roles it implies (a SuperUser is also an Auditor, an Administrator, ...) and of the
+ * roles it is implied by (an operation permitted to Monitor is also permitted to Operator, Auditor, ...). Expanding
+ * and intersecting roles is then a matter of bitwise operations on those masks.
+ * <p>
+ * The roles themselves are read once from the data store and kept in an immutable {@link Snapshot}, which is
+ * discarded when a new role is created.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@ApplicationScoped
+public class RoleLattice {
+    /**
+     * The built-in roles. The position on this list is the bit of the role on the masks.
+     */
+    static final List<String> NAMES = Arrays.asList(
+            "SuperUser",
+            "Administrator",
+            "Deployer",
+            "Maintainer",
+            "Operator",
+            "Auditor",
+            "Monitor"
+    );
+
+    private static final Map<String, Integer> BITS = new HashMap<>(NAMES.size());
+    private static final long[] IMPLIES = new long[NAMES.size()];
+    private static final long[] IMPLIED_BY = new long[NAMES.size()];
+
+    static {
+        for (int i = 0; i < NAMES.size(); i++) {
+            BITS.put(NAMES.get(i), i);
+        }
+
+        // the direct implications, the transitive ones are calculated below
+        implies("SuperUser", "Auditor", "Administrator", "Deployer");
+        implies("Administrator", "Maintainer");
+        implies("Deployer", "Maintainer");
+        implies("Maintainer", "Operator");
+        implies("Operator", "Monitor");
+        implies("Auditor", "Monitor");
+
+        // transitive closure: as the hierarchy is tiny, we just repeat until nothing changes
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < IMPLIES.length; i++) {
+                long expanded = IMPLIES[i];
+                for (int j = 0; j < IMPLIES.length; j++) {
+                    if ((IMPLIES[i] & (1L << j)) != 0) {
+                        expanded |= IMPLIES[j];
+                    }
+                }
+                if (expanded != IMPLIES[i]) {
+                    IMPLIES[i] = expanded;
+                    changed = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < IMPLIES.length; i++) {
+            for (int j = 0; j < IMPLIES.length; j++) {
+                if ((IMPLIES[i] & (1L << j)) != 0) {
+                    IMPLIED_BY[j] |= 1L << i;
+                }
+            }
+        }
+    }
+
+    @Inject
+    RoleService roleService;
+
+    private volatile Snapshot snapshot;
+
+    private static void implies(String role, String... impliedRoles) {
+        for (String impliedRole : impliedRoles) {
+            IMPLIES[BITS.get(role)] |= 1L << BITS.get(impliedRole);
+        }
+    }
+
+    /**
+     * Retrieves the current snapshot of the hierarchy, loading the roles from the data store if needed. Snapshots
+     * that are missing some of the built-in roles are not kept, as that happens only while the roles are being
+     * created during the first boot.
+     *
+     * @return the snapshot of the hierarchy
+     */
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        if (null != current) {
+            return current;
+        }
+
+        Role[] roles = new Role[NAMES.size()];
+        boolean complete = true;
+        for (int i = 0; i < roles.length; i++) {
+            roles[i] = roleService.getByName(NAMES.get(i));
+            complete &= null != roles[i];
+        }
+
+        current = new Snapshot(roles);
+        if (complete) {
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * Discards the current snapshot, so that the roles are read again on the next call to {@link #get()}.
+     */
+    public void refresh() {
+        snapshot = null;
+    }
+
+    /**
+     * Immutable view of the hierarchy, with the actual {@link Role} instances for each bit.
+     */
+    public static final class Snapshot {
+        private final Role[] roles;
+        private final Map<UUID, Integer> bitsById = new HashMap<>(NAMES.size());
+
+        private Snapshot(Role[] roles) {
+            this.roles = roles;
+            for (int i = 0; i < roles.length; i++) {
+                if (null != roles[i]) {
+                    bitsById.put(roles[i].getIdAsUUID(), i);
+                }
+            }
+        }
+
+        /**
+         * @param role    the role
+         * @return the mask with the bit for the given role, or zero if the role is not part of the hierarchy
+         */
+        public long maskOf(Role role) {
+            Integer bit = BITS.get(role.getName());
+            return null == bit ? 0 : 1L << bit;
+        }
+
+        /**
+         * @param roles    the roles
+         * @return the mask with the bits for the given roles. Roles that are not part of the hierarchy are ignored.
+         */
+        public long maskOf(Collection<Role> roles) {
+            long mask = 0;
+            for (Role role : roles) {
+                mask |= maskOf(role);
+            }
+            return mask;
+        }
+
+        /**
+         * @param roleId    the ID of the role
+         * @return the mask with the given role and all the roles it implies
+         * @throws IllegalArgumentException if the role is not part of the hierarchy
+         */
+        public long withImpliedRoles(UUID roleId) {
+            Integer bit = bitsById.get(roleId);
+            if (null == bit) {
+                throw new IllegalArgumentException("Unrecognized role: '" + roleId + "'");
+            }
+            return (1L << bit) | IMPLIES[bit];
+        }
+
+        /**
+         * @param name    the name of the role
+         * @return the mask with the roles implied by the given role, not including the role itself
+         * @throws IllegalArgumentException if the role is not part of the hierarchy
+         */
+        public long impliedRoles(String name) {
+            return IMPLIES[bitOf(name)];
+        }
+
+        /**
+         * @param name    the name of the role
+         * @return the mask with the roles that imply the given role, not including the role itself
+         * @throws IllegalArgumentException if the role is not part of the hierarchy
+         */
+        public long impliedByRoles(String name) {
+            return IMPLIED_BY[bitOf(name)];
+        }
+
+        /**
+         * @param mask    the mask
+         * @return the roles for the bits set on the mask
+         */
+        public Set<Role> toRoles(long mask) {
+            Set<Role> result = new HashSet<>(Long.bitCount(mask) * 2);
+            for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                Role role = roles[Long.numberOfTrailingZeros(remaining)];
+                if (null != role) {
+                    result.add(role);
+                }
+            }
+            return result;
+        }
+
+        private static int bitOf(String name) {
+            Integer bit = BITS.get(name);
+            if (null == bit) {
+                throw new IllegalArgumentException("Unrecognized role: '" + name + "'");
+            }
+            return bit;
+        }
+    }
+}
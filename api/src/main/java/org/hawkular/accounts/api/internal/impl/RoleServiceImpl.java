@@ -17,13 +17,15 @@
 package org.hawkular.accounts.api.internal.impl;
 
 import java.security.InvalidParameterException;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 import javax.annotation.security.PermitAll;
 import javax.ejb.Stateless;
-import javax.enterprise.inject.Instance;
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.spi.InjectionPoint;
 import javax.inject.Inject;
@@ -31,10 +33,10 @@ import javax.inject.Inject;
 import org.hawkular.accounts.api.NamedRole;
 import org.hawkular.accounts.api.RoleService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
 import org.hawkular.accounts.api.model.Role;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -45,90 +47,64 @@ import com.datastax.driver.core.Row;
 public class RoleServiceImpl extends BaseServiceImpl<Role> implements RoleService {
     MsgLogger logger = MsgLogger.LOGGER;
 
-    @Inject @NamedStatement(BoundStatements.ROLES_GET_BY_ID)
-    Instance<BoundStatement> stmtGetByIdInstance;
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int NAME = MAPPING.column("name", DataType.text());
+    private static final int DESCRIPTION = MAPPING.column("description", DataType.text());
 
-    @Inject @NamedStatement(BoundStatements.ROLES_CREATE)
-    Instance<BoundStatement> stmtCreateInstance;
-
-    @Inject @NamedStatement(BoundStatements.ROLES_GET_BY_NAME)
-    Instance<BoundStatement> stmtGetByNameInstance;
+    @Inject
+    RoleLattice roleLattice;
 
     @Override
     public Role getById(UUID id) {
-        return getById(id, stmtGetByIdInstance.get());
+        return getById(id, bind(BoundStatements.ROLES_GET_BY_ID));
+    }
+
+    @Override
+    public List<Role> getByIds(Collection<UUID> ids) {
+        return getByIds(ids, () -> bind(BoundStatements.ROLES_GET_BY_IDS));
+    }
+
+    @Override
+    public CompletionStage<List<Role>> getByIdsAsync(Collection<UUID> ids) {
+        return getByIdsAsync(ids, () -> bind(BoundStatements.ROLES_GET_BY_IDS));
     }
 
     @Override
     public Role create(String name, String description) {
-        BoundStatement stmtCreate = stmtCreateInstance.get();
         if (null != getByName(name)) {
             // we already have a role with this name...
             throw new InvalidParameterException("There's already a role with the given name.");
         }
 
         Role role = new Role(name, description);
-        bindBasicParameters(role, stmtCreate);
-        stmtCreate.setString("name", name);
-        stmtCreate.setString("description", description);
-        session.execute(stmtCreate);
+        BoundStatement stmtCreate = bind(BoundStatements.ROLES_CREATE);
+        BoundStatement stmtCreateByName = bind(BoundStatements.ROLES_CREATE_BY_NAME);
+        for (BoundStatement statement : Arrays.asList(stmtCreate, stmtCreateByName)) {
+            bindBasicParameters(role, statement);
+            statement.setString("name", name);
+            statement.setString("description", description);
+        }
+        session.execute(logged(stmtCreate, stmtCreateByName));
+        roleLattice.refresh();
         logger.roleCreated(name);
         return role;
     }
 
     @Override
     public Role getByName(String name) {
-        return getSingleRecord(stmtGetByNameInstance.get().setString("name", name));
+        return getSingleRecord(bind(BoundStatements.ROLES_GET_BY_NAME).setString("name", name));
     }
 
     @Override
     public Set<Role> getImplicitUserRoles(String name) {
-        Set<Role> implicitRoles = new HashSet<>(7);
-        switch (name) {
-            case "SuperUser":
-                implicitRoles.add(getByName("Auditor"));
-                implicitRoles.add(getByName("Administrator"));
-                implicitRoles.add(getByName("Deployer"));
-            case "Deployer":
-            case "Administrator":
-                implicitRoles.add(getByName("Maintainer"));
-            case "Maintainer":
-                implicitRoles.add(getByName("Operator"));
-            case "Auditor":
-            case "Operator":
-                implicitRoles.add(getByName("Monitor"));
-            case "Monitor":
-                break;
-            default:
-                throw new IllegalArgumentException("Unrecognized role: '" + name + "'");
-
-        }
-        return implicitRoles;
+        RoleLattice.Snapshot lattice = roleLattice.get();
+        return lattice.toRoles(lattice.impliedRoles(name));
     }
 
     @Override
     public Set<Role> getImplicitPermittedRoles(String name) {
-        Set<Role> implicitRoles = new HashSet<>(7);
-        switch (name) {
-            case "Monitor":
-                implicitRoles.add(getByName("Operator"));
-                implicitRoles.add(getByName("Auditor"));
-            case "Operator":
-                implicitRoles.add(getByName("Maintainer"));
-            case "Maintainer":
-                implicitRoles.add(getByName("Administrator"));
-                implicitRoles.add(getByName("Deployer"));
-            case "Deployer":
-            case "Administrator":
-            case "Auditor":
-                implicitRoles.add(getByName("SuperUser"));
-            case "SuperUser":
-                break;
-            default:
-                throw new IllegalArgumentException("Unrecognized role: '" + name + "'");
-
-        }
-        return implicitRoles;
+        RoleLattice.Snapshot lattice = roleLattice.get();
+        return lattice.toRoles(lattice.impliedByRoles(name));
     }
 
     @Override
@@ -162,11 +138,12 @@ public class RoleServiceImpl extends BaseServiceImpl<Role> implements RoleServic
 
     @Override
     Role getFromRow(Row row) {
-        String name = row.getString("name");
-        String description = row.getString("description");
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
+        String name = columns.getString(row, NAME);
+        String description = columns.getString(row, DESCRIPTION);
 
         Role.Builder builder = new Role.Builder();
-        super.mapBaseFields(row, builder);
+        super.mapBaseFields(row, columns, builder);
         return builder.description(description).name(name).build();
     }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+
+/**
+ * Describes the columns that a service reads from its rows, so that the rows can be read by position instead of by
+ * name. The positions are resolved from the result metadata when the first row of a result arrives, and are kept for
+ * each metadata instance, which, for prepared statements, is the one from the prepared statement. As the results of
+ * other statements come with new metadata each time, only a limited number of them is kept. The base columns are
+ * always part of the mapping, at the positions {@link #ID}, {@link #CREATED_AT} and {@link #UPDATED_AT}.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+final class RowMapping {
+    static final int ID = 0;
+    static final int CREATED_AT = 1;
+    static final int UPDATED_AT = 2;
+
+    private static final TypeCodec<UUID> UUID_CODEC = TypeCodec.uuid();
+    private static final TypeCodec<String> TEXT_CODEC = TypeCodec.varchar();
+    private static final int MAX_METADATA = 64;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<DataType> types = new ArrayList<>();
+    private final ConcurrentMap<ColumnDefinitions, Columns> resolved = new ConcurrentHashMap<>();
+
+    RowMapping() {
+        column("id", DataType.uuid());
+        column("createdAt", DataType.timestamp());
+        column("updatedAt", DataType.timestamp());
+    }
+
+    /**
+     * Adds a column to the mapping. This is meant to be called only while the mapping is built, before any row is
+     * read.
+     * @param name    the name of the column
+     * @param type    the expected type of the column
+     * @return the position of the column on this mapping, to be used when reading the rows
+     */
+    int column(String name, DataType type) {
+        names.add(name);
+        types.add(type);
+        return names.size() - 1;
+    }
+
+    /**
+     * Retrieves the positions of the mapped columns on the given row.
+     * @param row                the row
+     * @param protocolVersion    the protocol version negotiated by the session, used to decode the values
+     * @return the positions of the columns
+     * @throws IllegalArgumentException if one of the columns is not part of the row
+     * @throws InvalidTypeException if one of the columns doesn't have the expected type
+     */
+    Columns of(Row row, ProtocolVersion protocolVersion) {
+        ColumnDefinitions metadata = row.getColumnDefinitions();
+        Columns columns = resolved.get(metadata);
+        if (null == columns || columns.protocolVersion != protocolVersion) {
+            columns = new Columns(resolve(metadata), protocolVersion);
+            if (resolved.size() >= MAX_METADATA) {
+                resolved.clear();
+            }
+            resolved.put(metadata, columns);
+        }
+        return columns;
+    }
+
+    private int[] resolve(ColumnDefinitions metadata) {
+        int[] indexes = new int[names.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            String name = names.get(i);
+            indexes[i] = metadata.getIndexOf(name);
+            DataType actual = metadata.getType(indexes[i]);
+            if (!types.get(i).equals(actual)) {
+                throw new InvalidTypeException("Column " + name + " is of type " + actual + ", but "
+                        + types.get(i) + " was expected.");
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * The positions of the mapped columns for one result metadata. The values are decoded directly by the codec for
+     * the column's type, which has been checked when the positions were resolved.
+     */
+    static final class Columns {
+        private final int[] indexes;
+        private final ProtocolVersion protocolVersion;
+
+        private Columns(int[] indexes, ProtocolVersion protocolVersion) {
+            this.indexes = indexes;
+            this.protocolVersion = protocolVersion;
+        }
+
+        /**
+         * @param column    the position of the column on the mapping
+         * @return the index of the column on the row, for reading it with the driver's own getters
+         */
+        int indexOf(int column) {
+            return indexes[column];
+        }
+
+        boolean isNull(Row row, int column) {
+            return row.isNull(indexes[column]);
+        }
+
+        UUID getUUID(Row row, int column) {
+            return UUID_CODEC.deserialize(row.getBytesUnsafe(indexes[column]), protocolVersion);
+        }
+
+        String getString(Row row, int column) {
+            return TEXT_CODEC.deserialize(row.getBytesUnsafe(indexes[column]), protocolVersion);
+        }
+
+        /**
+         * Reads a timestamp column, which holds the milliseconds since the epoch, without converting it. The column
+         * must not be null, see {@link #isNull(Row, int)}.
+         */
+        long getEpochMilli(Row row, int column) {
+            ByteBuffer bytes = row.getBytesUnsafe(indexes[column]);
+            return bytes.getLong(bytes.position());
+        }
+
+        /**
+         * Reads a timestamp column, which holds the milliseconds since the epoch, straight into a UTC date time.
+         */
+        ZonedDateTime getZonedDateTime(Row row, int column) {
+            ByteBuffer bytes = row.getBytesUnsafe(indexes[column]);
+            if (null == bytes || bytes.remaining() == 0) {
+                return null;
+            }
+            return ZonedDateTime.ofInstant(Instant.ofEpochMilli(bytes.getLong(bytes.position())), ZoneOffset.UTC);
+        }
+    }
+}
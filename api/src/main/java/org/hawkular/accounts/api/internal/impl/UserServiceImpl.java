@@ -17,25 +17,27 @@
 package org.hawkular.accounts.api.internal.impl;
 
 import java.security.Principal;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 import javax.annotation.security.PermitAll;
 import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
-import javax.enterprise.inject.Instance;
 import javax.enterprise.inject.Produces;
-import javax.inject.Inject;
 
 import org.hawkular.accounts.api.CurrentUser;
+import org.hawkular.accounts.api.Page;
 import org.hawkular.accounts.api.UserService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
 import org.hawkular.accounts.api.model.HawkularUser;
 import org.keycloak.KeycloakPrincipal;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -49,21 +51,13 @@ import com.datastax.driver.core.Row;
 public class UserServiceImpl extends BaseServiceImpl<HawkularUser> implements UserService {
     MsgLogger logger = MsgLogger.LOGGER;
 
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int NAME = MAPPING.column("name", DataType.text());
+    private static final int EMAIL = MAPPING.column("email", DataType.text());
+
     @SuppressWarnings("EjbEnvironmentInspection") @Resource
     SessionContext sessionContext;
 
-    @Inject @NamedStatement(BoundStatements.USER_GET_BY_ID)
-    Instance<BoundStatement> stmtGetByIdInstance;
-
-    @Inject @NamedStatement(BoundStatements.USER_CREATE)
-    Instance<BoundStatement> stmtCreateInstance;
-
-    @Inject @NamedStatement(BoundStatements.USER_UPDATE)
-    Instance<BoundStatement> stmtUpdateInstance;
-
-    @Inject @NamedStatement(BoundStatements.USER_ALL)
-    Instance<BoundStatement> stmtAllUsersInstance;
-
     @Produces @CurrentUser
     @Override
     public HawkularUser getCurrent() {
@@ -105,7 +99,17 @@ public class UserServiceImpl extends BaseServiceImpl<HawkularUser> implements Us
 
     @Override
     public HawkularUser getById(UUID id) {
-        return getById(id, stmtGetByIdInstance.get());
+        return getById(id, bind(BoundStatements.USER_GET_BY_ID));
+    }
+
+    @Override
+    public List<HawkularUser> getByIds(Collection<UUID> ids) {
+        return getByIds(ids, () -> bind(BoundStatements.USER_GET_BY_IDS));
+    }
+
+    @Override
+    public CompletionStage<HawkularUser> getByIdAsync(UUID id) {
+        return getByIdAsync(id, bind(BoundStatements.USER_GET_BY_ID));
     }
 
     @Override
@@ -131,7 +135,7 @@ public class UserServiceImpl extends BaseServiceImpl<HawkularUser> implements Us
     }
 
     private HawkularUser create(UUID id, String name) {
-        BoundStatement stmtCreate = stmtCreateInstance.get();
+        BoundStatement stmtCreate = bind(BoundStatements.USER_CREATE);
         HawkularUser user = new HawkularUser(id, name);
         bindBasicParameters(user, stmtCreate);
         stmtCreate.setString("name", user.getName());
@@ -143,7 +147,7 @@ public class UserServiceImpl extends BaseServiceImpl<HawkularUser> implements Us
     private HawkularUser update(HawkularUser user) {
         return update(
                 user,
-                stmtUpdateInstance.get()
+                bind(BoundStatements.USER_UPDATE)
                         .setString("name", user.getName())
                         .setString("email", user.getEmail())
         );
@@ -155,13 +159,14 @@ public class UserServiceImpl extends BaseServiceImpl<HawkularUser> implements Us
 
     List<HawkularUser> getAll() {
         logger.listingAllUsers();
-        return getList(stmtAllUsersInstance.get());
+        return getStream(bind(BoundStatements.USER_ALL), Page.DEFAULT_LIMIT).collect(Collectors.toList());
     }
 
     @Override
     HawkularUser getFromRow(Row row) {
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
         HawkularUser.Builder builder = new HawkularUser.Builder();
-        mapBaseFields(row, builder);
-        return builder.name(row.getString("name")).email(row.getString("email")).build();
+        mapBaseFields(row, columns, builder);
+        return builder.name(columns.getString(row, NAME)).email(columns.getString(row, EMAIL)).build();
     }
 }
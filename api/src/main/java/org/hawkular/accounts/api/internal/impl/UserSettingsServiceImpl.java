@@ -31,11 +31,11 @@ import org.hawkular.accounts.api.NamedSetting;
 import org.hawkular.accounts.api.UserService;
 import org.hawkular.accounts.api.UserSettingsService;
 import org.hawkular.accounts.api.internal.BoundStatements;
-import org.hawkular.accounts.api.internal.NamedStatement;
 import org.hawkular.accounts.api.model.HawkularUser;
 import org.hawkular.accounts.api.model.UserSettings;
 
 import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Row;
 
 /**
@@ -46,24 +46,16 @@ import com.datastax.driver.core.Row;
 public class UserSettingsServiceImpl extends BaseServiceImpl<UserSettings> implements UserSettingsService {
     MsgLogger logger = MsgLogger.LOGGER;
 
+    private static final RowMapping MAPPING = new RowMapping();
+    private static final int PERSONA = MAPPING.column("persona", DataType.uuid());
+    private static final int PROPERTIES = MAPPING.column("properties", DataType.map(DataType.text(), DataType.text()));
+
     @Inject @CurrentUser
     Instance<HawkularUser> userInstance;
 
     @Inject
     UserService userService;
 
-    @Inject @NamedStatement(BoundStatements.SETTINGS_GET_BY_ID)
-    Instance<BoundStatement> stmtGetByIdInstance;
-
-    @Inject @NamedStatement(BoundStatements.SETTINGS_GET_BY_USER)
-    Instance<BoundStatement> stmtGetByUserInstance;
-
-    @Inject @NamedStatement(BoundStatements.SETTINGS_UPDATE)
-    Instance<BoundStatement> stmtUpdateInstance;
-
-    @Inject @NamedStatement(BoundStatements.SETTINGS_CREATE)
-    Instance<BoundStatement> stmtCreateInstance;
-
     @Override
     public UserSettings get(String id) {
         return getById(UUID.fromString(id));
@@ -71,7 +63,7 @@ public class UserSettingsServiceImpl extends BaseServiceImpl<UserSettings> imple
 
     @Override
     public UserSettings getById(UUID id) {
-        return getById(id, stmtGetByIdInstance.get());
+        return getById(id, bind(BoundStatements.SETTINGS_GET_BY_ID));
     }
 
     @Override
@@ -81,7 +73,7 @@ public class UserSettingsServiceImpl extends BaseServiceImpl<UserSettings> imple
 
     @Override
     public UserSettings getByUser(HawkularUser user) {
-        return getSingleRecord(stmtGetByUserInstance.get().setUUID("persona", user.getIdAsUUID()));
+        return getSingleRecord(bind(BoundStatements.SETTINGS_GET_BY_USER).setUUID("persona", user.getIdAsUUID()));
     }
 
     @Override
@@ -91,7 +83,7 @@ public class UserSettingsServiceImpl extends BaseServiceImpl<UserSettings> imple
 
     @Override
     public UserSettings getOrCreateByUser(HawkularUser user) {
-        BoundStatement stmtCreate = stmtCreateInstance.get();
+        BoundStatement stmtCreate = bind(BoundStatements.SETTINGS_CREATE);
         UserSettings settings = getByUser(user);
         if (null == settings) {
             logger.creatingSettings(user.getId());
@@ -132,7 +124,7 @@ public class UserSettingsServiceImpl extends BaseServiceImpl<UserSettings> imple
     public UserSettings store(HawkularUser user, String key, String value) {
         UserSettings settings = getOrCreateByUser(user);
         settings.put(key, value);
-        update(settings, stmtUpdateInstance.get().setMap("properties", settings.getProperties()));
+        update(settings, bind(BoundStatements.SETTINGS_UPDATE).setMap("properties", settings.getProperties()));
         logger.storedSetting(user.getId(), key, value);
         return settings;
     }
@@ -149,7 +141,7 @@ public class UserSettingsServiceImpl extends BaseServiceImpl<UserSettings> imple
             return null;
         }
         settings.remove(key);
-        update(settings, stmtUpdateInstance.get().setMap("properties", settings.getProperties()));
+        update(settings, bind(BoundStatements.SETTINGS_UPDATE).setMap("properties", settings.getProperties()));
         logger.removedSetting(user.getId(), key);
         return settings;
     }
@@ -169,11 +161,12 @@ public class UserSettingsServiceImpl extends BaseServiceImpl<UserSettings> imple
 
     @Override
     UserSettings getFromRow(Row row) {
-        HawkularUser user = userService.getById(row.getUUID("persona"));
-        Map<String, String> properties = row.getMap("properties", String.class, String.class);
+        RowMapping.Columns columns = MAPPING.of(row, getProtocolVersion());
+        HawkularUser user = userService.getById(columns.getUUID(row, PERSONA));
+        Map<String, String> properties = row.getMap(columns.indexOf(PROPERTIES), String.class, String.class);
 
         UserSettings.Builder builder = new UserSettings.Builder();
-        mapBaseFields(row, builder);
+        mapBaseFields(row, columns, builder);
         return builder.user(user).properties(properties).build();
     }
 }
@@ -17,6 +17,8 @@
 package org.hawkular.accounts.api.model;
 
 import java.io.Serializable;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Objects;
 import java.util.UUID;
@@ -27,6 +29,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 /**
  * Base entity, providing some common properties that all entities should have.
  *
+ * The timestamps are kept internally as milliseconds since the epoch, which is also the precision Cassandra stores
+ * them with, and are converted into UTC {@link ZonedDateTime} only when requested. New entities get a random ID and
+ * the current time; entities built from a stored record take those values from the builder instead.
+ *
  * @author Juraci Paixão Kröhling
  */
 public class BaseEntity implements Serializable {
@@ -35,11 +41,17 @@ public class BaseEntity implements Serializable {
     private static final Pattern UUID_PATTERN =
             Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}");
 
-    private UUID id = UUID.randomUUID();
-    private ZonedDateTime createdAt = ZonedDateTime.now();
-    private ZonedDateTime updatedAt = ZonedDateTime.now();
+    /**
+     * Marker for a timestamp that wasn't set, meaning that the current time should be used.
+     */
+    static final long UNSET = Long.MIN_VALUE;
+
+    private UUID id;
+    private long createdAt;
+    private long updatedAt;
 
     public BaseEntity() {
+        this((UUID) null);
     }
 
     /**
@@ -47,34 +59,45 @@ public class BaseEntity implements Serializable {
      * @param id    the ID as String to be parsed as UUID.
      */
     public BaseEntity(String id) {
-        if (null != id) {
-            if (!UUID_PATTERN.matcher(id).matches()) {
-                // not an UUID, so, let's convert it to UUID
-                this.id = UUID.nameUUIDFromBytes(id.getBytes());
-            } else {
-                this.id = UUID.fromString(id);
-            }
-        }
+        this(parse(id));
     }
 
     public BaseEntity(UUID id) {
-        if (null != id) {
-            this.id = id;
-        }
+        this(id, UNSET, UNSET);
     }
 
     public BaseEntity(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt) {
-        if (null != id) {
-            this.id = id;
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt));
+    }
+
+    BaseEntity(UUID id, long createdAt, long updatedAt) {
+        long now = (UNSET == createdAt || UNSET == updatedAt) ? System.currentTimeMillis() : UNSET;
+        this.id = null == id ? UUID.randomUUID() : id;
+        this.createdAt = UNSET == createdAt ? now : createdAt;
+        this.updatedAt = UNSET == updatedAt ? now : updatedAt;
+    }
+
+    private static UUID parse(String id) {
+        if (null == id) {
+            return null;
         }
 
-        if (null != createdAt) {
-            this.createdAt = createdAt;
+        if (!UUID_PATTERN.matcher(id).matches()) {
+            // not an UUID, so, let's convert it to UUID
+            return UUID.nameUUIDFromBytes(id.getBytes());
         }
+        return UUID.fromString(id);
+    }
 
-        if (null != updatedAt) {
-            this.updatedAt = updatedAt;
+    static long toEpochMilli(ZonedDateTime dateTime) {
+        if (null == dateTime) {
+            return UNSET;
         }
+        return dateTime.toInstant().toEpochMilli();
+    }
+
+    private static ZonedDateTime toZonedDateTime(long epochMilli) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
     }
 
     @JsonIgnore
@@ -91,20 +114,36 @@ public class BaseEntity implements Serializable {
     }
 
     public ZonedDateTime getCreatedAt() {
-        return createdAt;
+        return toZonedDateTime(createdAt);
     }
 
     public ZonedDateTime getUpdatedAt() {
+        return toZonedDateTime(updatedAt);
+    }
+
+    /**
+     * @return the creation time, in milliseconds since the epoch
+     */
+    @JsonIgnore
+    public long getCreatedAtMillis() {
+        return createdAt;
+    }
+
+    /**
+     * @return the time of the last update, in milliseconds since the epoch
+     */
+    @JsonIgnore
+    public long getUpdatedAtMillis() {
         return updatedAt;
     }
 
     public void setUpdatedAt() {
-        this.updatedAt = ZonedDateTime.now();
+        this.updatedAt = System.currentTimeMillis();
     }
 
     @Override
     public String toString() {
-        return "BaseEntity{" + "id=" + id + ", createdAt=" + createdAt + ", updatedAt=" + updatedAt + '}';
+        return "BaseEntity{" + "id=" + id + ", createdAt=" + getCreatedAt() + ", updatedAt=" + getUpdatedAt() + '}';
     }
 
     @Override
@@ -130,9 +169,10 @@ public class BaseEntity implements Serializable {
      * Abstract builder class, providing base methods for the base properties.
      */
     public abstract static class Builder {
-        UUID id = UUID.randomUUID();
-        ZonedDateTime createdAt = ZonedDateTime.now();
-        ZonedDateTime updatedAt = ZonedDateTime.now();
+        // unset values are filled in by the entity, so that building an existing record costs no random UUID/clock
+        UUID id;
+        long createdAt = UNSET;
+        long updatedAt = UNSET;
 
         public Builder() {
         }
@@ -143,12 +183,22 @@ public class BaseEntity implements Serializable {
         }
 
         public Builder createdAt(ZonedDateTime createdAt) {
-            this.createdAt = createdAt;
+            this.createdAt = toEpochMilli(createdAt);
+            return this;
+        }
+
+        public Builder createdAt(long epochMilli) {
+            this.createdAt = epochMilli;
             return this;
         }
 
         public Builder updatedAt(ZonedDateTime updatedAt) {
-            this.updatedAt = updatedAt;
+            this.updatedAt = toEpochMilli(updatedAt);
+            return this;
+        }
+
+        public Builder updatedAt(long epochMilli) {
+            this.updatedAt = epochMilli;
             return this;
         }
     }
@@ -50,12 +50,15 @@ public class HawkularUser extends Persona {
 
     public HawkularUser(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
                         String name) {
-        super(id, createdAt, updatedAt);
-        this.name = name;
+        this(id, createdAt, updatedAt, name, null);
     }
 
     public HawkularUser(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
                         String name, String email) {
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt), name, email);
+    }
+
+    HawkularUser(UUID id, long createdAt, long updatedAt, String name, String email) {
         super(id, createdAt, updatedAt);
         this.name = name;
         this.email = email;
@@ -51,6 +51,14 @@ public class Invitation extends BaseEntity {
                       ZonedDateTime acceptedAt, ZonedDateTime dispatchedAt,
                       HawkularUser invitedBy, HawkularUser acceptedBy,
                       Organization organization, Role role) {
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt), email, acceptedAt, dispatchedAt, invitedBy,
+                acceptedBy, organization, role);
+    }
+
+    Invitation(UUID id, long createdAt, long updatedAt, String email,
+               ZonedDateTime acceptedAt, ZonedDateTime dispatchedAt,
+               HawkularUser invitedBy, HawkularUser acceptedBy,
+               Organization organization, Role role) {
         super(id, createdAt, updatedAt);
         this.email = email;
         this.acceptedAt = acceptedAt;
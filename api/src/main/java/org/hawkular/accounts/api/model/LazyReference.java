@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.model;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Reference from one entity to another. The reference always knows the ID of the referenced entity, but the entity
+ * itself might be resolved only when it's first requested. This allows the services to map a record without
+ * loading the whole graph of entities behind it.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+final class LazyReference<T extends BaseEntity> implements Serializable {
+    private final UUID id;
+    private T entity;
+
+    // not serializable: we resolve the entity before the reference is serialized
+    private transient Function<UUID, T> loader;
+
+    private LazyReference(UUID id, T entity, Function<UUID, T> loader) {
+        this.id = id;
+        this.entity = entity;
+        this.loader = loader;
+    }
+
+    /**
+     * Builds a reference to an entity that is already resolved.
+     * @param entity    the entity to reference. Might be null.
+     * @return the reference, or null if the entity is null
+     */
+    static <T extends BaseEntity> LazyReference<T> of(T entity) {
+        if (null == entity) {
+            return null;
+        }
+        return new LazyReference<>(entity.getIdAsUUID(), entity, null);
+    }
+
+    /**
+     * Builds a reference to an entity that is resolved by the given loader on the first access.
+     * @param id        the ID of the referenced entity. Might be null.
+     * @param loader    the function that resolves the entity based on its ID
+     * @return the reference, or null if the ID is null
+     */
+    static <T extends BaseEntity> LazyReference<T> of(UUID id, Function<UUID, T> loader) {
+        if (null == id) {
+            return null;
+        }
+        return new LazyReference<>(id, null, loader);
+    }
+
+    /**
+     * Null-safe retrieval of the referenced entity.
+     * @param reference    the reference, possibly null
+     * @return the referenced entity, or null if the reference is null
+     */
+    static <T extends BaseEntity> T get(LazyReference<T> reference) {
+        if (null == reference) {
+            return null;
+        }
+        return reference.get();
+    }
+
+    /**
+     * Null-safe retrieval of the referenced entity's ID.
+     * @param reference    the reference, possibly null
+     * @return the ID of the referenced entity, or null if the reference is null
+     */
+    static UUID getId(LazyReference<?> reference) {
+        if (null == reference) {
+            return null;
+        }
+        return reference.id;
+    }
+
+    T get() {
+        if (null == entity && null != loader) {
+            entity = loader.apply(id);
+            loader = null;
+        }
+        return entity;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        get();
+        out.defaultWriteObject();
+    }
+}
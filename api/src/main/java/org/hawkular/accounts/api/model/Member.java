@@ -36,4 +36,8 @@ public class Member extends BaseEntity {
     public Member(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt) {
         super(id, createdAt, updatedAt);
     }
+
+    Member(UUID id, long createdAt, long updatedAt) {
+        super(id, createdAt, updatedAt);
+    }
 }
@@ -38,6 +38,10 @@ public class Operation extends BaseEntity {
 
     public Operation(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
                      String name) {
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt), name);
+    }
+
+    Operation(UUID id, long createdAt, long updatedAt, String name) {
         super(id, createdAt, updatedAt);
         this.name = name;
     }
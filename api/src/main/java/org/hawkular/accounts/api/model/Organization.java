@@ -18,6 +18,9 @@ package org.hawkular.accounts.api.model;
 
 import java.time.ZonedDateTime;
 import java.util.UUID;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Represents an non-user model that can own resources. It has itself an owner and may contain zero or more members.
@@ -27,19 +30,19 @@ import java.util.UUID;
  * @author Juraci Paixão Kröhling
  */
 public class Organization extends Persona {
-    private Persona owner;
+    private LazyReference<Persona> owner;
     private String name;
     private String description;
     private Visibility visibility;
 
     public Organization(String id, Persona owner) {
         super(id);
-        this.owner = owner;
+        this.owner = LazyReference.of(owner);
     }
 
     public Organization(Persona owner) {
         super(UUID.randomUUID().toString());
-        this.owner = owner;
+        this.owner = LazyReference.of(owner);
     }
 
     public Organization(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
@@ -49,6 +52,12 @@ public class Organization extends Persona {
 
     public Organization(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
                         Persona owner, String name, String description, Visibility visibility) {
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt),
+                LazyReference.of(owner), name, description, visibility);
+    }
+
+    Organization(UUID id, long createdAt, long updatedAt,
+                 LazyReference<Persona> owner, String name, String description, Visibility visibility) {
         super(id, createdAt, updatedAt);
         this.owner = owner;
         this.name = name;
@@ -57,11 +66,16 @@ public class Organization extends Persona {
     }
 
     public Persona getOwner() {
-        return owner;
+        return LazyReference.get(owner);
+    }
+
+    @JsonIgnore
+    public UUID getOwnerId() {
+        return LazyReference.getId(owner);
     }
 
     public void setOwner(Persona owner) {
-        this.owner = owner;
+        this.owner = LazyReference.of(owner);
     }
 
     @Override
@@ -90,13 +104,18 @@ public class Organization extends Persona {
     }
 
     public static class Builder extends BaseEntity.Builder {
-        private Persona owner;
+        private LazyReference<Persona> owner;
         private String name;
         private String description;
         private Visibility visibility;
 
         public Builder owner(Persona owner) {
-            this.owner = owner;
+            this.owner = LazyReference.of(owner);
+            return this;
+        }
+
+        public Builder owner(UUID id, Function<UUID, Persona> loader) {
+            this.owner = LazyReference.of(id, loader);
             return this;
         }
 
@@ -37,6 +37,11 @@ public class OrganizationJoinRequest extends BaseEntity {
     public OrganizationJoinRequest(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
                                    Organization organization, Persona persona,
                                    JoinRequestStatus status) {
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt), organization, persona, status);
+    }
+
+    OrganizationJoinRequest(UUID id, long createdAt, long updatedAt,
+                            Organization organization, Persona persona, JoinRequestStatus status) {
         super(id, createdAt, updatedAt);
         this.organization = organization;
         this.persona = persona;
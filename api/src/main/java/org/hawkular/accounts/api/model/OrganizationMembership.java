@@ -18,31 +18,41 @@ package org.hawkular.accounts.api.model;
 
 import java.time.ZonedDateTime;
 import java.util.UUID;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * @author Juraci Paixão Kröhling
  */
 public class OrganizationMembership extends BaseEntity {
 
-    private Organization organization;
-    private Member member;
-    private Role role;
+    private LazyReference<Organization> organization;
+    private LazyReference<Member> member;
+    private LazyReference<Role> role;
 
     public OrganizationMembership(Organization organization, Member member, Role role) {
-        this.organization = organization;
-        this.member = member;
-        this.role = role;
+        this.organization = LazyReference.of(organization);
+        this.member = LazyReference.of(member);
+        this.role = LazyReference.of(role);
     }
 
     public OrganizationMembership(String id, Organization organization, Member member, Role role) {
         super(id);
-        this.organization = organization;
-        this.member = member;
-        this.role = role;
+        this.organization = LazyReference.of(organization);
+        this.member = LazyReference.of(member);
+        this.role = LazyReference.of(role);
     }
 
     public OrganizationMembership(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
                                   Organization organization, Member member, Role role) {
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt),
+                LazyReference.of(organization), LazyReference.of(member), LazyReference.of(role));
+    }
+
+    OrganizationMembership(UUID id, long createdAt, long updatedAt,
+                           LazyReference<Organization> organization, LazyReference<Member> member,
+                           LazyReference<Role> role) {
         super(id, createdAt, updatedAt);
         this.organization = organization;
         this.member = member;
@@ -50,38 +60,68 @@ public class OrganizationMembership extends BaseEntity {
     }
 
     public Organization getOrganization() {
-        return organization;
+        return LazyReference.get(organization);
+    }
+
+    @JsonIgnore
+    public UUID getOrganizationId() {
+        return LazyReference.getId(organization);
     }
 
     public Member getMember() {
-        return member;
+        return LazyReference.get(member);
+    }
+
+    @JsonIgnore
+    public UUID getMemberId() {
+        return LazyReference.getId(member);
     }
 
     public Role getRole() {
-        return role;
+        return LazyReference.get(role);
+    }
+
+    @JsonIgnore
+    public UUID getRoleId() {
+        return LazyReference.getId(role);
     }
 
     public void setRole(Role role) {
-        this.role = role;
+        this.role = LazyReference.of(role);
     }
 
     public static class Builder extends BaseEntity.Builder {
-        private Organization organization;
-        private Member member;
-        private Role role;
+        private LazyReference<Organization> organization;
+        private LazyReference<Member> member;
+        private LazyReference<Role> role;
 
         public Builder organization(Organization organization) {
-            this.organization = organization;
+            this.organization = LazyReference.of(organization);
+            return this;
+        }
+
+        public Builder organization(UUID id, Function<UUID, Organization> loader) {
+            this.organization = LazyReference.of(id, loader);
             return this;
         }
 
         public Builder member(Member member) {
-            this.member = member;
+            this.member = LazyReference.of(member);
+            return this;
+        }
+
+        public Builder member(UUID id, Function<UUID, Member> loader) {
+            this.member = LazyReference.of(id, loader);
             return this;
         }
 
         public Builder role(Role role) {
-            this.role = role;
+            this.role = LazyReference.of(role);
+            return this;
+        }
+
+        public Builder role(UUID id, Function<UUID, Role> loader) {
+            this.role = LazyReference.of(id, loader);
             return this;
         }
 
@@ -18,6 +18,9 @@ package org.hawkular.accounts.api.model;
 
 import java.time.ZonedDateTime;
 import java.util.UUID;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Represents the permissions for a given resource. For instance, a resource "node1" might allow the operation
@@ -26,55 +29,81 @@ import java.util.UUID;
  * @author Juraci Paixão Kröhling
  */
 public class Permission extends BaseEntity {
-    private Operation operation;
-    private Role role;
+    private LazyReference<Operation> operation;
+    private LazyReference<Role> role;
 
     public Permission(Operation operation, Role role) {
-        this.operation = operation;
-        this.role = role;
+        this.operation = LazyReference.of(operation);
+        this.role = LazyReference.of(role);
     }
 
     public Permission(String id, Operation operation, Role role) {
         super(id);
-        this.operation = operation;
-        this.role = role;
+        this.operation = LazyReference.of(operation);
+        this.role = LazyReference.of(role);
     }
 
     public Permission(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
                       Operation operation, Role role) {
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt),
+                LazyReference.of(operation), LazyReference.of(role));
+    }
+
+    Permission(UUID id, long createdAt, long updatedAt,
+               LazyReference<Operation> operation, LazyReference<Role> role) {
         super(id, createdAt, updatedAt);
         this.operation = operation;
         this.role = role;
     }
 
     public Operation getOperation() {
-        return operation;
+        return LazyReference.get(operation);
+    }
+
+    @JsonIgnore
+    public UUID getOperationId() {
+        return LazyReference.getId(operation);
     }
 
     public Role getRole() {
-        return role;
+        return LazyReference.get(role);
+    }
+
+    @JsonIgnore
+    public UUID getRoleId() {
+        return LazyReference.getId(role);
     }
 
     @Override
     public String toString() {
         return "Permission{" +
-                "operation=" + operation +
-                ", role=" + role +
+                "operation=" + getOperation() +
+                ", role=" + getRole() +
                 ", base='" + super.toString() + '\'' +
                 '}';
     }
 
     public static class Builder extends BaseEntity.Builder {
-        private Operation operation;
-        private Role role;
+        private LazyReference<Operation> operation;
+        private LazyReference<Role> role;
 
         public Builder operation(Operation operation) {
-            this.operation = operation;
+            this.operation = LazyReference.of(operation);
+            return this;
+        }
+
+        public Builder operation(UUID id, Function<UUID, Operation> loader) {
+            this.operation = LazyReference.of(id, loader);
             return this;
         }
 
         public Builder role(Role role) {
-            this.role = role;
+            this.role = LazyReference.of(role);
+            return this;
+        }
+
+        public Builder role(UUID id, Function<UUID, Role> loader) {
+            this.role = LazyReference.of(id, loader);
             return this;
         }
 
@@ -39,4 +39,8 @@ public abstract class Persona extends Member {
     public Persona(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt) {
         super(id, createdAt, updatedAt);
     }
+
+    Persona(UUID id, long createdAt, long updatedAt) {
+        super(id, createdAt, updatedAt);
+    }
 }
@@ -18,6 +18,9 @@ package org.hawkular.accounts.api.model;
 
 import java.time.ZonedDateTime;
 import java.util.UUID;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Stores the role for a given user on a specific Resource. For instance, user jdoe is "SuperUser" on resource "node1"
@@ -29,25 +32,31 @@ import java.util.UUID;
  * @author Juraci Paixão Kröhling
  */
 public class PersonaResourceRole extends BaseEntity {
-    private Persona persona;
-    private Role role;
-    private Resource resource;
+    private LazyReference<Persona> persona;
+    private LazyReference<Role> role;
+    private LazyReference<Resource> resource;
 
     public PersonaResourceRole(Persona persona, Role role, Resource resource) {
-        this.persona = persona;
-        this.role = role;
-        this.resource = resource;
+        this.persona = LazyReference.of(persona);
+        this.role = LazyReference.of(role);
+        this.resource = LazyReference.of(resource);
     }
 
     public PersonaResourceRole(String id, Persona persona, Role role, Resource resource) {
         super(id);
-        this.persona = persona;
-        this.role = role;
-        this.resource = resource;
+        this.persona = LazyReference.of(persona);
+        this.role = LazyReference.of(role);
+        this.resource = LazyReference.of(resource);
     }
 
     public PersonaResourceRole(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
                                Persona persona, Role role, Resource resource) {
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt),
+                LazyReference.of(persona), LazyReference.of(role), LazyReference.of(resource));
+    }
+
+    PersonaResourceRole(UUID id, long createdAt, long updatedAt,
+                        LazyReference<Persona> persona, LazyReference<Role> role, LazyReference<Resource> resource) {
         super(id, createdAt, updatedAt);
         this.persona = persona;
         this.role = role;
@@ -55,34 +64,64 @@ public class PersonaResourceRole extends BaseEntity {
     }
 
     public Persona getPersona() {
-        return persona;
+        return LazyReference.get(persona);
+    }
+
+    @JsonIgnore
+    public UUID getPersonaId() {
+        return LazyReference.getId(persona);
     }
 
     public Role getRole() {
-        return role;
+        return LazyReference.get(role);
+    }
+
+    @JsonIgnore
+    public UUID getRoleId() {
+        return LazyReference.getId(role);
     }
 
     public Resource getResource() {
-        return resource;
+        return LazyReference.get(resource);
+    }
+
+    @JsonIgnore
+    public UUID getResourceId() {
+        return LazyReference.getId(resource);
     }
 
     public static class Builder extends BaseEntity.Builder {
-        private Persona persona;
-        private Role role;
-        private Resource resource;
+        private LazyReference<Persona> persona;
+        private LazyReference<Role> role;
+        private LazyReference<Resource> resource;
 
         public Builder persona(Persona persona) {
-            this.persona = persona;
+            this.persona = LazyReference.of(persona);
+            return this;
+        }
+
+        public Builder persona(UUID id, Function<UUID, Persona> loader) {
+            this.persona = LazyReference.of(id, loader);
             return this;
         }
 
         public Builder role(Role role) {
-            this.role = role;
+            this.role = LazyReference.of(role);
+            return this;
+        }
+
+        public Builder role(UUID id, Function<UUID, Role> loader) {
+            this.role = LazyReference.of(id, loader);
             return this;
         }
 
         public Builder resource(Resource resource) {
-            this.resource = resource;
+            this.resource = LazyReference.of(resource);
+            return this;
+        }
+
+        public Builder resource(UUID id, Function<UUID, Resource> loader) {
+            this.resource = LazyReference.of(id, loader);
             return this;
         }
 
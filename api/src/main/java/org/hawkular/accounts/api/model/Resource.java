@@ -18,6 +18,9 @@ package org.hawkular.accounts.api.model;
 
 import java.time.ZonedDateTime;
 import java.util.UUID;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Represents a resource that is meant to be protected. Each module is free to define their own rules for creating
@@ -34,12 +37,12 @@ import java.util.UUID;
  * @author Juraci Paixão Kröhling
  */
 public class Resource extends BaseEntity {
-    private Persona persona;
+    private LazyReference<Persona> persona;
 
     /**
      * Represents the parent resource for this resource.
      */
-    private Resource parent = null;
+    private LazyReference<Resource> parent = null;
 
     /**
      * Creates a new resource with the given owner.
@@ -69,8 +72,8 @@ public class Resource extends BaseEntity {
         if (null == persona && null == parent) {
             throw new IllegalStateException("A resource should either have a valid parent or an owner.");
         }
-        this.persona = persona;
-        this.parent = parent;
+        this.persona = LazyReference.of(persona);
+        this.parent = LazyReference.of(parent);
     }
 
     /**
@@ -107,23 +110,44 @@ public class Resource extends BaseEntity {
         if (null == persona && null == parent) {
             throw new IllegalStateException("A resource should either have a valid parent or an owner.");
         }
-        this.persona = persona;
-        this.parent = parent;
+        this.persona = LazyReference.of(persona);
+        this.parent = LazyReference.of(parent);
     }
 
     public Resource(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
                     Persona persona, Resource parent) {
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt), LazyReference.of(persona), LazyReference.of(parent));
+    }
+
+    Resource(UUID id, long createdAt, long updatedAt,
+             LazyReference<Persona> persona, LazyReference<Resource> parent) {
         super(id, createdAt, updatedAt);
         this.persona = persona;
         this.parent = parent;
     }
 
     public Persona getPersona() {
-        return persona;
+        return LazyReference.get(persona);
+    }
+
+    /**
+     * @return the ID of the owner of this resource, without resolving the owner itself. Might be null.
+     */
+    @JsonIgnore
+    public UUID getPersonaId() {
+        return LazyReference.getId(persona);
     }
 
     public Resource getParent() {
-        return parent;
+        return LazyReference.get(parent);
+    }
+
+    /**
+     * @return the ID of the parent of this resource, without resolving the parent itself. Might be null.
+     */
+    @JsonIgnore
+    public UUID getParentId() {
+        return LazyReference.getId(parent);
     }
 
     public void setParent(Resource parent) {
@@ -131,27 +155,51 @@ public class Resource extends BaseEntity {
             throw new IllegalStateException("A resource should either have a valid parent or an owner.");
         }
 
-        this.parent = parent;
+        this.parent = LazyReference.of(parent);
     }
 
     public void setPersona(Persona persona) {
         if (null == persona && null == this.parent) {
             throw new IllegalStateException("A resource should either have a valid parent or an owner.");
         }
-        this.persona = persona;
+        this.persona = LazyReference.of(persona);
     }
 
     public static class Builder extends BaseEntity.Builder {
-        private Persona persona;
-        private Resource parent;
+        private LazyReference<Persona> persona;
+        private LazyReference<Resource> parent;
 
         public Builder persona(Persona persona) {
-            this.persona = persona;
+            this.persona = LazyReference.of(persona);
+            return this;
+        }
+
+        /**
+         * Sets the owner of the resource by its ID. The owner is resolved via the loader only when it's first
+         * requested.
+         * @param id        the ID of the owner. Might be null.
+         * @param loader    the function to resolve the owner
+         * @return this builder
+         */
+        public Builder persona(UUID id, Function<UUID, Persona> loader) {
+            this.persona = LazyReference.of(id, loader);
             return this;
         }
 
         public Builder parent(Resource parent) {
-            this.parent = parent;
+            this.parent = LazyReference.of(parent);
+            return this;
+        }
+
+        /**
+         * Sets the parent of the resource by its ID. The parent is resolved via the loader only when it's first
+         * requested.
+         * @param id        the ID of the parent. Might be null.
+         * @param loader    the function to resolve the parent
+         * @return this builder
+         */
+        public Builder parent(UUID id, Function<UUID, Resource> loader) {
+            this.parent = LazyReference.of(id, loader);
             return this;
         }
 
@@ -54,6 +54,10 @@ public class UserSettings extends BaseEntity {
 
     public UserSettings(UUID id, ZonedDateTime createdAt, ZonedDateTime updatedAt,
                         HawkularUser user, Map<String, String> properties) {
+        this(id, toEpochMilli(createdAt), toEpochMilli(updatedAt), user, properties);
+    }
+
+    UserSettings(UUID id, long createdAt, long updatedAt, HawkularUser user, Map<String, String> properties) {
         super(id, createdAt, updatedAt);
         this.user = user;
         this.properties = properties;
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.stubbing.OngoingStubbing;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.exceptions.InvalidQueryException;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class ApplicationResourcesTest {
+    private final Session session = mock(Session.class);
+    private final PreparedStatement prepared = mock(PreparedStatement.class);
+    private final BoundStatement bound = mock(BoundStatement.class);
+    private final ApplicationResources resources = new ApplicationResources();
+
+    @Before
+    public void setup() {
+        when(prepared.bind()).thenReturn(bound);
+        when(session.prepareAsync(anyString())).thenReturn(Futures.immediateFuture(prepared));
+        resources.setSession(session);
+        resources.retryDelay = 1;
+    }
+
+    @Test
+    public void allStatementsArePreparedOnce() {
+        resources.buildStatements();
+        resources.buildStatements();
+
+        int expected = BoundStatements.values().length - 1; // DEFAULT is not prepared
+        verify(session, times(expected)).prepareAsync(anyString());
+        assertEquals(expected, resources.getPreparationTimes().size());
+        assertSame(bound, resources.getBoundStatement(BoundStatements.ROLES_GET_BY_ID));
+    }
+
+    @Test
+    public void statementsAreBuiltOnFirstAccess() {
+        assertSame(bound, resources.getBoundStatement(BoundStatements.ROLES_GET_BY_ID));
+    }
+
+    @Test
+    public void registryBindsPreparedStatements() {
+        StatementRegistry registry = resources.getStatementRegistry();
+
+        assertSame(bound, registry.bind(BoundStatements.ROLES_GET_BY_ID));
+        assertSame(registry, resources.getStatementRegistry());
+    }
+
+    @Test
+    public void failedStatementIsRetried() throws InterruptedException {
+        String query = BoundStatements.ROLES_GET_BY_ID.getValue();
+        ListenableFuture<PreparedStatement> failed = Futures.immediateFailedFuture(new InvalidQueryException("no"));
+        when(session.prepareAsync(query))
+                .thenReturn(failed)
+                .thenReturn(failed)
+                .thenReturn(Futures.immediateFuture(prepared));
+
+        // long enough for the first check to happen before the retries, short enough for the test
+        resources.retryDelay = 100;
+        resources.buildStatements();
+        try {
+            resources.getBoundStatement(BoundStatements.ROLES_GET_BY_ID);
+            fail("The statement should not be available before it's prepared");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        for (int i = 0; i < 100; i++) {
+            try {
+                assertSame(bound, resources.getBoundStatement(BoundStatements.ROLES_GET_BY_ID));
+                verify(session, times(3)).prepareAsync(query);
+                return;
+            } catch (IllegalStateException e) {
+                Thread.sleep(10);
+            }
+        }
+        fail("The statement should have been prepared on a retry");
+    }
+
+    @Test
+    public void failedStatementIsRetriedUntilItIsPrepared() throws InterruptedException {
+        String query = BoundStatements.ROLES_GET_BY_ID.getValue();
+        ListenableFuture<PreparedStatement> failed = Futures.immediateFailedFuture(new InvalidQueryException("no"));
+        OngoingStubbing<ListenableFuture<PreparedStatement>> stubbing = when(session.prepareAsync(query));
+        for (int i = 0; i < 25; i++) {
+            stubbing = stubbing.thenReturn(failed);
+        }
+        stubbing.thenReturn(Futures.immediateFuture(prepared));
+
+        resources.maxRetryDelay = 1;
+        resources.buildStatements();
+
+        for (int i = 0; i < 500; i++) {
+            try {
+                assertSame(bound, resources.getBoundStatement(BoundStatements.ROLES_GET_BY_ID));
+                verify(session, times(26)).prepareAsync(query);
+                return;
+            } catch (IllegalStateException e) {
+                Thread.sleep(10);
+            }
+        }
+        fail("The statement should have been prepared after more failures than the warning interval");
+    }
+}
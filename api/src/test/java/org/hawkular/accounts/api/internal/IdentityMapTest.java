@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hawkular.accounts.api.model.Operation;
+import org.hawkular.accounts.api.model.Role;
+import org.junit.Test;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class IdentityMapTest {
+
+    @Test
+    public void loaderIsCalledOnlyOnce() {
+        IdentityMap identityMap = new IdentityMap();
+        Role role = new Role("Auditor", "Auditor");
+        AtomicInteger calls = new AtomicInteger();
+
+        Role first = identityMap.get(Role.class, role.getIdAsUUID(), id -> {
+            calls.incrementAndGet();
+            return role;
+        });
+        Role second = identityMap.get(Role.class, role.getIdAsUUID(), id -> {
+            calls.incrementAndGet();
+            return role;
+        });
+
+        assertSame(role, first);
+        assertSame(role, second);
+        assertEquals(1, calls.get());
+        assertEquals(1, identityMap.getHits());
+        assertEquals(1, identityMap.getMisses());
+    }
+
+    @Test
+    public void nonExistingRecordIsRemembered() {
+        IdentityMap identityMap = new IdentityMap();
+        UUID id = UUID.randomUUID();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertNull(identityMap.get(Role.class, id, i -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertNull(identityMap.get(Role.class, id, i -> {
+            calls.incrementAndGet();
+            return null;
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void writtenRecordReplacesNonExistingMarker() {
+        IdentityMap identityMap = new IdentityMap();
+        Role role = new Role("Auditor", "Auditor");
+        assertNull(identityMap.get(Role.class, role.getIdAsUUID(), id -> null));
+
+        identityMap.put(Role.class, role);
+        assertSame(role, identityMap.get(Role.class, role.getIdAsUUID(), id -> null));
+    }
+
+    @Test
+    public void registerReturnsKnownInstance() {
+        IdentityMap identityMap = new IdentityMap();
+        Role role = new Role("Auditor", "Auditor");
+        Role copy = new Role(role.getIdAsUUID(), "Auditor", "Auditor");
+
+        assertSame(role, identityMap.register(Role.class, role));
+        assertSame(role, identityMap.register(Role.class, copy));
+    }
+
+    @Test
+    public void evictedRecordIsLoadedAgain() {
+        IdentityMap identityMap = new IdentityMap();
+        Role role = new Role("Auditor", "Auditor");
+        identityMap.put(Role.class, role);
+        identityMap.evict(Role.class, role.getIdAsUUID());
+
+        AtomicInteger calls = new AtomicInteger();
+        identityMap.get(Role.class, role.getIdAsUUID(), id -> {
+            calls.incrementAndGet();
+            return role;
+        });
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void asyncLoaderResultIsRemembered() {
+        IdentityMap identityMap = new IdentityMap();
+        Role role = new Role("Auditor", "Auditor");
+        AtomicInteger calls = new AtomicInteger();
+
+        Role loaded = identityMap.getAsync(Role.class, role.getIdAsUUID(), id -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(role);
+        }).toCompletableFuture().join();
+
+        assertSame(role, loaded);
+        assertSame(role, identityMap.get(Role.class, role.getIdAsUUID(), id -> null));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void asyncMultiGetLoadsOnlyUnknownRecords() {
+        IdentityMap identityMap = new IdentityMap();
+        Role known = new Role("Auditor", "Auditor");
+        Role unknown = new Role("Monitor", "Monitor");
+        UUID missing = UUID.randomUUID();
+        identityMap.put(Role.class, known);
+
+        List<List<UUID>> requested = new ArrayList<>();
+        Map<UUID, Role> loaded = identityMap.getAllAsync(Role.class,
+                Arrays.asList(missing, unknown.getIdAsUUID(), known.getIdAsUUID()),
+                ids -> {
+                    requested.add(ids);
+                    return CompletableFuture.completedFuture(
+                            Collections.singletonMap(unknown.getIdAsUUID(), unknown));
+                }).toCompletableFuture().join();
+
+        assertEquals(Collections.singletonList(Arrays.asList(missing, unknown.getIdAsUUID())), requested);
+        assertEquals(Arrays.asList(unknown.getIdAsUUID(), known.getIdAsUUID()), new ArrayList<>(loaded.keySet()));
+        assertNull(identityMap.get(Role.class, missing, id -> unknown));
+    }
+
+    @Test
+    public void typesAreKeptApart() {
+        IdentityMap identityMap = new IdentityMap();
+        Role role = new Role("Auditor", "Auditor");
+        identityMap.put(Role.class, role);
+        assertNull(identityMap.get(Operation.class, role.getIdAsUUID(), id -> null));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class PermissionDecisionCacheTest {
+    private final UUID operation = UUID.randomUUID();
+    private final UUID resource = UUID.randomUUID();
+    private final UUID persona = UUID.randomUUID();
+
+    @Test
+    public void concurrentRequestsShareTheComputation() {
+        PermissionDecisionCache cache = new PermissionDecisionCache(10, 1, TimeUnit.MINUTES);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Boolean> computation = new CompletableFuture<>();
+        Supplier<CompletionStage<Boolean>> loader = () -> {
+            calls.incrementAndGet();
+            return computation;
+        };
+
+        CompletionStage<Boolean> first = cache.get(operation, resource, persona, loader);
+        CompletionStage<Boolean> second = cache.get(operation, resource, persona, loader);
+        computation.complete(true);
+
+        assertTrue(first.toCompletableFuture().join());
+        assertTrue(second.toCompletableFuture().join());
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void eventRemovesOnlyAffectedDecisions() {
+        PermissionDecisionCache cache = new PermissionDecisionCache(10, 1, TimeUnit.MINUTES);
+        UUID otherResource = UUID.randomUUID();
+        cache.get(operation, resource, persona, () -> CompletableFuture.completedFuture(true));
+        cache.get(operation, otherResource, persona, () -> CompletableFuture.completedFuture(true));
+
+        cache.invalidate(PermissionInputsChangedEvent.forResource(resource));
+        assertEquals(1, cache.size());
+
+        cache.invalidate(PermissionInputsChangedEvent.forPersona(persona));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void personaEventWithoutSessionRemovesAllDecisions() {
+        // the members of the persona can't be found without a session, so, every decision might be affected
+        PermissionDecisionCache cache = new PermissionDecisionCache(10, 1, TimeUnit.MINUTES);
+        cache.get(operation, resource, persona, () -> CompletableFuture.completedFuture(true));
+        cache.get(operation, resource, UUID.randomUUID(), () -> CompletableFuture.completedFuture(true));
+
+        cache.invalidate(PermissionInputsChangedEvent.forPersona(persona));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void expiredDecisionIsComputedAgain() throws InterruptedException {
+        PermissionDecisionCache cache = new PermissionDecisionCache(10, 1, TimeUnit.MILLISECONDS);
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<CompletionStage<Boolean>> loader = () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(false);
+        };
+
+        assertFalse(cache.get(operation, resource, persona, loader).toCompletableFuture().join());
+        Thread.sleep(5);
+        assertFalse(cache.get(operation, resource, persona, loader).toCompletableFuture().join());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void failureIsNotCached() {
+        PermissionDecisionCache cache = new PermissionDecisionCache(10, 1, TimeUnit.MINUTES);
+        CompletableFuture<Boolean> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException());
+        cache.get(operation, resource, persona, () -> failed);
+
+        assertTrue(cache.get(operation, resource, persona, () -> CompletableFuture.completedFuture(true))
+                .toCompletableFuture()
+                .join());
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        PermissionDecisionCache cache = new PermissionDecisionCache(10, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 100; i++) {
+            cache.get(operation, UUID.randomUUID(), persona, () -> CompletableFuture.completedFuture(true));
+        }
+        assertTrue(cache.size() <= 10);
+        assertTrue(cache.getEvictions() > 0);
+    }
+}
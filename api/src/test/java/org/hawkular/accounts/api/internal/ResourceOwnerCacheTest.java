@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class ResourceOwnerCacheTest {
+    private final UUID deployment = UUID.randomUUID();
+    private final UUID server = UUID.randomUUID();
+    private final UUID feed = UUID.randomUUID();
+
+    @Test
+    public void owningResourceIsLastOnTheChain() {
+        ResourceOwnerCache cache = new ResourceOwnerCache(10, 1, TimeUnit.MINUTES);
+        cache.put(Arrays.asList(deployment, server, feed));
+
+        assertEquals(feed, cache.get(deployment));
+        assertNull(cache.get(server));
+    }
+
+    @Test
+    public void transferOnTheChainRemovesEntry() {
+        ResourceOwnerCache cache = new ResourceOwnerCache(10, 1, TimeUnit.MINUTES);
+        UUID other = UUID.randomUUID();
+        cache.put(Arrays.asList(deployment, server, feed));
+        cache.put(Arrays.asList(other, feed));
+
+        cache.invalidate(server);
+        assertNull(cache.get(deployment));
+        assertEquals(feed, cache.get(other));
+
+        cache.invalidate(feed);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void expiredEntryIsNotReturned() throws InterruptedException {
+        ResourceOwnerCache cache = new ResourceOwnerCache(10, 1, TimeUnit.MILLISECONDS);
+        cache.put(Arrays.asList(deployment, feed));
+        Thread.sleep(5);
+
+        assertNull(cache.get(deployment));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        ResourceOwnerCache cache = new ResourceOwnerCache(10, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 100; i++) {
+            cache.put(Arrays.asList(UUID.randomUUID(), feed));
+        }
+        assertTrue(cache.size() <= 10);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class StatementExecutionTest {
+
+    @Test
+    public void executionIsDerivedFromTheStatement() {
+        assertSame(StatementExecution.READ, BoundStatements.ROLES_GET_BY_ID.getExecution());
+        assertSame(StatementExecution.WRITE, BoundStatements.ROLES_CREATE.getExecution());
+        assertSame(StatementExecution.WRITE, BoundStatements.EFFECTIVE_ROLES_REMOVE.getExecution());
+        assertSame(StatementExecution.LOOKUP, BoundStatements.ROLES_GET_BY_NAME.getExecution());
+        assertSame(StatementExecution.SCAN, BoundStatements.EFFECTIVE_ROLES_GET_ALL.getExecution());
+    }
+
+    @Test
+    public void consistencyAndIdempotenceAreSetOnThePreparedStatement() {
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        StatementExecution.LOOKUP.applyTo(prepared);
+
+        verify(prepared).setConsistencyLevel(ConsistencyLevel.LOCAL_ONE);
+        verify(prepared, never()).setSerialConsistencyLevel(any(ConsistencyLevel.class));
+        verify(prepared).setIdempotent(true);
+    }
+
+    @Test
+    public void onlyTheGivenOptionsAreSetOnTheBoundStatement() {
+        BoundStatement scan = mock(BoundStatement.class);
+        StatementExecution.SCAN.applyTo(scan);
+        verify(scan).setFetchSize(500);
+        verify(scan).setReadTimeoutMillis(60000);
+
+        BoundStatement read = mock(BoundStatement.class);
+        StatementExecution.READ.applyTo(read);
+        verify(read, never()).setFetchSize(anyInt());
+        verify(read, never()).setReadTimeoutMillis(anyInt());
+    }
+}
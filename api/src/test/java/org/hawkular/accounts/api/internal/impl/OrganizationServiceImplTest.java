@@ -20,9 +20,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import org.hawkular.accounts.api.Page;
 import org.hawkular.accounts.api.model.HawkularUser;
 import org.hawkular.accounts.api.model.Invitation;
 import org.hawkular.accounts.api.model.Organization;
@@ -172,4 +174,30 @@ public class OrganizationServiceImplTest extends SessionEnabledTest {
         assertTrue("The organization 4 should be available to join", organizationsToJoin.contains(organization4));
         assertTrue("The organization 5 should not be available to join", !organizationsToJoin.contains(organization5));
     }
+
+    @Test
+    public void organizationsToJoinArePaged() {
+        HawkularUser jdoe = userService.getOrCreateById(UUID.randomUUID().toString());
+        organizationService.createOrganization("Paged1", "", Visibility.APPLY, jdoe);
+        organizationService.createOrganization("Paged2", "", Visibility.APPLY, jdoe);
+        organizationService.createOrganization("Paged3", "", Visibility.APPLY, jdoe);
+
+        List<Organization> all = organizationService.getOrganizationsToJoin();
+        List<Organization> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Organization> page = organizationService.getOrganizationsToJoin(2, cursor);
+            assertTrue("A page should not have more items than the limit", page.getItems().size() <= 2);
+            paged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (null != cursor);
+
+        assertEquals("Walking through the pages should return all organizations", all.size(), paged.size());
+        assertTrue("Walking through the pages should return all organizations", paged.containsAll(all));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCursorIsRejected() {
+        organizationService.getOrganizationsToJoin(2, "not-a-cursor");
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.accounts.api.PersonaService;
+import org.hawkular.accounts.api.ResourceService;
+import org.hawkular.accounts.api.internal.ApplicationResources;
+import org.hawkular.accounts.api.internal.BoundStatements;
+import org.hawkular.accounts.api.internal.PermissionDecisionCache;
+import org.hawkular.accounts.api.model.HawkularUser;
+import org.hawkular.accounts.api.model.Operation;
+import org.hawkular.accounts.api.model.Resource;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.exceptions.InvalidQueryException;
+import com.google.common.util.concurrent.Futures;
+
+/**
+ * Checks the asynchronous permission checks that don't need a Cassandra instance.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+public class PermissionCheckerAsyncTest {
+    private final HawkularUser owner = new HawkularUser(UUID.randomUUID().toString());
+    private final HawkularUser jdoe = new HawkularUser(UUID.randomUUID().toString());
+    private final Operation operation = new Operation("metric-read");
+    private final PermissionCheckerImpl permissionChecker = new PermissionCheckerImpl();
+    private final Map<String, Resource> resources = new LinkedHashMap<>();
+
+    @Before
+    public void prepare() {
+        // the permissions can't be read, as their statement could not be prepared
+        Session session = mock(Session.class);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(prepared.bind()).thenReturn(mock(BoundStatement.class));
+        when(session.prepareAsync(anyString())).thenReturn(Futures.immediateFuture(prepared));
+        when(session.prepareAsync(BoundStatements.PERMISSIONS_GET_BY_OPERATION.getValue()))
+                .thenReturn(Futures.immediateFailedFuture(new InvalidQueryException("no")));
+        ApplicationResources applicationResources = new ApplicationResources();
+        applicationResources.setSession(session);
+
+        PermissionServiceImpl permissionService = new PermissionServiceImpl();
+        permissionService.statements = applicationResources.getStatementRegistry();
+
+        ResourceService resourceService = mock(ResourceService.class);
+        for (int i = 0; i < 3; i++) {
+            Resource resource = new Resource(UUID.randomUUID().toString(), owner);
+            resources.put(resource.getId(), resource);
+            when(resourceService.getOwningResourceAsync(resource))
+                    .thenReturn(CompletableFuture.completedFuture(resource));
+        }
+        when(resourceService.get(any(List.class))).thenReturn(resources);
+
+        permissionChecker.permissionService = permissionService;
+        permissionChecker.personaService = mock(PersonaService.class);
+        permissionChecker.resourceService = resourceService;
+        permissionChecker.decisionCache = new PermissionDecisionCache(10, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void bulkCheckFailsInsteadOfHangingWhenTheStatementIsNotPrepared() throws Exception {
+        List<String> ids = Arrays.asList(resources.keySet().toArray(new String[resources.size()]));
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                permissionChecker.isAllowedToAsync(operation, ids, jdoe).toCompletableFuture().get(5, TimeUnit.SECONDS);
+                fail("The check should have failed");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+}
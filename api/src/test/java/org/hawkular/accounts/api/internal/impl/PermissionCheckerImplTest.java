@@ -16,15 +16,21 @@
  */
 package org.hawkular.accounts.api.internal.impl;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.hawkular.accounts.api.model.HawkularUser;
 import org.hawkular.accounts.api.model.Invitation;
 import org.hawkular.accounts.api.model.Operation;
 import org.hawkular.accounts.api.model.Organization;
+import org.hawkular.accounts.api.model.OrganizationMembership;
 import org.hawkular.accounts.api.model.Permission;
 import org.hawkular.accounts.api.model.Resource;
 import org.junit.Before;
@@ -88,6 +94,48 @@ public class PermissionCheckerImplTest extends SessionEnabledTest {
         assertTrue(permissionChecker.isAllowedTo(metricsCreate, resource, jsmith));
     }
 
+    @Test
+    public void removingOrganizationFromParentOrganizationRevokesPermissionsOfItsMembers() {
+        HawkularUser jdoe = userService.getOrCreateById(UUID.randomUUID().toString());
+        Organization acme = organizationService.createOrganization(UUID.randomUUID().toString(), "", jdoe);
+        Organization parent = organizationService.createOrganization(UUID.randomUUID().toString(), "", jdoe);
+        HawkularUser jsmith = userService.getOrCreateById(UUID.randomUUID().toString());
+        Invitation invitation = invitationService.create("", jdoe, acme, administrator);
+        invitationService.accept(invitation, jsmith);
+
+        // jsmith is an administrator on acme, which is an administrator on the parent organization
+        OrganizationMembership acmeOnParent = membershipService.create(parent, acme, administrator);
+        Resource resource = resourceService.create(UUID.randomUUID().toString(), parent);
+        assertTrue(permissionChecker.isAllowedTo(metricsCreate, resource, jsmith));
+
+        // the change is about acme, but the decision that was cached for jsmith is also affected
+        membershipService.remove(acmeOnParent);
+        assertFalse(permissionChecker.isAllowedTo(metricsCreate, resource, jsmith));
+    }
+
+    @Test
+    public void bulkCheckFollowsIndividualChecks() {
+        HawkularUser jdoe = userService.getOrCreateById(UUID.randomUUID().toString());
+        Organization acme = organizationService.createOrganization(UUID.randomUUID().toString(), "", jdoe);
+        HawkularUser jsmith = userService.getOrCreateById(UUID.randomUUID().toString());
+        Invitation invitation = invitationService.create("", jdoe, acme, administrator);
+        invitationService.accept(invitation, jsmith);
+
+        Resource ownedByAcme = resourceService.create(UUID.randomUUID().toString(), acme);
+        Resource ownedByJsmith = resourceService.create(UUID.randomUUID().toString(), jsmith);
+        Resource ownedByJdoe = resourceService.create(UUID.randomUUID().toString(), jdoe);
+        String missing = UUID.randomUUID().toString();
+
+        List<String> ids = Arrays.asList(ownedByJdoe.getId(), missing, ownedByAcme.getId(), ownedByJsmith.getId());
+        Map<String, Boolean> allowed = permissionChecker.isAllowedTo(metricsCreate, ids, jsmith);
+
+        assertEquals(ids, new ArrayList<>(allowed.keySet()));
+        assertFalse(allowed.get(ownedByJdoe.getId()));
+        assertFalse(allowed.get(missing));
+        assertTrue(allowed.get(ownedByAcme.getId()));
+        assertTrue(allowed.get(ownedByJsmith.getId()));
+    }
+
     @Test
     public void resourceCreatedViaServiceHasOwnerWhoIsAlsoSuperUser() {
         // persona jdoe registers himself
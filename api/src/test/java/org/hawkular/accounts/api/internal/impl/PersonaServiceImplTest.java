@@ -26,12 +26,18 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.function.Predicate;
 
+import org.hawkular.accounts.api.internal.BoundStatements;
 import org.hawkular.accounts.api.model.HawkularUser;
+import org.hawkular.accounts.api.model.Invitation;
 import org.hawkular.accounts.api.model.Organization;
+import org.hawkular.accounts.api.model.OrganizationMembership;
+import org.hawkular.accounts.api.model.PersonaResourceRole;
 import org.hawkular.accounts.api.model.Resource;
 import org.hawkular.accounts.api.model.Role;
 import org.junit.Test;
 
+import com.datastax.driver.core.BoundStatement;
+
 /**
  * @author Juraci Paixão Kröhling
  */
@@ -121,6 +127,56 @@ public class PersonaServiceImplTest extends SessionEnabledTest {
         assertTrue("User should have had admin roles", adminFound);
     }
 
+    @Test
+    public void effectiveRolesFollowMembershipChanges() {
+        HawkularUser jdoe = userService.getOrCreateById(UUID.randomUUID().toString());
+        Organization acme = organizationService.createOrganization(UUID.randomUUID().toString(), "", jdoe);
+        HawkularUser jsmith = userService.getOrCreateById(UUID.randomUUID().toString());
+        Invitation invitation = invitationService.create("", jdoe, acme, monitor);
+        invitationService.accept(invitation, jsmith);
+        Resource resource = resourceService.create(UUID.randomUUID().toString(), acme);
+
+        // reading twice: once from the source tables, once (possibly) from the projection
+        assertEquals(1, personaService.getEffectiveRolesForResource(jsmith, resource).size());
+        assertEquals(1, personaService.getEffectiveRolesForResource(jsmith, resource).size());
+
+        OrganizationMembership membership = membershipService.getMembershipsForPersona(jsmith).get(0);
+        membershipService.changeRole(membership, administrator);
+
+        Set<Role> rolesForResource = personaService.getEffectiveRolesForResource(jsmith, resource);
+        assertEquals("jsmith should now be Administrator (and 3 other) on resource", 4, rolesForResource.size());
+        assertTrue(rolesForResource.contains(administrator));
+    }
+
+    @Test
+    public void lateProjectionWriteDoesNotSurviveRemovalOfRole() throws Exception {
+        HawkularUser jdoe = userService.getOrCreateById(UUID.randomUUID().toString());
+        HawkularUser jsmith = userService.getOrCreateById(UUID.randomUUID().toString());
+        Resource resource = resourceService.create(UUID.randomUUID().toString(), jdoe);
+        PersonaResourceRole role = personaResourceRoleService.create(jsmith, resource, maintainer);
+
+        // a computation starts, reading the role from the source tables...
+        long startedAt = effectiveRoles.now();
+        long mask = roleLattice.get().maskOf(maintainer);
+
+        // ... the role is removed while it runs, before its entry reaches the index ...
+        personaResourceRoleService.remove(role);
+
+        // ... and only then the entry is stored
+        effectiveRoles.put(jsmith.getIdAsUUID(), resource.getIdAsUUID(), mask, startedAt);
+        BoundStatement entry = effectiveRoles.statements.bind(BoundStatements.EFFECTIVE_ROLES_GET)
+                .setUUID("persona", jsmith.getIdAsUUID())
+                .setUUID("resource", resource.getIdAsUUID());
+        for (int i = 0; i < 100 && null == session.execute(entry).one(); i++) {
+            Thread.sleep(10);
+        }
+        assertNotNull("The late entry should have been stored", session.execute(entry).one());
+
+        assertNull(effectiveRoles.getAsync(jsmith.getIdAsUUID(), resource.getIdAsUUID()).toCompletableFuture().get());
+        assertFalse("jsmith should not be Maintainer on the resource anymore",
+                personaService.getEffectiveRolesForResource(jsmith, resource).contains(maintainer));
+    }
+
     @Test
     public void userCanImpersonateItself() {
         HawkularUser jdoe = userService.getOrCreateById(UUID.randomUUID().toString());
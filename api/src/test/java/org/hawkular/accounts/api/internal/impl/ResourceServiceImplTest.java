@@ -65,6 +65,23 @@ public class ResourceServiceImplTest extends SessionEnabledTest {
         assertNotNull(fromDatabase.getParent());
     }
 
+    @Test
+    public void owningResourceIsNearestAncestorWithOwner() {
+        HawkularUser jdoe = userService.getOrCreateById(UUID.randomUUID().toString());
+        HawkularUser jsmith = userService.getOrCreateById(UUID.randomUUID().toString());
+        Resource feed = resourceService.create(UUID.randomUUID().toString(), jdoe);
+        Resource server = resourceService.create(UUID.randomUUID().toString(), feed);
+        Resource deployment = resourceService.create(UUID.randomUUID().toString(), server);
+
+        // the second time, it comes from the cache
+        assertEquals(feed, resourceService.getOwningResource(deployment));
+        assertEquals(feed, resourceService.getOwningResource(deployment));
+
+        // once the server gets its own owner, it's the owning resource for the deployment
+        resourceService.transfer(server, jsmith);
+        assertEquals(server, resourceService.getOwningResource(deployment));
+    }
+
     @Test
     public void resourceWithNullAsIdGetsNewId() {
         HawkularUser user = userService.getOrCreateById(UUID.randomUUID().toString());
@@ -110,4 +127,19 @@ public class ResourceServiceImplTest extends SessionEnabledTest {
         assertEquals("jsmith should be the owner", jsmith, personaResourceRoles.get(0).getPersona());
     }
 
+    @Test
+    public void transferredResourceIsListedForTheNewOwnerOnly() {
+        HawkularUser jdoe = userService.getOrCreateById(UUID.randomUUID().toString());
+        HawkularUser jsmith = userService.getOrCreateById(UUID.randomUUID().toString());
+        Resource resource = resourceService.create(UUID.randomUUID().toString(), jdoe);
+        assertEquals(1, resourceService.getByPersona(jdoe).size());
+
+        resourceService.transfer(resource, jsmith);
+
+        assertEquals("jdoe should have no resources", 0, resourceService.getByPersona(jdoe).size());
+        List<Resource> resources = resourceService.getByPersona(jsmith);
+        assertEquals("jsmith should have the resource", 1, resources.size());
+        assertEquals(resource.getId(), resources.get(0).getId());
+    }
+
 }
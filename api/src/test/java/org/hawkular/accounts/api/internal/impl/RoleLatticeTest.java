@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015-2016 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hawkular.accounts.api.RoleService;
+import org.hawkular.accounts.api.model.Role;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class RoleLatticeTest {
+    private RoleLattice roleLattice;
+    private Map<String, Role> roles = new HashMap<>();
+
+    @Before
+    public void prepare() {
+        RoleService roleService = mock(RoleService.class);
+        RoleLattice.NAMES.forEach(name -> {
+            Role role = new Role(name, name);
+            roles.put(name, role);
+            when(roleService.getByName(name)).thenReturn(role);
+        });
+
+        roleLattice = new RoleLattice();
+        roleLattice.roleService = roleService;
+    }
+
+    @Test
+    public void superUserImpliesAllOtherRoles() {
+        RoleLattice.Snapshot lattice = roleLattice.get();
+        assertEquals(
+                names("Administrator", "Auditor", "Deployer", "Maintainer", "Monitor", "Operator"),
+                names(lattice.toRoles(lattice.impliedRoles("SuperUser")))
+        );
+    }
+
+    @Test
+    public void monitorIsImpliedByAllOtherRoles() {
+        RoleLattice.Snapshot lattice = roleLattice.get();
+        assertEquals(
+                names("Administrator", "Auditor", "Deployer", "Maintainer", "Operator", "SuperUser"),
+                names(lattice.toRoles(lattice.impliedByRoles("Monitor")))
+        );
+    }
+
+    @Test
+    public void auditorIsNotAMaintainer() {
+        RoleLattice.Snapshot lattice = roleLattice.get();
+        long auditor = lattice.withImpliedRoles(roles.get("Auditor").getIdAsUUID());
+        assertEquals(names("Auditor", "Monitor"), names(lattice.toRoles(auditor)));
+        assertEquals(0, auditor & lattice.maskOf(roles.get("Maintainer")));
+    }
+
+    @Test
+    public void rolesAreReadOnlyOnceUntilRefreshed() {
+        roleLattice.get();
+        roleLattice.get();
+        verify(roleLattice.roleService, times(1)).getByName("SuperUser");
+
+        roleLattice.refresh();
+        roleLattice.get();
+        verify(roleLattice.roleService, times(2)).getByName("SuperUser");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownRoleIsRejected() {
+        roleLattice.get().impliedRoles("Janitor");
+    }
+
+    @Test
+    public void unknownRoleIsIgnoredOnMasks() {
+        RoleLattice.Snapshot lattice = roleLattice.get();
+        assertTrue(lattice.maskOf(new Role("Janitor", "")) == 0);
+    }
+
+    private Set<String> names(String... names) {
+        return Arrays.stream(names).collect(Collectors.toSet());
+    }
+
+    private Set<String> names(Set<Role> roles) {
+        return roles.stream().map(Role::getName).collect(Collectors.toSet());
+    }
+}
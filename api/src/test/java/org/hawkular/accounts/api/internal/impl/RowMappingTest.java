@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class RowMappingTest {
+    private final RowMapping mapping = new RowMapping();
+    private final int name = mapping.column("name", DataType.text());
+    private final int parent = mapping.column("parent", DataType.uuid());
+
+    private final UUID id = UUID.randomUUID();
+    private final ZonedDateTime createdAt = ZonedDateTime.of(2016, 4, 1, 10, 30, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    public void columnsAreReadByPosition() {
+        // same columns as on the table, but in a different order
+        ColumnDefinitions metadata = metadata("name", "updatedAt", "id", "parent", "createdAt");
+        Row row = row(metadata, "jdoe", null, id, null, createdAt);
+
+        RowMapping.Columns columns = mapping.of(row, ProtocolVersion.V3);
+        assertEquals(id, columns.getUUID(row, RowMapping.ID));
+        assertEquals(createdAt, columns.getZonedDateTime(row, RowMapping.CREATED_AT));
+        assertNull(columns.getZonedDateTime(row, RowMapping.UPDATED_AT));
+        assertEquals("jdoe", columns.getString(row, name));
+        assertNull(columns.getUUID(row, parent));
+        assertEquals(3, columns.indexOf(parent));
+    }
+
+    @Test
+    public void positionsAreResolvedOncePerMetadata() {
+        ColumnDefinitions metadata = metadata("id", "createdAt", "updatedAt", "name", "parent");
+        RowMapping.Columns columns = mapping.of(row(metadata, "jdoe", null, id, null, createdAt), ProtocolVersion.V3);
+        Row next = row(metadata, "jsmith", null, UUID.randomUUID(), null, createdAt);
+        assertSame(columns, mapping.of(next, ProtocolVersion.V3));
+
+        ColumnDefinitions other = metadata("parent", "id", "createdAt", "updatedAt", "name");
+        Row row = row(other, "jdoe", null, id, null, createdAt);
+        assertEquals(id, mapping.of(row, ProtocolVersion.V3).getUUID(row, RowMapping.ID));
+    }
+
+    @Test
+    public void positionsAreKeptWhenAlternatingBetweenMetadata() {
+        ColumnDefinitions metadata = metadata("id", "createdAt", "updatedAt", "name", "parent");
+        ColumnDefinitions other = metadata("parent", "id", "createdAt", "updatedAt", "name");
+        RowMapping.Columns columns = mapping.of(row(metadata, "jdoe", null, id, null, createdAt), ProtocolVersion.V3);
+        RowMapping.Columns otherColumns = mapping.of(row(other, "jdoe", null, id, null, createdAt), ProtocolVersion.V3);
+
+        assertSame(columns, mapping.of(row(metadata, "jsmith", null, id, null, createdAt), ProtocolVersion.V3));
+        assertSame(otherColumns, mapping.of(row(other, "jsmith", null, id, null, createdAt), ProtocolVersion.V3));
+    }
+
+    @Test
+    public void valuesAreDecodedWithTheGivenProtocolVersion() {
+        ColumnDefinitions metadata = metadata("id", "createdAt", "updatedAt", "name", "parent");
+        Row row = row(metadata, "jdoe", null, id, null, createdAt);
+        RowMapping.Columns v3 = mapping.of(row, ProtocolVersion.V3);
+        RowMapping.Columns v4 = mapping.of(row, ProtocolVersion.V4);
+
+        assertNotSame(v3, v4);
+        assertEquals("jdoe", v4.getString(row, name));
+        assertEquals(id, v4.getUUID(row, RowMapping.ID));
+    }
+
+    @Test(expected = InvalidTypeException.class)
+    public void columnWithUnexpectedTypeIsRejected() {
+        ColumnDefinitions metadata = metadata("id", "createdAt", "updatedAt", "name", "parent");
+        when(metadata.getType(4)).thenReturn(DataType.text());
+        mapping.of(row(metadata, "jdoe", null, id, null, createdAt), ProtocolVersion.V3);
+    }
+
+    private ColumnDefinitions metadata(String... names) {
+        ColumnDefinitions metadata = mock(ColumnDefinitions.class);
+        for (int i = 0; i < names.length; i++) {
+            when(metadata.getIndexOf(names[i])).thenReturn(i);
+            when(metadata.getType(i)).thenReturn(typeOf(names[i]));
+        }
+        return metadata;
+    }
+
+    private Row row(ColumnDefinitions metadata, String nameValue, ZonedDateTime updatedAt, UUID idValue,
+                    UUID parentValue, ZonedDateTime createdAtValue) {
+        Row row = mock(Row.class);
+        when(row.getColumnDefinitions()).thenReturn(metadata);
+        when(row.getBytesUnsafe(metadata.getIndexOf("id"))).thenReturn(uuid(idValue));
+        when(row.getBytesUnsafe(metadata.getIndexOf("parent"))).thenReturn(uuid(parentValue));
+        when(row.getBytesUnsafe(metadata.getIndexOf("createdAt"))).thenReturn(timestamp(createdAtValue));
+        when(row.getBytesUnsafe(metadata.getIndexOf("updatedAt"))).thenReturn(timestamp(updatedAt));
+        when(row.getBytesUnsafe(metadata.getIndexOf("name")))
+                .thenReturn(TypeCodec.varchar().serialize(nameValue, ProtocolVersion.V3));
+        return row;
+    }
+
+    private static DataType typeOf(String name) {
+        switch (name) {
+            case "name":
+                return DataType.text();
+            case "createdAt":
+            case "updatedAt":
+                return DataType.timestamp();
+            default:
+                return DataType.uuid();
+        }
+    }
+
+    private static ByteBuffer uuid(UUID value) {
+        return TypeCodec.uuid().serialize(value, ProtocolVersion.V3);
+    }
+
+    private static ByteBuffer timestamp(ZonedDateTime value) {
+        if (null == value) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(8);
+        bytes.putLong(0, value.toInstant().toEpochMilli());
+        return bytes;
+    }
+}
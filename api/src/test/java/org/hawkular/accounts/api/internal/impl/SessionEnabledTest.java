@@ -17,6 +17,8 @@
 package org.hawkular.accounts.api.internal.impl;
 
 import static org.hawkular.commons.cassandra.EmbeddedConstants.CASSANDRA_YAML;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -29,19 +31,21 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.util.stream.Collectors;
 
-import javax.enterprise.inject.Instance;
+import javax.enterprise.event.Event;
 
 import org.apache.cassandra.service.EmbeddedCassandraService;
 import org.apache.thrift.transport.TTransportException;
 import org.hawkular.accounts.api.internal.ApplicationResources;
-import org.hawkular.accounts.api.internal.BoundStatements;
+import org.hawkular.accounts.api.internal.PermissionDecisionCache;
+import org.hawkular.accounts.api.internal.PermissionInputsChangedEvent;
+import org.hawkular.accounts.api.internal.ResourceOwnerCache;
+import org.hawkular.accounts.api.internal.StatementRegistry;
 import org.hawkular.accounts.api.model.Role;
 import org.hawkular.accounts.common.ZonedDateTimeAdapter;
 import org.hawkular.commons.cassandra.CassandraYaml;
 import org.hawkular.commons.cassandra.CassandraYaml.CassandraYamlKey;
 import org.junit.Before;
 
-import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.ProtocolVersion;
 import com.datastax.driver.core.Session;
@@ -73,6 +77,10 @@ public abstract class SessionEnabledTest {
     PermissionCheckerImpl permissionChecker = new PermissionCheckerImpl();
     UserSettingsServiceImpl settingsService = new UserSettingsServiceImpl();
     OrganizationJoinRequestServiceImpl joinRequestService = new OrganizationJoinRequestServiceImpl();
+    PermissionDecisionCache decisionCache = new PermissionDecisionCache();
+    RoleLattice roleLattice = new RoleLattice();
+    ResourceOwnerCache ownerCache = new ResourceOwnerCache();
+    EffectiveRolesProjection effectiveRoles = new EffectiveRolesProjection();
     Role superUser;
     Role administrator;
     Role auditor;
@@ -86,116 +94,91 @@ public abstract class SessionEnabledTest {
         prepareCassandra();
         ApplicationResources resources = new ApplicationResources();
         resources.setSession(session);
+        StatementRegistry statements = resources.getStatementRegistry();
 
         ZonedDateTimeAdapter zonedDateTimeAdapter = new ZonedDateTimeAdapter();
 
+        // there's no CDI here, so, we deliver the events to the cache and to the projection ourselves
+        Event<PermissionInputsChangedEvent> permissionInputsChanged = mock(Event.class);
+        doAnswer(invocation -> {
+            decisionCache.invalidate((PermissionInputsChangedEvent) invocation.getArguments()[0]);
+            effectiveRoles.invalidate((PermissionInputsChangedEvent) invocation.getArguments()[0]);
+            return null;
+        }).when(permissionInputsChanged).fire(any(PermissionInputsChangedEvent.class));
+
         roleService.session = session;
+        roleService.statements = statements;
+        roleService.roleLattice = roleLattice;
+        roleLattice.roleService = roleService;
         roleService.zonedDateTimeAdapter = zonedDateTimeAdapter;
-        roleService.stmtCreateInstance = getMocked(BoundStatements.ROLES_CREATE);
-        roleService.stmtGetByIdInstance = getMocked(BoundStatements.ROLES_GET_BY_ID);
-        roleService.stmtGetByNameInstance = getMocked(BoundStatements.ROLES_GET_BY_NAME);
 
         userService.session = session;
+        userService.statements = statements;
         userService.zonedDateTimeAdapter = zonedDateTimeAdapter;
-        userService.stmtCreateInstance = getMocked(BoundStatements.USER_CREATE);
-        userService.stmtAllUsersInstance = getMocked(BoundStatements.USER_ALL);
-        userService.stmtGetByIdInstance = getMocked(BoundStatements.USER_GET_BY_ID);
-        userService.stmtUpdateInstance = getMocked(BoundStatements.USER_UPDATE);
 
         permissionService.session = session;
+        permissionService.statements = statements;
         permissionService.zonedDateTimeAdapter = zonedDateTimeAdapter;
         permissionService.operationService = operationService;
         permissionService.roleService = roleService;
-        permissionService.stmtGetByIdInstance = getMocked(BoundStatements.PERMISSION_GET_BY_ID);
-        permissionService.stmtGetByOperationInstance = getMocked(BoundStatements.PERMISSIONS_GET_BY_OPERATION);
-        permissionService.stmtCreateInstance = getMocked(BoundStatements.PERMISSION_CREATE);
-        permissionService.stmtDeleteInstance = getMocked(BoundStatements.PERMISSION_DELETE);
 
         operationService.session = session;
+        operationService.statements = statements;
         operationService.zonedDateTimeAdapter = zonedDateTimeAdapter;
-        operationService.stmtGetByNameInstance = getMocked(BoundStatements.OPERATION_GET_BY_NAME);
-        operationService.stmtGetByIdInstance = getMocked(BoundStatements.OPERATION_GET_BY_ID);
-        operationService.stmtCreateInstance = getMocked(BoundStatements.OPERATION_CREATE);
         operationService.roleService = roleService;
         operationService.permissionService = permissionService;
+        operationService.permissionInputsChanged = permissionInputsChanged;
 
         resourceService.session = session;
+        resourceService.statements = statements;
         resourceService.zonedDateTimeAdapter = zonedDateTimeAdapter;
         resourceService.personaResourceRoleService = personaResourceRoleService;
         resourceService.personaService = personaService;
-        resourceService.stmtGetByIdInstance = getMocked(BoundStatements.RESOURCE_GET_BY_ID);
-        resourceService.stmtGetByPersonaInstance = getMocked(BoundStatements.RESOURCE_GET_BY_PERSONA);
-        resourceService.stmtCreateInstance = getMocked(BoundStatements.RESOURCE_CREATE);
-        resourceService.stmtTransferInstance = getMocked(BoundStatements.RESOURCE_TRANSFER);
+        resourceService.permissionInputsChanged = permissionInputsChanged;
+        resourceService.ownerCache = ownerCache;
 
         personaResourceRoleService.session = session;
+        personaResourceRoleService.statements = statements;
         personaResourceRoleService.zonedDateTimeAdapter = zonedDateTimeAdapter;
         personaResourceRoleService.resourceService = resourceService;
         personaResourceRoleService.personaService = personaService;
         personaResourceRoleService.roleService = roleService;
-        personaResourceRoleService.stmtCreateInstance = getMocked(BoundStatements.PRR_CREATE);
-        personaResourceRoleService.stmtGetByIdInstance = getMocked(BoundStatements.PRR_GET_BY_ID);
-        personaResourceRoleService.stmtGetByPersonaInstance = getMocked(BoundStatements.PRR_GET_BY_PERSONA);
-        personaResourceRoleService.stmtGetByResourceInstance = getMocked(BoundStatements.PRR_GET_BY_RESOURCE);
-        personaResourceRoleService.stmtRemoveInstance = getMocked(BoundStatements.PRR_REMOVE);
+        personaResourceRoleService.permissionInputsChanged = permissionInputsChanged;
 
         membershipService.session = session;
+        membershipService.statements = statements;
         membershipService.zonedDateTimeAdapter = zonedDateTimeAdapter;
         membershipService.resourceService = resourceService;
         membershipService.personaService = personaService;
         membershipService.organizationService = organizationService;
         membershipService.roleService = roleService;
-        membershipService.stmtGetByIdInstance = getMocked(BoundStatements.MEMBERSHIP_GET_BY_ID);
-        membershipService.stmtGetByPersonaInstance = getMocked(BoundStatements.MEMBERSHIP_GET_BY_PERSONA);
-        membershipService.stmtRemoveInstance = getMocked(BoundStatements.MEMBERSHIP_REMOVE);
-        membershipService.stmtCreateInstance = getMocked(BoundStatements.MEMBERSHIP_CREATE);
-        membershipService.stmtChangeRoleInstance = getMocked(BoundStatements.MEMBERSHIP_CHANGE_ROLE);
-        membershipService.stmtGetByOrganizationInstance = getMocked(BoundStatements.MEMBERSHIP_GET_BY_ORGANIZATION);
+        membershipService.permissionInputsChanged = permissionInputsChanged;
 
         organizationService.session = session;
+        organizationService.statements = statements;
         organizationService.zonedDateTimeAdapter = zonedDateTimeAdapter;
         organizationService.membershipService = membershipService;
         organizationService.resourceService = resourceService;
         organizationService.invitationService = invitationService;
         organizationService.personaService = personaService;
         organizationService.joinRequestService = joinRequestService;
-        organizationService.stmtCreateInstance = getMocked(BoundStatements.ORGANIZATION_CREATE);
-        organizationService.stmtGetByIdInstance = getMocked(BoundStatements.ORGANIZATION_GET_BY_ID);
-        organizationService.stmtGetByNameInstance = getMocked(BoundStatements.ORGANIZATION_GET_BY_NAME);
-        organizationService.stmtGetByOwnerInstance = getMocked(BoundStatements.ORGANIZATION_GET_BY_OWNER);
-        organizationService.stmtTransferInstance = getMocked(BoundStatements.ORGANIZATION_TRANSFER);
-        organizationService.stmtRemoveInstance = getMocked(BoundStatements.ORGANIZATION_REMOVE);
-        organizationService.stmtGetApplyInstance = getMocked(BoundStatements.ORGANIZATION_GET_APPLY);
 
         invitationService.session = session;
+        invitationService.statements = statements;
         invitationService.zonedDateTimeAdapter = zonedDateTimeAdapter;
         invitationService.roleService = roleService;
         invitationService.organizationService = organizationService;
         invitationService.userService = userService;
         invitationService.membershipService = membershipService;
-        invitationService.stmtGetByTokenInstance = getMocked(BoundStatements.INVITATION_GET_BY_TOKEN);
-        invitationService.stmtCreateInstance = getMocked(BoundStatements.INVITATIONS_CREATE);
-        invitationService.stmtAcceptInstance = getMocked(BoundStatements.INVITATIONS_ACCEPT);
-        invitationService.stmtDeleteInstance = getMocked(BoundStatements.INVITATIONS_DELETE);
-        invitationService.stmtDispatchedInstance = getMocked(BoundStatements.INVITATIONS_DISPATCH);
-        invitationService.stmtGetByOrganizationInstance = getMocked(BoundStatements.INVITATIONS_GET_BY_ORGANIZATION);
 
         settingsService.session = session;
+        settingsService.statements = statements;
         settingsService.zonedDateTimeAdapter = zonedDateTimeAdapter;
         settingsService.userService = userService;
-        settingsService.stmtGetByIdInstance = getMocked(BoundStatements.SETTINGS_GET_BY_ID);
-        settingsService.stmtGetByUserInstance = getMocked(BoundStatements.SETTINGS_GET_BY_USER);
-        settingsService.stmtCreateInstance = getMocked(BoundStatements.SETTINGS_CREATE);
-        settingsService.stmtUpdateInstance = getMocked(BoundStatements.SETTINGS_UPDATE);
 
         joinRequestService.session = session;
+        joinRequestService.statements = statements;
         joinRequestService.zonedDateTimeAdapter = zonedDateTimeAdapter;
-        joinRequestService.stmtRemove = getMocked(BoundStatements.JOIN_REQUEST_REMOVE);
-        joinRequestService.stmtGetById = getMocked(BoundStatements.JOIN_REQUEST_GET_BY_ID);
-        joinRequestService.stmtCreate = getMocked(BoundStatements.JOIN_REQUEST_CREATE);
-        joinRequestService.stmtListByOrganization = getMocked(BoundStatements.JOIN_REQUEST_LIST_BY_ORGANIZATION);
-        joinRequestService.stmtUpdateStatus = getMocked(BoundStatements.JOIN_REQUEST_UPDATE_STATUS);
-        joinRequestService.stmtListByPersona = getMocked(BoundStatements.JOIN_REQUEST_LIST_BY_PERSONA);
         joinRequestService.resourceService = resourceService;
         joinRequestService.organizationService = organizationService;
         joinRequestService.personaService = personaService;
@@ -206,11 +189,19 @@ public abstract class SessionEnabledTest {
         personaService.userService = userService;
         personaService.resourceService = resourceService;
         personaService.roleService = roleService;
+        personaService.roleLattice = roleLattice;
+        personaService.effectiveRoles = effectiveRoles;
+
+        effectiveRoles.session = session;
+        effectiveRoles.statements = statements;
+        decisionCache.setSession(session);
+        decisionCache.setStatements(statements);
         personaService.personaResourceRoleService = personaResourceRoleService;
 
         permissionChecker.permissionService = permissionService;
         permissionChecker.personaService = personaService;
         permissionChecker.resourceService = resourceService;
+        permissionChecker.decisionCache = decisionCache;
 
         superUser = roleService.getOrCreateByName("SuperUser", "");
         administrator = roleService.getOrCreateByName("Administrator", "");
@@ -302,13 +293,6 @@ public abstract class SessionEnabledTest {
         }
     }
 
-    private Instance<BoundStatement> getMocked(BoundStatements stmtName) {
-        Instance<BoundStatement> mocked = mock(Instance.class);
-        when(mocked.get())
-                .thenReturn(new BoundStatement(session.prepare(stmtName.getValue())));
-        return mocked;
-    }
-
     private String findPathForCassandraYaml(String pathToStart) throws IOException {
         File[] rootDirectories = File.listRoots();
 
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class BaseEntityTest {
+
+    @Test
+    public void builderKeepsStoredValues() {
+        UUID id = UUID.randomUUID();
+        Operation.Builder builder = new Operation.Builder();
+        builder.id(id).createdAt(1451606400000L).updatedAt(1451610000000L);
+        Operation operation = builder.name("foo-create").build();
+
+        assertEquals(id, operation.getIdAsUUID());
+        assertEquals(1451606400000L, operation.getCreatedAtMillis());
+        assertEquals(1451610000000L, operation.getUpdatedAtMillis());
+        assertEquals(ZonedDateTime.of(2016, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC), operation.getCreatedAt());
+        assertEquals(ZonedDateTime.of(2016, 1, 1, 1, 0, 0, 0, ZoneOffset.UTC), operation.getUpdatedAt());
+    }
+
+    @Test
+    public void newEntityGetsDefaults() {
+        long before = System.currentTimeMillis();
+        Operation operation = new Operation.Builder().name("foo-create").build();
+        long after = System.currentTimeMillis();
+
+        assertNotNull(operation.getIdAsUUID());
+        assertEquals(operation.getCreatedAtMillis(), operation.getUpdatedAtMillis());
+        assertTrue(operation.getCreatedAtMillis() >= before && operation.getCreatedAtMillis() <= after);
+    }
+
+    @Test
+    public void zonedDateTimeIsConvertedThroughTheInstant() {
+        ZonedDateTime createdAt = ZonedDateTime.of(2016, 1, 1, 1, 0, 0, 0, ZoneOffset.ofHours(1));
+        Operation operation = new Operation(UUID.randomUUID(), createdAt, null, "foo-create");
+
+        assertEquals(1451606400000L, operation.getCreatedAtMillis());
+        assertEquals(createdAt.toInstant(), operation.getCreatedAt().toInstant());
+    }
+}
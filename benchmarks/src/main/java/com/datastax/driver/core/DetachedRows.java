@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the same {@link Row} implementation the driver hands out for a result set, without a cluster. This lives
+ * in the driver's package because the row and its column definitions can only be built from there.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+public final class DetachedRows {
+    private DetachedRows() {
+    }
+
+    /**
+     * Serializes the given values with the default codecs and wraps them into rows.
+     *
+     * @param keyspace    the keyspace reported by the column definitions
+     * @param table       the table reported by the column definitions
+     * @param columns     the name and type of each column, in the order in which they appear on the rows
+     * @param values      the values for each row, in the same order as the columns. Values might be null.
+     * @return the rows
+     */
+    public static List<Row> of(String keyspace, String table, Map<String, DataType> columns, List<Object[]> values) {
+        ColumnDefinitions.Definition[] definitions = new ColumnDefinitions.Definition[columns.size()];
+        int i = 0;
+        for (Map.Entry<String, DataType> column : columns.entrySet()) {
+            definitions[i++] = new ColumnDefinitions.Definition(keyspace, table, column.getKey(), column.getValue());
+        }
+
+        CodecRegistry codecRegistry = CodecRegistry.DEFAULT_INSTANCE;
+        ColumnDefinitions metadata = new ColumnDefinitions(definitions, codecRegistry);
+        List<Row> rows = new ArrayList<>(values.size());
+        for (Object[] row : values) {
+            List<ByteBuffer> data = new ArrayList<>(row.length);
+            for (int j = 0; j < row.length; j++) {
+                data.add(null == row[j] ? null : codecRegistry
+                        .codecFor(definitions[j].getType(), row[j])
+                        .serialize(row[j], ProtocolVersion.V3));
+            }
+            rows.add(ArrayBackedRow.fromData(metadata, null, ProtocolVersion.V3, data));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.util.List;
+import java.util.Map;
+
+import org.hawkular.accounts.api.model.HawkularUser;
+import org.hawkular.accounts.api.model.Operation;
+import org.hawkular.accounts.api.model.Organization;
+import org.hawkular.accounts.api.model.Persona;
+import org.hawkular.accounts.api.model.Resource;
+import org.hawkular.accounts.api.model.Role;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.Row;
+
+/**
+ * The data store behind the services being measured. The same data shape is built on each backend, so that the
+ * in-memory results show the cost of the code itself and the Cassandra results show what the data store adds to it.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+abstract class Backend {
+    static final String MEMORY = "memory";
+    static final String CASSANDRA = "cassandra";
+
+    static Backend create(String name) {
+        switch (name) {
+            case MEMORY:
+                return new InMemoryBackend();
+            case CASSANDRA:
+                return new CassandraBackend();
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + name);
+        }
+    }
+
+    /**
+     * Wires the services against this backend.
+     * @param caching    whether the permission decisions and the effective roles are cached, as they are in the
+     *                   container. When false, every call goes through the whole computation.
+     */
+    abstract void start(boolean caching) throws Exception;
+
+    void stop() {
+    }
+
+    abstract PermissionCheckerImpl getPermissionChecker();
+
+    abstract PersonaServiceImpl getPersonaService();
+
+    abstract RoleServiceImpl getRoleService();
+
+    abstract Role getRole(String name);
+
+    abstract HawkularUser createUser();
+
+    abstract Organization createOrganization(Persona owner);
+
+    abstract void addMember(Organization organization, Persona member, Role role);
+
+    abstract Resource createResource(Persona owner);
+
+    abstract Resource createResource(Resource parent);
+
+    abstract Operation createOperation(String name, Role... roles);
+
+    /**
+     * Stores the given records on the table and reads them back as the driver's rows.
+     * @param table      the table, from the hawkular_accounts keyspace
+     * @param columns    the columns of the table, in the order in which Cassandra returns them
+     * @param values     the values for each row, in the same order as the columns
+     * @return the rows, as they'd be given to the row mappers
+     */
+    abstract List<Row> createRows(String table, Map<String, DataType> columns, List<Object[]> values);
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.hawkular.accounts.api.model.BaseEntity;
+import org.hawkular.accounts.api.model.OrganizationMembership;
+import org.hawkular.accounts.api.model.PersonaResourceRole;
+import org.hawkular.accounts.api.model.Resource;
+import org.hawkular.accounts.api.model.Role;
+import org.hawkular.accounts.common.ZonedDateTimeAdapter;
+
+import com.datastax.driver.core.Row;
+
+/**
+ * The row mappers as they were before the columns were read by position: each value is looked up by the column's
+ * name and the timestamps go through the {@link ZonedDateTimeAdapter}. Kept as the baseline for the
+ * {@link RowMapperBenchmark}.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+class ByNameRowMappers {
+    private final RowMapperBenchmark.Rows services;
+    private final ZonedDateTimeAdapter zonedDateTimeAdapter = new ZonedDateTimeAdapter();
+
+    ByNameRowMappers(RowMapperBenchmark.Rows services) {
+        this.services = services;
+    }
+
+    List<Resource> resources(List<Row> rows) {
+        return rows.stream().map(row -> {
+            Resource.Builder builder = new Resource.Builder()
+                    .parent(row.getUUID("parent"), services.resourceService::getById)
+                    .persona(row.getUUID("persona"), services.personaService::getById);
+            mapBaseFields(row, builder);
+            return builder.build();
+        }).collect(Collectors.toList());
+    }
+
+    List<Role> roles(List<Row> rows) {
+        return rows.stream().map(row -> {
+            String name = row.getString("name");
+            String description = row.getString("description");
+
+            Role.Builder builder = new Role.Builder();
+            mapBaseFields(row, builder);
+            return builder.description(description).name(name).build();
+        }).collect(Collectors.toList());
+    }
+
+    List<PersonaResourceRole> personaResourceRoles(List<Row> rows) {
+        return rows.stream().map(row -> {
+            PersonaResourceRole.Builder builder = new PersonaResourceRole.Builder();
+            mapBaseFields(row, builder);
+            return builder
+                    .persona(row.getUUID("persona"), services.personaService::getById)
+                    .resource(row.getUUID("resource"), services.resourceService::getById)
+                    .role(row.getUUID("role"), services.roleService::getById)
+                    .build();
+        }).collect(Collectors.toList());
+    }
+
+    List<OrganizationMembership> memberships(List<Row> rows) {
+        return rows.stream().map(row -> {
+            OrganizationMembership.Builder builder = new OrganizationMembership.Builder();
+            mapBaseFields(row, builder);
+            return builder
+                    .organization(row.getUUID("organization"), services.organizationService::getById)
+                    .member(row.getUUID("member"), services.personaService::getById)
+                    .role(row.getUUID("role"), services.roleService::getById)
+                    .build();
+        }).collect(Collectors.toList());
+    }
+
+    private void mapBaseFields(Row row, BaseEntity.Builder builder) {
+        UUID id = row.getUUID("id");
+        ZonedDateTime createdAt = zonedDateTimeAdapter.convertToEntityAttribute(row.getTimestamp("createdAt"));
+        ZonedDateTime updatedAt = zonedDateTimeAdapter.convertToEntityAttribute(row.getTimestamp("updatedAt"));
+        builder
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .id(id);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.accounts.api.internal.PermissionDecisionCache;
+import org.hawkular.accounts.api.model.HawkularUser;
+import org.hawkular.accounts.api.model.Operation;
+import org.hawkular.accounts.api.model.Organization;
+import org.hawkular.accounts.api.model.Persona;
+import org.hawkular.accounts.api.model.Resource;
+import org.hawkular.accounts.api.model.Role;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+
+/**
+ * Runs the services against the embedded Cassandra, wired in the same way as for the tests. A Cassandra already
+ * listening on the test port is reused.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+class CassandraBackend extends Backend {
+    private static final int ROWS_PER_QUERY = 100;
+
+    private final Services services = new Services();
+
+    @Override
+    void start(boolean caching) throws Exception {
+        services.prepare();
+        if (!caching) {
+            services.permissionChecker.decisionCache = new PermissionDecisionCache(1, 0, TimeUnit.MILLISECONDS);
+            services.personaService.effectiveRoles = new EffectiveRolesProjection(0);
+        }
+    }
+
+    @Override
+    PermissionCheckerImpl getPermissionChecker() {
+        return services.permissionChecker;
+    }
+
+    @Override
+    PersonaServiceImpl getPersonaService() {
+        return services.personaService;
+    }
+
+    @Override
+    RoleServiceImpl getRoleService() {
+        return services.roleService;
+    }
+
+    @Override
+    Role getRole(String name) {
+        return services.roleService.getByName(name);
+    }
+
+    @Override
+    HawkularUser createUser() {
+        return services.userService.getOrCreateById(UUID.randomUUID().toString());
+    }
+
+    @Override
+    Organization createOrganization(Persona owner) {
+        String name = "benchmark-" + UUID.randomUUID();
+        return services.organizationService.createOrganization(name, name, owner);
+    }
+
+    @Override
+    void addMember(Organization organization, Persona member, Role role) {
+        services.membershipService.create(organization, member, role);
+    }
+
+    @Override
+    Resource createResource(Persona owner) {
+        return services.resourceService.create(UUID.randomUUID().toString(), owner);
+    }
+
+    @Override
+    Resource createResource(Resource parent) {
+        return services.resourceService.create(UUID.randomUUID().toString(), parent);
+    }
+
+    @Override
+    Operation createOperation(String name, Role... roles) {
+        services.operationService.setup(name).add(roles).persist();
+        return services.operationService.getByName(name);
+    }
+
+    @Override
+    List<Row> createRows(String table, Map<String, DataType> columns, List<Object[]> values) {
+        String[] names = columns.keySet().toArray(new String[columns.size()]);
+        List<Object> ids = new ArrayList<>(values.size());
+        for (Object[] row : values) {
+            Insert insert = QueryBuilder.insertInto("hawkular_accounts", table).values(names, row);
+            SessionEnabledTest.session.execute(insert);
+            ids.add(row[0]);
+        }
+
+        // the first column is the partition key, so, we read the records back in chunks of IDs
+        List<Row> rows = new ArrayList<>(values.size());
+        for (int i = 0; i < ids.size(); i += ROWS_PER_QUERY) {
+            List<Object> chunk = ids.subList(i, Math.min(ids.size(), i + ROWS_PER_QUERY));
+            rows.addAll(SessionEnabledTest.session.execute(QueryBuilder
+                    .select()
+                    .all()
+                    .from("hawkular_accounts", table)
+                    .where(QueryBuilder.in(names[0], chunk))).all());
+        }
+        return rows;
+    }
+
+    /**
+     * The services, as wired by the test harness.
+     */
+    private static class Services extends SessionEnabledTest {
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hawkular.accounts.api.model.HawkularUser;
+import org.hawkular.accounts.api.model.Operation;
+import org.hawkular.accounts.api.model.Organization;
+import org.hawkular.accounts.api.model.Resource;
+import org.hawkular.accounts.api.model.Role;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The data set for the permission checking benchmarks. A user, "jdoe", is a Monitor on each of the organizations,
+ * which are owned by another user. The resources are spread over the organizations, and each one is the root of a
+ * chain of children as deep as the hierarchy depth. The operation being checked is permitted to Monitors, so, all
+ * checks are expected to be granted via the organizations.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@State(Scope.Benchmark)
+public class DataShape {
+    @Param({Backend.MEMORY, Backend.CASSANDRA})
+    public String backend;
+
+    @Param({"false", "true"})
+    public boolean caching;
+
+    @Param({"1", "10", "50"})
+    public int organizationsPerPersona;
+
+    @Param({"10", "100"})
+    public int resourcesPerPersona;
+
+    @Param({"1", "5", "20"})
+    public int hierarchyDepth;
+
+    Backend store;
+    HawkularUser persona;
+    Operation operation;
+
+    /**
+     * The resources owned by the organizations.
+     */
+    List<Resource> roots;
+
+    /**
+     * The IDs of the deepest resource of each chain, which inherit the ownership from the roots.
+     */
+    List<String> leafIds;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        store = Backend.create(backend);
+        store.start(caching);
+
+        Role monitor = store.getRole("Monitor");
+        HawkularUser owner = store.createUser();
+        persona = store.createUser();
+
+        List<Organization> organizations = new ArrayList<>(organizationsPerPersona);
+        for (int i = 0; i < organizationsPerPersona; i++) {
+            Organization organization = store.createOrganization(owner);
+            store.addMember(organization, persona, monitor);
+            organizations.add(organization);
+        }
+
+        roots = new ArrayList<>(resourcesPerPersona);
+        leafIds = new ArrayList<>(resourcesPerPersona);
+        for (int i = 0; i < resourcesPerPersona; i++) {
+            Resource resource = store.createResource(organizations.get(i % organizationsPerPersona));
+            roots.add(resource);
+            for (int depth = 1; depth < hierarchyDepth; depth++) {
+                resource = store.createResource(resource);
+            }
+            leafIds.add(resource.getId());
+        }
+
+        operation = store.createOperation("benchmark-operation", monitor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.stop();
+    }
+}
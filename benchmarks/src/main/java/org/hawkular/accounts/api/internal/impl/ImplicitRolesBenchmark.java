@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.accounts.api.model.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of expanding a role into the roles it implies and into the roles that imply it.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ImplicitRolesBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Roles {
+        @Param({Backend.MEMORY, Backend.CASSANDRA})
+        public String backend;
+
+        Backend store;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            store = Backend.create(backend);
+            store.start(true);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            store.stop();
+        }
+    }
+
+    @Benchmark
+    public Set<Role> getImplicitUserRoles(Roles roles) {
+        return roles.store.getRoleService().getImplicitUserRoles("Administrator");
+    }
+
+    @Benchmark
+    public Set<Role> getImplicitPermittedRoles(Roles roles) {
+        return roles.store.getRoleService().getImplicitPermittedRoles("Monitor");
+    }
+}
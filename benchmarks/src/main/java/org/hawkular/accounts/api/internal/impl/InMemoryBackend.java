@@ -0,0 +1,300 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.hawkular.accounts.api.OrganizationMembershipService;
+import org.hawkular.accounts.api.OrganizationService;
+import org.hawkular.accounts.api.PermissionService;
+import org.hawkular.accounts.api.PersonaResourceRoleService;
+import org.hawkular.accounts.api.ResourceService;
+import org.hawkular.accounts.api.RoleService;
+import org.hawkular.accounts.api.internal.PermissionDecisionCache;
+import org.hawkular.accounts.api.model.HawkularUser;
+import org.hawkular.accounts.api.model.Operation;
+import org.hawkular.accounts.api.model.Organization;
+import org.hawkular.accounts.api.model.OrganizationMembership;
+import org.hawkular.accounts.api.model.Persona;
+import org.hawkular.accounts.api.model.PersonaResourceRole;
+import org.hawkular.accounts.api.model.Resource;
+import org.hawkular.accounts.api.model.Role;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.DetachedRows;
+import com.datastax.driver.core.Row;
+
+/**
+ * Keeps the records in maps and stands in for the data-bound services, so that the permission checker, the persona
+ * service and the role lattice run as they do in the container, but without any I/O. Only the methods used on the
+ * permission checking path are available: the other methods of the stand-ins throw
+ * {@link UnsupportedOperationException}.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+class InMemoryBackend extends Backend {
+    private final Map<String, Role> roles = new HashMap<>();
+    private final Map<UUID, Resource> resources = new ConcurrentHashMap<>();
+    private final Map<UUID, Organization> organizations = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<Role>> permittedRoles = new ConcurrentHashMap<>();
+    private final Map<UUID, List<OrganizationMembership>> membershipsByMember = new ConcurrentHashMap<>();
+    private final Map<List<UUID>, List<PersonaResourceRole>> personaResourceRoles = new ConcurrentHashMap<>();
+
+    private final RoleLattice roleLattice = new RoleLattice();
+    private final RoleServiceImpl roleService = new RoleServiceImpl();
+    private final PersonaServiceImpl personaService = new PersonaServiceImpl();
+    private final PermissionCheckerImpl permissionChecker = new PermissionCheckerImpl();
+
+    @Override
+    void start(boolean caching) {
+        RoleLattice.NAMES.forEach(name -> roles.put(name, new Role(name, "")));
+
+        RoleService roleStore = stub(RoleService.class, new Object() {
+            public Role getByName(String name) {
+                return roles.get(name);
+            }
+
+            public Role getById(UUID id) {
+                return roles.values().stream().filter(r -> r.getIdAsUUID().equals(id)).findFirst().orElse(null);
+            }
+        });
+        roleLattice.roleService = roleStore;
+        roleService.roleLattice = roleLattice;
+
+        ResourceService resourceStore = stub(ResourceService.class, new Object() {
+            public Resource get(String id) {
+                return resources.get(UUID.fromString(id));
+            }
+
+            public Map<String, Resource> get(Collection<String> ids) {
+                Map<String, Resource> found = new LinkedHashMap<>(ids.size());
+                ids.forEach(id -> {
+                    Resource resource = get(id);
+                    if (null != resource) {
+                        found.put(id, resource);
+                    }
+                });
+                return found;
+            }
+
+            public Resource getById(UUID id) {
+                return resources.get(id);
+            }
+
+            public CompletionStage<Resource> getOwningResourceAsync(Resource resource) {
+                Resource owning = resource;
+                while (null == owning.getPersonaId()) {
+                    owning = resources.get(owning.getParentId());
+                }
+                return CompletableFuture.completedFuture(owning);
+            }
+        });
+
+        PermissionService permissionStore = stub(PermissionService.class, new Object() {
+            public CompletionStage<Set<Role>> getPermittedRolesAsync(Operation operation) {
+                Set<Role> permitted = permittedRoles.getOrDefault(operation.getIdAsUUID(), Collections.emptySet());
+                return CompletableFuture.completedFuture(new HashSet<>(permitted));
+            }
+        });
+
+        PersonaResourceRoleService personaResourceRoleStore = stub(PersonaResourceRoleService.class, new Object() {
+            public CompletionStage<List<PersonaResourceRole>> getByPersonaAndResourceAsync(Persona persona,
+                                                                                          Resource resource) {
+                List<UUID> key = key(persona.getIdAsUUID(), resource.getIdAsUUID());
+                List<PersonaResourceRole> found = personaResourceRoles.getOrDefault(key, Collections.emptyList());
+                return CompletableFuture.completedFuture(new ArrayList<>(found));
+            }
+        });
+
+        OrganizationMembershipService membershipStore = stub(OrganizationMembershipService.class, new Object() {
+            public CompletionStage<List<OrganizationMembership>> getMembershipsForPersonaAsync(Persona persona) {
+                List<OrganizationMembership> found = membershipsByMember
+                        .getOrDefault(persona.getIdAsUUID(), Collections.emptyList());
+                return CompletableFuture.completedFuture(new ArrayList<>(found));
+            }
+        });
+
+        OrganizationService organizationStore = stub(OrganizationService.class, new Object() {
+            public Organization getById(UUID id) {
+                return organizations.get(id);
+            }
+
+            public List<Organization> getByIds(Collection<UUID> ids) {
+                return ids.stream().map(organizations::get).filter(Objects::nonNull).collect(Collectors.toList());
+            }
+        });
+
+        personaService.roleService = roleStore;
+        personaService.roleLattice = roleLattice;
+        personaService.resourceService = resourceStore;
+        personaService.personaResourceRoleService = personaResourceRoleStore;
+        personaService.membershipService = membershipStore;
+        personaService.organizationService = organizationStore;
+
+        // the projection lives on Cassandra, so, the only caching available here is the one for the decisions
+        personaService.effectiveRoles = new EffectiveRolesProjection(0);
+
+        permissionChecker.permissionService = permissionStore;
+        permissionChecker.personaService = personaService;
+        permissionChecker.resourceService = resourceStore;
+        permissionChecker.decisionCache = caching
+                ? new PermissionDecisionCache()
+                : new PermissionDecisionCache(1, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    PermissionCheckerImpl getPermissionChecker() {
+        return permissionChecker;
+    }
+
+    @Override
+    PersonaServiceImpl getPersonaService() {
+        return personaService;
+    }
+
+    @Override
+    RoleServiceImpl getRoleService() {
+        return roleService;
+    }
+
+    @Override
+    Role getRole(String name) {
+        return roles.get(name);
+    }
+
+    @Override
+    HawkularUser createUser() {
+        return new HawkularUser(UUID.randomUUID().toString());
+    }
+
+    @Override
+    Organization createOrganization(Persona owner) {
+        // same records as the organization service creates: the resource for the organization, owned by the owner,
+        // and the owner as super user of the organization, which is the super user of itself
+        Organization organization = new Organization(owner);
+        organizations.put(organization.getIdAsUUID(), organization);
+        Resource resource = new Resource(organization.getId(), owner, null);
+        resources.put(resource.getIdAsUUID(), resource);
+        addRole(owner, resource, getRole("SuperUser"));
+        addRole(organization, resource, getRole("SuperUser"));
+        addMember(organization, owner, getRole("SuperUser"));
+        return organization;
+    }
+
+    @Override
+    void addMember(Organization organization, Persona member, Role role) {
+        membershipsByMember
+                .computeIfAbsent(member.getIdAsUUID(), id -> new ArrayList<>())
+                .add(new OrganizationMembership(organization, member, role));
+    }
+
+    @Override
+    Resource createResource(Persona owner) {
+        Resource resource = new Resource(UUID.randomUUID().toString(), owner, null);
+        resources.put(resource.getIdAsUUID(), resource);
+        addRole(owner, resource, getRole("SuperUser"));
+        return resource;
+    }
+
+    @Override
+    Resource createResource(Resource parent) {
+        Resource resource = new Resource(UUID.randomUUID().toString(), null, parent);
+        resources.put(resource.getIdAsUUID(), resource);
+        return resource;
+    }
+
+    @Override
+    Operation createOperation(String name, Role... permitted) {
+        Operation operation = new Operation(name);
+        Set<Role> permittedWithImplicit = new HashSet<>();
+        for (Role role : permitted) {
+            permittedWithImplicit.add(role);
+            permittedWithImplicit.addAll(roleService.getImplicitPermittedRoles(role));
+        }
+        permittedRoles.put(operation.getIdAsUUID(), permittedWithImplicit);
+        return operation;
+    }
+
+    @Override
+    List<Row> createRows(String table, Map<String, DataType> columns, List<Object[]> values) {
+        return DetachedRows.of("hawkular_accounts", table, columns, values);
+    }
+
+    private void addRole(Persona persona, Resource resource, Role role) {
+        personaResourceRoles
+                .computeIfAbsent(key(persona.getIdAsUUID(), resource.getIdAsUUID()), k -> new ArrayList<>())
+                .add(new PersonaResourceRole(persona, role, resource));
+    }
+
+    private static List<UUID> key(UUID personaId, UUID resourceId) {
+        List<UUID> key = new ArrayList<>(2);
+        key.add(personaId);
+        key.add(resourceId);
+        return key;
+    }
+
+    /**
+     * Builds an implementation of the given service that forwards the calls to the delegate's method with the same
+     * signature.
+     */
+    private static <T> T stub(Class<T> type, Object delegate) {
+        Map<Method, Method> targets = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            try {
+                Method target = delegate.getClass().getMethod(method.getName(), method.getParameterTypes());
+                target.setAccessible(true);
+                targets.put(method, target);
+            } catch (NoSuchMethodException e) {
+                // not on the permission checking path
+            }
+        }
+
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+            Method target = targets.get(method);
+            if (Object.class.equals(method.getDeclaringClass())) {
+                return method.invoke(delegate, args);
+            }
+            if (null == target) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            try {
+                return target.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+        return type.cast(proxy);
+    }
+}
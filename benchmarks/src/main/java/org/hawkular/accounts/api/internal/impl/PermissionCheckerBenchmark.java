@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a permission check, one resource at a time and for all the resources of the data shape at once.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PermissionCheckerBenchmark {
+
+    /**
+     * Goes through the resources of the data shape, so that each check is for the next resource.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        String next(DataShape shape) {
+            return shape.leafIds.get(next++ % shape.leafIds.size());
+        }
+    }
+
+    @Benchmark
+    public boolean isAllowedTo(DataShape shape, Cursor cursor) {
+        return shape.store.getPermissionChecker().isAllowedTo(shape.operation, cursor.next(shape), shape.persona);
+    }
+
+    @Benchmark
+    public Map<String, Boolean> isAllowedToBulk(DataShape shape) {
+        return shape.store.getPermissionChecker().isAllowedTo(shape.operation, shape.leafIds, shape.persona);
+    }
+}
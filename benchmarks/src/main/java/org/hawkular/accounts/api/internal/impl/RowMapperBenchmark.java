@@ -0,0 +1,212 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.api.internal.impl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.accounts.api.model.OrganizationMembership;
+import org.hawkular.accounts.api.model.PersonaResourceRole;
+import org.hawkular.accounts.api.model.Resource;
+import org.hawkular.accounts.api.model.Role;
+import org.hawkular.accounts.common.ZonedDateTimeAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.Row;
+
+/**
+ * Cost of mapping the driver's rows into entities, as done for each record read by the services. The rows are read
+ * once during the setup, so, only the mapping itself is measured. The "ByName" benchmarks are the baseline, with the
+ * columns looked up by name on each row.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Rows {
+        @Param({Backend.MEMORY, Backend.CASSANDRA})
+        public String backend;
+
+        @Param({"10", "1000"})
+        public int rows;
+
+        Backend store;
+        ResourceServiceImpl resourceService = new ResourceServiceImpl();
+        RoleServiceImpl roleService = new RoleServiceImpl();
+        PersonaResourceRoleServiceImpl personaResourceRoleService = new PersonaResourceRoleServiceImpl();
+        OrganizationMembershipServiceImpl membershipService = new OrganizationMembershipServiceImpl();
+        PersonaServiceImpl personaService = new PersonaServiceImpl();
+        OrganizationServiceImpl organizationService = new OrganizationServiceImpl();
+        ByNameRowMappers byName = new ByNameRowMappers(this);
+
+        List<Row> resources;
+        List<Row> roles;
+        List<Row> personaResourceRoles;
+        List<Row> memberships;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            store = Backend.create(backend);
+            store.start(false);
+
+            // the references are resolved lazily, so, the other services are never called while mapping
+            ZonedDateTimeAdapter zonedDateTimeAdapter = new ZonedDateTimeAdapter();
+            resourceService.zonedDateTimeAdapter = zonedDateTimeAdapter;
+            resourceService.personaService = personaService;
+            roleService.zonedDateTimeAdapter = zonedDateTimeAdapter;
+            personaResourceRoleService.zonedDateTimeAdapter = zonedDateTimeAdapter;
+            personaResourceRoleService.personaService = personaService;
+            personaResourceRoleService.resourceService = resourceService;
+            personaResourceRoleService.roleService = roleService;
+            membershipService.zonedDateTimeAdapter = zonedDateTimeAdapter;
+            membershipService.personaService = personaService;
+            membershipService.organizationService = organizationService;
+            membershipService.roleService = roleService;
+
+            // the columns are in the order Cassandra returns them: the key first, the others in alphabetical order
+            Map<String, DataType> columns = columns("id", DataType.uuid(), "createdat", DataType.timestamp(),
+                    "parent", DataType.uuid(), "persona", DataType.uuid(), "updatedat", DataType.timestamp());
+            resources = store.createRows("resources", columns, values(columns.size(), (i, row) -> {
+                // half of the resources are owned, the other half are children
+                row[i % 2 == 0 ? 2 : 3] = UUID.randomUUID();
+            }));
+
+            columns = columns("id", DataType.uuid(), "createdat", DataType.timestamp(),
+                    "description", DataType.text(), "name", DataType.text(), "updatedat", DataType.timestamp());
+            roles = store.createRows("roles", columns, values(columns.size(), (i, row) -> {
+                row[2] = "Role used by the benchmarks";
+                row[3] = "benchmark-role-" + row[0];
+            }));
+
+            columns = columns("id", DataType.uuid(), "createdat", DataType.timestamp(), "persona", DataType.uuid(),
+                    "resource", DataType.uuid(), "role", DataType.uuid(), "updatedat", DataType.timestamp());
+            personaResourceRoles = store.createRows("persona_resource_roles", columns, values(columns.size(),
+                    (i, row) -> fillReferences(row)));
+
+            columns = columns("id", DataType.uuid(), "createdat", DataType.timestamp(), "member", DataType.uuid(),
+                    "organization", DataType.uuid(), "role", DataType.uuid(), "updatedat", DataType.timestamp());
+            memberships = store.createRows("organization_memberships", columns, values(columns.size(),
+                    (i, row) -> fillReferences(row)));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            store.stop();
+        }
+
+        private static Map<String, DataType> columns(Object... namesAndTypes) {
+            Map<String, DataType> columns = new LinkedHashMap<>(namesAndTypes.length / 2);
+            for (int i = 0; i < namesAndTypes.length; i += 2) {
+                columns.put((String) namesAndTypes[i], (DataType) namesAndTypes[i + 1]);
+            }
+            return columns;
+        }
+
+        /**
+         * Builds the values for the rows, with the ID and the timestamps set. The other columns are set by the
+         * given filler.
+         */
+        private List<Object[]> values(int columns, RowFiller filler) {
+            List<Object[]> values = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                Object[] row = new Object[columns];
+                Date now = new Date();
+                row[0] = UUID.randomUUID();
+                row[1] = now;
+                row[columns - 1] = now;
+                filler.fill(i, row);
+                values.add(row);
+            }
+            return values;
+        }
+
+        private static void fillReferences(Object[] row) {
+            row[2] = UUID.randomUUID();
+            row[3] = UUID.randomUUID();
+            row[4] = UUID.randomUUID();
+        }
+    }
+
+    @FunctionalInterface
+    interface RowFiller {
+        void fill(int index, Object[] row);
+    }
+
+    @Benchmark
+    public List<Resource> resources(Rows rows) {
+        return rows.resourceService.getFromRows(rows.resources);
+    }
+
+    @Benchmark
+    public List<Role> roles(Rows rows) {
+        return rows.roleService.getFromRows(rows.roles);
+    }
+
+    @Benchmark
+    public List<PersonaResourceRole> personaResourceRoles(Rows rows) {
+        return rows.personaResourceRoleService.getFromRows(rows.personaResourceRoles);
+    }
+
+    @Benchmark
+    public List<OrganizationMembership> memberships(Rows rows) {
+        return rows.membershipService.getFromRows(rows.memberships);
+    }
+
+    @Benchmark
+    public List<Resource> resourcesByName(Rows rows) {
+        return rows.byName.resources(rows.resources);
+    }
+
+    @Benchmark
+    public List<Role> rolesByName(Rows rows) {
+        return rows.byName.roles(rows.roles);
+    }
+
+    @Benchmark
+    public List<PersonaResourceRole> personaResourceRolesByName(Rows rows) {
+        return rows.byName.personaResourceRoles(rows.personaResourceRoles);
+    }
+
+    @Benchmark
+    public List<OrganizationMembership> membershipsByName(Rows rows) {
+        return rows.byName.memberships(rows.memberships);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common;
+
+import java.util.regex.Pattern;
+
+/**
+ * The endpoints of the authentication server that are called by the {@link AuthServerRequestExecutor}, each with its
+ * own timeout and latency histogram.
+ * <p>
+ * The timeouts, in milliseconds, can be changed with the system properties
+ * {@code hawkular-accounts.auth-server.<name>-timeout}, like {@code hawkular-accounts.auth-server.token-timeout}.
+ * The default is the value of {@code org.hawkular.accounts.http.timeout}, or 5 seconds.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+public enum AuthServerEndpoint {
+    /**
+     * The token introspection endpoint, used to verify tokens.
+     */
+    INTROSPECTION("introspection"),
+
+    /**
+     * The token endpoint, used to convert credentials into tokens.
+     */
+    TOKEN("token"),
+
+    /**
+     * The realm's public information, like its public key.
+     */
+    REALM("realm"),
+
+    /**
+     * Any other endpoint.
+     */
+    OTHER("other");
+
+    private static final Pattern REALM_PATH = Pattern.compile(".*/realms/[^/]+/?");
+
+    private final String name;
+
+    AuthServerEndpoint(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the timeout for the connection and for reading the response, in milliseconds
+     */
+    int getTimeout() {
+        String defaultTimeout = System.getProperty("org.hawkular.accounts.http.timeout", "5000");
+        return Integer.parseInt(System.getProperty("hawkular-accounts.auth-server." + name + "-timeout",
+                defaultTimeout));
+    }
+
+    /**
+     * Determines the endpoint based on the URL's path.
+     * @param url    the full URL, with or without query parameters
+     * @return the endpoint, or {@link #OTHER} if it's not one of the known ones
+     */
+    static AuthServerEndpoint of(String url) {
+        int queryStart = url.indexOf('?');
+        String path = queryStart < 0 ? url : url.substring(0, queryStart);
+
+        if (path.endsWith("/protocol/openid-connect/token/introspect")) {
+            return INTROSPECTION;
+        }
+        if (path.endsWith("/protocol/openid-connect/token")) {
+            return TOKEN;
+        }
+        if (REALM_PATH.matcher(path).matches()) {
+            return REALM;
+        }
+        return OTHER;
+    }
+}
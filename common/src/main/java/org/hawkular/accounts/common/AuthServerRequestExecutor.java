@@ -16,25 +16,60 @@
  */
 package org.hawkular.accounts.common;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.hawkular.accounts.common.internal.MsgLogger;
 
 /**
+ * Executes the HTTP calls to the authentication server.
+ * <p>
+ * The calls are made with {@link HttpURLConnection}, so, there's no connection pool of our own: an idle connection is
+ * reused only if the JVM's keep-alive cache has kept it, and a new one pays the TCP and TLS setup again. The number
+ * of concurrent calls is limited by the system property {@code hawkular-accounts.auth-server.max-connections}. Unless
+ * the standard {@code http.maxConnections} system property has been set, it's set to the same value, so that the
+ * keep-alive cache is able to keep one idle connection per allowed call. As the JVM reads that property only once,
+ * this has no effect if an HTTP connection has been kept alive before this class is created.
+ * <p>
+ * The synchronous calls wait on the caller's thread for a free slot, up to the timeout of the endpoint. The
+ * asynchronous calls wait on a queue instead, and are handed to the executor only once there's a free slot, so that
+ * no executor thread is blocked while waiting. In both cases, the call fails if it couldn't start within the timeout.
+ * The timeouts are set per endpoint, as described on {@link AuthServerEndpoint}, and the latency of each endpoint is
+ * recorded in a {@link LatencyHistogram}.
+ *
  * @author Juraci Paixão Kröhling
  */
 @ApplicationScoped
 public class AuthServerRequestExecutor {
+    private static final String MAX_CONNECTIONS = "hawkular-accounts.auth-server.max-connections";
+    private static final String KEEP_ALIVE_CONNECTIONS = "http.maxConnections";
+
     MsgLogger logger = MsgLogger.LOGGER;
 
     @Inject @RealmResourceName
@@ -43,6 +78,36 @@ public class AuthServerRequestExecutor {
     @Inject @RealmResourceSecret
     private String secret;
 
+    /**
+     * The executor to run the asynchronous calls on. Might be null, when used outside of a container.
+     */
+    @Resource
+    ManagedExecutorService executor;
+
+    private final Semaphore connections;
+    private final Queue<PendingCall> pendingCalls = new ConcurrentLinkedQueue<>();
+    private final Map<AuthServerEndpoint, Integer> timeouts = new EnumMap<>(AuthServerEndpoint.class);
+    private final Map<AuthServerEndpoint, LatencyHistogram> latencies = new EnumMap<>(AuthServerEndpoint.class);
+    private volatile String authorizationHeader;
+
+    public AuthServerRequestExecutor() {
+        this(Integer.parseInt(System.getProperty(MAX_CONNECTIONS, "20")));
+    }
+
+    public AuthServerRequestExecutor(int maxConnections) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("The maximum number of connections should be positive.");
+        }
+        this.connections = new Semaphore(maxConnections);
+        if (null == System.getProperty(KEEP_ALIVE_CONNECTIONS)) {
+            System.setProperty(KEEP_ALIVE_CONNECTIONS, Integer.toString(maxConnections));
+        }
+        for (AuthServerEndpoint endpoint : AuthServerEndpoint.values()) {
+            timeouts.put(endpoint, endpoint.getTimeout());
+            latencies.put(endpoint, new LatencyHistogram());
+        }
+    }
+
     public String execute(String url, String method) throws Exception {
         return execute(url, null, clientId, secret, method);
     }
@@ -68,44 +133,145 @@ public class AuthServerRequestExecutor {
     public String execute(String url, String urlParameters, String clientId, String secret, String method) throws
             Exception {
         logger.executingAuthServerRequest(url, clientId, method);
+        AuthServerEndpoint endpoint = AuthServerEndpoint.of(url);
+        int timeout = timeouts.get(endpoint);
 
-        HttpURLConnection connection;
-        String credentials = clientId + ":" + secret;
-        String authorizationHeader = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes());
+        if (!connections.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+            throw new UsernamePasswordConversionException("Timed out when waiting for a connection to the Keycloak " +
+                    "server.");
+        }
+        return executeAcquired(url, urlParameters, clientId, secret, method, endpoint, timeout);
+    }
+
+    /**
+     * Asynchronous version of {@link #execute(String, String, String)}.
+     * @see #executeAsync(String, String, String, String, String)
+     */
+    public CompletionStage<String> executeAsync(String url, String urlParameters, String method) {
+        return executeAsync(url, urlParameters, clientId, secret, method);
+    }
+
+    /**
+     * Asynchronous version of {@link #execute(String, String, String, String, String)}, which doesn't block the
+     * caller while the call is performed.
+     * @param url              the full URL to call, including protocol, host, port and path.
+     * @param urlParameters    the HTTP Query Parameters properly encoded and without the leading "?".
+     * @param clientId         the OAuth client ID.
+     * @param secret           the OAuth client secret.
+     * @param method           the HTTP method to use (GET or POST). If anything other than POST is sent, GET is used.
+     * @return a stage that completes with the response from the Keycloak server, or exceptionally if communication
+     * problems with the Keycloak server occurs.
+     */
+    public CompletionStage<String> executeAsync(String url, String urlParameters, String clientId, String secret,
+                                                String method) {
+        logger.executingAuthServerRequest(url, clientId, method);
+        AuthServerEndpoint endpoint = AuthServerEndpoint.of(url);
+        int timeout = timeouts.get(endpoint);
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        pendingCalls.add(new PendingCall(deadline, result,
+                () -> executeAcquired(url, urlParameters, clientId, secret, method, endpoint, timeout)));
+        startPendingCalls();
+        return result;
+    }
+
+    /**
+     * @param endpoint    the endpoint of the authentication server
+     * @return the latencies of the calls to the given endpoint
+     */
+    public LatencyHistogram getLatencyHistogram(AuthServerEndpoint endpoint) {
+        return latencies.get(endpoint);
+    }
+
+    @PreDestroy
+    public void reportStatistics() {
+        latencies.forEach((endpoint, histogram) -> {
+            if (histogram.getCount() > 0) {
+                logger.authServerLatency(endpoint.getName(), histogram.toString());
+            }
+        });
+    }
+
+    /**
+     * Performs the call, once the caller has acquired a slot. The slot is released once the call is done.
+     */
+    private String executeAcquired(String url, String urlParameters, String clientId, String secret, String method,
+                                   AuthServerEndpoint endpoint, int timeout) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return doExecute(url, urlParameters, getAuthorizationHeader(clientId, secret), method, timeout);
+        } catch (SocketTimeoutException timeoutException) {
+            throw new UsernamePasswordConversionException("Timed out when trying to contact the Keycloak server.");
+        } finally {
+            latencies.get(endpoint).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            connections.release();
+            startPendingCalls();
+        }
+    }
+
+    /**
+     * Hands the queued asynchronous calls to the executor, for as long as there are free slots. This is called
+     * whenever a call is queued and whenever a slot is released, so that a queued call is never left behind.
+     */
+    private void startPendingCalls() {
+        while (!pendingCalls.isEmpty() && connections.tryAcquire()) {
+            PendingCall call = pendingCalls.poll();
+            if (null == call) {
+                // another thread took it in the meantime
+                connections.release();
+                continue;
+            }
+
+            if (System.nanoTime() - call.deadline >= 0) {
+                connections.release();
+                call.result.completeExceptionally(new UsernamePasswordConversionException("Timed out when waiting " +
+                        "for a connection to the Keycloak server."));
+                continue;
+            }
+
+            try {
+                getExecutor().execute(() -> {
+                    try {
+                        call.result.complete(call.task.call());
+                    } catch (Exception e) {
+                        call.result.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                connections.release();
+                call.result.completeExceptionally(e);
+            }
+        }
+    }
 
+    private String doExecute(String url, String urlParameters, String authorizationHeader, String method,
+                             int timeout) throws IOException {
+        HttpURLConnection connection;
         if ("POST".equalsIgnoreCase(method)) {
             connection =  (HttpURLConnection) new URL(url).openConnection();
             connection.setRequestMethod(method);
             connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-            connection.setRequestProperty("Authorization", authorizationHeader);
-            connection.setDoInput(true);
-            connection.setDoOutput(true);
-
-            if (null != urlParameters) {
-                try (PrintWriter out = new PrintWriter(connection.getOutputStream())) {
-                    out.print(urlParameters);
-                }
-            }
         } else {
-            connection =  (HttpURLConnection) new URL(url + "?" + urlParameters).openConnection();
+            String fullUrl = null == urlParameters ? url : url + "?" + urlParameters;
+            connection =  (HttpURLConnection) new URL(fullUrl).openConnection();
             connection.setRequestMethod(method);
-            connection.setRequestProperty("Authorization", authorizationHeader);
         }
-
-        int timeout = Integer.parseInt(System.getProperty("org.hawkular.accounts.http.timeout", "5000"));
+        connection.setRequestProperty("Authorization", authorizationHeader);
         connection.setConnectTimeout(timeout);
         connection.setReadTimeout(timeout);
 
-        StringBuilder response = new StringBuilder();
-
-        int statusCode;
-        try {
-            statusCode = connection.getResponseCode();
-            logger.requestExecuted(statusCode);
-        } catch (SocketTimeoutException timeoutException) {
-            throw new UsernamePasswordConversionException("Timed out when trying to contact the Keycloak server.");
+        if ("POST".equalsIgnoreCase(method) && null != urlParameters) {
+            byte[] body = urlParameters.getBytes(StandardCharsets.UTF_8);
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
         }
 
+        int statusCode = connection.getResponseCode();
+        logger.requestExecuted(statusCode);
+
         InputStream inputStream;
         if (statusCode < 300) {
             logger.statusCodeSuccess();
@@ -115,15 +281,63 @@ public class AuthServerRequestExecutor {
             inputStream = connection.getErrorStream();
         }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"))) {
-            for (String line; (line = reader.readLine()) != null;) {
-                response.append(line);
+        // reading the whole response and closing the stream, without disconnecting, allows the connection to be reused
+        String responseAsString = read(inputStream);
+        logger.responseBody(responseAsString);
+        return responseAsString;
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        if (null == inputStream) {
+            return "";
+        }
+
+        try (InputStream in = inputStream) {
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) != -1;) {
+                response.write(buffer, 0, read);
             }
+            return new String(response.toByteArray(), StandardCharsets.UTF_8);
         }
+    }
 
-        String responseAsString = response.toString();
-        logger.responseBody(responseAsString);
-        return responseAsString;
+    private String getAuthorizationHeader(String clientId, String secret) {
+        if (!Objects.equals(clientId, this.clientId) || !Objects.equals(secret, this.secret)) {
+            return encodeCredentials(clientId, secret);
+        }
+
+        // the credentials for the realm's resource don't change, so, they are encoded only once
+        String header = authorizationHeader;
+        if (null == header) {
+            header = encodeCredentials(clientId, secret);
+            authorizationHeader = header;
+        }
+        return header;
+    }
+
+    private static String encodeCredentials(String clientId, String secret) {
+        String credentials = clientId + ":" + secret;
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
     }
 
+    private Executor getExecutor() {
+        if (null == executor) {
+            // outside of a container
+            return ForkJoinPool.commonPool();
+        }
+        return executor;
+    }
+
+    private static final class PendingCall {
+        private final long deadline;
+        private final CompletableFuture<String> result;
+        private final Callable<String> task;
+
+        private PendingCall(long deadline, CompletableFuture<String> result, Callable<String> task) {
+            this.deadline = deadline;
+            this.result = result;
+            this.task = task;
+        }
+    }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded concurrent map whose values expire, meant as the storage of the application-wide caches. The expiration
+ * time of each value is given by a function, on the same clock as the {@code now} passed to the methods, like
+ * {@link System#nanoTime()} or {@link System#currentTimeMillis()}.
+ * <p>
+ * Expired values are removed when they are looked up. Once the map is full, a sweep removes all the expired values
+ * and, if that's not enough, the ones closest to expire, leaving some room so that the sweep doesn't run on every
+ * new value. Only one thread sweeps at a time: the others just go on, as the map is back within bounds soon after.
+ *
+ * @param <K>    the type of the keys
+ * @param <V>    the type of the values
+ * @author Juraci Paixão Kröhling
+ */
+public final class ExpiringMap<K, V> {
+    private final Map<K, V> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final LongAdder evictions = new LongAdder();
+    private final int maxSize;
+    private final ToLongFunction<? super V> expiration;
+
+    /**
+     * @param maxSize       the maximum number of values to keep
+     * @param expiration    gives the time at which a value expires. Might change over time for the same value.
+     */
+    public ExpiringMap(int maxSize, ToLongFunction<? super V> expiration) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum size of the cache should be positive.");
+        }
+        this.maxSize = maxSize;
+        this.expiration = expiration;
+    }
+
+    /**
+     * Retrieves the value for the given key, removing it if it has expired.
+     *
+     * @param key    the key
+     * @param now    the current time
+     * @return the value, or null if there's none or if it has expired
+     */
+    public V get(K key, long now) {
+        V value = entries.get(key);
+        if (null == value) {
+            return null;
+        }
+
+        if (isExpiredAt(value, now)) {
+            if (entries.remove(key, value)) {
+                evictions.increment();
+            }
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Retrieves the value for the given key or, if there's none or it has expired, stores the given value in its
+     * place. This happens atomically, so, callers can tell whether their value was stored by comparing it with the
+     * returned one.
+     *
+     * @param key      the key
+     * @param value    the value to store if there's no valid one for the key
+     * @param now      the current time
+     * @return the current value for the key, which is the given value if it was stored
+     */
+    public V getOrPut(K key, V value, long now) {
+        V current = entries.compute(key, (k, v) -> null != v && !isExpiredAt(v, now) ? v : value);
+        if (current == value) {
+            sweepIfFull(now);
+        }
+        return current;
+    }
+
+    /**
+     * Stores the value for the given key, replacing any previous one.
+     *
+     * @param key      the key
+     * @param value    the value
+     * @param now      the current time
+     */
+    public void put(K key, V value, long now) {
+        entries.put(key, value);
+        sweepIfFull(now);
+    }
+
+    public V remove(K key) {
+        return entries.remove(key);
+    }
+
+    public boolean remove(K key, V value) {
+        return entries.remove(key, value);
+    }
+
+    /**
+     * Removes the entries matching the given predicate, like the ones affected by a change of the data they are
+     * based on.
+     *
+     * @param predicate    tells whether an entry should be removed
+     */
+    public void removeIf(BiPredicate<? super K, ? super V> predicate) {
+        entries.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue()));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of values removed because they expired or to make room for new ones
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private boolean isExpiredAt(V value, long now) {
+        return now - expiration.applyAsLong(value) >= 0;
+    }
+
+    private void sweepIfFull(long now) {
+        if (entries.size() <= maxSize || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            entries.forEach((key, value) -> {
+                if (isExpiredAt(value, now) && entries.remove(key, value)) {
+                    evictions.increment();
+                }
+            });
+
+            int excess = entries.size() - (maxSize - maxSize / 10);
+            if (excess > 0) {
+                // the expiration times are taken once, as they might change while sorting
+                entries.entrySet()
+                        .stream()
+                        .map(e -> new SimpleImmutableEntry<>(e, expiration.applyAsLong(e.getValue())))
+                        .sorted(Comparator.comparingLong(SimpleImmutableEntry::getValue))
+                        .limit(excess)
+                        .map(SimpleImmutableEntry::getKey)
+                        .forEach(e -> {
+                            if (entries.remove(e.getKey(), e.getValue())) {
+                                evictions.increment();
+                            }
+                        });
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of request latencies, with fixed buckets ranging from one millisecond to ten seconds. The
+ * percentiles are approximated by the upper bound of the bucket they fall into.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+public final class LatencyHistogram {
+    // upper bounds of the buckets, in milliseconds. There's one extra bucket, for anything slower than the last one
+    private static final long[] BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Long::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the latency of a request.
+     * @param duration    the latency
+     * @param unit        the unit of the latency
+     */
+    public void record(long duration, TimeUnit unit) {
+        long micros = unit.toMicros(duration);
+        int bucket = 0;
+        while (bucket < BOUNDS.length && micros > TimeUnit.MILLISECONDS.toMicros(BOUNDS[bucket])) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the mean latency, in milliseconds
+     */
+    public double getMean() {
+        long requests = getCount();
+        return requests == 0 ? 0 : totalMicros.sum() / 1000d / requests;
+    }
+
+    /**
+     * @return the highest latency, in milliseconds
+     */
+    public double getMax() {
+        return maxMicros.get() / 1000d;
+    }
+
+    /**
+     * Approximates the given percentile.
+     * @param percentile    the percentile, between 0 and 100
+     * @return the upper bound of the bucket where the percentile falls into, in milliseconds, or the highest latency
+     * if that's lower
+     */
+    public double getPercentile(double percentile) {
+        long requests = getCount();
+        if (requests == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(requests * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return Math.min(BOUNDS[i], getMax());
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.2fms, p50=%.2fms, p99=%.2fms, max=%.2fms",
+                getCount(), getMean(), getPercentile(50), getPercentile(99), getMax());
+    }
+}
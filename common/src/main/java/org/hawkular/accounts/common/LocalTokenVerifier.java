@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+import org.hawkular.accounts.common.internal.MsgLogger;
+
+/**
+ * Verifies RS256 signed tokens against the realm's public key, without contacting the authentication server for each
+ * token. The result has the same format as the response of the token introspection endpoint: the token's claims
+ * with {@code "active": true} for valid tokens, or an object with {@code error} and {@code error_description}
+ * otherwise.
+ * <p>
+ * The key is loaded on the first verification. When a signature doesn't match, the key is loaded again, as the realm
+ * might have rotated it, but not more often than the refresh interval. When no decision can be made, like when the
+ * key can't be loaded or the token is signed with another algorithm, null is returned, so that the caller can fall
+ * back to the introspection.
+ * <p>
+ * Only access tokens ({@code "typ": "Bearer"}) issued by the realm ({@code <auth server URL>/realms/<realm>}) are
+ * accepted.
+ * <p>
+ * The accepted audiences, the allowed clock skew and the key refresh interval can be changed with the system
+ * properties {@code hawkular-accounts.token-verification.audience} (comma separated, any audience is accepted if
+ * empty), {@code hawkular-accounts.token-verification.clock-skew} (seconds) and
+ * {@code hawkular-accounts.token-verification.key-refresh-interval} (milliseconds).
+ *
+ * @author Juraci Paixão Kröhling
+ */
+final class LocalTokenVerifier {
+    private static final String AUDIENCE = "hawkular-accounts.token-verification.audience";
+    private static final String CLOCK_SKEW = "hawkular-accounts.token-verification.clock-skew";
+    private static final String KEY_REFRESH_INTERVAL = "hawkular-accounts.token-verification.key-refresh-interval";
+
+    MsgLogger logger = MsgLogger.LOGGER;
+
+    private final KeyLoader keyLoader;
+    private final Supplier<String> issuer;
+    private final Set<String> audiences;
+    private final long clockSkewSeconds;
+    private final long keyRefreshIntervalNanos;
+
+    private volatile PublicKey key;
+    private long lastLoadedAt;
+
+    /**
+     * Loads the realm's public key.
+     */
+    @FunctionalInterface
+    interface KeyLoader {
+        PublicKey load() throws Exception;
+    }
+
+    LocalTokenVerifier(KeyLoader keyLoader, Supplier<String> issuer) {
+        this(keyLoader, issuer,
+                parseAudiences(System.getProperty(AUDIENCE, "")),
+                Long.parseLong(System.getProperty(CLOCK_SKEW, "30")),
+                Long.parseLong(System.getProperty(KEY_REFRESH_INTERVAL, "60000")), TimeUnit.MILLISECONDS);
+    }
+
+    LocalTokenVerifier(KeyLoader keyLoader, Supplier<String> issuer, Set<String> audiences, long clockSkewSeconds,
+                       long keyRefreshInterval, TimeUnit unit) {
+        this.keyLoader = keyLoader;
+        this.issuer = issuer;
+        this.audiences = audiences;
+        this.clockSkewSeconds = clockSkewSeconds;
+        this.keyRefreshIntervalNanos = unit.toNanos(keyRefreshInterval);
+    }
+
+    /**
+     * Verifies the token.
+     * @param token    the encoded token
+     * @return the claims as JSON for a valid token, an error as JSON for an invalid one or null if the token couldn't
+     * be verified locally
+     */
+    String verify(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return error("Malformed token.");
+        }
+
+        JsonObject header;
+        JsonObject claims;
+        byte[] signature;
+        try {
+            header = readJson(parts[0]);
+            claims = readJson(parts[1]);
+            signature = Base64.getUrlDecoder().decode(parts[2]);
+        } catch (RuntimeException e) {
+            return error("Malformed token.");
+        }
+
+        if (!"RS256".equals(header.getString("alg", null))) {
+            return null;
+        }
+
+        byte[] content = (parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII);
+        PublicKey currentKey = key;
+        try {
+            if (null == currentKey) {
+                currentKey = reloadKey(null);
+            }
+            if (!isSignatureValid(content, signature, currentKey)) {
+                PublicKey reloadedKey = reloadKey(currentKey);
+                if (reloadedKey == currentKey || !isSignatureValid(content, signature, reloadedKey)) {
+                    return error("Invalid token signature.");
+                }
+            }
+        } catch (Exception e) {
+            logger.couldNotVerifyTokenLocally(e);
+            return null;
+        }
+
+        return validateClaims(claims);
+    }
+
+    private String validateClaims(JsonObject claims) {
+        if (!"Bearer".equals(claims.getString("typ", null))) {
+            return error("Token is not an access token.");
+        }
+
+        if (!issuer.get().equals(claims.getString("iss", null))) {
+            return error("Token was not issued by this realm.");
+        }
+
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+
+        JsonNumber expiresAt = claims.getJsonNumber("exp");
+        if (null == expiresAt || now >= expiresAt.longValue() + clockSkewSeconds) {
+            return error("Token is expired.");
+        }
+
+        JsonNumber issuedAt = claims.getJsonNumber("iat");
+        if (null != issuedAt && issuedAt.longValue() > now + clockSkewSeconds) {
+            return error("Token was issued in the future.");
+        }
+
+        if (!audiences.isEmpty() && Collections.disjoint(audiences, getAudiences(claims))) {
+            return error("Token is not meant for this audience.");
+        }
+
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        claims.forEach(builder::add);
+        return builder.add("active", true).build().toString();
+    }
+
+    private synchronized PublicKey reloadKey(PublicKey stale) throws Exception {
+        if (key != stale) {
+            // another thread has already loaded a newer key
+            return key;
+        }
+
+        long now = System.nanoTime();
+        if (null != stale && now - lastLoadedAt < keyRefreshIntervalNanos) {
+            return stale;
+        }
+
+        key = keyLoader.load();
+        lastLoadedAt = now;
+        logger.realmPublicKeyLoaded();
+        return key;
+    }
+
+    private static boolean isSignatureValid(byte[] content, byte[] signature, PublicKey key)
+            throws GeneralSecurityException {
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(key);
+        verifier.update(content);
+        return verifier.verify(signature);
+    }
+
+    private static Set<String> getAudiences(JsonObject claims) {
+        Set<String> tokenAudiences = new HashSet<>();
+        JsonValue audience = claims.get("aud");
+        if (audience instanceof JsonArray) {
+            ((JsonArray) audience).forEach(a -> addAudience(tokenAudiences, a));
+        } else {
+            addAudience(tokenAudiences, audience);
+        }
+        addAudience(tokenAudiences, claims.get("azp"));
+        return tokenAudiences;
+    }
+
+    private static void addAudience(Set<String> tokenAudiences, JsonValue audience) {
+        // values of other types can't match any of the accepted audiences
+        if (audience instanceof JsonString) {
+            tokenAudiences.add(((JsonString) audience).getString());
+        }
+    }
+
+    private static Set<String> parseAudiences(String audiences) {
+        return Arrays.stream(audiences.split(","))
+                .map(String::trim)
+                .filter(a -> !a.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    private static JsonObject readJson(String encoded) {
+        String json = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        try (JsonReader jsonReader = Json.createReader(new StringReader(json))) {
+            return jsonReader.readObject();
+        }
+    }
+
+    private static String error(String description) {
+        return Json.createObjectBuilder()
+                .add("error", "invalid_token")
+                .add("error_description", description)
+                .build()
+                .toString();
+    }
+}
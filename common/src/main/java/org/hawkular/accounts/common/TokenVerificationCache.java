@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+import org.hawkular.accounts.common.internal.MsgLogger;
+
+/**
+ * Application-wide cache for the results of the token verification, keyed by a hash of the token, so that the
+ * authentication server is called once per distinct token instead of once per connection.
+ * <p>
+ * Concurrent verifications of the same token share a single call. The result for an active token is kept until the
+ * token's {@code exp}, while the result for a rejected token is kept only for a short time. Failed verifications,
+ * like when the authentication server can't be reached, are not cached. The cache is bounded: once it's full, the
+ * expired entries are removed and, if that's not enough, the ones closest to expire.
+ * <p>
+ * The size and the time to keep rejections can be changed with the system properties
+ * {@code hawkular-accounts.token-cache.max-size} and {@code hawkular-accounts.token-cache.negative-ttl}, the latter
+ * in milliseconds. A negative TTL of zero disables the caching of rejections.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@ApplicationScoped
+public class TokenVerificationCache {
+    private static final String MAX_SIZE = "hawkular-accounts.token-cache.max-size";
+    private static final String NEGATIVE_TTL = "hawkular-accounts.token-cache.negative-ttl";
+
+    MsgLogger logger = MsgLogger.LOGGER;
+
+    private final ExpiringMap<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final long negativeTtlMillis;
+
+    public TokenVerificationCache() {
+        this(Integer.parseInt(System.getProperty(MAX_SIZE, "10000")),
+                Long.parseLong(System.getProperty(NEGATIVE_TTL, "10000")), TimeUnit.MILLISECONDS);
+    }
+
+    public TokenVerificationCache(int maxSize, long negativeTtl, TimeUnit unit) {
+        this.entries = new ExpiringMap<>(maxSize, entry -> entry.expiresAt);
+        this.negativeTtlMillis = unit.toMillis(negativeTtl);
+    }
+
+    /**
+     * Retrieves the verification result for the given token, verifying it with the given loader if it's not cached
+     * yet or if it has expired. If there's a verification in progress for the same token, its result is shared
+     * instead.
+     *
+     * @param token     the bearer token
+     * @param loader    verifies the token, returning the same JSON as the token introspection endpoint
+     * @return a stage that completes with the verification result
+     */
+    public CompletionStage<String> get(String token, Supplier<CompletionStage<String>> loader) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        Entry created = new Entry();
+        Entry entry = entries.getOrPut(key, created, now);
+        if (entry != created) {
+            hits.increment();
+            return entry.result;
+        }
+
+        misses.increment();
+
+        CompletionStage<String> verification;
+        try {
+            verification = loader.get();
+        } catch (RuntimeException e) {
+            entries.remove(key, created);
+            throw e;
+        }
+
+        verification.whenComplete((result, t) -> {
+            if (null != t) {
+                entries.remove(key, created);
+                created.result.completeExceptionally(t);
+            } else {
+                created.expiresAt = getExpiration(result, System.currentTimeMillis());
+                created.result.complete(result);
+            }
+        });
+        return created.result;
+    }
+
+    /**
+     * Removes all the cached results.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return entries.getEvictions();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void reportStatistics() {
+        logger.tokenCacheStatistics(getHits(), getMisses(), getEvictions());
+    }
+
+    private long getExpiration(String result, long now) {
+        long rejectedUntil = now + negativeTtlMillis;
+        if (null == result) {
+            return rejectedUntil;
+        }
+
+        try (JsonReader jsonReader = Json.createReader(new StringReader(result))) {
+            JsonObject json = jsonReader.readObject();
+            JsonNumber expiresAt = json.getJsonNumber("exp");
+            if (json.containsKey("error") || !json.getBoolean("active", false) || null == expiresAt) {
+                return rejectedUntil;
+            }
+            return TimeUnit.SECONDS.toMillis(expiresAt.longValue());
+        } catch (JsonException | ClassCastException e) {
+            // not something we understand, so, treat it like a rejection
+            return rejectedUntil;
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        // entries being verified don't expire
+        private volatile long expiresAt = Long.MAX_VALUE;
+    }
+}
@@ -16,16 +16,42 @@
  */
 package org.hawkular.accounts.common;
 
+import java.io.StringReader;
 import java.net.URLEncoder;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+import org.hawkular.accounts.common.internal.MsgLogger;
 
 /**
+ * Verifies bearer tokens, returning the same JSON as Keycloak's token introspection endpoint.
+ * <p>
+ * By default, each token is sent to the introspection endpoint. When the system property
+ * {@code hawkular-accounts.token-verification} is set to {@code local}, the token's signature and claims are verified
+ * locally against the realm's public key instead, falling back to the introspection only when the token can't be
+ * verified locally. Note that tokens revoked on the authentication server are then accepted until they expire.
+ * <p>
+ * In both modes, the results are cached per token by the {@link TokenVerificationCache}.
+ *
  * @author Juraci Paixão Kröhling
  */
 @ApplicationScoped
 public class TokenVerifier {
+    private static final String MODE = "hawkular-accounts.token-verification";
+
+    MsgLogger logger = MsgLogger.LOGGER;
+
     @Inject @AuthServerUrl
     private String baseUrl;
 
@@ -35,12 +61,106 @@ public class TokenVerifier {
     @Inject
     AuthServerRequestExecutor executor;
 
+    @Inject
+    TokenVerificationCache cache;
+
+    boolean local = "local".equalsIgnoreCase(System.getProperty(MODE, "introspection"));
+    LocalTokenVerifier localVerifier = new LocalTokenVerifier(this::loadRealmPublicKey, this::getIssuer);
+
     public String verify(String token) throws Exception {
-        String tokenUrl = baseUrl
-                + "/realms/"
-                + URLEncoder.encode(realm, "UTF-8")
-                + "/protocol/openid-connect/token/introspect";
-        String urlParameters = "token=" + URLEncoder.encode(token, "UTF-8");
-        return executor.execute(tokenUrl, urlParameters, "POST");
+        try {
+            return cache.get(token, () -> verifyUncached(token)).toCompletableFuture().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #verify(String)}, which doesn't block the caller while the token is introspected.
+     * @param token    the bearer token
+     * @return a stage that completes with the same JSON as the introspection endpoint
+     */
+    public CompletionStage<String> verifyAsync(String token) {
+        return cache.get(token, () -> verifyUncachedAsync(token));
+    }
+
+    private CompletionStage<String> verifyUncachedAsync(String token) {
+        String result = verifyLocally(token);
+        if (null != result) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        try {
+            return executor.executeAsync(getIntrospectionUrl(), getIntrospectionParameters(token), "POST");
+        } catch (Exception e) {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private CompletionStage<String> verifyUncached(String token) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        try {
+            result.complete(doVerify(token));
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private String doVerify(String token) throws Exception {
+        String result = verifyLocally(token);
+        if (null != result) {
+            return result;
+        }
+        return executor.execute(getIntrospectionUrl(), getIntrospectionParameters(token), "POST");
+    }
+
+    private String verifyLocally(String token) {
+        if (!local) {
+            return null;
+        }
+
+        String result = localVerifier.verify(token);
+        if (null == result) {
+            logger.fallingBackToIntrospection();
+        }
+        return result;
+    }
+
+    private String getIntrospectionUrl() throws Exception {
+        return getRealmUrl() + "/protocol/openid-connect/token/introspect";
+    }
+
+    private static String getIntrospectionParameters(String token) throws Exception {
+        return "token=" + URLEncoder.encode(token, "UTF-8");
+    }
+
+    private PublicKey loadRealmPublicKey() throws Exception {
+        String response = executor.execute(getRealmUrl(), "GET");
+        JsonObject realmJson;
+        try (JsonReader jsonReader = Json.createReader(new StringReader(response))) {
+            realmJson = jsonReader.readObject();
+        }
+
+        String publicKey = realmJson.getString("public_key", null);
+        if (null == publicKey) {
+            throw new IllegalStateException("The authentication server didn't return the realm's public key.");
+        }
+
+        byte[] encoded = Base64.getMimeDecoder().decode(publicKey);
+        return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(encoded));
+    }
+
+    private String getIssuer() {
+        return baseUrl + "/realms/" + realm;
+    }
+
+    private String getRealmUrl() throws Exception {
+        return baseUrl + "/realms/" + URLEncoder.encode(realm, "UTF-8");
     }
 }
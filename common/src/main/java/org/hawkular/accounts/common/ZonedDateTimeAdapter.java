@@ -24,7 +24,9 @@ import java.util.Date;
 import javax.enterprise.context.ApplicationScoped;
 
 /**
- * JPA adapter for converting {@link ZonedDateTime} into {@link Timestamp}.
+ * JPA adapter for converting {@link ZonedDateTime} into {@link Timestamp}. The conversions go through the instant, so
+ * that the JVM's default time zone plays no part in them and no intermediate {@link java.time.LocalDateTime} is
+ * built.
  *
  * @author Juraci Paixão Kröhling
  */
@@ -34,14 +36,14 @@ public class ZonedDateTimeAdapter {
         if (null == attribute) {
             return null;
         }
-        return Timestamp.valueOf(attribute.toLocalDateTime());
+        return new Timestamp(attribute.toInstant().toEpochMilli());
     }
 
     public ZonedDateTime convertToEntityAttribute(Timestamp dbData) {
         if (null == dbData) {
             return null;
         }
-        return ZonedDateTime.of(dbData.toLocalDateTime(), ZoneOffset.UTC);
+        return ZonedDateTime.ofInstant(dbData.toInstant(), ZoneOffset.UTC);
     }
 
     public ZonedDateTime convertToEntityAttribute(Date dbData) {
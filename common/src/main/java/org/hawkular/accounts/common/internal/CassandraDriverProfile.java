@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common.internal;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.HostDistance;
+import com.datastax.driver.core.PoolingOptions;
+import com.datastax.driver.core.ProtocolOptions;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.SocketOptions;
+import com.datastax.driver.core.policies.ConstantSpeculativeExecutionPolicy;
+import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
+import com.datastax.driver.core.policies.TokenAwarePolicy;
+
+/**
+ * Tuning options for the Cassandra driver. Each option is read from a system property and, if that's not set, from
+ * an environment variable, like the {@code CASSANDRA_NODES} one. Options that are set nowhere keep the driver's
+ * defaults, with the exception of the load balancing, which is always token aware on top of a DC aware round robin:
+ * requests are sent straight to a replica of the partition they touch, on the local data center.
+ *
+ * <ul>
+ *     <li>{@code hawkular-accounts.cassandra-local-dc} / {@code CASSANDRA_LOCAL_DC}: the local data center.
+ *     Defaults to the data center of the contact points.</li>
+ *     <li>{@code hawkular-accounts.cassandra-protocol-version} / {@code CASSANDRA_PROTOCOL_VERSION}: the native
+ *     protocol version, like {@code V3}. Negotiated with the cluster if not set.</li>
+ *     <li>{@code hawkular-accounts.cassandra-compression} / {@code CASSANDRA_COMPRESSION}: {@code NONE},
+ *     {@code LZ4} or {@code SNAPPY}. The library for the chosen algorithm has to be available to the driver.</li>
+ *     <li>{@code hawkular-accounts.cassandra-core-connections} / {@code CASSANDRA_CORE_CONNECTIONS} and
+ *     {@code hawkular-accounts.cassandra-max-connections} / {@code CASSANDRA_MAX_CONNECTIONS}: the connections to
+ *     each host of the local data center. When only one of them is set, the core connections default to one and
+ *     the max connections to the core ones.</li>
+ *     <li>{@code hawkular-accounts.cassandra-max-requests-per-connection} /
+ *     {@code CASSANDRA_MAX_REQUESTS_PER_CONNECTION}: the requests in flight on each connection to a local host.</li>
+ *     <li>{@code hawkular-accounts.cassandra-connect-timeout} / {@code CASSANDRA_CONNECT_TIMEOUT} and
+ *     {@code hawkular-accounts.cassandra-read-timeout} / {@code CASSANDRA_READ_TIMEOUT}: socket timeouts, in
+ *     milliseconds.</li>
+ *     <li>{@code hawkular-accounts.cassandra-speculative-execution-delay} /
+ *     {@code CASSANDRA_SPECULATIVE_EXECUTION_DELAY}: when set, an idempotent statement that hasn't been answered
+ *     after this many milliseconds is also sent to the next host. At most
+ *     {@code hawkular-accounts.cassandra-speculative-executions} / {@code CASSANDRA_SPECULATIVE_EXECUTIONS} extra
+ *     executions are started, one by default.</li>
+ * </ul>
+ *
+ * @author Juraci Paixão Kröhling
+ */
+final class CassandraDriverProfile {
+    private static final String PREFIX = "hawkular-accounts.cassandra-";
+
+    private final String localDc;
+    private final ProtocolVersion protocolVersion;
+    private final ProtocolOptions.Compression compression;
+    private final Integer coreConnections;
+    private final Integer maxConnections;
+    private final Integer maxRequestsPerConnection;
+    private final Integer connectTimeout;
+    private final Integer readTimeout;
+    private final Integer speculativeExecutionDelay;
+    private final int speculativeExecutions;
+
+    /**
+     * @param properties     the system properties, by name
+     * @param environment    the environment variables, by name
+     */
+    CassandraDriverProfile(Function<String, String> properties, Function<String, String> environment) {
+        Function<String, String> options = name -> {
+            String value = properties.apply(PREFIX + name);
+            if (null == value || value.isEmpty()) {
+                value = environment.apply("CASSANDRA_" + name.replace('-', '_').toUpperCase(Locale.ROOT));
+            }
+            return null == value || value.isEmpty() ? null : value.trim();
+        };
+
+        localDc = options.apply("local-dc");
+        protocolVersion = toEnum(ProtocolVersion.class, options.apply("protocol-version"));
+        compression = toEnum(ProtocolOptions.Compression.class, options.apply("compression"));
+        coreConnections = toInteger(options.apply("core-connections"));
+        maxConnections = toInteger(options.apply("max-connections"));
+        maxRequestsPerConnection = toInteger(options.apply("max-requests-per-connection"));
+        connectTimeout = toInteger(options.apply("connect-timeout"));
+        readTimeout = toInteger(options.apply("read-timeout"));
+        speculativeExecutionDelay = toInteger(options.apply("speculative-execution-delay"));
+        Integer executions = toInteger(options.apply("speculative-executions"));
+        speculativeExecutions = null == executions ? 1 : executions;
+    }
+
+    /**
+     * @return the profile from the system properties and environment variables of this JVM
+     */
+    static CassandraDriverProfile fromEnvironment() {
+        return new CassandraDriverProfile(System::getProperty, System::getenv);
+    }
+
+    /**
+     * Applies this profile to the given builder.
+     * @param builder    the builder for the cluster, with the contact points already set
+     * @return the same builder
+     */
+    Cluster.Builder apply(Cluster.Builder builder) {
+        DCAwareRoundRobinPolicy.Builder dcAware = DCAwareRoundRobinPolicy.builder();
+        if (null != localDc) {
+            dcAware.withLocalDc(localDc);
+        }
+        builder.withLoadBalancingPolicy(new TokenAwarePolicy(dcAware.build()));
+
+        if (null != protocolVersion) {
+            builder.withProtocolVersion(protocolVersion);
+        }
+
+        if (null != compression) {
+            builder.withCompression(compression);
+        }
+
+        PoolingOptions pooling = new PoolingOptions();
+        if (null != coreConnections || null != maxConnections) {
+            // both limits are set together, as the driver validates each one against the other
+            int core = null == coreConnections ? 1 : coreConnections;
+            int max = null == maxConnections ? Math.max(core, 1) : maxConnections;
+            pooling.setConnectionsPerHost(HostDistance.LOCAL, core, max);
+        }
+        if (null != maxRequestsPerConnection) {
+            pooling.setMaxRequestsPerConnection(HostDistance.LOCAL, maxRequestsPerConnection);
+        }
+        builder.withPoolingOptions(pooling);
+
+        SocketOptions socket = new SocketOptions();
+        if (null != connectTimeout) {
+            socket.setConnectTimeoutMillis(connectTimeout);
+        }
+        if (null != readTimeout) {
+            socket.setReadTimeoutMillis(readTimeout);
+        }
+        builder.withSocketOptions(socket);
+
+        if (null != speculativeExecutionDelay) {
+            builder.withSpeculativeExecutionPolicy(
+                    new ConstantSpeculativeExecutionPolicy(speculativeExecutionDelay, speculativeExecutions));
+        }
+
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        return "CassandraDriverProfile{" +
+                "localDc=" + localDc +
+                ", protocolVersion=" + protocolVersion +
+                ", compression=" + compression +
+                ", coreConnections=" + coreConnections +
+                ", maxConnections=" + maxConnections +
+                ", maxRequestsPerConnection=" + maxRequestsPerConnection +
+                ", connectTimeout=" + connectTimeout +
+                ", readTimeout=" + readTimeout +
+                ", speculativeExecutionDelay=" + speculativeExecutionDelay +
+                ", speculativeExecutions=" + speculativeExecutions +
+                '}';
+    }
+
+    private static Integer toInteger(String value) {
+        return null == value ? null : Integer.valueOf(value);
+    }
+
+    private static <E extends Enum<E>> E toEnum(Class<E> type, String value) {
+        return null == value ? null : Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+    }
+}
@@ -25,7 +25,6 @@ import org.hawkular.accounts.common.CassandraNodes;
 import org.hawkular.accounts.common.CassandraPort;
 
 import com.datastax.driver.core.Cluster;
-import com.datastax.driver.core.ProtocolVersion;
 import com.datastax.driver.core.Session;
 
 /**
@@ -47,15 +46,22 @@ public class CassandraSessionCallable implements Callable<Session> {
     @Inject @CassandraNodes
     String nodes;
 
+    private CassandraDriverProfile profile;
+
     @Override
     public Session call() throws Exception {
+        // an invalid profile is a configuration error, so, it's read before the attempts and not retried
+        if (null == profile) {
+            profile = CassandraDriverProfile.fromEnvironment();
+            logger.cassandraDriverProfile(profile.toString());
+        }
+
         try {
-            return new Cluster.Builder()
+            Cluster.Builder builder = new Cluster.Builder()
                     .addContactPoints(nodes.split(","))
                     .withPort(new Integer(cqlPort))
-                    .withProtocolVersion(ProtocolVersion.V3)
-                    .withoutJMXReporting()
-                    .build().connect();
+                    .withoutJMXReporting();
+            return profile.apply(builder).build().connect();
         } catch (Exception e) {
             if (attempts != 0) {
                 logger.attemptToConnectToCassandraFailed(attempts, e);
@@ -133,4 +133,28 @@ public interface MsgLogger {
     @LogMessage(level = Logger.Level.TRACE)
     @Message(id = 150023, value = "Attempting to get an offline token for username [%s].")
     void offlineTokenForUsername(String username);
+
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 150024, value = "Cassandra driver profile: [%s]")
+    void cassandraDriverProfile(String profile);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 150025, value = "Loaded the realm's public key, used to verify the tokens locally.")
+    void realmPublicKeyLoaded();
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 150026, value = "Could not verify the token locally.")
+    void couldNotVerifyTokenLocally(@Cause Throwable t);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 150027, value = "Token could not be verified locally, falling back to the introspection endpoint.")
+    void fallingBackToIntrospection();
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 150028, value = "Token verification cache had [%d] hits, [%d] misses and [%d] evictions.")
+    void tokenCacheStatistics(long hits, long misses, long evictions);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = 150029, value = "Latency of the [%s] endpoint of the authentication server: [%s].")
+    void authServerLatency(String endpoint, String histogram);
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.concurrent.ManagedExecutorService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class AuthServerRequestExecutorTest {
+    private static final String REALM = "/auth/realms/hawkular";
+    private static final String INTROSPECT = REALM + "/protocol/openid-connect/token/introspect";
+    private static final String SLOW = REALM + "/slow";
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch slowResponses = new CountDownLatch(1);
+    private HttpServer server;
+    private String baseUrl;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(INTROSPECT, exchange -> {
+            String expected = "Basic " + Base64.getEncoder()
+                    .encodeToString("hawkular:secret".getBytes(StandardCharsets.UTF_8));
+            if (!expected.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                respond(exchange, 401, "{\"error\":\"invalid_client\"}");
+                return;
+            }
+            respond(exchange, 200, "{\"active\":true,\"body\":\"" + read(exchange.getRequestBody()) + "\"}");
+        });
+        server.createContext(SLOW, exchange -> {
+            try {
+                slowResponses.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "slow");
+        });
+        server.createContext(REALM, exchange -> respond(exchange, 200, "{\"realm\":\"hawkular\"}\n"));
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void responseIsReturnedForSuccessAndError() throws Exception {
+        AuthServerRequestExecutor executor = new AuthServerRequestExecutor(2);
+
+        assertEquals("{\"active\":true,\"body\":\"token=abc\"}",
+                executor.execute(baseUrl + INTROSPECT, "token=abc", "hawkular", "secret", "POST"));
+        assertEquals("{\"error\":\"invalid_client\"}",
+                executor.execute(baseUrl + INTROSPECT, "token=abc", "hawkular", "wrong", "POST"));
+        assertEquals("{\"realm\":\"hawkular\"}\n", executor.execute(baseUrl + REALM, "hawkular", "secret", "GET"));
+    }
+
+    @Test
+    public void connectionsAreReused() throws Exception {
+        AuthServerRequestExecutor executor = new AuthServerRequestExecutor(2);
+        for (int i = 0; i < 5; i++) {
+            executor.execute(baseUrl + INTROSPECT, "token=abc", "hawkular", "secret", "POST");
+        }
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void latenciesAreRecordedPerEndpoint() throws Exception {
+        AuthServerRequestExecutor executor = new AuthServerRequestExecutor(2);
+        executor.executeAsync(baseUrl + INTROSPECT, "token=abc", "hawkular", "secret", "POST")
+                .toCompletableFuture()
+                .join();
+        executor.execute(baseUrl + REALM, "hawkular", "secret", "GET");
+        executor.execute(baseUrl + REALM, "hawkular", "secret", "GET");
+
+        assertEquals(1, executor.getLatencyHistogram(AuthServerEndpoint.INTROSPECTION).getCount());
+        assertEquals(2, executor.getLatencyHistogram(AuthServerEndpoint.REALM).getCount());
+        assertEquals(0, executor.getLatencyHistogram(AuthServerEndpoint.TOKEN).getCount());
+    }
+
+    @Test
+    public void asyncCallsWaitForAFreeSlotWithoutTakingExecutorThreads() throws Exception {
+        AuthServerRequestExecutor executor = new AuthServerRequestExecutor(1);
+        AtomicInteger tasks = new AtomicInteger();
+        executor.executor = mock(ManagedExecutorService.class);
+        doAnswer(invocation -> {
+            tasks.incrementAndGet();
+            new Thread((Runnable) invocation.getArguments()[0]).start();
+            return null;
+        }).when(executor.executor).execute(any(Runnable.class));
+
+        CompletableFuture<String> slow = executor.executeAsync(baseUrl + SLOW, null, "hawkular", "secret", "GET")
+                .toCompletableFuture();
+        CompletableFuture<String> queued = executor.executeAsync(baseUrl + REALM, null, "hawkular", "secret", "GET")
+                .toCompletableFuture();
+
+        // only the call holding the single slot has been handed to the executor
+        assertEquals(1, tasks.get());
+        assertFalse(queued.isDone());
+
+        slowResponses.countDown();
+        assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+        assertEquals("{\"realm\":\"hawkular\"}\n", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(2, tasks.get());
+    }
+
+    @Test
+    public void endpointIsDerivedFromTheUrl() {
+        assertEquals(AuthServerEndpoint.INTROSPECTION, AuthServerEndpoint.of(baseUrl + INTROSPECT));
+        assertEquals(AuthServerEndpoint.TOKEN,
+                AuthServerEndpoint.of(baseUrl + REALM + "/protocol/openid-connect/token"));
+        assertEquals(AuthServerEndpoint.REALM, AuthServerEndpoint.of(baseUrl + REALM + "?null"));
+        assertEquals(AuthServerEndpoint.OTHER, AuthServerEndpoint.of(baseUrl + REALM + "/account"));
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        for (int read; (read = in.read(buffer)) != -1;) {
+            body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
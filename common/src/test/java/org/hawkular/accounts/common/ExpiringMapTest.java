@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class ExpiringMapTest {
+
+    @Test
+    public void expiredValueIsRemovedOnLookup() {
+        ExpiringMap<String, Long> map = new ExpiringMap<>(10, expiresAt -> expiresAt);
+        map.put("a", 100L, 0);
+
+        assertEquals(Long.valueOf(100), map.get("a", 99));
+        assertNull(map.get("a", 100));
+        assertEquals(0, map.size());
+        assertEquals(1, map.getEvictions());
+    }
+
+    @Test
+    public void validValueIsKeptOnGetOrPut() {
+        ExpiringMap<String, Long> map = new ExpiringMap<>(10, expiresAt -> expiresAt);
+        Long current = 100L;
+        map.put("a", current, 0);
+
+        assertSame(current, map.getOrPut("a", 200L, 50));
+
+        Long replacement = 300L;
+        assertSame(replacement, map.getOrPut("a", replacement, 150));
+    }
+
+    @Test
+    public void expiredValuesAreSweptFirstOnceFull() {
+        ExpiringMap<String, Long> map = new ExpiringMap<>(10, expiresAt -> expiresAt);
+        for (int i = 0; i < 5; i++) {
+            map.put("expired" + i, 10L, 0);
+        }
+        for (int i = 0; i < 6; i++) {
+            map.put("valid" + i, 100L, 50);
+        }
+
+        assertEquals(6, map.size());
+        assertEquals(5, map.getEvictions());
+    }
+
+    @Test
+    public void valuesClosestToExpireAreSweptOnceFull() {
+        ExpiringMap<String, Long> map = new ExpiringMap<>(10, expiresAt -> expiresAt);
+        for (long i = 0; i < 11; i++) {
+            map.put("value" + i, 100 + i, 0);
+        }
+
+        assertEquals(9, map.size());
+        assertNull(map.get("value0", 0));
+        assertNull(map.get("value1", 0));
+        assertEquals(Long.valueOf(110), map.get("value10", 0));
+    }
+
+    @Test
+    public void mapIsBoundedUnderConcurrentWrites() throws InterruptedException {
+        ExpiringMap<String, Long> map = new ExpiringMap<>(100, expiresAt -> expiresAt);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String prefix = "thread" + t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < 10000; i++) {
+                    map.put(prefix + i, i, 0);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+
+        // puts that happen while another thread is sweeping don't sweep, but the next one does
+        map.put("last", 0L, 0);
+        assertTrue("Map has grown to " + map.size(), map.size() <= 100);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesAreTheUpperBoundsOfTheBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(3, TimeUnit.MILLISECONDS);
+        }
+        histogram.record(40, TimeUnit.MILLISECONDS);
+        histogram.record(20, TimeUnit.SECONDS);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5, histogram.getPercentile(50), 0);
+        assertEquals(50, histogram.getPercentile(99), 0);
+        assertEquals(20000, histogram.getPercentile(100), 0);
+        assertEquals(20000, histogram.getMax(), 0);
+    }
+
+    @Test
+    public void percentileIsNotHigherThanTheMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(600, TimeUnit.MICROSECONDS);
+
+        assertEquals(0.6, histogram.getPercentile(50), 0.001);
+        assertEquals(0.6, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99), 0);
+        assertEquals(0, histogram.getMean(), 0);
+    }
+}
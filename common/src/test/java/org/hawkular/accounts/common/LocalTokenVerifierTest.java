@@ -0,0 +1,216 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class LocalTokenVerifierTest {
+    private static final String ISSUER = "http://localhost:8080/auth/realms/hawkular";
+
+    private static KeyPair realmKey;
+    private static KeyPair otherKey;
+
+    @BeforeClass
+    public static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        realmKey = generator.generateKeyPair();
+        otherKey = generator.generateKeyPair();
+    }
+
+    @Test
+    public void validTokenReturnsTheClaims() throws Exception {
+        LocalTokenVerifier verifier = new LocalTokenVerifier(realmKey::getPublic, () -> ISSUER);
+        JsonObject result = read(verifier.verify(sign(claims(), realmKey.getPrivate())));
+
+        assertTrue(result.getBoolean("active"));
+        assertEquals("jdoe", result.getString("sub"));
+        assertEquals(expiresIn(300), result.getInt("exp"));
+    }
+
+    @Test
+    public void expiredTokenIsRejected() throws Exception {
+        LocalTokenVerifier verifier = new LocalTokenVerifier(realmKey::getPublic, () -> ISSUER);
+        JsonObjectBuilder claims = claims().add("exp", expiresIn(-120));
+
+        assertEquals("Token is expired.", errorOf(verifier.verify(sign(claims, realmKey.getPrivate()))));
+    }
+
+    @Test
+    public void tokenForAnotherAudienceIsRejected() throws Exception {
+        LocalTokenVerifier verifier = new LocalTokenVerifier(realmKey::getPublic, () -> ISSUER,
+                Collections.singleton("hawkular-accounts"), 30, 1, TimeUnit.MINUTES);
+
+        assertEquals("Token is not meant for this audience.",
+                errorOf(verifier.verify(sign(claims(), realmKey.getPrivate()))));
+        assertTrue(read(verifier.verify(sign(claims().add("aud", "hawkular-accounts"), realmKey.getPrivate())))
+                .getBoolean("active"));
+    }
+
+    @Test
+    public void tokenOfAnotherTypeIsRejected() throws Exception {
+        LocalTokenVerifier verifier = new LocalTokenVerifier(realmKey::getPublic, () -> ISSUER);
+
+        assertEquals("Token is not an access token.",
+                errorOf(verifier.verify(sign(claims().add("typ", "Refresh"), realmKey.getPrivate()))));
+        assertEquals("Token is not an access token.",
+                errorOf(verifier.verify(sign(claimsWithout("typ"), realmKey.getPrivate()))));
+    }
+
+    @Test
+    public void tokenFromAnotherRealmIsRejected() throws Exception {
+        LocalTokenVerifier verifier = new LocalTokenVerifier(realmKey::getPublic, () -> ISSUER);
+
+        assertEquals("Token was not issued by this realm.", errorOf(verifier.verify(
+                sign(claims().add("iss", "http://localhost:8080/auth/realms/master"), realmKey.getPrivate()))));
+        assertEquals("Token was not issued by this realm.",
+                errorOf(verifier.verify(sign(claimsWithout("iss"), realmKey.getPrivate()))));
+    }
+
+    @Test
+    public void audienceOfAnotherTypeIsNotAccepted() throws Exception {
+        LocalTokenVerifier verifier = new LocalTokenVerifier(realmKey::getPublic, () -> ISSUER,
+                Collections.singleton("hawkular-accounts"), 30, 1, TimeUnit.MINUTES);
+
+        assertEquals("Token is not meant for this audience.",
+                errorOf(verifier.verify(sign(claims().add("azp", 42), realmKey.getPrivate()))));
+        JsonObjectBuilder claims = claims()
+                .add("azp", 42)
+                .add("aud", Json.createArrayBuilder().add(true).add("hawkular-accounts"));
+        assertTrue(read(verifier.verify(sign(claims, realmKey.getPrivate()))).getBoolean("active"));
+    }
+
+    @Test
+    public void keyIsReloadedWhenTheRealmRotatesIt() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        LocalTokenVerifier verifier = new LocalTokenVerifier(
+                () -> loads.incrementAndGet() == 1 ? realmKey.getPublic() : otherKey.getPublic(), () -> ISSUER,
+                Collections.emptySet(), 30, 0, TimeUnit.MILLISECONDS);
+
+        assertTrue(read(verifier.verify(sign(claims(), realmKey.getPrivate()))).getBoolean("active"));
+        assertTrue(read(verifier.verify(sign(claims(), otherKey.getPrivate()))).getBoolean("active"));
+        assertTrue(read(verifier.verify(sign(claims(), otherKey.getPrivate()))).getBoolean("active"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void forgedTokenIsRejectedWithoutReloadingTheKeyOnEveryToken() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        LocalTokenVerifier verifier = new LocalTokenVerifier(() -> {
+            loads.incrementAndGet();
+            return realmKey.getPublic();
+        }, () -> ISSUER);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Invalid token signature.", errorOf(verifier.verify(sign(claims(), otherKey.getPrivate()))));
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void undecidedWhenTheKeyIsNotAvailable() throws Exception {
+        LocalTokenVerifier verifier = new LocalTokenVerifier(() -> {
+            throw new IllegalStateException("Keycloak is down");
+        }, () -> ISSUER);
+        assertNull(verifier.verify(sign(claims(), realmKey.getPrivate())));
+    }
+
+    @Test
+    public void undecidedForOtherAlgorithms() {
+        LocalTokenVerifier verifier = new LocalTokenVerifier(realmKey::getPublic, () -> ISSUER);
+        String token = encode("{\"alg\":\"HS256\"}") + "." + encode(claims().build().toString()) + ".c2ln";
+        assertNull(verifier.verify(token));
+    }
+
+    @Test
+    public void malformedTokenIsRejected() {
+        LocalTokenVerifier verifier = new LocalTokenVerifier(realmKey::getPublic, () -> ISSUER);
+        assertEquals("Malformed token.", errorOf(verifier.verify("abc123def")));
+        assertEquals("Malformed token.", errorOf(verifier.verify("a.b.c")));
+    }
+
+    private static JsonObjectBuilder claims() {
+        return Json.createObjectBuilder()
+                .add("sub", "jdoe")
+                .add("typ", "Bearer")
+                .add("iss", ISSUER)
+                .add("iat", expiresIn(0))
+                .add("exp", expiresIn(300));
+    }
+
+    private static JsonObjectBuilder claimsWithout(String name) {
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        claims().build().forEach((claim, value) -> {
+            if (!claim.equals(name)) {
+                builder.add(claim, value);
+            }
+        });
+        return builder;
+    }
+
+    private static long expiresIn(long seconds) {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + seconds;
+    }
+
+    private static String sign(JsonObjectBuilder claims, PrivateKey key) throws Exception {
+        String content = encode("{\"alg\":\"RS256\",\"typ\":\"JWT\"}") + "." + encode(claims.build().toString());
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(key);
+        signature.update(content.getBytes(StandardCharsets.US_ASCII));
+        return content + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature.sign());
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String errorOf(String response) {
+        JsonObject json = read(response);
+        assertEquals("invalid_token", json.getString("error"));
+        return json.getString("error_description");
+    }
+
+    private static JsonObject read(String json) {
+        try (JsonReader reader = Json.createReader(new StringReader(json))) {
+            return reader.readObject();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class TokenVerificationCacheTest {
+    private static final String REJECTED = "{\"error\":\"invalid_token\",\"error_description\":\"Token is expired.\"}";
+
+    @Test
+    public void concurrentVerificationsShareTheCall() {
+        TokenVerificationCache cache = new TokenVerificationCache(10, 1, TimeUnit.MINUTES);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> verification = new CompletableFuture<>();
+        Supplier<CompletionStage<String>> loader = () -> {
+            calls.incrementAndGet();
+            return verification;
+        };
+
+        String result = active(300);
+        CompletionStage<String> first = cache.get("abc123def", loader);
+        CompletionStage<String> second = cache.get("abc123def", loader);
+        verification.complete(result);
+
+        assertEquals(result, first.toCompletableFuture().join());
+        assertEquals(result, second.toCompletableFuture().join());
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void activeTokenIsKeptUntilItExpires() {
+        TokenVerificationCache cache = new TokenVerificationCache(10, 1, TimeUnit.MINUTES);
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.get("abc123def", () -> completed(calls, active(300)));
+        cache.get("abc123def", () -> completed(calls, active(300)));
+        assertEquals(1, calls.get());
+
+        cache.get("expired", () -> completed(calls, active(0)));
+        cache.get("expired", () -> completed(calls, active(0)));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void rejectionIsKeptForTheNegativeTtl() throws InterruptedException {
+        TokenVerificationCache cache = new TokenVerificationCache(10, 20, TimeUnit.MILLISECONDS);
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.get("abc123def", () -> completed(calls, REJECTED));
+        cache.get("abc123def", () -> completed(calls, REJECTED));
+        assertEquals(1, calls.get());
+
+        Thread.sleep(30);
+        cache.get("abc123def", () -> completed(calls, REJECTED));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void failureIsNotCached() {
+        TokenVerificationCache cache = new TokenVerificationCache(10, 1, TimeUnit.MINUTES);
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new UsernamePasswordConversionException("Timed out."));
+        cache.get("abc123def", () -> failed);
+
+        String result = active(300);
+        assertEquals(result, cache.get("abc123def", () -> CompletableFuture.completedFuture(result))
+                .toCompletableFuture()
+                .join());
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        TokenVerificationCache cache = new TokenVerificationCache(10, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 100; i++) {
+            cache.get("token-" + i, () -> CompletableFuture.completedFuture(active(300)));
+        }
+        assertTrue(cache.size() <= 10);
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    private static CompletionStage<String> completed(AtomicInteger calls, String result) {
+        calls.incrementAndGet();
+        return CompletableFuture.completedFuture(result);
+    }
+
+    private static String active(long expiresIn) {
+        long exp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + expiresIn;
+        return "{\"active\":true,\"sub\":\"jdoe\",\"exp\":" + exp + "}";
+    }
+}
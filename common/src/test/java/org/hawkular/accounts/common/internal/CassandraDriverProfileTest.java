@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.common.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Configuration;
+import com.datastax.driver.core.HostDistance;
+import com.datastax.driver.core.PoolingOptions;
+import com.datastax.driver.core.ProtocolOptions;
+import com.datastax.driver.core.ProtocolVersion;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class CassandraDriverProfileTest {
+    private final Map<String, String> properties = new HashMap<>();
+    private final Map<String, String> environment = new HashMap<>();
+
+    @Test
+    public void driverDefaultsAreKeptWhenNothingIsSet() {
+        PoolingOptions defaults = new PoolingOptions();
+        PoolingOptions pooling = apply().getPoolingOptions();
+        assertEquals(defaults.getCoreConnectionsPerHost(HostDistance.LOCAL),
+                pooling.getCoreConnectionsPerHost(HostDistance.LOCAL));
+        assertEquals(defaults.getMaxConnectionsPerHost(HostDistance.LOCAL),
+                pooling.getMaxConnectionsPerHost(HostDistance.LOCAL));
+
+        Cluster.Builder builder = mock(Cluster.Builder.class);
+        profile().apply(builder);
+        verify(builder, never()).withProtocolVersion(any(ProtocolVersion.class));
+        verify(builder, never()).withCompression(any(ProtocolOptions.Compression.class));
+    }
+
+    @Test
+    public void coreConnectionsDefaultToOneWhenOnlyTheMaxIsSet() {
+        properties.put("hawkular-accounts.cassandra-max-connections", "4");
+        PoolingOptions pooling = apply().getPoolingOptions();
+
+        assertEquals(1, pooling.getCoreConnectionsPerHost(HostDistance.LOCAL));
+        assertEquals(4, pooling.getMaxConnectionsPerHost(HostDistance.LOCAL));
+    }
+
+    @Test
+    public void maxConnectionsDefaultToTheCoreOnesWhenOnlyTheCoreIsSet() {
+        environment.put("CASSANDRA_CORE_CONNECTIONS", "3");
+        PoolingOptions pooling = apply().getPoolingOptions();
+
+        assertEquals(3, pooling.getCoreConnectionsPerHost(HostDistance.LOCAL));
+        assertEquals(3, pooling.getMaxConnectionsPerHost(HostDistance.LOCAL));
+    }
+
+    @Test
+    public void enumsAreParsedRegardlessOfTheCase() {
+        properties.put("hawkular-accounts.cassandra-protocol-version", "v3");
+        environment.put("CASSANDRA_COMPRESSION", " lz4 ");
+
+        // the compression libraries are not available here, so, the builder can't validate the configuration
+        Cluster.Builder builder = mock(Cluster.Builder.class);
+        profile().apply(builder);
+        verify(builder).withProtocolVersion(ProtocolVersion.V3);
+        verify(builder).withCompression(ProtocolOptions.Compression.LZ4);
+    }
+
+    @Test
+    public void systemPropertyTakesPrecedenceOverTheEnvironment() {
+        properties.put("hawkular-accounts.cassandra-compression", "snappy");
+        environment.put("CASSANDRA_COMPRESSION", "lz4");
+
+        Cluster.Builder builder = mock(Cluster.Builder.class);
+        profile().apply(builder);
+        verify(builder).withCompression(ProtocolOptions.Compression.SNAPPY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownEnumValueIsRejected() {
+        environment.put("CASSANDRA_COMPRESSION", "zip");
+        profile();
+    }
+
+    private CassandraDriverProfile profile() {
+        return new CassandraDriverProfile(properties::get, environment::get);
+    }
+
+    private Configuration apply() {
+        return profile().apply(Cluster.builder().addContactPoint("127.0.0.1")).getConfiguration();
+    }
+}
@@ -18,12 +18,14 @@ package org.hawkular.accounts.sample.websocket.backend;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.concurrent.CompletionException;
 
 import javax.inject.Inject;
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
 import javax.websocket.CloseReason;
+import javax.websocket.OnClose;
 import javax.websocket.OnMessage;
 import javax.websocket.Session;
 import javax.websocket.server.ServerEndpoint;
@@ -37,18 +39,47 @@ public class Socket {
     Authenticator authenticator;
 
     @OnMessage
-    public String onMessage(String message, Session session) throws IOException {
-        authenticate(message, session);
-        JsonReader jsonReader = Json.createReader(new StringReader(message));
-        JsonObject jsonMessage = jsonReader.readObject();
-        return jsonMessage.getString("message");
+    public void onMessage(String message, Session session) {
+        // the authentication happens off the container's thread, and the reply is sent once it's done
+        authenticator.authenticateWithMessageAsync(message, session)
+                .thenAccept(persona -> session.getAsyncRemote().sendText(getMessage(message)))
+                .exceptionally(t -> {
+                    Throwable cause = t instanceof CompletionException ? t.getCause() : t;
+                    if (cause instanceof WebsocketAuthenticationException) {
+                        close(session, cause);
+                    } else {
+                        // not the client's fault, so, the session is kept open
+                        reportError(session, cause);
+                    }
+                    return null;
+                });
     }
 
-    private void authenticate(String message, Session session) throws IOException {
+    @OnClose
+    public void onClose(Session session) {
+        authenticator.sessionClosed(session);
+    }
+
+    private String getMessage(String message) {
+        try (JsonReader jsonReader = Json.createReader(new StringReader(message))) {
+            JsonObject jsonMessage = jsonReader.readObject();
+            return jsonMessage.getString("message");
+        }
+    }
+
+    private void reportError(Session session, Throwable cause) {
+        String error = Json.createObjectBuilder()
+                .add("error", String.valueOf(cause.getLocalizedMessage()))
+                .build()
+                .toString();
+        session.getAsyncRemote().sendText(error);
+    }
+
+    private void close(Session session, Throwable cause) {
         try {
-            authenticator.authenticateWithMessage(message, session);
-        } catch (WebsocketAuthenticationException e) {
-            session.close(new CloseReason(CloseReason.CloseCodes.CLOSED_ABNORMALLY, e.getLocalizedMessage()));
+            session.close(new CloseReason(CloseReason.CloseCodes.CLOSED_ABNORMALLY, cause.getLocalizedMessage()));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
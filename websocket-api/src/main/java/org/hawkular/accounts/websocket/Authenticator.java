@@ -21,9 +21,16 @@ import static org.hawkular.accounts.websocket.internal.AuthenticationMode.MESSAG
 import static org.hawkular.accounts.websocket.internal.AuthenticationMode.TOKEN;
 
 import java.io.StringReader;
-import java.util.HashMap;
 import java.util.Map;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.json.Json;
@@ -40,6 +47,7 @@ import org.hawkular.accounts.common.UsernamePasswordConverter;
 import org.hawkular.accounts.websocket.internal.AuthenticationMode;
 import org.hawkular.accounts.websocket.internal.CachedSession;
 import org.hawkular.accounts.websocket.internal.MsgLogger;
+import org.hawkular.accounts.websocket.internal.SessionCache;
 
 /**
  * Helper integration for Server Web Socket Endpoints. Each message coming to a Web Socket should be passed to this
@@ -53,6 +61,13 @@ import org.hawkular.accounts.websocket.internal.MsgLogger;
  * <li>The current message has no persona in the authentication, or is the same as the original persona.</li>
  * <li>The expiration timestamp for the original token has not elapsed yet.</li>
  * </ul>
+ * Endpoints should call {@link #sessionClosed(Session)} when a session is closed, so that its entry is removed from the
+ * cache right away. See {@link SessionCache} for the size limit and the statistics.
+ * <p>
+ * Each of the authentication methods has an asynchronous variant, which runs the authentication on a managed
+ * executor instead of the Web Socket container's thread. The asynchronous authentications for a session are executed
+ * one after the other, in the order they were requested: a message that arrives while the authentication of a
+ * previous one is still in flight waits for it, and is then usually accepted based on the cached session.
  *
  * @author Juraci Paixão Kröhling
  */
@@ -72,11 +87,19 @@ public class Authenticator {
     @Inject
     UserService userService;
 
+    @Inject
+    SessionCache sessionCache;
+
     /**
-     * Minimalistic cache for sessions.
-     * TODO: convert this into a proper Cache.
+     * The executor to run the asynchronous authentications on. Might be null, when used outside of a container.
      */
-    private Map<String, CachedSession> cachedSessions = new HashMap<>();
+    @Resource
+    ManagedExecutorService executor;
+
+    /**
+     * The last asynchronous authentication requested for each session, while it's not finished yet.
+     */
+    private final Map<String, CompletableFuture<Persona>> inFlight = new ConcurrentHashMap<>();
 
     /**
      * Authenticates the user/persona that sent the message based on either the message itself or based on previous
@@ -94,17 +117,21 @@ public class Authenticator {
      * session.
      */
     public void authenticateWithMessage(String message, Session session) throws WebsocketAuthenticationException {
-        logger.messageBasedAuth();
-        try (JsonReader jsonReader = Json.createReader(new StringReader(message))) {
-            JsonObject jsonMessage = jsonReader.readObject();
-            JsonObject jsonAuth = jsonMessage.getJsonObject("authentication");
-            String personaId = null;
-            if (jsonAuth != null && jsonAuth.containsKey("persona")) {
-                personaId = jsonAuth.getString("persona");
-            }
+        authenticateMessage(message, session);
+    }
 
-            authenticate(MESSAGE, personaId, session, jsonAuth, null, null, null);
-        }
+    /**
+     * Asynchronous version of {@link #authenticateWithMessage(String, Session)}.
+     *
+     * @param message    JSON message with an {@code authentication} object, which should include either a {@code token}
+     *                   object or {@code username} and {@code password}.
+     * @param session    the Web Socket session for this message.
+     * @return a stage that completes with the authenticated persona, or exceptionally with a
+     * {@link WebsocketAuthenticationException} if authentication cannot be inferred from the message nor from the
+     * session.
+     */
+    public CompletionStage<Persona> authenticateWithMessageAsync(String message, Session session) {
+        return authenticateAsync(session, () -> authenticateMessage(message, session));
     }
 
     /**
@@ -121,6 +148,21 @@ public class Authenticator {
         authenticate(TOKEN, personaId, session, null, token, null, null);
     }
 
+    /**
+     * Asynchronous version of {@link #authenticateWithToken(String, String, Session)}.
+     * @param token      the bearer token to be validated
+     * @param session    the Web Socket session
+     * @return a stage that completes with the authenticated persona, or exceptionally with a
+     * {@link WebsocketAuthenticationException} if authentication cannot be inferred from the token nor from the
+     * session.
+     */
+    public CompletionStage<Persona> authenticateWithTokenAsync(String token, String personaId, Session session) {
+        return authenticateAsync(session, () -> {
+            logger.tokenBasedAuth(token, personaId);
+            return authenticate(TOKEN, personaId, session, null, token, null, null);
+        });
+    }
+
     /**
      * Authenticates the user/persona that sent the message based on the credentials or based on previous messages
      * (looked up via the session ID).
@@ -136,7 +178,91 @@ public class Authenticator {
         authenticate(CREDENTIALS, personaId, session, null, null, username, password);
     }
 
-    private void authenticate(
+    /**
+     * Asynchronous version of {@link #authenticateWithCredentials(String, String, String, Session)}.
+     * @param username   the username
+     * @param password   the password
+     * @param session    the Web Socket session
+     * @return a stage that completes with the authenticated persona, or exceptionally with a
+     * {@link WebsocketAuthenticationException} if authentication cannot be inferred from the credentials nor from the
+     * session.
+     */
+    public CompletionStage<Persona> authenticateWithCredentialsAsync(String username, String password,
+                                                                     String personaId, Session session) {
+        return authenticateAsync(session, () -> {
+            logger.credentialsBasedAuth(username);
+            return authenticate(CREDENTIALS, personaId, session, null, null, username, password);
+        });
+    }
+
+    /**
+     * Removes the cached authentication data for the given session. Should be called by the endpoint's
+     * {@code @OnClose} method.
+     * @param session    the Web Socket session that has been closed
+     */
+    public void sessionClosed(Session session) {
+        inFlight.remove(session.getId());
+        sessionCache.remove(session);
+    }
+
+    private CompletionStage<Persona> authenticateAsync(Session session, Callable<Persona> authentication) {
+        String sessionId = session.getId();
+        CompletableFuture<Persona> result = new CompletableFuture<>();
+        CompletableFuture<Persona> previous = inFlight.put(sessionId, result);
+
+        Runnable task = () -> {
+            try {
+                if (!session.isOpen()) {
+                    // closed while this was queued: there's no one to authenticate anymore
+                    throw new WebsocketAuthenticationException("The session has been closed.");
+                }
+                result.complete(authentication.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            } finally {
+                inFlight.remove(sessionId, result);
+            }
+        };
+
+        CompletableFuture<?> turn = CompletableFuture.completedFuture(null);
+        if (null != previous) {
+            // queued behind the authentication of the previous message, regardless of its outcome
+            logger.authenticationQueued(sessionId);
+            turn = previous.handle((persona, t) -> null);
+        }
+
+        turn.thenRunAsync(task, getExecutor()).exceptionally(t -> {
+            // the executor didn't accept the task
+            inFlight.remove(sessionId, result);
+            result.completeExceptionally(t);
+            return null;
+        });
+        return result;
+    }
+
+    private Executor getExecutor() {
+        if (null == executor) {
+            // outside of a container
+            return ForkJoinPool.commonPool();
+        }
+        return executor;
+    }
+
+    private Persona authenticateMessage(String message, Session session) throws WebsocketAuthenticationException {
+        logger.messageBasedAuth();
+        try (JsonReader jsonReader = Json.createReader(new StringReader(message))) {
+            JsonObject jsonMessage = jsonReader.readObject();
+            JsonObject jsonAuth = jsonMessage.getJsonObject("authentication");
+            String personaId = null;
+            if (jsonAuth != null && jsonAuth.containsKey("persona")) {
+                personaId = jsonAuth.getString("persona");
+            }
+
+            return authenticate(MESSAGE, personaId, session, jsonAuth, null, null, null);
+        }
+    }
+
+    private Persona authenticate(
             AuthenticationMode mode,
             String personaId,
             Session session,
@@ -146,13 +272,13 @@ public class Authenticator {
             String password
     ) throws WebsocketAuthenticationException {
         // do we have this session on the cache?
-        CachedSession cachedSession = cachedSessions.get(session.getId());
+        CachedSession cachedSession = sessionCache.get(session);
         boolean isSessionValid = isValid(cachedSession, personaId, token, jsonAuth);
 
         if (isSessionValid) {
             // the session is still valid, so, just return
             logger.sessionInCache(session.getId());
-            return;
+            return cachedSession.getPersona();
         }
 
         try {
@@ -176,12 +302,16 @@ public class Authenticator {
             throw new RuntimeException(e);
         }
 
-        if (null != cachedSession) {
-            this.cachedSessions.putIfAbsent(session.getId(), cachedSession);
-        } else {
+        if (null == cachedSession) {
             // not that I'm trying to be rude, but...
             throw new WebsocketAuthenticationException("No authentication data provided.");
         }
+
+        if (session.isOpen()) {
+            // a session closed during the authentication would otherwise be cached after its removal
+            sessionCache.put(session, cachedSession);
+        }
+        return cachedSession.getPersona();
     }
 
     private CachedSession doAuthenticationWithMessage(String personaId, JsonObject jsonAuth) throws Exception {
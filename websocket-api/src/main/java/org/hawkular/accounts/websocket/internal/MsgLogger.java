@@ -63,4 +63,16 @@ public interface MsgLogger {
     @LogMessage(level = Logger.Level.TRACE)
     @Message(id = 120008, value = "Is the token still within the expiration timestamp (still valid)? [%b]")
     void isTokenStillValid(boolean stillValid);
+
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 120009, value = "Session cache statistics: [%d] entries, [%d] hits, [%d] misses, [%d] evictions.")
+    void sessionCacheStatistics(int size, long hits, long misses, long evictions);
+
+    @LogMessage(level = Logger.Level.TRACE)
+    @Message(id = 120010, value = "Session [%s] was closed and has been removed from the cache.")
+    void sessionRemovedFromCache(String sessionId);
+
+    @LogMessage(level = Logger.Level.TRACE)
+    @Message(id = 120011, value = "Authentication for session [%s] is queued behind the one still in flight.")
+    void authenticationQueued(String sessionId);
 }
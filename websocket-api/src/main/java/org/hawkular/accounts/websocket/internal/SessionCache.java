@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.websocket.internal;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.websocket.Session;
+
+import org.hawkular.accounts.common.ExpiringMap;
+
+/**
+ * Application-wide cache for the authenticated Web Socket sessions, keyed by the session ID.
+ * <p>
+ * An entry is valid only while its Web Socket session is open and until the backing token expires, as reported by
+ * {@link CachedSession#getExpiresAt()}. Entries that are not valid anymore are removed when they are looked up, when
+ * the session is closed and, once the cache is full, by a sweep that also removes the oldest entries if needed.
+ * <p>
+ * The size can be changed with the system property {@code hawkular-accounts.websocket.session-cache.max-size}.
+ *
+ * @author Juraci Paixão Kröhling
+ */
+@ApplicationScoped
+public class SessionCache {
+    private static final String MAX_SIZE = "hawkular-accounts.websocket.session-cache.max-size";
+
+    MsgLogger logger = MsgLogger.LOGGER;
+
+    private final ExpiringMap<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SessionCache() {
+        this(Integer.parseInt(System.getProperty(MAX_SIZE, "10000")));
+    }
+
+    public SessionCache(int maxSize) {
+        this.entries = new ExpiringMap<>(maxSize, Entry::getExpiresAt);
+    }
+
+    /**
+     * Retrieves the cached data for the given Web Socket session. Entries for closed sessions or expired tokens are
+     * removed instead of returned.
+     *
+     * @param session    the Web Socket session
+     * @return the cached session, or null if there's no valid entry for it
+     */
+    public CachedSession get(Session session) {
+        Entry entry = entries.get(session.getId(), System.currentTimeMillis());
+        if (null == entry) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.cachedSession;
+    }
+
+    /**
+     * Stores the data for the given Web Socket session, replacing any previous entry, like the one for a token that
+     * has since been refreshed.
+     *
+     * @param session          the Web Socket session
+     * @param cachedSession    the authentication data for the session
+     */
+    public void put(Session session, CachedSession cachedSession) {
+        entries.put(session.getId(), new Entry(session, cachedSession), System.currentTimeMillis());
+    }
+
+    /**
+     * Removes the entry for the given Web Socket session. Should be called once the session is closed.
+     *
+     * @param session    the Web Socket session
+     */
+    public void remove(Session session) {
+        if (null != entries.remove(session.getId())) {
+            logger.sessionRemovedFromCache(session.getId());
+        }
+    }
+
+    /**
+     * Removes all the cached sessions.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return entries.getEvictions();
+    }
+
+    /**
+     * @return the ratio of lookups that found a valid entry, between 0 and 1
+     */
+    public double getHitRatio() {
+        long found = getHits();
+        long lookups = found + getMisses();
+        return lookups == 0 ? 0 : (double) found / lookups;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void reportStatistics() {
+        logger.sessionCacheStatistics(size(), getHits(), getMisses(), getEvictions());
+    }
+
+    private static final class Entry {
+        private final Session session;
+        private final CachedSession cachedSession;
+
+        private Entry(Session session, CachedSession cachedSession) {
+            this.session = session;
+            this.cachedSession = cachedSession;
+        }
+
+        private long getExpiresAt() {
+            // the entry for a closed session is expired already
+            return session.isOpen() ? cachedSession.getExpiresAt() : 0;
+        }
+    }
+}
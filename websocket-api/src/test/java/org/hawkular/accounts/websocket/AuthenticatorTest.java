@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.accounts.websocket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.enterprise.concurrent.ManagedExecutorService;
+import javax.websocket.Session;
+
+import org.hawkular.accounts.api.UserService;
+import org.hawkular.accounts.api.model.HawkularUser;
+import org.hawkular.accounts.api.model.Persona;
+import org.hawkular.accounts.common.TokenVerifier;
+import org.hawkular.accounts.websocket.internal.SessionCache;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Juraci Paixão Kröhling
+ */
+public class AuthenticatorTest {
+    private final String userId = UUID.randomUUID().toString();
+    private final HawkularUser user = new HawkularUser(userId);
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final Session session = mock(Session.class);
+    private final Authenticator authenticator = new Authenticator();
+
+    @Before
+    public void setup() throws Exception {
+        when(session.getId()).thenReturn("session");
+        when(session.isOpen()).thenReturn(true);
+
+        // the tasks are only run when the test says so, on the test's own thread
+        authenticator.executor = mock(ManagedExecutorService.class);
+        doAnswer(invocation -> tasks.add((Runnable) invocation.getArguments()[0]))
+                .when(authenticator.executor).execute(any(Runnable.class));
+
+        long expiresAt = System.currentTimeMillis() / 1000 + 3600;
+        authenticator.tokenVerifier = mock(TokenVerifier.class);
+        when(authenticator.tokenVerifier.verify(anyString()))
+                .thenReturn("{\"sub\":\"" + userId + "\",\"exp\":" + expiresAt + "}");
+        authenticator.userService = mock(UserService.class);
+        when(authenticator.userService.getOrCreateById(userId)).thenReturn(user);
+        authenticator.sessionCache = new SessionCache(10);
+    }
+
+    @Test
+    public void authenticationWaitsForTheOneInFlight() throws Exception {
+        CompletableFuture<Persona> first = authenticator.authenticateWithTokenAsync("token", null, session)
+                .toCompletableFuture();
+        CompletableFuture<Persona> second = authenticator.authenticateWithTokenAsync("token", null, session)
+                .toCompletableFuture();
+
+        // only the first one has been handed to the executor
+        assertEquals(1, tasks.size());
+        runNextTask();
+        assertSame(user, first.join());
+        assertFalse(second.isDone());
+
+        assertEquals(1, tasks.size());
+        runNextTask();
+        assertSame(user, second.join());
+
+        // the second one has been accepted based on the cached session
+        verify(authenticator.tokenVerifier, times(1)).verify("token");
+    }
+
+    @Test
+    public void closedSessionIsNotAuthenticatedNorCached() throws Exception {
+        CompletableFuture<Persona> queued = authenticator.authenticateWithTokenAsync("token", null, session)
+                .toCompletableFuture();
+        authenticator.sessionClosed(session);
+        when(session.isOpen()).thenReturn(false);
+
+        runNextTask();
+        try {
+            queued.join();
+            fail("The authentication of a closed session should fail");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof WebsocketAuthenticationException);
+        }
+        verify(authenticator.tokenVerifier, never()).verify(anyString());
+        assertEquals(0, authenticator.sessionCache.size());
+    }
+
+    @Test
+    public void closedSessionIsRemovedFromTheQueue() {
+        authenticator.authenticateWithTokenAsync("token", null, session);
+        authenticator.sessionClosed(session);
+
+        // a new session with the same ID doesn't wait for the authentication of the closed one
+        authenticator.authenticateWithTokenAsync("token", null, session);
+        assertEquals(2, tasks.size());
+    }
+
+    @Test
+    public void rejectionByTheExecutorFailsTheAuthentication() {
+        doThrow(new RejectedExecutionException("full")).when(authenticator.executor).execute(any(Runnable.class));
+        CompletableFuture<Persona> rejected = authenticator.authenticateWithTokenAsync("token", null, session)
+                .toCompletableFuture();
+
+        try {
+            rejected.join();
+            fail("The authentication should fail when the executor rejects it");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+
+        // the rejected authentication is not in flight anymore, so, the next one is not queued behind it
+        doAnswer(invocation -> tasks.add((Runnable) invocation.getArguments()[0]))
+                .when(authenticator.executor).execute(any(Runnable.class));
+        authenticator.authenticateWithTokenAsync("token", null, session);
+        assertEquals(1, tasks.size());
+    }
+
+    private void runNextTask() {
+        tasks.remove(0).run();
+    }
+}